@@ -38,7 +38,11 @@ class CommandAction {
 public class CLIHandler {
     public static final String NUMBER = "[0-9]+";
     public static final String IDENTIFIER = "[a-zA-Z 0-9'-''_']+";
+    /** Separates multiple commands given on one input line. */
+    public static final String SEPARATOR = ";";
     List<CommandAction> commands;
+    /** Whether batches stop at the first command that fails. */
+    private boolean stopOnError = false;
 
     public CLIHandler() {
         commands = new ArrayList<>(new ArrayList<>());
@@ -63,10 +67,22 @@ public class CLIHandler {
         ), cmd -> new Command(CommandType.SHOW_STATUS)));
 
 
+        commands.add(new CommandAction(List.of(
+                "show", "metrics"
+        ), cmd -> new Command(CommandType.SHOW_METRICS)));
+
         commands.add(new CommandAction(List.of(
                 "show", "room", IDENTIFIER
         ), cmd -> new ShipCommand(CommandType.SHOW_ROOM, cmd.get(2))));
 
+        commands.add(new CommandAction(List.of(
+                "nearest", "shipyard", IDENTIFIER
+        ), cmd -> new ShipCommand(CommandType.NEAREST_SHIPYARD, cmd.get(2))));
+
+        commands.add(new CommandAction(List.of(
+                "nearest", "store", IDENTIFIER
+        ), cmd -> new ShipCommand(CommandType.NEAREST_STORE, cmd.get(2))));
+
         commands.add(new CommandAction(List.of(
                 "exit"
         ), cmd -> new Command(CommandType.EXIT)));
@@ -114,6 +130,76 @@ public class CLIHandler {
         ioHandler.write("~> ");
         String line = ioHandler.readLine();
 
+        return parseLine(ioHandler, line);
+    }
+
+    /**
+     * Sets whether batches parsed from a single line stop at the first failed command.
+     * @param stopOnError True if the remainder of a batch is skipped once a command fails.
+     */
+    public void setStopOnError(boolean stopOnError) {
+        this.stopOnError = stopOnError;
+    }
+
+    /**
+     * Parses a full input line. A line may carry several commands separated by SEPARATOR
+     * (outside of quotes), in which case every command is parsed up front and returned as a
+     * single CommandBatch. If any command in the line is invalid, nothing is returned.
+     * @param ioHandler Handles IO
+     * @param line The line to parse.
+     * @return The parsed Command, a CommandBatch for multiple commands, or null if invalid.
+     */
+    public Command parseLine(IO ioHandler, String line) {
+        List<String> segments = splitCommands(line);
+        if (segments.size() == 1) {
+            return parseCommand(ioHandler, segments.get(0));
+        }
+        if (segments.isEmpty()) {
+            ioHandler.writeLn("Invalid command.");
+            return null;
+        }
+
+        List<Command> batch = new ArrayList<>(segments.size());
+        for (String segment : segments) {
+            Command command = parseCommand(ioHandler, segment);
+            if (command == null) {
+                return null;
+            }
+            batch.add(command);
+        }
+        return new CommandBatch(batch, stopOnError);
+    }
+
+    /**
+     * Splits a line on SEPARATOR, ignoring separators inside quoted names. Blank commands
+     * (e.g. after a trailing separator) are dropped and each command is trimmed.
+     */
+    static List<String> splitCommands(String line) {
+        List<String> segments = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && line.startsWith(SEPARATOR, i)) {
+                addSegment(segments, line.substring(start, i));
+                start = i + SEPARATOR.length();
+            }
+        }
+        addSegment(segments, line.substring(start));
+        return segments;
+    }
+
+    private static void addSegment(List<String> segments, String segment) {
+        String trimmed = segment.trim();
+        if (!trimmed.isEmpty()) {
+            segments.add(trimmed);
+        }
+    }
+
+    private Command parseCommand(IO ioHandler, String line) {
         boolean quoted = false;
         List<String> quote_tokens = List.of(line.split("\""));
         List<String> tokens = new ArrayList<>();
@@ -164,16 +250,49 @@ public class CLIHandler {
         Command command;
         do {
             command = parseOne(ioHandler);
-            if (command == null) {
-                continue;
-            }
-            if (command.type == CommandType.SHOW_HELP) {
-                ioHandler.writeLn(getHelp());
-                command = null;
+            if (command != null) {
+                command = answerHelp(ioHandler, command);
             }
         } while (command == null);
 
         return command;
     }
-}
 
+    /**
+     * Answers any help requests in a parsed command, as help is handled by the parser rather
+     * than the game.
+     * @param ioHandler Handles IO
+     * @param command A command returned by parseLine.
+     * @return The command without help requests, or null if only help was requested.
+     */
+    public Command answerHelp(IO ioHandler, Command command) {
+        if (command instanceof CommandBatch batch) {
+            return stripHelp(ioHandler, batch);
+        }
+        if (command.type == CommandType.SHOW_HELP) {
+            ioHandler.writeLn(getHelp());
+            return null;
+        }
+        return command;
+    }
+
+    /**
+     * Prints help for any help commands in a batch and removes them from the batch, as help is
+     * answered by the parser rather than the game.
+     * @return The remaining batch, or null if only help was requested.
+     */
+    private Command stripHelp(IO ioHandler, CommandBatch batch) {
+        List<Command> remaining = new ArrayList<>(batch.commands.size());
+        for (Command command : batch.commands) {
+            if (command.type == CommandType.SHOW_HELP) {
+                ioHandler.writeLn(getHelp());
+            } else {
+                remaining.add(command);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return null;
+        }
+        return new CommandBatch(remaining, batch.stopOnError);
+    }
+}
@@ -0,0 +1,19 @@
+package srg.cli.given;
+
+import java.util.List;
+
+/**
+ * A sequence of commands parsed from a single input line, executed in order.
+ */
+public class CommandBatch extends Command {
+    /** The commands in the order they were given. */
+    public final List<Command> commands;
+    /** Whether the rest of the batch is skipped once a command fails. */
+    public final boolean stopOnError;
+
+    public CommandBatch(List<Command> commands, boolean stopOnError) {
+        super(CommandType.BATCH);
+        this.commands = List.copyOf(commands);
+        this.stopOnError = stopOnError;
+    }
+}
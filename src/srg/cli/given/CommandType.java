@@ -1,15 +1,56 @@
 package srg.cli.given;
 
+/**
+ * The kinds of command a player can enter. Each has a stable code, used instead of its ordinal
+ * wherever commands are stored, so adding a type never changes the codes of the others.
+ */
 public enum CommandType {
-    EXIT,
-    SHOW_HELP,
-    SHOW_PORT,
-    SHOW_ACTIONS,
-    SHOW_STATUS,
-    SHOW_ROOM,
-    JUMP_TO,
-    FLY_TO,
-    REPAIR_ROOM,
-    UPGRADE_ROOM,
-    PURCHASE_ITEM,
+    EXIT(0),
+    SHOW_HELP(1),
+    SHOW_PORT(2),
+    SHOW_ACTIONS(3),
+    SHOW_STATUS(4),
+    SHOW_ROOM(5),
+    JUMP_TO(6),
+    FLY_TO(7),
+    REPAIR_ROOM(8),
+    UPGRADE_ROOM(9),
+    PURCHASE_ITEM(10),
+    BATCH(11),
+    SHOW_METRICS(12),
+    NEAREST_SHIPYARD(13),
+    NEAREST_STORE(14);
+
+    /** Each type by code. */
+    private static final CommandType[] BY_CODE = new CommandType[values().length];
+
+    static {
+        for (CommandType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    /** The stable code of this type. */
+    private final int code;
+
+    CommandType(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the stable code of this type, which never changes once assigned.
+     * @return The code, between 0 and the number of types less one.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the type with a code.
+     * @param code The code returned by getCode.
+     * @return The type, or null if no type has the code.
+     */
+    public static CommandType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
 }
@@ -10,6 +10,8 @@ public class IO {
     private String stdout;
     private List<String> inputQueue;
     private List<String> inputRecord;
+    /** Whether lines read are kept in the input record. */
+    private boolean recording = false;
 
     public IO() {
         inputQueue = new LinkedList<>();
@@ -27,12 +29,33 @@ public class IO {
     }
 
     public String readLine() {
+        String line;
         if (inputQueue.isEmpty()) {
             Scanner s = new Scanner(System.in);
-            return s.nextLine();
+            line = s.nextLine();
         } else {
-            return inputQueue.remove(0);
+            line = inputQueue.remove(0);
         }
+        if (recording) {
+            inputRecord.add(line);
+        }
+        return line;
+    }
+
+    /**
+     * Sets whether lines read are kept, so that a session can be recorded. Lines are not kept
+     * by default, as a long session would otherwise grow the record without bound.
+     * @param recording True to keep every line read from now on.
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Returns every line read while recording, in order.
+     */
+    public List<String> getInputRecord() {
+        return inputRecord;
     }
 
     public void addInputLine(String line) {
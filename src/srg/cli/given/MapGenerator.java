@@ -5,13 +5,23 @@ import srg.ports.*;
 import java.util.*;
 
 public class MapGenerator {
+    /** The seed used when no seed is given. */
+    public static final long DEFAULT_SEED = 4;
 
     List<String> names;
     Random rand;
 
     public MapGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a generator whose maps are fully determined by the seed.
+     * @param seed The seed for the generator's Random.
+     */
+    public MapGenerator(long seed) {
         rand = new Random();
-        rand.setSeed(4);
+        rand.setSeed(seed);
 
         names = new ArrayList(List.of(
                 "Las Cyamis e1",
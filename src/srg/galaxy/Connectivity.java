@@ -0,0 +1,301 @@
+package srg.galaxy;
+
+import srg.exceptions.NoPathException;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ship.NavigationRoom;
+import srg.ship.RoomTier;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The connected components of the fly and jump graphs of a galaxy, for every NavigationRoom
+ * tier. Two SpacePorts are in the same FLY component if a Ship can get from one to the other by
+ * flying alone, and in the same JUMP component if it can get there by any mix of flights and
+ * jumps (a jump can cover any distance a flight can). Fuel and room damage are ignored.
+ * <p>
+ * Ports in different components can never reach each other, so a route query between them can
+ * be rejected in constant time instead of searching. Components are kept with union-find:
+ * adding a port merges it with the components of its neighbours, and removing a port marks the
+ * components stale, to be rebuilt on the next query. A rebuild re-adds every port, costing one
+ * neighbour search per port. Relocating a port only marks the components stale if it moves
+ * out of range of a former neighbour; otherwise it just merges with its new neighbours.
+ */
+public class Connectivity {
+    /** The number of travel modes. */
+    private static final int MODES = TravelMode.values().length;
+
+    /** The ports, by slot. Removed ports leave a null slot until the next rebuild. */
+    private final List<SpacePort> slots = new ArrayList<>();
+    /** The slot of each port. */
+    private final Map<SpacePort, Integer> slotOf = new IdentityHashMap<>();
+    /** The components for each (tier, mode) pair, indexed by componentIndex. */
+    private final DisjointSets[] components;
+    /** The range of each (tier, mode) pair, indexed by componentIndex. */
+    private final int[] ranges;
+    /** The largest range of any tier, which bounds every neighbour search. */
+    private final int maximumRange;
+    /** Finds the neighbours of a port. */
+    private final SpatialGrid grid;
+    /** Whether a port has been removed since the components were built. */
+    private boolean stale;
+    /** The number of times the components have been rebuilt. */
+    private int rebuilds;
+
+    /**
+     * Computes the components of a galaxy.
+     * @param galaxyMap The SpacePorts in the galaxy.
+     */
+    public Connectivity(List<SpacePort> galaxyMap) {
+        RoomTier[] tiers = RoomTier.values();
+        components = new DisjointSets[tiers.length * MODES];
+        ranges = new int[components.length];
+        int largest = 0;
+        for (RoomTier tier : tiers) {
+            ranges[componentIndex(tier, TravelMode.FLY)] =
+                    NavigationRoom.getMaximumFlyDistance(tier);
+            ranges[componentIndex(tier, TravelMode.JUMP)] =
+                    NavigationRoom.getMaximumJumpDistance(tier);
+            largest = Math.max(largest, NavigationRoom.getMaximumJumpDistance(tier));
+        }
+        for (int i = 0; i < components.length; i++) {
+            components[i] = new DisjointSets(galaxyMap.size());
+        }
+        maximumRange = largest;
+        grid = new SpatialGrid(maximumRange);
+
+        for (SpacePort port : galaxyMap) {
+            add(port);
+        }
+    }
+
+    /**
+     * Adds a SpacePort, merging its components with those of every port in range.
+     * @param port The SpacePort to add.
+     * @throws IllegalArgumentException If port has already been added.
+     */
+    public void add(SpacePort port) {
+        if (slotOf.containsKey(port)) {
+            throw new IllegalArgumentException("Port has already been added: " + port);
+        }
+        int slot = slots.size();
+        slots.add(port);
+        slotOf.put(port, slot);
+        if (stale) {
+            // The next query rebuilds everything, including this port
+            return;
+        }
+        link(slot);
+    }
+
+    /**
+     * Removes a SpacePort. Removing a port may split its components, so they are rebuilt on the
+     * next query.
+     * @param port The SpacePort to remove.
+     * @return True - if port had been added.
+     */
+    public boolean remove(SpacePort port) {
+        Integer slot = slotOf.remove(port);
+        if (slot == null) {
+            return false;
+        }
+        slots.set(slot, null);
+        stale = true;
+        return true;
+    }
+
+    /**
+     * Updates the components after a SpacePort has moved. If the port is still in range of
+     * every port it was in range of, for every tier and mode, no component can split, so it
+     * keeps its components and is merged with any new neighbours. Otherwise its components
+     * may split, and are rebuilt on the next query.
+     * @param port The SpacePort, already at its new Position.
+     * @param from The SpacePort's Position before it moved.
+     * @throws IllegalArgumentException If port has not been added.
+     */
+    public void relocate(SpacePort port, Position from) {
+        Integer slot = slotOf.get(port);
+        if (slot == null) {
+            throw new IllegalArgumentException("Port has not been added: " + port);
+        }
+        if (stale) {
+            // The next query rebuilds everything at the new Position
+            return;
+        }
+        grid.remove(port, from);
+        Position to = port.getPosition();
+        boolean[] lostNeighbour = {false};
+        grid.forEachWithin(from, maximumRange, other -> {
+            int before = from.distanceTo(other.getPosition());
+            int after = to.distanceTo(other.getPosition());
+            for (int range : ranges) {
+                if (before <= range && after > range) {
+                    lostNeighbour[0] = true;
+                }
+            }
+        });
+        if (lostNeighbour[0]) {
+            stale = true;
+            return;
+        }
+        unionNeighbours(slot);
+    }
+
+    /**
+     * Returns the number of SpacePorts.
+     * @return The number of SpacePorts added and not removed.
+     */
+    public int size() {
+        return slotOf.size();
+    }
+
+    /**
+     * Returns the number of times the components have been rebuilt after removals.
+     * @return The number of rebuilds.
+     */
+    public int getRebuildCount() {
+        return rebuilds;
+    }
+
+    /**
+     * Returns whether a Ship could ever travel between two SpacePorts.
+     * @param from The SpacePort to start from.
+     * @param to The SpacePort to reach.
+     * @param tier The tier of the Ship's NavigationRoom.
+     * @param mode FLY if the Ship may only fly; JUMP if it may fly and jump.
+     * @return True - if both ports are in the galaxy and in the same component.
+     */
+    public boolean isConnected(SpacePort from, SpacePort to, RoomTier tier, TravelMode mode) {
+        // Rebuilding renumbers the slots, so look them up afterwards
+        DisjointSets sets = componentsOf(tier, mode);
+        Integer first = slotOf.get(from);
+        Integer second = slotOf.get(to);
+        if (first == null || second == null) {
+            return false;
+        }
+        return sets.find(first) == sets.find(second);
+    }
+
+    /**
+     * Rejects a route query between SpacePorts that can never reach each other.
+     * @param from The SpacePort to start from.
+     * @param to The SpacePort to reach.
+     * @param tier The tier of the Ship's NavigationRoom.
+     * @param mode FLY if the Ship may only fly; JUMP if it may fly and jump.
+     * @throws NoPathException If either port is not in the galaxy, or they are in different
+     *                         components.
+     */
+    public void checkRoute(SpacePort from, SpacePort to, RoomTier tier, TravelMode mode)
+            throws NoPathException {
+        if (!slotOf.containsKey(from) || !slotOf.containsKey(to)) {
+            throw new NoPathException("The specified SpacePort does not exist.");
+        }
+        if (!isConnected(from, to, tier, mode)) {
+            throw new NoPathException(String.format("No %s path from %s to %s.",
+                    mode.name().toLowerCase(), from.getName(), to.getName()));
+        }
+    }
+
+    /**
+     * Returns the number of components.
+     * @param tier The tier of the Ship's NavigationRoom.
+     * @param mode FLY if the Ship may only fly; JUMP if it may fly and jump.
+     * @return The number of disjoint groups of SpacePorts.
+     */
+    public int getComponentCount(RoomTier tier, TravelMode mode) {
+        return componentsOf(tier, mode).sets();
+    }
+
+    /**
+     * Returns the SpacePorts in the same component as a SpacePort, including itself.
+     * @param port The SpacePort to look up.
+     * @param tier The tier of the Ship's NavigationRoom.
+     * @param mode FLY if the Ship may only fly; JUMP if it may fly and jump.
+     * @return The SpacePorts in the component, in the order they were added, or an empty list
+     *         if port is not in the galaxy.
+     */
+    public List<SpacePort> getComponent(SpacePort port, RoomTier tier, TravelMode mode) {
+        List<SpacePort> component = new ArrayList<>();
+        DisjointSets sets = componentsOf(tier, mode);
+        Integer slot = slotOf.get(port);
+        if (slot == null) {
+            return component;
+        }
+        int root = sets.find(slot);
+        for (int i = 0; i < slots.size(); i++) {
+            if (sets.find(i) == root) {
+                component.add(slots.get(i));
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Returns the components for a tier and mode, rebuilding them first if they are stale.
+     */
+    private DisjointSets componentsOf(RoomTier tier, TravelMode mode) {
+        if (stale) {
+            rebuild();
+        }
+        return components[componentIndex(tier, mode)];
+    }
+
+    /**
+     * Compacts the slots to drop removed ports and recomputes every component.
+     */
+    private void rebuild() {
+        List<SpacePort> ports = new ArrayList<>(slotOf.size());
+        for (SpacePort port : slots) {
+            if (port != null) {
+                ports.add(port);
+            }
+        }
+        slots.clear();
+        slotOf.clear();
+        grid.clear();
+        for (DisjointSets sets : components) {
+            sets.clear();
+        }
+        stale = false;
+        for (SpacePort port : ports) {
+            add(port);
+        }
+        rebuilds++;
+    }
+
+    /**
+     * Indexes the port in a slot, and unions it with every port in range for each tier and
+     * mode. One grid query at the largest range serves all of them.
+     */
+    private void link(int slot) {
+        for (DisjointSets sets : components) {
+            sets.add();
+        }
+        unionNeighbours(slot);
+    }
+
+    /**
+     * Unions the port in a slot with every port in range for each tier and mode, and indexes
+     * it at its Position.
+     */
+    private void unionNeighbours(int slot) {
+        SpacePort port = slots.get(slot);
+        grid.forEachWithin(port.getPosition(), maximumRange, other -> {
+            int distance = port.getPosition().distanceTo(other.getPosition());
+            int otherSlot = slotOf.get(other);
+            for (int i = 0; i < components.length; i++) {
+                if (distance <= ranges[i]) {
+                    components[i].union(slot, otherSlot);
+                }
+            }
+        });
+        grid.add(port);
+    }
+
+    private static int componentIndex(RoomTier tier, TravelMode mode) {
+        return tier.ordinal() * MODES + mode.ordinal();
+    }
+}
@@ -0,0 +1,96 @@
+package srg.galaxy;
+
+import java.util.Arrays;
+
+/**
+ * Union-find over the integers 0 to capacity - 1, with union by size and path halving, so
+ * find and union take near-constant amortised time.
+ */
+final class DisjointSets {
+    /** The parent of each element; roots are their own parent. */
+    private int[] parent;
+    /** The number of elements in each root's set. */
+    private int[] size;
+    /** The number of elements added. */
+    private int count;
+    /** The number of disjoint sets. */
+    private int sets;
+
+    /**
+     * Constructs an empty structure.
+     * @param capacity The number of elements to allocate space for.
+     */
+    DisjointSets(int capacity) {
+        parent = new int[Math.max(capacity, 4)];
+        size = new int[parent.length];
+    }
+
+    /**
+     * Adds a new element in a set of its own.
+     * @return The new element.
+     */
+    int add() {
+        if (count == parent.length) {
+            parent = Arrays.copyOf(parent, count * 2);
+            size = Arrays.copyOf(size, count * 2);
+        }
+        parent[count] = count;
+        size[count] = 1;
+        sets++;
+        return count++;
+    }
+
+    /**
+     * Returns the number of elements added.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of disjoint sets.
+     */
+    int sets() {
+        return sets;
+    }
+
+    /**
+     * Returns the representative of an element's set.
+     */
+    int find(int element) {
+        while (parent[element] != element) {
+            parent[element] = parent[parent[element]];
+            element = parent[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets of two elements.
+     * @return True - if the elements were in different sets.
+     */
+    boolean union(int first, int second) {
+        int a = find(first);
+        int b = find(second);
+        if (a == b) {
+            return false;
+        }
+        if (size[a] < size[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+        sets--;
+        return true;
+    }
+
+    /**
+     * Removes every element.
+     */
+    void clear() {
+        count = 0;
+        sets = 0;
+    }
+}
@@ -0,0 +1,126 @@
+package srg.galaxy;
+
+import srg.ports.Position;
+import srg.ports.ShipYard;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.NavigationRoom;
+import srg.ship.RoomKind;
+import srg.ship.RoomTier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Finds the nearest SpacePorts of a kind, such as the nearest ShipYard that can upgrade a
+ * NavigationRoom or the nearest Store with HYPERDRIVE_COREs in stock, without scanning the
+ * galaxy map. Each kind (the exact class of a port) has its own KineticIndex, so queries only
+ * look at ports of the kind asked for, and are evaluated at a simulation time.
+ * <p>
+ * A port's Position or Trajectory must not change while it is in the index; remove and re-add
+ * it instead, as Galaxy.relocate does.
+ */
+public class FacilityIndex {
+    /** The side length of each cell; one basic jump, the usual distance between clusters. */
+    private static final int CELL_SIZE = NavigationRoom.getMaximumJumpDistance(RoomTier.BASIC);
+
+    /** The index of each kind of port, by exact class. */
+    private final Map<Class<?>, KineticIndex> kinds = new HashMap<>();
+
+    /**
+     * Constructs an index of the given ports.
+     * @param ports The ports to index.
+     */
+    public FacilityIndex(List<? extends SpacePort> ports) {
+        for (SpacePort port : ports) {
+            add(port);
+        }
+    }
+
+    /**
+     * Adds a port.
+     * @param port The port to add.
+     */
+    public void add(SpacePort port) {
+        kinds.computeIfAbsent(port.getClass(), kind -> new KineticIndex(CELL_SIZE, List.of()))
+                .add(port);
+    }
+
+    /**
+     * Removes a port.
+     * @param port The port to remove.
+     * @return True - if the port was in the index.
+     */
+    public boolean remove(SpacePort port) {
+        KineticIndex index = kinds.get(port.getClass());
+        return index != null && index.remove(port);
+    }
+
+    /**
+     * Returns the k ports of a kind nearest to a point that pass a filter.
+     * @param kind The exact class of port to find, e.g. ShipYard.class.
+     * @param centre The point to search around.
+     * @param time The simulation time to evaluate Positions at.
+     * @param count The most ports to return (k).
+     * @param filter Which ports of the kind to consider.
+     * @param <T> The kind of port.
+     * @return Up to count matching ports, nearest first, with ties going to the
+     *         lexicographically smallest name.
+     */
+    public <T extends SpacePort> List<T> nearest(Class<T> kind, Position centre, long time,
+                                                 int count, Predicate<? super T> filter) {
+        List<T> nearest = new ArrayList<>();
+        KineticIndex index = kinds.get(kind);
+        if (index != null) {
+            for (SpacePort port : index.nearest(centre, time, count,
+                    port -> filter.test(kind.cast(port)))) {
+                nearest.add(kind.cast(port));
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Returns the nearest ShipYard that can upgrade a kind of Room.
+     * @param centre The point to search around.
+     * @param time The simulation time to evaluate Positions at.
+     * @param roomName The Room class name, e.g. "NavigationRoom".
+     * @return The nearest such ShipYard, or null if there is none.
+     */
+    public ShipYard nearestShipYard(Position centre, long time, String roomName) {
+        RoomKind kind = RoomKind.fromName(roomName);
+        return kind == null ? null : nearestShipYard(centre, time, kind);
+    }
+
+    /**
+     * Returns the nearest ShipYard that can upgrade a kind of Room.
+     * @param centre The point to search around.
+     * @param time The simulation time to evaluate Positions at.
+     * @param kind The kind of Room.
+     * @return The nearest such ShipYard, or null if there is none.
+     */
+    public ShipYard nearestShipYard(Position centre, long time, RoomKind kind) {
+        int mask = kind.mask();
+        List<ShipYard> found = nearest(ShipYard.class, centre, time, 1,
+                shipYard -> (shipYard.getUpgradeMask() & mask) != 0);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Returns the nearest Store with at least some of an item in stock.
+     * @param centre The point to search around.
+     * @param time The simulation time to evaluate Positions at.
+     * @param item The short string representation of the item name.
+     * @param minimumStock The least stock of item to accept; at least 1.
+     * @return The nearest such Store, or null if there is none.
+     */
+    public Store nearestStore(Position centre, long time, String item, int minimumStock) {
+        int minimum = Math.max(1, minimumStock);
+        List<Store> found = nearest(Store.class, centre, time, 1,
+                store -> store.getStock(item) >= minimum);
+        return found.isEmpty() ? null : found.get(0);
+    }
+}
@@ -0,0 +1,418 @@
+package srg.galaxy;
+
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Trajectory;
+import srg.ship.NavigationRoom;
+import srg.ship.RoomTier;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * A galaxy map whose SpacePorts can be added, removed and relocated while it is in use. It is a
+ * List, so it can be used anywhere a galaxy map is, but it also keeps name, index, spatial,
+ * facility and connectivity indexes that are updated incrementally as the map changes, and notifies
+ * GalaxyListeners (such as NavigationRooms) so they can keep their own state valid.
+ * <p>
+ * SpacePort names must be unique, and each SpacePort may appear only once. The Galaxy also
+ * holds the SimulationClock shared by every Ship navigating it.
+ */
+public class Galaxy extends AbstractList<SpacePort> implements RandomAccess {
+    /** The ports, in map order. */
+    private final List<SpacePort> ports = new ArrayList<>();
+    /** Each port by name. */
+    private final Map<String, SpacePort> byName = new HashMap<>();
+    /** The index of each port in ports. */
+    private final Map<SpacePort, Integer> indices = new IdentityHashMap<>();
+    /** Finds ports by Position, in cells one maximum jump across. */
+    private final SpatialGrid grid =
+            new SpatialGrid(NavigationRoom.getMaximumJumpDistance(RoomTier.PRIME));
+    /** Finds the ports within range of a port at a simulation time, following Trajectories. */
+    private final KineticIndex kinetic =
+            new KineticIndex(NavigationRoom.getMaximumJumpDistance(RoomTier.PRIME), List.of());
+    /** Finds the nearest ports of each kind. */
+    private final FacilityIndex facilities = new FacilityIndex(List.of());
+    /** The fly and jump components of the ports. */
+    private final Connectivity connectivity = new Connectivity(List.of());
+    /**
+     * The listeners to notify of changes. Listeners are held weakly, so a NavigationRoom that
+     * is no longer used does not stay registered.
+     */
+    private final List<WeakReference<GalaxyListener>> listeners = new ArrayList<>();
+    /** The simulation time of every Ship navigating this Galaxy. */
+    private final SimulationClock clock = new SimulationClock();
+    /** The number of ports on a Trajectory, which Connectivity does not follow. */
+    private int movingPorts;
+    /** Incremented on every change, including relocation. */
+    private int version;
+
+    /**
+     * Constructs an empty Galaxy.
+     */
+    public Galaxy() {
+    }
+
+    /**
+     * Constructs a Galaxy holding the given ports, in order.
+     * @param ports The ports to add.
+     * @throws IllegalArgumentException If two ports have the same name.
+     */
+    public Galaxy(Collection<? extends SpacePort> ports) {
+        for (SpacePort port : ports) {
+            add(port);
+        }
+    }
+
+    /**
+     * Returns the clock of this Galaxy, which every NavigationRoom using it shares.
+     * @return The Galaxy's simulation clock.
+     */
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    @Override
+    public SpacePort get(int index) {
+        return ports.get(index);
+    }
+
+    @Override
+    public int size() {
+        return ports.size();
+    }
+
+    /**
+     * Returns the index of a port, in constant time.
+     * @param port The port to find.
+     * @return The index of port, or -1 if it is not in this Galaxy.
+     */
+    @Override
+    public int indexOf(Object port) {
+        Integer index = indices.get(port);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public int lastIndexOf(Object port) {
+        return indexOf(port);
+    }
+
+    @Override
+    public boolean contains(Object port) {
+        return indices.containsKey(port);
+    }
+
+    /**
+     * Inserts a port. Ports from index on move up by one.
+     * @param index The index to insert at.
+     * @param port The port to insert.
+     * @throws IllegalArgumentException If port is already in this Galaxy, or another port has
+     *                                  its name.
+     */
+    @Override
+    public void add(int index, SpacePort port) {
+        if (indices.containsKey(port)) {
+            throw new IllegalArgumentException("Port is already in the galaxy: " + port);
+        }
+        if (byName.containsKey(port.getName())) {
+            throw new IllegalArgumentException("Port name is already in use: " + port.getName());
+        }
+        ports.add(index, port);
+        byName.put(port.getName(), port);
+        reindexFrom(index);
+        grid.add(port);
+        index(port);
+        connectivity.add(port);
+        changed();
+
+        for (GalaxyListener listener : liveListeners()) {
+            listener.portAdded(index, port);
+        }
+    }
+
+    /**
+     * Removes the port at an index. Ports after it move down by one. Removing a port may split
+     * its connectivity components, so the next connectivity query rebuilds them, at the cost of
+     * one neighbour search per port.
+     * @param index The index of the port to remove.
+     * @return The removed port.
+     */
+    @Override
+    public SpacePort remove(int index) {
+        SpacePort port = ports.remove(index);
+        byName.remove(port.getName());
+        indices.remove(port);
+        reindexFrom(index);
+        grid.remove(port);
+        unindex(port);
+        connectivity.remove(port);
+        changed();
+
+        for (GalaxyListener listener : liveListeners()) {
+            listener.portRemoved(index, port);
+        }
+        return port;
+    }
+
+    /**
+     * Replaces the port at an index in place, so the other ports keep their indexes and a
+     * NavigationRoom docked there is docked at the new port.
+     * @param index The index of the port to replace.
+     * @param port The new port.
+     * @return The replaced port.
+     * @throws IllegalArgumentException If port is already in this Galaxy, or another port
+     *                                  than the one replaced has its name.
+     */
+    @Override
+    public SpacePort set(int index, SpacePort port) {
+        SpacePort old = ports.get(index);
+        if (indices.containsKey(port)) {
+            throw new IllegalArgumentException("Port is already in the galaxy: " + port);
+        }
+        SpacePort named = byName.get(port.getName());
+        if (named != null && named != old) {
+            throw new IllegalArgumentException("Port name is already in use: " + port.getName());
+        }
+        grid.remove(old);
+        unindex(old);
+        byName.remove(old.getName());
+        indices.remove(old);
+        ports.set(index, port);
+        byName.put(port.getName(), port);
+        indices.put(port, index);
+        connectivity.remove(old);
+        grid.add(port);
+        index(port);
+        connectivity.add(port);
+        changed();
+
+        for (GalaxyListener listener : liveListeners()) {
+            listener.portReplaced(index, old, port);
+        }
+        return old;
+    }
+
+    /**
+     * Moves a port to a new Position, making it stationary, and updates the spatial and
+     * connectivity indexes. A move that keeps the port in range of all its former neighbours
+     * only merges components; one that leaves a neighbour out of range costs a rebuild on the
+     * next connectivity query, as remove does.
+     * @param port The port to move.
+     * @param position The new Position.
+     * @throws IllegalArgumentException If port is not in this Galaxy.
+     */
+    public void relocate(SpacePort port, Position position) {
+        move(port, () -> port.setPosition(position));
+    }
+
+    /**
+     * Sets how a port moves, and updates the indexes as relocate does. Ports in a Galaxy must
+     * be given a Trajectory this way rather than with SpacePort.setTrajectory, which the
+     * indexes would not see.
+     * @param port The port to set the Trajectory of.
+     * @param trajectory The new Trajectory, or null to keep the port stationary at its
+     *                   Position at time 0.
+     * @throws IllegalArgumentException If port is not in this Galaxy.
+     */
+    public void setTrajectory(SpacePort port, Trajectory trajectory) {
+        move(port, () -> port.setTrajectory(trajectory));
+    }
+
+    /**
+     * Changes where a port is, taking it out of the indexes while it changes.
+     */
+    private void move(SpacePort port, Runnable change) {
+        int index = indexOf(port);
+        if (index < 0) {
+            throw new IllegalArgumentException("Port is not in the galaxy: " + port);
+        }
+        Position from = port.getPosition();
+        grid.remove(port, from);
+        unindex(port);
+        change.run();
+        grid.add(port);
+        index(port);
+        connectivity.relocate(port, from);
+        changed();
+
+        for (GalaxyListener listener : liveListeners()) {
+            listener.portMoved(index, port, from);
+        }
+    }
+
+    /**
+     * Adds a port to the kinetic and facility indexes, and counts it if it is moving.
+     */
+    private void index(SpacePort port) {
+        kinetic.add(port);
+        facilities.add(port);
+        if (port.getTrajectory() != null) {
+            movingPorts++;
+        }
+    }
+
+    /**
+     * Removes a port from the kinetic and facility indexes, and stops counting it if it is
+     * moving. Must be called before the port's Position or Trajectory changes.
+     */
+    private void unindex(SpacePort port) {
+        kinetic.remove(port);
+        facilities.remove(port);
+        if (port.getTrajectory() != null) {
+            movingPorts--;
+        }
+    }
+
+    /**
+     * Returns the port with a name, in constant time.
+     * @param name The name of the port.
+     * @return The port, or null if there is none.
+     */
+    public SpacePort get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Returns the port nearest to a Position.
+     * @param position The Position to search around.
+     * @return The nearest port, or null if this Galaxy is empty.
+     */
+    public SpacePort nearest(Position position) {
+        return grid.nearest(position, port -> true);
+    }
+
+    /**
+     * Returns the port nearest to a Position that passes a filter.
+     * @param position The Position to search around.
+     * @param filter Which ports to consider.
+     * @return The nearest matching port, or null if none match.
+     */
+    public SpacePort nearest(Position position, Predicate<SpacePort> filter) {
+        return grid.nearest(position, filter);
+    }
+
+    /**
+     * Returns the ports within a distance of a Position.
+     * @param position The Position to search around.
+     * @param radius The maximum distance, inclusive.
+     * @return The ports found, in no particular order.
+     */
+    public List<SpacePort> within(Position position, int radius) {
+        return grid.within(position, radius);
+    }
+
+    /**
+     * Returns every other port within a distance of a port at a simulation time, e.g. the
+     * ports a Ship docked there could fly or jump to.
+     * @param from The port to search around.
+     * @param radius The maximum distance, inclusive.
+     * @param time The simulation time to evaluate Positions at.
+     * @return The ports found, excluding from, in no particular order.
+     */
+    public List<SpacePort> inRangeOf(SpacePort from, int radius, long time) {
+        return kinetic.inRangeOf(from, radius, time);
+    }
+
+    /**
+     * Returns the per-kind nearest-port index of this Galaxy, which is kept up to date as it
+     * changes.
+     * @return The Galaxy's facility index.
+     */
+    public FacilityIndex getFacilities() {
+        return facilities;
+    }
+
+    /**
+     * Returns the fly and jump components of this Galaxy, which are kept up to date as it
+     * changes.
+     * @return The Galaxy's connectivity.
+     */
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    /**
+     * Returns whether a route between two SpacePorts might exist, in constant time with the
+     * Galaxy's Connectivity, so route searches can skip ports that can never be reached.
+     * Connectivity uses each port's Position, so while any port is on a Trajectory every
+     * route might exist.
+     * @param from The SpacePort to start from.
+     * @param to The SpacePort to reach.
+     * @param tier The tier of the Ship's NavigationRoom.
+     * @param mode FLY if the Ship may only fly; JUMP if it may fly and jump.
+     * @return False - if no route between the ports can exist.
+     */
+    public boolean mayConnect(SpacePort from, SpacePort to, RoomTier tier, TravelMode mode) {
+        return movingPorts > 0 || connectivity.isConnected(from, to, tier, mode);
+    }
+
+    /**
+     * Returns a number that changes whenever a port is added, removed or relocated. Structures
+     * derived from this Galaxy, such as a Reachability, are stale once it changes.
+     * @return The current version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Registers a listener to be notified of changes. The listener is held weakly, so the
+     * caller must keep a reference to it for as long as it should be notified.
+     * @param listener The listener to add.
+     */
+    public void addListener(GalaxyListener listener) {
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    /**
+     * Stops notifying a listener of changes.
+     * @param listener The listener to remove.
+     */
+    public void removeListener(GalaxyListener listener) {
+        listeners.removeIf(reference -> {
+            GalaxyListener registered = reference.get();
+            return registered == null || registered == listener;
+        });
+    }
+
+    /**
+     * Updates the index of every port from start on.
+     */
+    private void reindexFrom(int start) {
+        for (int i = start; i < ports.size(); i++) {
+            indices.put(ports.get(i), i);
+        }
+    }
+
+    private void changed() {
+        version++;
+        modCount++;
+    }
+
+    /**
+     * Returns the listeners that are still reachable, dropping those that have been collected.
+     */
+    private List<GalaxyListener> liveListeners() {
+        List<GalaxyListener> live = new ArrayList<>(listeners.size());
+        Iterator<WeakReference<GalaxyListener>> references = listeners.iterator();
+        while (references.hasNext()) {
+            GalaxyListener listener = references.next().get();
+            if (listener == null) {
+                references.remove();
+            } else {
+                live.add(listener);
+            }
+        }
+        return live;
+    }
+}
@@ -0,0 +1,120 @@
+package srg.galaxy;
+
+import srg.ports.SpacePort;
+import srg.ship.NavigationRoom;
+import srg.ship.RoomTier;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The travel graph of a galaxy for a NavigationRoom tier, in compressed sparse row form. Port i
+ * has an edge to every other port within jump distance; the edges of each port are sorted by
+ * distance, so its edges within fly distance are a prefix of them.
+ */
+final class GalaxyGraph {
+    /** The ports, in galaxy map order. Ports are identified by their index in this list. */
+    final List<SpacePort> ports;
+    /** The maximum fly distance of the tier. */
+    final int flyRange;
+    /** The maximum jump distance of the tier. */
+    final int jumpRange;
+    /** The edges of port i are edgeStart[i] (inclusive) to edgeStart[i + 1] (exclusive). */
+    final int[] edgeStart;
+    /** The fly-range edges of port i are edgeStart[i] to flyEnd[i] (exclusive). */
+    final int[] flyEnd;
+    /** The index of the port each edge leads to. */
+    final int[] target;
+    /** The distance (and so the TRITIUM needed to fly) along each edge. */
+    final int[] distance;
+    /** The index of each port. */
+    private final Map<SpacePort, Integer> indices;
+
+    /**
+     * Builds the graph of a galaxy for a NavigationRoom tier.
+     * @param ports The ports in the galaxy.
+     * @param tier The tier, which determines the fly and jump distances.
+     */
+    GalaxyGraph(List<SpacePort> ports, RoomTier tier) {
+        this.ports = List.copyOf(ports);
+        this.flyRange = NavigationRoom.getMaximumFlyDistance(tier);
+        this.jumpRange = NavigationRoom.getMaximumJumpDistance(tier);
+        int count = this.ports.size();
+
+        indices = new IdentityHashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            indices.put(this.ports.get(i), i);
+        }
+
+        SpatialGrid grid = new SpatialGrid(jumpRange, this.ports);
+        long[][] edges = new long[count][];
+        int edgeCount = 0;
+        long[] scratch = new long[16];
+        for (int i = 0; i < count; i++) {
+            SpacePort from = this.ports.get(i);
+            int[] found = {0};
+            long[][] buffer = {scratch};
+            grid.forEachWithin(from.getPosition(), jumpRange, to -> {
+                if (to != from) {
+                    if (found[0] == buffer[0].length) {
+                        buffer[0] = Arrays.copyOf(buffer[0], found[0] * 2);
+                    }
+                    long dist = from.getPosition().distanceTo(to.getPosition());
+                    // Sort edges by distance, then by port index
+                    buffer[0][found[0]++] = dist << 32 | indices.get(to);
+                }
+            });
+            scratch = buffer[0];
+            edges[i] = Arrays.copyOf(scratch, found[0]);
+            Arrays.sort(edges[i]);
+            edgeCount += found[0];
+        }
+
+        edgeStart = new int[count + 1];
+        flyEnd = new int[count];
+        target = new int[edgeCount];
+        distance = new int[edgeCount];
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            edgeStart[i] = next;
+            flyEnd[i] = next;
+            for (long edge : edges[i]) {
+                target[next] = (int) edge;
+                distance[next] = (int) (edge >>> 32);
+                if (distance[next] <= flyRange) {
+                    flyEnd[i] = next + 1;
+                }
+                next++;
+            }
+        }
+        edgeStart[count] = next;
+    }
+
+    /**
+     * Returns the number of ports in the graph.
+     */
+    int size() {
+        return ports.size();
+    }
+
+    /**
+     * Returns the index of a port.
+     * @throws IllegalArgumentException If the port is not in the graph.
+     */
+    int indexOf(SpacePort port) {
+        Integer index = indices.get(port);
+        if (index == null) {
+            throw new IllegalArgumentException("Port is not in the galaxy: " + port);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the end (exclusive) of the edges of port i usable in a travel mode.
+     */
+    int edgeEnd(int i, TravelMode mode) {
+        return mode == TravelMode.FLY ? flyEnd[i] : edgeStart[i + 1];
+    }
+}
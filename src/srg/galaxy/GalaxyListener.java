@@ -0,0 +1,46 @@
+package srg.galaxy;
+
+import srg.ports.Position;
+import srg.ports.SpacePort;
+
+/**
+ * Notified when the SpacePorts of a Galaxy change, after the change has been made.
+ */
+public interface GalaxyListener {
+    /**
+     * Called when a SpacePort is added.
+     * @param index The index of the new port. Ports from this index on have moved up by one.
+     * @param port The new port.
+     */
+    default void portAdded(int index, SpacePort port) {
+    }
+
+    /**
+     * Called when a SpacePort is removed.
+     * @param index The index the port had. Ports after it have moved down by one.
+     * @param port The removed port.
+     */
+    default void portRemoved(int index, SpacePort port) {
+    }
+
+    /**
+     * Called when the SpacePort at an index is replaced by another, which keeps its index.
+     * By default, this is treated as the old port being removed and the new one added.
+     * @param index The index of both ports.
+     * @param old The replaced port.
+     * @param port The new port.
+     */
+    default void portReplaced(int index, SpacePort old, SpacePort port) {
+        portRemoved(index, old);
+        portAdded(index, port);
+    }
+
+    /**
+     * Called when a SpacePort is moved to a new Position.
+     * @param index The index of the port, which is unchanged.
+     * @param port The moved port.
+     * @param from The Position the port was moved from.
+     */
+    default void portMoved(int index, SpacePort port, Position from) {
+    }
+}
@@ -0,0 +1,217 @@
+package srg.galaxy;
+
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Trajectory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Answers "which SpacePorts are within distance r of a point at time t" for galaxies with
+ * moving SpacePorts, without rebuilding an index every tick.
+ * <p>
+ * Stationary ports are kept in an ordinary SpatialGrid. Moving ports are kept in a loose grid
+ * of their Positions at the time it was built: a port can have moved at most
+ * maximumSpeed * |t - built| (plus rounding) since then, so a query at time t searches that much
+ * further and then checks each candidate's exact Position at t. Once that expansion would
+ * exceed a cell, the loose grid is rebuilt at the query time.
+ * <p>
+ * A port's Trajectory must not change while it is in the index; remove and re-add it instead.
+ */
+public class KineticIndex {
+    /** Allows for rounding of Positions on a Trajectory, see Trajectory.getMaximumSpeed. */
+    private static final int ROUNDING = 2;
+
+    /** The stationary ports. */
+    private final SpatialGrid stationary;
+    /** The moving ports, at their Positions at builtAt. */
+    private final SpatialGrid moving;
+    /** The moving ports. */
+    private final List<SpacePort> movingPorts = new ArrayList<>();
+    /** The time the moving ports were indexed at. */
+    private long builtAt;
+    /** The highest maximum speed of any moving port. */
+    private int maximumSpeed;
+    /** The number of times the moving ports have been re-indexed. */
+    private int rebuilds;
+
+    /**
+     * Constructs an index of the given ports.
+     * @param cellSize The side length of each cell; ideally close to the usual query radius.
+     * @param ports The ports to index.
+     */
+    public KineticIndex(int cellSize, List<? extends SpacePort> ports) {
+        stationary = new SpatialGrid(cellSize);
+        moving = new SpatialGrid(cellSize);
+        for (SpacePort port : ports) {
+            add(port);
+        }
+    }
+
+    /**
+     * Adds a port.
+     * @param port The port to add.
+     */
+    public void add(SpacePort port) {
+        Trajectory trajectory = port.getTrajectory();
+        if (trajectory == null) {
+            stationary.add(port);
+        } else {
+            movingPorts.add(port);
+            moving.add(port, port.getPositionAt(builtAt));
+            maximumSpeed = Math.max(maximumSpeed, trajectory.getMaximumSpeed());
+        }
+    }
+
+    /**
+     * Removes a port.
+     * @param port The port to remove.
+     * @return True - if the port was in the index.
+     */
+    public boolean remove(SpacePort port) {
+        if (port.getTrajectory() == null) {
+            return stationary.remove(port);
+        }
+        // The maximum speed is left as it is; it is recomputed on the next rebuild
+        return movingPorts.remove(port) && moving.remove(port, port.getPositionAt(builtAt));
+    }
+
+    /**
+     * Returns the number of ports in the index.
+     * @return The number of ports.
+     */
+    public int size() {
+        return stationary.size() + moving.size();
+    }
+
+    /**
+     * Returns the number of times the moving ports have been re-indexed.
+     * @return The number of rebuilds.
+     */
+    public int getRebuildCount() {
+        return rebuilds;
+    }
+
+    /**
+     * Calls an action for every port within a distance of a point at a time.
+     * @param centre The point to search around.
+     * @param radius The maximum distance, inclusive, using Position.distanceTo.
+     * @param time The simulation time to evaluate moving ports' Positions at.
+     * @param action The action to call for each port found.
+     */
+    public void forEachWithin(Position centre, int radius, long time,
+                              Consumer<SpacePort> action) {
+        stationary.forEachWithin(centre, radius, action);
+        if (movingPorts.isEmpty()) {
+            return;
+        }
+
+        long drift = drift(time);
+        if (drift > moving.getCellSize()) {
+            rebuild(time);
+            drift = drift(time);
+        }
+        int searchRadius = (int) Math.min(Integer.MAX_VALUE / 2, radius + drift);
+        moving.forEachCandidate(centre, searchRadius, port -> {
+            if (centre.distanceTo(port.getPositionAt(time)) <= radius) {
+                action.accept(port);
+            }
+        });
+    }
+
+    /**
+     * Returns every port within a distance of a point at a time.
+     * @param centre The point to search around.
+     * @param radius The maximum distance, inclusive.
+     * @param time The simulation time to evaluate moving ports' Positions at.
+     * @return The ports found, in no particular order.
+     */
+    public List<SpacePort> within(Position centre, int radius, long time) {
+        List<SpacePort> found = new ArrayList<>();
+        forEachWithin(centre, radius, time, found::add);
+        return found;
+    }
+
+    /**
+     * Returns the k ports nearest to a point at a time that pass a filter. The search radius
+     * starts at one cell and doubles until k matches are found, so its cost depends on how far
+     * away the matches are rather than on the size of the index.
+     * @param centre The point to search around.
+     * @param time The simulation time to evaluate moving ports' Positions at.
+     * @param count The most ports to return (k).
+     * @param filter Which ports to consider.
+     * @return Up to count matching ports, nearest first, with ties going to the
+     *         lexicographically smallest name.
+     */
+    public List<SpacePort> nearest(Position centre, long time, int count,
+                                   Predicate<? super SpacePort> filter) {
+        List<SpacePort> matches = new ArrayList<>();
+        if (count <= 0) {
+            return matches;
+        }
+        int total = size();
+        long radius = stationary.getCellSize();
+        while (true) {
+            matches.clear();
+            int[] found = {0};
+            forEachWithin(centre, (int) radius, time, port -> {
+                found[0]++;
+                if (filter.test(port)) {
+                    matches.add(port);
+                }
+            });
+            // Any nearer port would be within radius, so the matches found are the nearest
+            if (matches.size() >= count || found[0] == total
+                    || radius == Integer.MAX_VALUE / 4) {
+                break;
+            }
+            radius = Math.min(radius * 2, Integer.MAX_VALUE / 4);
+        }
+        matches.sort(Comparator.comparingInt((SpacePort port) ->
+                centre.distanceTo(port.getPositionAt(time))).thenComparing(SpacePort::getName));
+        return matches.size() > count ? new ArrayList<>(matches.subList(0, count)) : matches;
+    }
+
+    /**
+     * Returns every other port within a distance of a port at a time, e.g. the ports a Ship
+     * docked there could fly or jump to.
+     * @param from The port to search around.
+     * @param radius The maximum distance, inclusive.
+     * @param time The simulation time to evaluate Positions at.
+     * @return The ports found, excluding from, in no particular order.
+     */
+    public List<SpacePort> inRangeOf(SpacePort from, int radius, long time) {
+        List<SpacePort> found = new ArrayList<>();
+        forEachWithin(from.getPositionAt(time), radius, time, port -> {
+            if (port != from) {
+                found.add(port);
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Returns how far a moving port may be from where it was indexed, at a time.
+     */
+    private long drift(long time) {
+        return (long) maximumSpeed * Math.abs(time - builtAt) + ROUNDING;
+    }
+
+    /**
+     * Re-indexes the moving ports at their Positions at a time.
+     */
+    private void rebuild(long time) {
+        moving.clear();
+        builtAt = time;
+        maximumSpeed = 0;
+        for (SpacePort port : movingPorts) {
+            moving.add(port, port.getPositionAt(time));
+            maximumSpeed = Math.max(maximumSpeed, port.getTrajectory().getMaximumSpeed());
+        }
+        rebuilds++;
+    }
+}
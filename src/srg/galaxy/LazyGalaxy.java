@@ -0,0 +1,288 @@
+package srg.galaxy;
+
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.ResourceContainer;
+import srg.ship.RoomTier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An unbounded Galaxy whose sectors are generated by a SectorGenerator only when they are
+ * needed: when a range query around a point touches them, or a port in them is looked up by
+ * name. Only the most recently used sectors are held, up to a maximum number of SpacePorts, so
+ * memory stays bounded however far a Ship travels; an evicted sector is generated again,
+ * identically, the next time it is needed.
+ * <p>
+ * Evicting a sector removes its ports from the Galaxy, so GalaxyListeners see it as ordinary
+ * removals. The remaining stock of a Store that has sold anything is kept when its sector is
+ * evicted, and restored when it is generated again. The stock of at most maximumPorts evicted
+ * Stores is kept; beyond that the Store evicted longest ago is forgotten and is fully stocked
+ * when generated again, so memory stays bounded. A StateStore keeps every Store's stock
+ * durably, however many are evicted.
+ * <p>
+ * A NavigationRoom using a LazyGalaxy calls ensureAround with its current port before every
+ * range query, and findNearest for nearest-facility queries, so the sector it is docked in is
+ * never evicted while it is there.
+ */
+public class LazyGalaxy extends Galaxy {
+    /** The default side length of each sector, the size of a MapGenerator galaxy. */
+    public static final int DEFAULT_SECTOR_SIZE = 1000;
+    /** The default most SpacePorts to hold. */
+    public static final int DEFAULT_MAXIMUM_PORTS = 10_000;
+
+    /**
+     * The coordinates of a sector.
+     */
+    private record Sector(int x, int y, int z) {
+    }
+
+    /** Generates the sectors. */
+    private final SectorGenerator generator;
+    /** The most SpacePorts to hold, unless more are in use by the latest query. */
+    private final int maximumPorts;
+    /** The ports of each generated sector, from least to most recently used. */
+    private final LinkedHashMap<Sector, List<SpacePort>> sectors =
+            new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * The stock of Stores that had sold something when their sector was evicted, by name, from
+     * least to most recently evicted. Holds at most maximumPorts Stores.
+     */
+    private final Map<String, List<ResourceContainer>> stock = new LinkedHashMap<>();
+    /** The total amount each held Store was generated with, by name. */
+    private final Map<String, Integer> initialStock = new HashMap<>();
+    /** The number of sectors generated, including regenerations. */
+    private int generated;
+
+    /**
+     * Constructs a galaxy with the default sector size and port limit, holding only the
+     * origin sector.
+     * @param seed The seed of the galaxy.
+     */
+    public LazyGalaxy(long seed) {
+        this(new SectorGenerator(seed, DEFAULT_SECTOR_SIZE), DEFAULT_MAXIMUM_PORTS);
+    }
+
+    /**
+     * Constructs a galaxy holding only the origin sector, which always has SpacePorts.
+     * @param generator Generates the sectors.
+     * @param maximumPorts The most SpacePorts to hold before evicting the least recently used
+     *                     sectors.
+     */
+    public LazyGalaxy(SectorGenerator generator, int maximumPorts) {
+        this.generator = generator;
+        this.maximumPorts = maximumPorts;
+        load(new Sector(0, 0, 0));
+    }
+
+    /**
+     * Returns the number of sectors generated so far, counting each regeneration of an evicted
+     * sector.
+     * @return The number of sectors generated.
+     */
+    public int getGeneratedCount() {
+        return generated;
+    }
+
+    /**
+     * Returns the number of sectors held.
+     * @return The number of sectors.
+     */
+    public int getSectorCount() {
+        return sectors.size();
+    }
+
+    /**
+     * Generates every sector that could hold a point within a distance of a point, marks them
+     * as the most recently used, and then evicts the least recently used other sectors until
+     * no more than the maximum number of SpacePorts are held.
+     * @param centre The point to search around.
+     * @param radius The maximum distance, inclusive, using Position.distanceTo.
+     */
+    public void ensureAround(Position centre, int radius) {
+        // distanceTo rounds down, so points up to radius + 1 away may be in range
+        long reach = (long) radius + 1;
+        Set<Sector> inUse = new HashSet<>();
+        for (int x = generator.sectorOf(centre.x - reach);
+                x <= generator.sectorOf(centre.x + reach); x++) {
+            for (int y = generator.sectorOf(centre.y - reach);
+                    y <= generator.sectorOf(centre.y + reach); y++) {
+                for (int z = generator.sectorOf(centre.z - reach);
+                        z <= generator.sectorOf(centre.z + reach); z++) {
+                    Sector sector = new Sector(x, y, z);
+                    inUse.add(sector);
+                    if (sectors.get(sector) == null) {
+                        load(sector);
+                    }
+                }
+            }
+        }
+        evict(inUse);
+    }
+
+    /**
+     * Finds the port nearest a point that a query picks from the facility index. Sectors are
+     * generated in rings outward from the point's sector until the port found is closer than
+     * any sector not yet generated, so the result is the nearest in the whole galaxy. The
+     * search gives up with the best port found so far once the rings hold the maximum number
+     * of SpacePorts. Sectors outside the rings are then evicted as in ensureAround.
+     * @param centre The point to search from.
+     * @param time The simulation time, for ports on a Trajectory.
+     * @param query Returns the nearest suitable port in a facility index, or null if it has
+     *              none.
+     * @param <T> The kind of port.
+     * @return The nearest suitable port, or null if none was found.
+     */
+    public <T extends SpacePort> T findNearest(Position centre, long time,
+                                               Function<FacilityIndex, T> query) {
+        int size = generator.getSectorSize();
+        int cx = generator.sectorOf(centre.x);
+        int cy = generator.sectorOf(centre.y);
+        int cz = generator.sectorOf(centre.z);
+        Set<Sector> inUse = new HashSet<>();
+        int heldPorts = 0;
+        T best = null;
+        for (int ring = 0; inUse.size() + heldPorts < maximumPorts; ring++) {
+            for (int x = cx - ring; x <= cx + ring; x++) {
+                for (int y = cy - ring; y <= cy + ring; y++) {
+                    for (int z = cz - ring; z <= cz + ring; z++) {
+                        int rim = Math.max(Math.abs(x - cx),
+                                Math.max(Math.abs(y - cy), Math.abs(z - cz)));
+                        if (rim != ring) {
+                            continue;
+                        }
+                        Sector sector = new Sector(x, y, z);
+                        inUse.add(sector);
+                        if (sectors.get(sector) == null) {
+                            load(sector);
+                        }
+                        heldPorts += sectors.get(sector).size();
+                    }
+                }
+            }
+
+            best = query.apply(getFacilities());
+            // Every point outside the rings is at least this far from the centre
+            long boundary = Long.MAX_VALUE;
+            int[] coordinates = {centre.x, centre.y, centre.z};
+            int[] sectorsOf = {cx, cy, cz};
+            for (int axis = 0; axis < 3; axis++) {
+                long low = (long) (sectorsOf[axis] - ring) * size;
+                long high = (long) (sectorsOf[axis] + ring + 1) * size;
+                boundary = Math.min(boundary, Math.min(coordinates[axis] - low,
+                        high - coordinates[axis]));
+            }
+            // distanceTo rounds down, so a port it puts below the boundary is truly nearer
+            if (best != null && best.getPositionAt(time).distanceTo(centre) < boundary) {
+                break;
+            }
+        }
+        evict(inUse);
+        return best;
+    }
+
+    /**
+     * Returns the port with a name, generating its sector first if the name has a sector
+     * code and the sector is not held. A generated sector is then kept while the least
+     * recently used other sectors are evicted, as in ensureAround.
+     * @param name The name of the port.
+     * @return The port, or null if there is none.
+     */
+    public SpacePort find(String name) {
+        SpacePort port = get(name);
+        if (port != null) {
+            return port;
+        }
+        int[] coordinates = SectorGenerator.parseSector(name);
+        if (coordinates == null) {
+            return null;
+        }
+        Sector sector = new Sector(coordinates[0], coordinates[1], coordinates[2]);
+        if (sectors.get(sector) != null) {
+            return null;
+        }
+        load(sector);
+        evict(Set.of(sector));
+        return get(name);
+    }
+
+    /**
+     * Returns true, since ports in sectors not yet generated may link any two ports. Overrides
+     * mayConnect in Galaxy.
+     * @param from The SpacePort to start from.
+     * @param to The SpacePort to reach.
+     * @param tier The tier of the Ship's NavigationRoom.
+     * @param mode FLY if the Ship may only fly; JUMP if it may fly and jump.
+     * @return True.
+     */
+    @Override
+    public boolean mayConnect(SpacePort from, SpacePort to, RoomTier tier, TravelMode mode) {
+        return true;
+    }
+
+    private void load(Sector sector) {
+        List<SpacePort> ports = generator.generate(sector.x, sector.y, sector.z);
+        for (SpacePort port : ports) {
+            if (port instanceof Store store) {
+                initialStock.put(store.getName(), totalStock(store));
+                List<ResourceContainer> remaining = stock.remove(store.getName());
+                if (remaining != null) {
+                    store.getCargoHold().restoreContents(
+                            store.getCargoHold().getMaximumCapacity(), remaining);
+                }
+            }
+            add(port);
+        }
+        sectors.put(sector, ports);
+        generated++;
+    }
+
+    /**
+     * Evicts the least recently used sectors, other than those in use, while too many ports
+     * are held.
+     */
+    private void evict(Set<Sector> inUse) {
+        Iterator<Map.Entry<Sector, List<SpacePort>>> eldest = sectors.entrySet().iterator();
+        while (size() > maximumPorts && eldest.hasNext()) {
+            Map.Entry<Sector, List<SpacePort>> entry = eldest.next();
+            if (inUse.contains(entry.getKey())) {
+                continue;
+            }
+            eldest.remove();
+            for (SpacePort port : entry.getValue()) {
+                if (port instanceof Store store) {
+                    Integer initial = initialStock.remove(store.getName());
+                    // Stores only ever sell, so less stock than generated means it has sold
+                    if (initial != null && totalStock(store) < initial) {
+                        stock.put(store.getName(), new ArrayList<>(
+                                store.getCargoHold().getResources()));
+                        if (stock.size() > maximumPorts) {
+                            stock.remove(stock.keySet().iterator().next());
+                        }
+                    }
+                }
+                remove(indexOf(port));
+            }
+        }
+    }
+
+    /**
+     * Returns the total amount of every item a Store has left.
+     */
+    private static int totalStock(Store store) {
+        int total = 0;
+        for (ResourceContainer container : store.getCargoHold().getResources()) {
+            total += container.getAmount();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,364 @@
+package srg.galaxy;
+
+import srg.exceptions.NoPathException;
+import srg.ports.SpacePort;
+import srg.ship.NavigationRoom;
+import srg.ship.RoomTier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Answers reachability queries over the travel graph of a galaxy, such as "every SpacePort
+ * within 3 flights" or "every SpacePort reachable with 250 TRITIUM and 2 HYPERDRIVE_COREs".
+ * <p>
+ * The graph is built once, for the galaxy and NavigationRoom tier given at construction; build
+ * a new Reachability if either changes. Queries reuse internal scratch buffers, so repeated
+ * queries do not allocate beyond their results, and a Reachability must not be shared between
+ * threads.
+ * <p>
+ * Route queries between two ports first check the galaxy's Connectivity, so a port in another
+ * component is rejected in constant time, without searching.
+ * <p>
+ * Queries consider only range and fuel. They ignore room damage, so a route they report may
+ * still be cut short by a Room breaking on the way.
+ */
+public class Reachability {
+    /** The travel graph being queried. */
+    private final GalaxyGraph graph;
+    /** The NavigationRoom tier of the graph. */
+    private final RoomTier tier;
+    /** The components of the graph's ports, built by the first route query. */
+    private Connectivity connectivity;
+    /** The number of searches run. */
+    private long searches;
+    /** The ports reached so far in a breadth-first search. */
+    private final BitSet visited;
+    /** The ports reached by the previous hop of a breadth-first search. */
+    private BitSet frontier;
+    /** The ports reached by the current hop of a breadth-first search. */
+    private BitSet nextFrontier;
+    /** The least TRITIUM needed to reach each (port, cores used) state, or MAX_VALUE. */
+    private int[] tritiumNeeded = new int[0];
+    /** The priority queue of a budgeted search, as (TRITIUM needed, state) pairs. */
+    private long[] heap = new long[64];
+
+    /**
+     * Builds the travel graph of a galaxy for a NavigationRoom tier.
+     * @param galaxyMap The SpacePorts in the galaxy.
+     * @param tier The NavigationRoom tier, which determines how far a Ship can fly and jump.
+     */
+    public Reachability(List<SpacePort> galaxyMap, RoomTier tier) {
+        this.graph = new GalaxyGraph(galaxyMap, tier);
+        this.tier = tier;
+        this.visited = new BitSet(graph.size());
+        this.frontier = new BitSet(graph.size());
+        this.nextFrontier = new BitSet(graph.size());
+    }
+
+    /**
+     * Builds the travel graph of a NavigationRoom's galaxy map, at the NavigationRoom's tier.
+     * @param navigationRoom The NavigationRoom to answer queries for.
+     */
+    public Reachability(NavigationRoom navigationRoom) {
+        this(navigationRoom.getGalaxyMap(), navigationRoom.getTier());
+    }
+
+    /**
+     * Returns the fewest flights or jumps needed to travel between two SpacePorts. Ports in
+     * different components are rejected without searching.
+     * @param from The SpacePort to start from.
+     * @param to The SpacePort to reach.
+     * @param mode FLY to follow only edges within fly range; JUMP to follow every edge within
+     *             jump range.
+     * @return The number of hops; 0 if from is to.
+     * @throws NoPathException If either port is not in the galaxy, or to cannot be reached.
+     */
+    public int hopsBetween(SpacePort from, SpacePort to, TravelMode mode)
+            throws NoPathException {
+        getConnectivity().checkRoute(from, to, tier, mode);
+        int start = graph.indexOf(from);
+        int target = graph.indexOf(to);
+        searches++;
+        visited.clear();
+        frontier.clear();
+        visited.set(start);
+        frontier.set(start);
+        for (int hop = 0; !frontier.isEmpty(); hop++) {
+            if (visited.get(target)) {
+                return hop;
+            }
+            expand(mode);
+        }
+        throw new NoPathException(String.format("No %s path from %s to %s.",
+                mode.name().toLowerCase(), from.getName(), to.getName()));
+    }
+
+    /**
+     * Returns whether a SpacePort can be reached from another with a fuel budget, as
+     * withinBudget. Ports in different components are rejected without searching.
+     * @param from The SpacePort to start from.
+     * @param to The SpacePort to reach.
+     * @param tritium The TRITIUM available.
+     * @param hyperdriveCores The HYPERDRIVE_COREs available.
+     * @return True - if to can be reached.
+     * @throws IllegalArgumentException If either budget is negative.
+     */
+    public boolean canReach(SpacePort from, SpacePort to, int tritium, int hyperdriveCores) {
+        TravelMode mode = hyperdriveCores > 0 ? TravelMode.JUMP : TravelMode.FLY;
+        try {
+            getConnectivity().checkRoute(from, to, tier, mode);
+        } catch (NoPathException e) {
+            return false;
+        }
+        BitSet result = new BitSet(graph.size());
+        withinBudget(from, tritium, hyperdriveCores, result);
+        return from == to || result.get(graph.indexOf(to));
+    }
+
+    /**
+     * Returns the number of searches run so far, by any query. Route queries rejected by
+     * connectivity run none.
+     * @return The number of searches.
+     */
+    public long getSearchCount() {
+        return searches;
+    }
+
+    /**
+     * Returns the components of the graph's ports, building them on first use.
+     */
+    private Connectivity getConnectivity() {
+        if (connectivity == null) {
+            connectivity = new Connectivity(graph.ports);
+        }
+        return connectivity;
+    }
+
+    /**
+     * Returns the SpacePorts reachable from a SpacePort in at most a number of hops.
+     * @param from The SpacePort to start from.
+     * @param hops The maximum number of flights or jumps.
+     * @param mode FLY to follow only edges within fly range; JUMP to follow every edge within
+     *             jump range.
+     * @return The reachable SpacePorts, in galaxy map order, excluding from itself.
+     * @throws IllegalArgumentException If from is not in the galaxy, or hops is negative.
+     */
+    public List<SpacePort> withinHops(SpacePort from, int hops, TravelMode mode) {
+        BitSet result = new BitSet(graph.size());
+        withinHops(from, hops, mode, result);
+        return toPorts(result);
+    }
+
+    /**
+     * Finds the SpacePorts reachable from a SpacePort in at most a number of hops, as the
+     * indices of the ports in the galaxy map. Does not allocate if result is large enough.
+     * @param from The SpacePort to start from.
+     * @param hops The maximum number of flights or jumps.
+     * @param mode FLY to follow only edges within fly range; JUMP to follow every edge within
+     *             jump range.
+     * @param result Cleared, then set to the indices of the reachable SpacePorts, excluding
+     *               from itself.
+     * @throws IllegalArgumentException If from is not in the galaxy, or hops is negative.
+     */
+    public void withinHops(SpacePort from, int hops, TravelMode mode, BitSet result) {
+        if (hops < 0) {
+            throw new IllegalArgumentException("Hops must not be negative: " + hops);
+        }
+        int start = graph.indexOf(from);
+        searches++;
+        visited.clear();
+        frontier.clear();
+        visited.set(start);
+        frontier.set(start);
+
+        for (int hop = 0; hop < hops && !frontier.isEmpty(); hop++) {
+            expand(mode);
+        }
+
+        result.clear();
+        result.or(visited);
+        result.clear(start);
+    }
+
+    /**
+     * Advances a breadth-first search by one hop: every unvisited port one edge from the
+     * frontier is visited, and becomes the new frontier.
+     */
+    private void expand(TravelMode mode) {
+        nextFrontier.clear();
+        for (int i = frontier.nextSetBit(0); i >= 0; i = frontier.nextSetBit(i + 1)) {
+            int end = graph.edgeEnd(i, mode);
+            for (int edge = graph.edgeStart[i]; edge < end; edge++) {
+                int to = graph.target[edge];
+                if (!visited.get(to)) {
+                    visited.set(to);
+                    nextFrontier.set(to);
+                }
+            }
+        }
+        BitSet swap = frontier;
+        frontier = nextFrontier;
+        nextFrontier = swap;
+    }
+
+    /**
+     * Returns the SpacePorts reachable from a SpacePort with a fuel budget. Flying costs one
+     * TRITIUM per unit of distance, and jumping costs one HYPERDRIVE_CORE.
+     * @param from The SpacePort to start from.
+     * @param tritium The TRITIUM available.
+     * @param hyperdriveCores The HYPERDRIVE_COREs available.
+     * @return The reachable SpacePorts, in galaxy map order, excluding from itself.
+     * @throws IllegalArgumentException If from is not in the galaxy, or either budget is
+     *                                  negative.
+     */
+    public List<SpacePort> withinBudget(SpacePort from, int tritium, int hyperdriveCores) {
+        BitSet result = new BitSet(graph.size());
+        withinBudget(from, tritium, hyperdriveCores, result);
+        return toPorts(result);
+    }
+
+    /**
+     * Finds the SpacePorts reachable from a SpacePort with a fuel budget, as the indices of the
+     * ports in the galaxy map. Does not allocate if result and the scratch buffers are large
+     * enough.
+     * <p>
+     * A search state is a port and the number of HYPERDRIVE_COREs used to reach it, so the
+     * search visits at most (hyperdriveCores + 1) states per port. Cores beyond the number of
+     * jumps any route within the start's jump component can make are never used. States are
+     * settled in order of TRITIUM used, and are pruned once they exceed the TRITIUM budget.
+     * @param from The SpacePort to start from.
+     * @param tritium The TRITIUM available.
+     * @param hyperdriveCores The HYPERDRIVE_COREs available.
+     * @param result Cleared, then set to the indices of the reachable SpacePorts, excluding
+     *               from itself.
+     * @throws IllegalArgumentException If from is not in the galaxy, either budget is
+     *                                  negative, or the search would need more states than an
+     *                                  array can hold.
+     */
+    public void withinBudget(SpacePort from, int tritium, int hyperdriveCores, BitSet result) {
+        if (tritium < 0 || hyperdriveCores < 0) {
+            throw new IllegalArgumentException("Fuel budget must not be negative");
+        }
+        int start = graph.indexOf(from);
+        searches++;
+        int count = graph.size();
+        // A cheapest route never revisits a port, so it makes fewer jumps than there are ports
+        // in the start's jump component
+        int component = getConnectivity().getComponent(from, tier, TravelMode.JUMP).size();
+        int layers = Math.min(hyperdriveCores, Math.max(component - 1, 0)) + 1;
+        long stateCount = (long) count * layers;
+        if (stateCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many search states: " + stateCount);
+        }
+        int states = (int) stateCount;
+        if (tritiumNeeded.length < states) {
+            tritiumNeeded = new int[states];
+        }
+        Arrays.fill(tritiumNeeded, 0, states, Integer.MAX_VALUE);
+        result.clear();
+
+        int heapSize = 0;
+        tritiumNeeded[start] = 0;
+        heapSize = push(heapSize, 0, start);
+        while (heapSize > 0) {
+            long top = heap[0];
+            heapSize = pop(heapSize);
+            int used = (int) (top >>> 32);
+            int state = (int) top;
+            if (used > tritiumNeeded[state]) {
+                // Stale entry, a cheaper way to this state was already settled
+                continue;
+            }
+            int port = state % count;
+            int cores = state / count;
+            result.set(port);
+
+            int end = graph.edgeStart[port + 1];
+            for (int edge = graph.edgeStart[port]; edge < end; edge++) {
+                int to = graph.target[edge];
+                // Fly, if in fly range and within budget
+                if (edge < graph.flyEnd[port]) {
+                    int needed = used + graph.distance[edge];
+                    int next = cores * count + to;
+                    if (needed <= tritium && needed < tritiumNeeded[next]) {
+                        tritiumNeeded[next] = needed;
+                        heapSize = push(heapSize, needed, next);
+                    }
+                }
+                // Jump, if a core is left
+                if (cores + 1 < layers) {
+                    int next = (cores + 1) * count + to;
+                    if (used < tritiumNeeded[next]) {
+                        tritiumNeeded[next] = used;
+                        heapSize = push(heapSize, used, next);
+                    }
+                }
+            }
+        }
+        result.clear(start);
+    }
+
+    /**
+     * Converts the indices set in a BitSet to the SpacePorts at those indices.
+     * @param indices Indices of SpacePorts in the galaxy map, as found by withinHops or
+     *                withinBudget.
+     * @return The SpacePorts, in galaxy map order.
+     */
+    public List<SpacePort> toPorts(BitSet indices) {
+        List<SpacePort> ports = new ArrayList<>(indices.cardinality());
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            ports.add(graph.ports.get(i));
+        }
+        return ports;
+    }
+
+    /**
+     * Adds a (TRITIUM used, state) pair to the heap, growing it if needed.
+     * @return The new heap size.
+     */
+    private int push(int size, int used, int state) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        long entry = (long) used << 32 | state;
+        int i = size;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+        return size + 1;
+    }
+
+    /**
+     * Removes the smallest entry from the heap.
+     * @return The new heap size.
+     */
+    private int pop(int size) {
+        long last = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return size;
+    }
+}
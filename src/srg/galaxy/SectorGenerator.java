@@ -0,0 +1,174 @@
+package srg.galaxy;
+
+import srg.ports.Position;
+import srg.ports.ShipYard;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates the SpacePorts of each cubic sector of an unbounded galaxy. A sector's ports depend
+ * only on the seed and the sector's coordinates, so any sector can be generated on its own, in
+ * any order, and is identical every time it is generated.
+ * <p>
+ * Like MapGenerator, each sector holds clusters of a Store, a ShipYard and a SpacePort. Every
+ * port's name ends with its sector's code and a number, e.g. "Vobrate S2_m1_0 3" for the third
+ * port of sector (2, -1, 0), so the sector holding a named port can be found from the name
+ * alone. Names only use characters the command line accepts.
+ */
+public class SectorGenerator {
+    /** The most clusters in a sector. */
+    private static final int MAXIMUM_CLUSTERS = 2;
+    /** How far each port of a cluster may be from its centre, on each axis. */
+    private static final int CLUSTER_RADIUS = 15;
+    /** Syllables that names are made of. */
+    private static final String[] SYLLABLES = {
+        "ab", "bra", "ce", "dun", "el", "fo", "gar", "ha", "ix", "jo", "ka", "lo", "mer", "nox",
+        "or", "pha", "qua", "res", "sol", "ta", "ur", "ve", "wo", "xe", "yl", "zar"
+    };
+    /** Finds the sector code in a port's name. */
+    private static final Pattern CODE = Pattern.compile("(?:^| )S(m?\\d+)_(m?\\d+)_(m?\\d+) ");
+
+    /** The seed every sector is derived from. */
+    private final long seed;
+    /** The side length of each sector. */
+    private final int sectorSize;
+
+    /**
+     * Constructs a generator.
+     * @param seed The seed of the galaxy.
+     * @param sectorSize The side length of each sector; greater than twice the radius of a
+     *                   cluster.
+     * @throws IllegalArgumentException If sectorSize is too small to hold a cluster.
+     */
+    public SectorGenerator(long seed, int sectorSize) {
+        if (sectorSize <= 2 * CLUSTER_RADIUS) {
+            throw new IllegalArgumentException("Sectors are too small: " + sectorSize);
+        }
+        this.seed = seed;
+        this.sectorSize = sectorSize;
+    }
+
+    /**
+     * Returns the side length of each sector.
+     * @return The sector size.
+     */
+    public int getSectorSize() {
+        return sectorSize;
+    }
+
+    /**
+     * Returns the sector coordinate holding a coordinate on one axis.
+     * @param coordinate The coordinate.
+     * @return The sector coordinate.
+     */
+    public int sectorOf(long coordinate) {
+        return (int) Math.floorDiv(coordinate, (long) sectorSize);
+    }
+
+    /**
+     * Generates the SpacePorts of a sector. The origin sector always holds at least one cluster,
+     * so a Ship starting there has somewhere to be.
+     * @param x The sector's x coordinate.
+     * @param y The sector's y coordinate.
+     * @param z The sector's z coordinate.
+     * @return New SpacePorts, all within the sector.
+     */
+    public List<SpacePort> generate(int x, int y, int z) {
+        Random random = new Random(sectorSeed(x, y, z));
+        int clusters = random.nextInt(MAXIMUM_CLUSTERS + 1);
+        if (x == 0 && y == 0 && z == 0) {
+            clusters = Math.max(clusters, 1);
+        }
+
+        String code = code(x, y, z);
+        List<SpacePort> ports = new ArrayList<>(clusters * 3);
+        for (int i = 0; i < clusters; i++) {
+            Position centre = new Position(
+                    x * sectorSize + CLUSTER_RADIUS
+                            + random.nextInt(sectorSize - 2 * CLUSTER_RADIUS),
+                    y * sectorSize + CLUSTER_RADIUS
+                            + random.nextInt(sectorSize - 2 * CLUSTER_RADIUS),
+                    z * sectorSize + CLUSTER_RADIUS
+                            + random.nextInt(sectorSize - 2 * CLUSTER_RADIUS));
+            List<String> upgradeable = random.nextBoolean()
+                    ? List.of("CargoHold") : List.of("NavigationRoom");
+            ports.add(new Store(name(random, code, ports.size() + 1), near(random, centre)));
+            ports.add(new ShipYard(name(random, code, ports.size() + 1), near(random, centre),
+                    upgradeable));
+            ports.add(new SpacePort(name(random, code, ports.size() + 1), near(random, centre)));
+        }
+        return ports;
+    }
+
+    /**
+     * Returns the sector a port's name says it is in.
+     * @param name The name of a port generated by a SectorGenerator.
+     * @return The sector's x, y and z coordinates, or null if the name has no sector code.
+     */
+    public static int[] parseSector(String name) {
+        Matcher matcher = CODE.matcher(name);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return new int[] {decode(matcher.group(1)), decode(matcher.group(2)),
+                    decode(matcher.group(3))};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the code of a sector used in port names, with "m" marking negative coordinates.
+     */
+    private static String code(int x, int y, int z) {
+        return "S" + encode(x) + "_" + encode(y) + "_" + encode(z);
+    }
+
+    private static String encode(int coordinate) {
+        return coordinate < 0 ? "m" + -(long) coordinate : String.valueOf(coordinate);
+    }
+
+    private static int decode(String coordinate) {
+        return coordinate.startsWith("m") ? -Integer.parseInt(coordinate.substring(1))
+                : Integer.parseInt(coordinate);
+    }
+
+    private static String name(Random random, String code, int number) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(2);
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word + " " + code + " " + number;
+    }
+
+    private static Position near(Random random, Position centre) {
+        return new Position(
+                random.nextInt(-CLUSTER_RADIUS, CLUSTER_RADIUS) + centre.x,
+                random.nextInt(-CLUSTER_RADIUS, CLUSTER_RADIUS) + centre.y,
+                random.nextInt(-CLUSTER_RADIUS, CLUSTER_RADIUS) + centre.z);
+    }
+
+    /**
+     * Mixes the seed and a sector's coordinates (with the SplitMix64 finaliser), so
+     * neighbouring sectors get unrelated streams.
+     */
+    private long sectorSeed(int x, int y, int z) {
+        long h = seed;
+        for (int coordinate : new int[] {x, y, z}) {
+            h += (coordinate + 1L) * 0x9E3779B97F4A7C15L;
+            h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+            h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+            h ^= h >>> 31;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,34 @@
+package srg.galaxy;
+
+/**
+ * The simulation time of a galaxy, in ticks. Moving SpacePorts' Positions are evaluated at
+ * this time. Every NavigationRoom in a Galaxy uses the Galaxy's clock, so all Ships in it see
+ * each port at the same Position at the same moment.
+ */
+public final class SimulationClock {
+    /** The current time, in ticks. */
+    private long time;
+
+    /**
+     * Returns the current time.
+     * @return The simulation time, in ticks.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Sets the current time, e.g. when restoring a recorded state.
+     * @param time The simulation time, in ticks.
+     */
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    /**
+     * Advances the time by one tick.
+     */
+    public void advance() {
+        time++;
+    }
+}
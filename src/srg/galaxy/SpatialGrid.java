@@ -0,0 +1,258 @@
+package srg.galaxy;
+
+import srg.ports.Position;
+import srg.ports.SpacePort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A uniform grid of cubic cells over SpacePorts, answering "which ports are within distance r
+ * of a point" by only visiting the cells the query sphere overlaps. With a cell size close to
+ * the usual query radius, a query visits 27 cells regardless of the size of the galaxy.
+ */
+public class SpatialGrid {
+    /** Bits per coordinate in a packed cell key. */
+    private static final int KEY_BITS = 21;
+    private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+
+    /** The side length of each cell. */
+    private final int cellSize;
+    /** The ports in each non-empty cell, by packed cell key. */
+    private final Map<Long, List<SpacePort>> cells = new HashMap<>();
+    /** The number of ports in the grid. */
+    private int size;
+
+    /**
+     * Constructs an empty grid.
+     * @param cellSize The side length of each cell.
+     * @throws IllegalArgumentException If cellSize is not positive.
+     */
+    public SpatialGrid(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Constructs a grid holding the given ports.
+     * @param cellSize The side length of each cell.
+     * @param ports The ports to add.
+     */
+    public SpatialGrid(int cellSize, List<? extends SpacePort> ports) {
+        this(cellSize);
+        for (SpacePort port : ports) {
+            add(port);
+        }
+    }
+
+    /**
+     * Returns the side length of each cell.
+     * @return The cell size.
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the number of ports in the grid.
+     * @return The number of ports.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a port at its current Position.
+     * @param port The port to add.
+     */
+    public void add(SpacePort port) {
+        add(port, port.getPosition());
+    }
+
+    /**
+     * Adds a port at the given Position.
+     * @param port The port to add.
+     * @param position The Position to index the port at.
+     */
+    public void add(SpacePort port, Position position) {
+        cells.computeIfAbsent(keyOf(position), key -> new ArrayList<>(4)).add(port);
+        size++;
+    }
+
+    /**
+     * Removes a port that was added at its current Position.
+     * @param port The port to remove.
+     * @return True - if the port was in the grid.
+     */
+    public boolean remove(SpacePort port) {
+        return remove(port, port.getPosition());
+    }
+
+    /**
+     * Removes a port that was added at the given Position.
+     * @param port The port to remove.
+     * @param position The Position the port was indexed at.
+     * @return True - if the port was in the grid.
+     */
+    public boolean remove(SpacePort port, Position position) {
+        long key = keyOf(position);
+        List<SpacePort> cell = cells.get(key);
+        if (cell == null) {
+            return false;
+        }
+        for (int i = 0; i < cell.size(); i++) {
+            if (cell.get(i) == port) {
+                // Order within a cell does not matter, so swap-remove
+                cell.set(i, cell.get(cell.size() - 1));
+                cell.remove(cell.size() - 1);
+                if (cell.isEmpty()) {
+                    cells.remove(key);
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes every port.
+     */
+    public void clear() {
+        cells.clear();
+        size = 0;
+    }
+
+    /**
+     * Calls an action for every port whose indexed Position is within a distance of a point,
+     * using the same rounding as Position.distanceTo.
+     * @param centre The point to search around.
+     * @param radius The maximum distance, inclusive.
+     * @param action The action to call for each port found.
+     */
+    public void forEachWithin(Position centre, int radius, Consumer<SpacePort> action) {
+        forEachCandidate(centre, radius, port -> {
+            if (centre.distanceTo(port.getPosition()) <= radius) {
+                action.accept(port);
+            }
+        });
+    }
+
+    /**
+     * Returns every port within a distance of a point.
+     * @param centre The point to search around.
+     * @param radius The maximum distance, inclusive.
+     * @return The ports found, in no particular order.
+     */
+    public List<SpacePort> within(Position centre, int radius) {
+        List<SpacePort> found = new ArrayList<>();
+        forEachWithin(centre, radius, found::add);
+        return found;
+    }
+
+    /**
+     * Returns the port nearest to a point that passes a filter. The search starts with the
+     * cells around the point and doubles its radius until it finds a match, so its cost depends
+     * on how far away the nearest match is rather than on the size of the grid.
+     * @param centre The point to search around.
+     * @param filter Which ports to consider.
+     * @return The nearest matching port, with ties going to the lexicographically smallest
+     *         name; or null if no port matches.
+     */
+    public SpacePort nearest(Position centre, Predicate<SpacePort> filter) {
+        SpacePort[] best = new SpacePort[1];
+        int[] bestDistance = new int[1];
+        int[] visited = new int[1];
+        int radius = cellSize;
+        while (true) {
+            best[0] = null;
+            bestDistance[0] = Integer.MAX_VALUE;
+            visited[0] = 0;
+            forEachCandidate(centre, radius, port -> {
+                visited[0]++;
+                if (!filter.test(port)) {
+                    return;
+                }
+                int distance = centre.distanceTo(port.getPosition());
+                if (distance < bestDistance[0] || distance == bestDistance[0]
+                        && port.getName().compareTo(best[0].getName()) < 0) {
+                    best[0] = port;
+                    bestDistance[0] = distance;
+                }
+            });
+            // Any closer port would be within radius, so would have been a candidate
+            if (best[0] != null && bestDistance[0] <= radius || visited[0] == size) {
+                return best[0];
+            }
+            radius = radius > Integer.MAX_VALUE / 4 ? Integer.MAX_VALUE / 2 : radius * 2;
+        }
+    }
+
+    /**
+     * Calls an action for every port in the cells a query sphere overlaps, without checking
+     * their distance. Used by callers that measure distance differently.
+     * @param centre The centre of the query sphere.
+     * @param radius The radius of the query sphere.
+     * @param action The action to call for each candidate port.
+     */
+    public void forEachCandidate(Position centre, int radius, Consumer<SpacePort> action) {
+        int minX = cell(centre.x - radius);
+        int maxX = cell(centre.x + radius);
+        int minY = cell(centre.y - radius);
+        int maxY = cell(centre.y + radius);
+        int minZ = cell(centre.z - radius);
+        int maxZ = cell(centre.z + radius);
+
+        long cellCount = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        if (cellCount > cells.size()) {
+            // The sphere covers more cells than are occupied; scan the occupied ones instead
+            for (Map.Entry<Long, List<SpacePort>> entry : cells.entrySet()) {
+                long key = entry.getKey();
+                int x = unpack(key, 2);
+                int y = unpack(key, 1);
+                int z = unpack(key, 0);
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+                    entry.getValue().forEach(action);
+                }
+            }
+            return;
+        }
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    List<SpacePort> cell = cells.get(pack(x, y, z));
+                    if (cell != null) {
+                        cell.forEach(action);
+                    }
+                }
+            }
+        }
+    }
+
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private long keyOf(Position position) {
+        return pack(cell(position.x), cell(position.y), cell(position.z));
+    }
+
+    private static long pack(int x, int y, int z) {
+        return (x & KEY_MASK) << (2 * KEY_BITS) | (y & KEY_MASK) << KEY_BITS | (z & KEY_MASK);
+    }
+
+    /**
+     * Extracts one sign-extended coordinate from a packed key (2 = x, 1 = y, 0 = z).
+     */
+    private static int unpack(long key, int slot) {
+        long value = (key >>> (slot * KEY_BITS)) & KEY_MASK;
+        return (int) (value << (64 - KEY_BITS) >> (64 - KEY_BITS));
+    }
+}
@@ -0,0 +1,11 @@
+package srg.galaxy;
+
+/**
+ * Enumerates the ways a Ship can travel between SpacePorts.
+ */
+public enum TravelMode {
+    /** Flying, limited to the NavigationRoom's maximum fly distance. Costs TRITIUM. */
+    FLY,
+    /** Jumping, limited to the NavigationRoom's maximum jump distance. Costs a HYPERDRIVE_CORE. */
+    JUMP
+}
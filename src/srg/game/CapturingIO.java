@@ -0,0 +1,40 @@
+package srg.game;
+
+import srg.cli.given.IO;
+
+/**
+ * An IO handler which collects all output instead of printing it, so it can be returned to a
+ * caller that is not at the console, e.g. another process or a network client.
+ */
+public class CapturingIO extends IO {
+    /** The output collected since the last call to takeOutput. */
+    private final StringBuilder output = new StringBuilder();
+
+    /**
+     * Collects the line, followed by a line separator.
+     * @param line The line to write.
+     */
+    @Override
+    public void writeLn(String line) {
+        output.append(line).append(System.lineSeparator());
+    }
+
+    /**
+     * Collects the text.
+     * @param line The text to write.
+     */
+    @Override
+    public void write(String line) {
+        output.append(line);
+    }
+
+    /**
+     * Returns the output collected so far and starts collecting afresh.
+     * @return Everything written since the last call.
+     */
+    public String takeOutput() {
+        String text = output.toString();
+        output.setLength(0);
+        return text;
+    }
+}
@@ -0,0 +1,43 @@
+package srg.game;
+
+import srg.cli.given.IO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * An IO handler which folds all output into a CRC32 checksum instead of printing it. Two runs
+ * which produce identical output have identical checksums.
+ */
+public class ChecksumIO extends IO {
+    private static final byte[] LINE_SEPARATOR =
+            System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * Adds a line of output to the checksum.
+     * @param line The line of output.
+     */
+    @Override
+    public void writeLn(String line) {
+        write(line);
+        checksum.update(LINE_SEPARATOR);
+    }
+
+    /**
+     * Adds output to the checksum.
+     * @param line The output.
+     */
+    @Override
+    public void write(String line) {
+        checksum.update(String.valueOf(line).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the checksum of all output so far.
+     * @return The CRC32 of the output.
+     */
+    public long getChecksum() {
+        return checksum.getValue();
+    }
+}
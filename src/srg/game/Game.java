@@ -3,8 +3,16 @@ package srg.game;
 import srg.cli.given.*;
 import srg.ship.RoomTier;
 import srg.ship.Ship;
+import srg.metrics.MetricsRegistry;
+import srg.persistence.CommandJournal;
+import srg.persistence.StateStore;
+import srg.galaxy.Galaxy;
+import srg.galaxy.LazyGalaxy;
+import srg.galaxy.SimulationClock;
 import srg.ports.SpacePort;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 public class Game {
@@ -13,16 +21,140 @@ public class Game {
     public List<SpacePort> ports;
     // TODO MAKE SHIP PRIVATE
     public Ship ship;
+    /** Records applied commands, or null if the game is not journaled. */
+    private CommandJournal journal;
+    /** Keeps the game's state durable, or null if it is not persisted. */
+    private StateStore stateStore;
+    /** The simulation time, shared by the Ship and the galaxy. */
+    private final SimulationClock clock;
+    /** Counts and times every applied command. */
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    /** The number of commands applied, not counting batches themselves. */
+    private long appliedCommands;
+    /** The number of ship commands which were not carried out. */
+    private long failedCommands;
 
     public Game() {
+        this(MapGenerator.DEFAULT_SEED);
+    }
 
-        MapGenerator generator = new MapGenerator();
-        ports = generator.generateMap();
+    /**
+     * Constructs a Game in a galaxy generated from the given seed. Games with the same seed
+     * start in identical states.
+     * @param seed The seed for the MapGenerator.
+     */
+    public Game(long seed) {
+        MapGenerator generator = new MapGenerator(seed);
+        ports = new Galaxy(generator.generateMap());
         ship = new Ship("Leaden Matter", "Jesko Thoch", "SCS1249", RoomTier.BASIC, RoomTier.BASIC,
                 ports);
+        ship.setMetrics(metrics);
+        clock = ((Galaxy) ports).getClock();
+    }
+
+    /**
+     * Constructs a Game in an unbounded galaxy whose sectors are generated from the seed as the
+     * Ship comes within range of them. Games with the same seed start in identical states.
+     * @param seed The seed for the galaxy's SectorGenerator.
+     * @return The new Game, docked in the origin sector.
+     */
+    public static Game infinite(long seed) {
+        LazyGalaxy galaxy = new LazyGalaxy(seed);
+        return new Game(galaxy, new Ship("Leaden Matter", "Jesko Thoch", "SCS1249",
+                RoomTier.BASIC, RoomTier.BASIC, galaxy));
+    }
+
+    /**
+     * Constructs a Game from an existing galaxy and Ship, e.g. when loading a saved game.
+     * @param ports The SpacePorts in the galaxy.
+     * @param ship The player's Ship, whose NavigationRoom uses ports as its galaxy map.
+     */
+    public Game(List<SpacePort> ports, Ship ship) {
+        this.ports = ports;
+        this.ship = ship;
+        ship.setMetrics(metrics);
+        // A Galaxy's clock is shared by every Ship in it; a plain list has only the Ship's own
+        clock = ports instanceof Galaxy galaxy ? galaxy.getClock()
+                : ship.getNavigationRoom().getClock();
+        ship.getNavigationRoom().setClock(clock);
+    }
+
+    /**
+     * Returns the clock giving the simulation time, at which moving SpacePorts are evaluated.
+     * It advances by one tick for every fly or jump any Ship in the galaxy attempts.
+     * @return The Game's simulation clock.
+     */
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Returns the metrics of every command applied to this Game.
+     * @return The Game's metrics registry.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Journals every state-changing command applied from now on.
+     * @param journal The journal to append to, or null to stop journaling.
+     */
+    public void setJournal(CommandJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Commits the entities changed by every ship command applied from now on to a StateStore.
+     * @param stateStore The store to commit to, or null to stop persisting.
+     */
+    public void setStateStore(StateStore stateStore) {
+        this.stateStore = stateStore;
+    }
+
+    /**
+     * Returns the number of commands applied to this Game, including each command of a batch
+     * that was not skipped, but not the batches themselves.
+     * @return The number of commands applied.
+     */
+    public long getCommandCount() {
+        return appliedCommands;
+    }
+
+    /**
+     * Returns the number of ship commands applied to this Game which failed or were rejected,
+     * including those in batches. Comparing it before and after update tells whether every
+     * ship command of a batch was carried out.
+     * @return The number of failed ship commands.
+     */
+    public long getFailedCount() {
+        return failedCommands;
+    }
+
+    private boolean performShipCommand(IO ioHandler, ShipCommand command) {
+        long start = System.nanoTime();
+        appliedCommands++;
+        boolean performed = ship.performCommand(ioHandler, command);
+        metrics.recordCommand(command.type, System.nanoTime() - start);
+        if (!performed) {
+            failedCommands++;
+        }
+        try {
+            if (journal != null) {
+                journal.append(this, command);
+            }
+            if (stateStore != null) {
+                stateStore.commit();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return performed;
     }
 
     private boolean handleGameCommand(IO ioHandler, Command command) {
+        long start = System.nanoTime();
+        appliedCommands++;
         switch (command.type) {
             case EXIT -> {
                 return true;
@@ -30,13 +162,34 @@ public class Game {
             case SHOW_STATUS -> {
                 ioHandler.writeLn(ship.toString());
             }
+            case SHOW_METRICS -> {
+                ioHandler.writeLn(metrics.snapshot().toString());
+            }
         }
+        metrics.recordCommand(command.type, System.nanoTime() - start);
         return false;
     }
 
+    /**
+     * Performs a single ship command, as update does (counting and journaling it), and reports
+     * whether it was carried out.
+     * @param ioHandler Handles the output of the command.
+     * @param command The command to perform.
+     * @return True - if the command was carried out.
+     *         False - if the command failed or was rejected.
+     */
+    public boolean perform(IO ioHandler, ShipCommand command) {
+        return performShipCommand(ioHandler, command);
+    }
+
     public boolean update(IO ioHandler, Command command) {
-        if (command instanceof ShipCommand shipCommand) {
-            ship.performCommand(ioHandler, shipCommand);
+        if (command instanceof CommandBatch batch) {
+            long start = System.nanoTime();
+            boolean exit = updateBatch(ioHandler, batch);
+            metrics.recordCommand(CommandType.BATCH, System.nanoTime() - start);
+            return exit;
+        } else if (command instanceof ShipCommand shipCommand) {
+            performShipCommand(ioHandler, shipCommand);
         } else {
             return handleGameCommand(ioHandler, command);
         }
@@ -44,4 +197,22 @@ public class Game {
         return false;
     }
 
+    /**
+     * Executes each command of a batch in order. If the batch stops on error, the commands after
+     * the first failed ship command are skipped.
+     * @return True if the batch contained an exit command.
+     */
+    private boolean updateBatch(IO ioHandler, CommandBatch batch) {
+        for (Command command : batch.commands) {
+            if (command instanceof ShipCommand shipCommand) {
+                if (!performShipCommand(ioHandler, shipCommand) && batch.stopOnError) {
+                    return false;
+                }
+            } else if (handleGameCommand(ioHandler, command)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
@@ -0,0 +1,291 @@
+package srg.game;
+
+import srg.cli.given.CommandType;
+import srg.cli.given.ShipCommand;
+import srg.exceptions.InsufficientCapcaityException;
+import srg.exceptions.InsufficientResourcesException;
+import srg.exceptions.NoPathException;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelContainer;
+import srg.resources.ResourceContainer;
+import srg.ship.CargoHold;
+import srg.ship.NavigationRoom;
+import srg.ship.Room;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of a Game's state that can be forked cheaply, for search and what-if
+ * analysis. Applying a command to a fork returns a new fork and leaves the original unchanged.
+ * <p>
+ * Forks share structure instead of copying the Game. The galaxy is shared by every fork. Each
+ * fork holds its own copy of the Ship's state (the tiers and health of every Room including
+ * modules, CargoHold contents, current port and simulation time), which is a handful of
+ * values. Store stock is copy-on-write: a fork records the stock of only those Stores that have
+ * been bought from since the first fork was captured, and shares that record with its parent
+ * unless the command bought something. Forking therefore costs O(changed data), not O(galaxy).
+ * <p>
+ * Commands are applied by the Game's own Ship, so they follow exactly the same rules as in
+ * play. To do so, the fork is first checked out: the Game's Ship and changed Stores are set to
+ * the fork's state. The Game captured is used for this, so every fork of it must be used from
+ * one thread, and the Game must only be changed through apply while forks are in use. Check out
+ * the first fork to return the Game to where it started. Forks become invalid if SpacePorts are
+ * added to or removed from the galaxy, or Rooms are installed in the Ship.
+ */
+public final class GameFork {
+
+    /**
+     * The Game every fork of it is checked out into, and what it knows about the Stores.
+     */
+    private static final class Workbench {
+        /** The Game forks are checked out into. */
+        private final Game game;
+        /** The stock of each changed Store when the first fork was captured. */
+        private final Map<Store, List<ResourceContainer>> baseStock = new IdentityHashMap<>();
+        /** The Stores whose stock in the Game may differ from their base stock. */
+        private final Set<Store> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+        /** Discards the output of applied commands. */
+        private final QuietIO io = new QuietIO();
+        /** The fork the Game is currently in the state of, or null if it is unknown. */
+        private GameFork checkedOut;
+
+        private Workbench(Game game) {
+            this.game = game;
+        }
+    }
+
+    /**
+     * The recorded state of a Room, and of its contents if it is a CargoHold.
+     */
+    private static final class RoomState {
+        private final RoomTier tier;
+        private final int health;
+        private final int maximumHealth;
+        private final int damageRate;
+        /** The maximum capacity of a CargoHold. */
+        private final int capacity;
+        /** The contents of a CargoHold, or null for other Rooms. Never modified. */
+        private final List<ResourceContainer> contents;
+
+        private RoomState(Room room) {
+            tier = room.getTier();
+            health = room.getHealthPoints();
+            maximumHealth = room.getMaximumHealth();
+            damageRate = room.getDamageRate();
+            if (room instanceof CargoHold hold) {
+                capacity = hold.getMaximumCapacity();
+                contents = copy(hold.getResources());
+            } else {
+                capacity = 0;
+                contents = null;
+            }
+        }
+
+        private void restore(Room room) {
+            room.restoreState(tier, health, maximumHealth, damageRate);
+            if (contents != null) {
+                ((CargoHold) room).restoreContents(capacity, copy(contents));
+            }
+        }
+    }
+
+    /** The Game and base stock shared by every fork of one Game. */
+    private final Workbench workbench;
+    /** The Ship's CargoHold and its contents. */
+    private final RoomState cargoHold;
+    /** The Ship's NavigationRoom. */
+    private final RoomState navigationRoom;
+    /** The Ship's modules, in the order they were installed. */
+    private final RoomState[] modules;
+    /** The index of the Ship's current port. */
+    private final int currentIndex;
+    /** The simulation time. */
+    private final long time;
+    /** The stock of every Store that differs from its base stock. Never modified once shared. */
+    private final Map<Store, List<ResourceContainer>> stock;
+
+    private GameFork(Workbench workbench, Map<Store, List<ResourceContainer>> stock) {
+        Ship ship = workbench.game.ship;
+        this.workbench = workbench;
+        this.cargoHold = new RoomState(ship.getCargoHold());
+        this.navigationRoom = new RoomState(ship.getNavigationRoom());
+        List<Room> shipModules = ship.getModules();
+        this.modules = new RoomState[shipModules.size()];
+        for (int i = 0; i < modules.length; i++) {
+            modules[i] = new RoomState(shipModules.get(i));
+        }
+        this.currentIndex = ship.getNavigationRoom().getCurrentIndex();
+        this.time = ship.getNavigationRoom().getTime();
+        this.stock = stock;
+    }
+
+    /**
+     * Captures the current state of a Game as the first fork of it. This copies only the
+     * Ship's state.
+     * @param game The Game to capture. It is used to apply commands to every fork of it.
+     * @return A fork in the Game's current state.
+     */
+    public static GameFork capture(Game game) {
+        Workbench workbench = new Workbench(game);
+        GameFork fork = new GameFork(workbench, Map.of());
+        workbench.checkedOut = fork;
+        return fork;
+    }
+
+    /**
+     * Applies a command to the state of this fork, returning the resulting state as a new fork.
+     * This fork is not changed.
+     * @param command The command to apply.
+     * @return A fork in the state after the command, or null if the command failed or was
+     *         rejected.
+     */
+    public GameFork apply(ShipCommand command) {
+        Ship ship = checkout().ship;
+        Store store = command.type == CommandType.PURCHASE_ITEM
+                ? ship.getNavigationRoom().getStore() : null;
+        if (store != null) {
+            // The Store is checked out in its base stock unless this fork has already changed it
+            workbench.baseStock.computeIfAbsent(store, GameFork::copyStock);
+            workbench.dirty.add(store);
+        }
+
+        boolean success;
+        try {
+            success = ship.processCommand(workbench.io, command);
+        } catch (InsufficientResourcesException | NoPathException
+                 | InsufficientCapcaityException | IllegalArgumentException e) {
+            success = false;
+        }
+        if (!success) {
+            // A failed command may have changed part of the state, so check out in full next
+            workbench.checkedOut = null;
+            return null;
+        }
+
+        Map<Store, List<ResourceContainer>> childStock = stock;
+        if (store != null) {
+            childStock = new IdentityHashMap<>(stock);
+            childStock.put(store, copyStock(store));
+        }
+        GameFork child = new GameFork(workbench, childStock);
+        workbench.checkedOut = child;
+        return child;
+    }
+
+    /**
+     * Sets the Game's state to the state of this fork, e.g. to inspect it or to keep it as the
+     * result of a search. The Game must not be changed directly; use apply.
+     * @return The Game, now in this fork's state.
+     */
+    public Game checkout() {
+        if (workbench.checkedOut == this) {
+            return workbench.game;
+        }
+        Ship ship = workbench.game.ship;
+        cargoHold.restore(ship.getCargoHold());
+        navigationRoom.restore(ship.getNavigationRoom());
+        List<Room> shipModules = ship.getModules();
+        for (int i = 0; i < modules.length; i++) {
+            modules[i].restore(shipModules.get(i));
+        }
+        ship.getNavigationRoom().setCurrentIndex(currentIndex);
+        ship.getNavigationRoom().setTime(time);
+
+        for (Store store : workbench.dirty) {
+            if (!stock.containsKey(store)) {
+                restoreStock(store, workbench.baseStock.get(store));
+            }
+        }
+        for (Map.Entry<Store, List<ResourceContainer>> entry : stock.entrySet()) {
+            restoreStock(entry.getKey(), entry.getValue());
+        }
+        workbench.dirty.clear();
+        workbench.dirty.addAll(stock.keySet());
+        workbench.checkedOut = this;
+        return workbench.game;
+    }
+
+    /**
+     * Returns the index of the Ship's current port in this state.
+     * @return The index of the current port in the galaxy map.
+     */
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    /**
+     * Returns the Ship's current port in this state.
+     * @return The SpacePort the Ship is docked at.
+     */
+    public SpacePort getCurrentPort() {
+        return workbench.game.ports.get(currentIndex);
+    }
+
+    /**
+     * Returns the simulation time in this state.
+     * @return The number of journeys attempted.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the tier of one of the Ship's Rooms in this state.
+     * @param roomName The Room's name, e.g. "CargoHold", "NavigationRoom" or a module's name.
+     * @return The Room's tier.
+     * @throws IllegalArgumentException If the Room does not exist.
+     */
+    public RoomTier getTier(String roomName) {
+        if (roomName.equals(CargoHold.class.getSimpleName())) {
+            return cargoHold.tier;
+        } else if (roomName.equals(NavigationRoom.class.getSimpleName())) {
+            return navigationRoom.tier;
+        }
+        Ship ship = workbench.game.ship;
+        int index = ship.getModules().indexOf(ship.getRooms().get(roomName));
+        if (index < 0) {
+            throw new IllegalArgumentException();
+        }
+        return modules[index].tier;
+    }
+
+    /**
+     * Returns the number of Stores whose stock differs from when the first fork was captured.
+     * @return The number of Stores this fork records the stock of.
+     */
+    public int getChangedStoreCount() {
+        return stock.size();
+    }
+
+    private static List<ResourceContainer> copyStock(Store store) {
+        return copy(store.getCargoHold().getResources());
+    }
+
+    private static void restoreStock(Store store, List<ResourceContainer> contents) {
+        CargoHold hold = store.getCargoHold();
+        hold.restoreContents(hold.getMaximumCapacity(), copy(contents));
+    }
+
+    /**
+     * Copies ResourceContainers, which are changed in place as resources are consumed.
+     */
+    private static List<ResourceContainer> copy(List<ResourceContainer> containers) {
+        List<ResourceContainer> copies = new ArrayList<>(containers.size());
+        for (ResourceContainer container : containers) {
+            if (container instanceof FuelContainer fuel) {
+                copies.add(new FuelContainer(fuel.getFuelGrade(), fuel.getAmount()));
+            } else {
+                copies.add(new ResourceContainer(container.getType(), container.getAmount()));
+            }
+        }
+        return copies;
+    }
+}
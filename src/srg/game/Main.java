@@ -4,20 +4,137 @@ import srg.cli.given.CLIHandler;
 import srg.cli.given.Command;
 import srg.cli.given.IO;
 import srg.cli.given.MapGenerator;
-import srg.ports.SpacePort;
-import srg.ship.NavigationRoom;
+import srg.persistence.LogStore;
+import srg.persistence.StateStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 public class Main {
-    public static void main(String[] args) {
-        Game game = new Game();
+    /** The command line arguments Main accepts. */
+    private static final String USAGE = "Usage: Main [--seed N] [--infinite] "
+            + "[--state directory] [--record file] [--stop-on-error] [--script file [--quiet]]";
+
+    public static void main(String[] args) throws IOException {
+        Path recordTo = null;
+        Path stateDirectory = null;
+        Path script = null;
+        long seed = MapGenerator.DEFAULT_SEED;
+        boolean infinite = false;
+        boolean quiet = false;
+        boolean stopOnError = false;
+        for (int i = 0; i < args.length; i++) {
+            String flag = args[i];
+            switch (flag) {
+                case "--infinite" -> infinite = true;
+                case "--quiet" -> quiet = true;
+                case "--stop-on-error" -> stopOnError = true;
+                case "--record", "--state", "--script", "--seed" -> {
+                    // A value flag must be followed by its value, not another flag
+                    if (i + 1 == args.length || args[i + 1].startsWith("--")) {
+                        exitWithUsage("Missing value for " + flag);
+                    }
+                    String value = args[++i];
+                    switch (flag) {
+                        case "--record" -> recordTo = Path.of(value);
+                        case "--state" -> stateDirectory = Path.of(value);
+                        case "--script" -> script = Path.of(value);
+                        default -> {
+                            try {
+                                seed = Long.parseLong(value);
+                            } catch (NumberFormatException e) {
+                                exitWithUsage("Invalid seed " + value);
+                            }
+                        }
+                    }
+                }
+                default -> exitWithUsage("Unknown argument " + flag);
+            }
+        }
+
+        Game game = infinite ? Game.infinite(seed) : new Game(seed);
+        LogStore log = null;
+        if (stateDirectory != null) {
+            // Resume from, and keep writing to, the state in the directory
+            log = LogStore.open(stateDirectory);
+            game.setStateStore(StateStore.open(log, game));
+        }
+        if (script != null) {
+            if (recordTo != null) {
+                // The script is what would be recorded, so record it before it runs and exits
+                recordScript(seed, infinite, script, recordTo);
+            }
+            runScript(game, script, quiet, stopOnError, log);
+        }
         IO ioHandler = new IO();
+        ioHandler.setRecording(recordTo != null);
         CLIHandler commandParser = new CLIHandler();
+        commandParser.setStopOnError(stopOnError);
 
         boolean exit;
         do {
             Command command = commandParser.parse(ioHandler);
             exit = game.update(ioHandler, command);
         } while (!exit);
+
+        if (log != null) {
+            log.close();
+        }
+
+        if (recordTo != null) {
+            new SessionRecording(seed, infinite, ioHandler.getInputRecord()).write(recordTo);
+        }
+    }
+
+    /**
+     * Prints why the arguments were rejected and the usage message, and exits with 2.
+     */
+    private static void exitWithUsage(String reason) {
+        System.err.println(reason);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    /**
+     * Writes the commands of a script file as a session recording, skipping the blank lines and
+     * comments the ScriptRunner skips. Exits with 2 if the script could not be read.
+     */
+    private static void recordScript(long seed, boolean infinite, Path script, Path recordTo)
+            throws IOException {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(script);
+        } catch (IOException e) {
+            System.err.println("Cannot read script " + script + ": " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        lines.removeIf(line -> line.isBlank() || line.trim().startsWith("#"));
+        new SessionRecording(seed, infinite, lines).write(recordTo);
+    }
+
+    /**
+     * Runs a script file without prompting, prints a summary of the run, and exits: with 0 if
+     * every command succeeded, 1 if any failed, or 2 if the script could not be read.
+     */
+    private static void runScript(Game game, Path script, boolean quiet, boolean stopOnError,
+                                  LogStore log) throws IOException {
+        int status;
+        try {
+            ScriptRunner.Result result = ScriptRunner.run(game, script,
+                    ScriptRunner.output(quiet), stopOnError);
+            System.out.println(result);
+            status = result.isSuccess() ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Cannot read script " + script + ": " + e.getMessage());
+            status = 2;
+        }
+        if (log != null) {
+            log.close();
+        }
+        System.exit(status);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package srg.game;
+
+import srg.cli.given.IO;
+
+/**
+ * An IO handler which discards all output. Used when commands are applied without a player
+ * watching, e.g. when replaying a journal.
+ */
+public class QuietIO extends IO {
+    /**
+     * Discards the line.
+     * @param line The line that would have been written.
+     */
+    @Override
+    public void writeLn(String line) {
+    }
+
+    /**
+     * Discards the text.
+     * @param line The text that would have been written.
+     */
+    @Override
+    public void write(String line) {
+    }
+}
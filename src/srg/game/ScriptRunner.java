@@ -0,0 +1,224 @@
+package srg.game;
+
+import srg.cli.given.CLIHandler;
+import srg.cli.given.Command;
+import srg.cli.given.IO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs a file of commands against a Game end to end, without prompting, and counts the errors.
+ * Each line is parsed as if typed at the prompt, so a line may hold several commands separated
+ * by CLIHandler.SEPARATOR. Blank lines and lines starting with '#' are skipped. The run stops
+ * at the first exit command or after the last line; a line that cannot be parsed is counted
+ * as an error rather than prompted for again. Help is answered by the parser, and every other
+ * line is applied with Game.update, so a line's remaining commands are skipped after one fails
+ * if the run stops on error.
+ */
+public class ScriptRunner {
+    /** The error type of a line which cannot be parsed. */
+    public static final String INVALID_COMMAND = "InvalidCommand";
+    /** The error type of a ship command rejected without an exception, e.g. when not docked. */
+    public static final String REJECTED = "Rejected";
+
+    /**
+     * The outcome of running a script.
+     */
+    public static class Result {
+        /** The number of commands applied, not counting help, skipped or invalid commands. */
+        public final int commands;
+        /** The total time spent running, in nanoseconds. */
+        public final long elapsedNanos;
+        /** The number of errors, by type: an exception name, INVALID_COMMAND or REJECTED. */
+        public final Map<String, Long> errors;
+
+        Result(int commands, long elapsedNanos, Map<String, Long> errors) {
+            this.commands = commands;
+            this.elapsedNanos = elapsedNanos;
+            this.errors = errors;
+        }
+
+        /**
+         * Returns the total number of errors of every type.
+         * @return The number of errors.
+         */
+        public long getTotalErrors() {
+            long total = 0;
+            for (long count : errors.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * Returns whether every line was parsed and every command carried out.
+         * @return True if there were no errors.
+         */
+        public boolean isSuccess() {
+            return errors.isEmpty();
+        }
+
+        /**
+         * Returns a multi-line summary of the run.
+         * @return The throughput and error count, then a line for each type of error.
+         */
+        @Override
+        public String toString() {
+            StringBuilder summary = new StringBuilder(String.format(
+                    "commands: %d, errors: %d, elapsed: %.2fms, commands/s: %.0f",
+                    commands, getTotalErrors(), elapsedNanos / 1e6,
+                    commands / Math.max(elapsedNanos / 1e9, 1e-9)));
+            for (Map.Entry<String, Long> entry : errors.entrySet()) {
+                summary.append(System.lineSeparator()).append("    ").append(entry.getKey())
+                        .append(": ").append(entry.getValue());
+            }
+            return summary.toString();
+        }
+    }
+
+    /**
+     * An IO handler which prints output without also keeping it, as IO does, so long scripts
+     * do not slow down as output accumulates.
+     */
+    private static class PrintingIO extends IO {
+        private final PrintStream out;
+
+        PrintingIO(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void writeLn(String line) {
+            out.println(line);
+        }
+
+        @Override
+        public void write(String line) {
+            out.print(line);
+        }
+    }
+
+    private ScriptRunner() {
+    }
+
+    /**
+     * Returns an IO handler for a script's output.
+     * @param quiet True to discard the output.
+     * @return A QuietIO if quiet, otherwise a handler printing to standard output.
+     */
+    public static IO output(boolean quiet) {
+        return quiet ? new QuietIO() : new PrintingIO(System.out);
+    }
+
+    /**
+     * Runs every command in a script file against a Game.
+     * @param game The Game to run the commands against.
+     * @param script The file of commands, one line per prompt.
+     * @param ioHandler Handles the output of the commands.
+     * @return The number of commands, the time taken and the errors.
+     * @throws IOException If the script cannot be read.
+     */
+    public static Result run(Game game, Path script, IO ioHandler) throws IOException {
+        return run(game, script, ioHandler, false);
+    }
+
+    /**
+     * Runs every command in a script file against a Game.
+     * @param game The Game to run the commands against.
+     * @param script The file of commands, one line per prompt.
+     * @param ioHandler Handles the output of the commands.
+     * @param stopOnError True to skip the rest of a line once one of its commands fails.
+     * @return The number of commands, the time taken and the errors.
+     * @throws IOException If the script cannot be read.
+     */
+    public static Result run(Game game, Path script, IO ioHandler, boolean stopOnError)
+            throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(script)) {
+            return run(game, reader, ioHandler, stopOnError);
+        }
+    }
+
+    /**
+     * Runs every command read from a script against a Game.
+     * @param game The Game to run the commands against.
+     * @param script The commands, one line per prompt.
+     * @param ioHandler Handles the output of the commands.
+     * @return The number of commands, the time taken and the errors.
+     * @throws IOException If the script cannot be read.
+     */
+    public static Result run(Game game, BufferedReader script, IO ioHandler) throws IOException {
+        return run(game, script, ioHandler, false);
+    }
+
+    /**
+     * Runs every command read from a script against a Game.
+     * @param game The Game to run the commands against.
+     * @param script The commands, one line per prompt.
+     * @param ioHandler Handles the output of the commands.
+     * @param stopOnError True to skip the rest of a line once one of its commands fails.
+     * @return The number of commands, the time taken and the errors.
+     * @throws IOException If the script cannot be read.
+     */
+    public static Result run(Game game, BufferedReader script, IO ioHandler,
+                             boolean stopOnError) throws IOException {
+        CLIHandler commandParser = new CLIHandler();
+        commandParser.setStopOnError(stopOnError);
+        Map<String, Long> failuresBefore = game.getMetrics().snapshot().getFailures();
+        Map<String, Long> errors = new TreeMap<>();
+        int commands = 0;
+        long failed = 0;
+
+        long start = System.nanoTime();
+        String line;
+        boolean exit = false;
+        while (!exit && (line = script.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            Command command;
+            try {
+                command = commandParser.parseLine(ioHandler, trimmed);
+            } catch (RuntimeException e) {
+                // e.g. a number too large for an int
+                ioHandler.writeLn("Invalid command: " + e.getMessage());
+                command = null;
+            }
+            if (command == null) {
+                errors.merge(INVALID_COMMAND, 1L, Long::sum);
+                continue;
+            }
+            command = commandParser.answerHelp(ioHandler, command);
+            if (command == null) {
+                // Only help was asked for, which the parser answers
+                continue;
+            }
+            long appliedBefore = game.getCommandCount();
+            long failedBefore = game.getFailedCount();
+            exit = game.update(ioHandler, command);
+            commands += (int) (game.getCommandCount() - appliedBefore);
+            failed += game.getFailedCount() - failedBefore;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Failures with an exception were counted by type; the rest were rejections
+        for (Map.Entry<String, Long> entry :
+                game.getMetrics().snapshot().getFailures().entrySet()) {
+            long count = entry.getValue() - failuresBefore.getOrDefault(entry.getKey(), 0L);
+            if (count > 0) {
+                errors.put(entry.getKey(), count);
+                failed -= count;
+            }
+        }
+        if (failed > 0) {
+            errors.put(REJECTED, failed);
+        }
+        return new Result(commands, elapsed, errors);
+    }
+}
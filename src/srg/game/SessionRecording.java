@@ -0,0 +1,119 @@
+package srg.game;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A recorded play session: the seed the galaxy was generated from, whether it was an infinite
+ * galaxy, and every line the player entered. Because map generation is fully determined by the
+ * seed, replaying the lines against a new Game of the same kind with the same seed reproduces
+ * the session exactly.
+ * <p>
+ * Recordings are stored as text: a header line "# seed N", or "# infinite seed N" for an
+ * infinite galaxy, followed by one input line per line.
+ */
+public class SessionRecording {
+    /** The header line prefix. */
+    private static final String SEED_HEADER = "# seed ";
+    /** The header line prefix of a session in an infinite galaxy. */
+    private static final String INFINITE_HEADER = "# infinite seed ";
+    /** The seed the galaxy was generated from. */
+    private final long seed;
+    /** Whether the galaxy was an infinite LazyGalaxy, as made by Game.infinite. */
+    private final boolean infinite;
+    /** The lines entered, in order. */
+    private final List<String> lines;
+
+    /**
+     * Constructs a recording of a session in a finite galaxy.
+     * @param seed The seed the session's galaxy was generated from.
+     * @param lines The lines entered during the session, in order.
+     */
+    public SessionRecording(long seed, List<String> lines) {
+        this(seed, false, lines);
+    }
+
+    /**
+     * Constructs a recording.
+     * @param seed The seed the session's galaxy was generated from.
+     * @param infinite Whether the galaxy was infinite, as made by Game.infinite.
+     * @param lines The lines entered during the session, in order.
+     */
+    public SessionRecording(long seed, boolean infinite, List<String> lines) {
+        this.seed = seed;
+        this.infinite = infinite;
+        this.lines = List.copyOf(lines);
+    }
+
+    /**
+     * Returns the seed the session's galaxy was generated from.
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns whether the session's galaxy was infinite.
+     * @return True if the session was played in a Game made by Game.infinite.
+     */
+    public boolean isInfinite() {
+        return infinite;
+    }
+
+    /**
+     * Returns the lines entered during the session.
+     * @return An unmodifiable list of lines, in the order they were entered.
+     */
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * Writes this recording to a file, replacing it if it exists.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write((infinite ? INFINITE_HEADER : SEED_HEADER) + seed);
+            out.newLine();
+            for (String line : lines) {
+                out.write(line);
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads a recording written by write.
+     * @param path The file to read.
+     * @return The recording.
+     * @throws IOException If the file cannot be read or does not start with a seed header.
+     */
+    public static SessionRecording read(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            throw new IOException(path + " is not a session recording.");
+        }
+        String header = lines.get(0);
+        boolean infinite = header.startsWith(INFINITE_HEADER);
+        if (!infinite && !header.startsWith(SEED_HEADER)) {
+            throw new IOException(path + " is not a session recording.");
+        }
+        long seed;
+        try {
+            seed = Long.parseLong(header.substring(infinite ? INFINITE_HEADER.length()
+                    : SEED_HEADER.length()).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException(path + " has an invalid seed.", e);
+        }
+        return new SessionRecording(seed, infinite,
+                new ArrayList<>(lines.subList(1, lines.size())));
+    }
+}
@@ -0,0 +1,126 @@
+package srg.game;
+
+import srg.cli.given.CLIHandler;
+import srg.cli.given.Command;
+import srg.cli.given.CommandType;
+import srg.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Replays SessionRecordings headlessly and as fast as possible, for use as realistic profiling
+ * and regression workloads. Output is checksummed rather than printed, and the time taken to
+ * parse and apply each command is recorded per CommandType.
+ */
+public class SessionReplayer {
+
+    /**
+     * The outcome of replaying a session.
+     */
+    public static class Result {
+        /** The CRC32 of all output produced. */
+        public final long checksum;
+        /** The number of commands applied (invalid lines are not counted). */
+        public final int commands;
+        /** The total time spent replaying, in nanoseconds. */
+        public final long elapsedNanos;
+        /** The latency of each applied command, by type. */
+        public final Map<CommandType, LatencyHistogram> latencies;
+
+        Result(long checksum, int commands, long elapsedNanos,
+               Map<CommandType, LatencyHistogram> latencies) {
+            this.checksum = checksum;
+            this.commands = commands;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+        }
+
+        /**
+         * Returns a multi-line summary of the replay.
+         * @return The checksum, throughput and a latency line for each command type.
+         */
+        @Override
+        public String toString() {
+            StringBuilder summary = new StringBuilder(String.format(
+                    "checksum: %08x, commands: %d, elapsed: %.2fms, commands/s: %.0f",
+                    checksum, commands, elapsedNanos / 1e6,
+                    commands / Math.max(elapsedNanos / 1e9, 1e-9)));
+            for (Map.Entry<CommandType, LatencyHistogram> entry : latencies.entrySet()) {
+                summary.append(System.lineSeparator()).append(entry.getKey()).append(": ")
+                        .append(entry.getValue());
+            }
+            return summary.toString();
+        }
+    }
+
+    private SessionReplayer() {
+    }
+
+    /**
+     * Replays a session against a new Game generated from the session's seed, in an infinite
+     * galaxy if the session was played in one. Replay stops at the first exit command or after
+     * the last line.
+     * @param recording The session to replay.
+     * @return The checksum of the output and the latency of each command.
+     */
+    public static Result replay(SessionRecording recording) {
+        Game game = recording.isInfinite() ? Game.infinite(recording.getSeed())
+                : new Game(recording.getSeed());
+        ChecksumIO ioHandler = new ChecksumIO();
+        CLIHandler commandParser = new CLIHandler();
+        Map<CommandType, LatencyHistogram> latencies = new EnumMap<>(CommandType.class);
+        int commands = 0;
+
+        long start = System.nanoTime();
+        for (String line : recording.getLines()) {
+            long commandStart = System.nanoTime();
+            Command command = commandParser.parseLine(ioHandler, line);
+            if (command == null) {
+                continue;
+            }
+            CommandType type = command.type;
+            command = commandParser.answerHelp(ioHandler, command);
+            boolean exit = command != null && game.update(ioHandler, command);
+
+            latencies.computeIfAbsent(type, t -> new LatencyHistogram())
+                    .record(System.nanoTime() - commandStart);
+            commands++;
+            if (exit) {
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new Result(ioHandler.getChecksum(), commands, elapsed, latencies);
+    }
+
+    /**
+     * Replays a recorded session repeatedly and prints a summary of the last run. Every run
+     * must produce the same checksum; the exit code is 1 if they differ.
+     * @param args The recording file, and optionally the number of runs (default 1).
+     * @throws IOException If the recording cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SessionReplayer <recording> [runs]");
+            System.exit(2);
+        }
+        SessionRecording recording = SessionRecording.read(Path.of(args[0]));
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        Result result = replay(recording);
+        for (int i = 1; i < runs; i++) {
+            Result next = replay(recording);
+            if (next.checksum != result.checksum) {
+                System.err.printf("Replay is not deterministic: %08x != %08x%n",
+                        next.checksum, result.checksum);
+                System.exit(1);
+            }
+            result = next;
+        }
+        System.out.println(result);
+    }
+}
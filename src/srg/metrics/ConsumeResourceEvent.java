@@ -0,0 +1,35 @@
+package srg.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event emitted when resources are consumed from a CargoHold. It is only
+ * committed when the resources are consumed; an attempt that fails changes nothing and emits
+ * no event. Disabled by default; see GameEvents.
+ */
+@Name(ConsumeResourceEvent.NAME)
+@Label("Consume Resource")
+@Category({"Space Rogue", "Ship"})
+@Description("Resources were consumed from a CargoHold")
+@Enabled(false)
+@StackTrace(false)
+public class ConsumeResourceEvent extends Event {
+    /** The event type name. */
+    public static final String NAME = "srg.ConsumeResource";
+
+    @Label("Resource")
+    @Description("The ResourceType or FuelGrade consumed")
+    public String resource;
+
+    @Label("Amount")
+    public int amount;
+
+    @Label("Remaining")
+    public int remaining;
+}
@@ -0,0 +1,30 @@
+package srg.metrics;
+
+import jdk.jfr.Recording;
+
+import java.util.List;
+
+/**
+ * The Flight Recorder events emitted by the game. Every event is disabled by default and costs
+ * next to nothing until enabled, either on a Recording through enable, or in a JFR settings
+ * file (e.g. with {@code <event name="srg.Travel"><setting name="enabled">true</setting>
+ * </event>}).
+ */
+public final class GameEvents {
+    /** The names of every game event type. */
+    public static final List<String> NAMES = List.of(TravelEvent.NAME, PurchaseEvent.NAME,
+            ConsumeResourceEvent.NAME, RoomHealthEvent.NAME);
+
+    private GameEvents() {
+    }
+
+    /**
+     * Enables every game event on a recording.
+     * @param recording The recording to enable the events on.
+     */
+    public static void enable(Recording recording) {
+        for (String name : NAMES) {
+            recording.enable(name);
+        }
+    }
+}
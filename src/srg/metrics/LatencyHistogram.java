@@ -0,0 +1,151 @@
+package srg.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative latencies in nanoseconds, in the style of an HDR histogram.
+ * Values are grouped into buckets whose width grows with the value, so every recorded value
+ * keeps about two significant digits (at most ~3% error) across the whole range of a long,
+ * while recording stays a constant-time array increment.
+ * <p>
+ * A histogram is not thread-safe; concurrent recorders should each keep their own histogram
+ * and merge them with add.
+ */
+public class LatencyHistogram {
+    /** Bits of precision kept for each value. */
+    private static final int PRECISION_BITS = 6;
+    /** The number of values below which every value has its own bucket. */
+    private static final int LINEAR_LIMIT = 1 << PRECISION_BITS;
+    /** The number of buckets covering each power of two above LINEAR_LIMIT. */
+    private static final int HALF = LINEAR_LIMIT / 2;
+    /** Enough buckets for any non-negative long. */
+    private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+    /** The number of values recorded into each bucket. */
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records one value.
+     * @param value The value to record. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds every value recorded by another histogram to this one.
+     * @param other The histogram to merge in.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removes every recorded value.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     * @return The number of values recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest recorded value.
+     * @return The exact minimum, or 0 if nothing was recorded.
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     * @return The exact maximum, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     * @return The exact mean, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the value below which the given percentage of recorded values fall.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The highest value in the bucket holding the percentile, capped at the maximum
+     *         recorded value; 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns a summary of the histogram, with values shown in microseconds.
+     * @return A string of format "count: n, mean: xus, p50: xus, p90: xus, p99: xus, max: xus".
+     */
+    @Override
+    public String toString() {
+        return String.format("count: %d, mean: %.1fus, p50: %.1fus, p90: %.1fus, p99: %.1fus, "
+                        + "max: %.1fus", count, getMean() / 1000,
+                getValueAtPercentile(50) / 1000.0, getValueAtPercentile(90) / 1000.0,
+                getValueAtPercentile(99) / 1000.0, max / 1000.0);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        // Keep the top PRECISION_BITS bits of the value
+        int shift = 64 - Long.numberOfLeadingZeros(value) - PRECISION_BITS;
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    private static long highestInBucket(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = bucket / HALF - 1;
+        long top = bucket - (long) shift * HALF;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,192 @@
+package srg.metrics;
+
+import srg.cli.given.CommandType;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the number of commands applied and their latencies per CommandType, and the number
+ * of failures per exception type. Recording is cheap and safe from any thread without locking:
+ * counters are LongAdders, and latencies go into histograms written only by the recording
+ * thread. A snapshot merges every thread's histograms; it sees every command whose recording
+ * finished before it started. The histograms of threads that have died are folded into one
+ * retired set, so short-lived threads do not accumulate.
+ */
+public class MetricsRegistry {
+    private static final CommandType[] TYPES = CommandType.values();
+
+    /**
+     * The latency histograms of one recording thread, by CommandType ordinal.
+     */
+    private static final class Buffer {
+        /** The thread recording into the histograms. Held weakly so it can be collected. */
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        /** The generation of the registry the buffer belongs to. */
+        private final int generation;
+        private final LatencyHistogram[] histograms = newHistograms();
+        /** Written after each record, so readers see every finished record. */
+        private final AtomicLong recorded = new AtomicLong();
+
+        private Buffer(int generation) {
+            this.generation = generation;
+        }
+
+        private boolean isRetired() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+
+    /** The number of commands applied, by CommandType ordinal. */
+    private final LongAdder[] counts = new LongAdder[TYPES.length];
+    /** The number of failures, by exception class simple name. */
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    /** The buffers of live threads that have recorded a command. Guarded by this. */
+    private final List<Buffer> buffers = new ArrayList<>();
+    /** The merged latencies of threads that have died. Guarded by this. */
+    private LatencyHistogram[] retired = newHistograms();
+    /** Incremented by reset, so threads start new buffers instead of clearing theirs. */
+    private volatile int generation;
+    /** The buffer of the current thread. */
+    private final ThreadLocal<Buffer> localBuffer = new ThreadLocal<>();
+
+    /**
+     * Constructs an empty registry.
+     */
+    public MetricsRegistry() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records that a command was applied.
+     * @param type The type of the command.
+     * @param nanos The time taken to apply the command, in nanoseconds.
+     */
+    public void recordCommand(CommandType type, long nanos) {
+        counts[type.ordinal()].increment();
+        Buffer buffer = localBuffer.get();
+        if (buffer == null || buffer.generation != generation) {
+            buffer = newBuffer();
+        }
+        buffer.histograms[type.ordinal()].record(nanos);
+        buffer.recorded.lazySet(buffer.recorded.get() + 1);
+    }
+
+    /**
+     * Records that a command failed with an exception.
+     * @param exception The class of the exception.
+     */
+    public void recordFailure(Class<? extends Exception> exception) {
+        failures.computeIfAbsent(exception.getSimpleName(), name -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the number of commands of a type applied so far.
+     * @param type The type of command.
+     * @return The number of commands of that type.
+     */
+    public long getCount(CommandType type) {
+        return counts[type.ordinal()].sum();
+    }
+
+    /**
+     * Returns the number of threads whose latency histograms are held separately: threads that
+     * have recorded a command since the last reset, less those found to have died by a
+     * snapshot.
+     * @return The number of per-thread buffers.
+     */
+    public synchronized int getBufferCount() {
+        return buffers.size();
+    }
+
+    /**
+     * Takes a copy of the metrics recorded so far. Commands being recorded while the snapshot
+     * is taken may be missed.
+     * @return The current metrics.
+     */
+    public synchronized MetricsSnapshot snapshot() {
+        retireDeadThreads();
+        Map<CommandType, Long> commandCounts = new EnumMap<>(CommandType.class);
+        Map<CommandType, LatencyHistogram> latencies = new EnumMap<>(CommandType.class);
+        for (Buffer buffer : buffers) {
+            // Makes the buffer's finished records visible
+            buffer.recorded.get();
+        }
+        for (CommandType type : TYPES) {
+            long count = counts[type.ordinal()].sum();
+            if (count == 0) {
+                continue;
+            }
+            commandCounts.put(type, count);
+
+            LatencyHistogram merged = new LatencyHistogram();
+            merged.add(retired[type.ordinal()]);
+            for (Buffer buffer : buffers) {
+                merged.add(buffer.histograms[type.ordinal()]);
+            }
+            latencies.put(type, merged);
+        }
+
+        Map<String, Long> failureCounts = new TreeMap<>();
+        failures.forEach((name, count) -> failureCounts.put(name, count.sum()));
+        return new MetricsSnapshot(commandCounts, latencies, failureCounts);
+    }
+
+    /**
+     * Discards everything recorded so far. Each thread starts a new buffer the next time it
+     * records, so no thread's histograms are written by another.
+     */
+    public synchronized void reset() {
+        generation++;
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+        failures.clear();
+        buffers.clear();
+        retired = newHistograms();
+    }
+
+    private synchronized Buffer newBuffer() {
+        retireDeadThreads();
+        Buffer buffer = new Buffer(generation);
+        buffers.add(buffer);
+        localBuffer.set(buffer);
+        return buffer;
+    }
+
+    /**
+     * Folds the histograms of threads that have died into the retired histograms. A thread's
+     * writes happen before it is seen to have died.
+     */
+    private void retireDeadThreads() {
+        Iterator<Buffer> iterator = buffers.iterator();
+        while (iterator.hasNext()) {
+            Buffer buffer = iterator.next();
+            if (buffer.isRetired()) {
+                for (int i = 0; i < retired.length; i++) {
+                    retired[i].add(buffer.histograms[i]);
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private static LatencyHistogram[] newHistograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[TYPES.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+}
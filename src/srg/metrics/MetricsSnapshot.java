@@ -0,0 +1,80 @@
+package srg.metrics;
+
+import srg.cli.given.CommandType;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable copy of the metrics in a MetricsRegistry at one point in time.
+ */
+public class MetricsSnapshot {
+    /** The number of commands applied, by type. Types never applied are absent. */
+    private final Map<CommandType, Long> counts;
+    /** The latency of applied commands, by type. */
+    private final Map<CommandType, LatencyHistogram> latencies;
+    /** The number of failures, by exception class simple name. */
+    private final Map<String, Long> failures;
+
+    MetricsSnapshot(Map<CommandType, Long> counts, Map<CommandType, LatencyHistogram> latencies,
+                    Map<String, Long> failures) {
+        this.counts = Collections.unmodifiableMap(counts);
+        this.latencies = Collections.unmodifiableMap(latencies);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Returns the number of commands applied, by type.
+     * @return An unmodifiable map from CommandType to count, without types never applied.
+     */
+    public Map<CommandType, Long> getCounts() {
+        return counts;
+    }
+
+    /**
+     * Returns the latency histogram of a type of command.
+     * @param type The type of command.
+     * @return The latencies in nanoseconds, or null if no command of that type was applied.
+     */
+    public LatencyHistogram getLatency(CommandType type) {
+        return latencies.get(type);
+    }
+
+    /**
+     * Returns the number of failures, by exception type.
+     * @return An unmodifiable map from exception class simple name to count.
+     */
+    public Map<String, Long> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the total number of failures of every type.
+     * @return The number of failed commands.
+     */
+    public long getTotalFailures() {
+        long total = 0;
+        for (long count : failures.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns a String representation of the metrics.
+     * @return A string with a latency line for each applied CommandType, followed by a line for
+     *         each exception type that caused failures.
+     */
+    @Override
+    public String toString() {
+        StringBuilder metrics = new StringBuilder("METRICS:");
+        for (Map.Entry<CommandType, LatencyHistogram> entry : latencies.entrySet()) {
+            metrics.append(String.format("\n    %s: %s", entry.getKey(), entry.getValue()));
+        }
+        metrics.append("\nFAILURES:");
+        for (Map.Entry<String, Long> entry : failures.entrySet()) {
+            metrics.append(String.format("\n    %s: %d", entry.getKey(), entry.getValue()));
+        }
+        return metrics.toString();
+    }
+}
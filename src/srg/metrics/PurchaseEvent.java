@@ -0,0 +1,36 @@
+package srg.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event emitted when an item is purchased from a Store. Disabled by default;
+ * see GameEvents.
+ */
+@Name(PurchaseEvent.NAME)
+@Label("Purchase")
+@Category({"Space Rogue", "Trade"})
+@Description("An item was purchased from a Store")
+@Enabled(false)
+@StackTrace(false)
+public class PurchaseEvent extends Event {
+    /** The event type name. */
+    public static final String NAME = "srg.Purchase";
+
+    @Label("Store")
+    public String store;
+
+    @Label("Item")
+    public String item;
+
+    @Label("Amount")
+    public int amount;
+
+    @Label("Success")
+    public boolean success;
+}
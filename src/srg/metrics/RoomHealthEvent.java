@@ -0,0 +1,39 @@
+package srg.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event emitted when a Room is damaged or has its health reset. Disabled by
+ * default; see GameEvents.
+ */
+@Name(RoomHealthEvent.NAME)
+@Label("Room Health")
+@Category({"Space Rogue", "Ship"})
+@Description("A Room was damaged or had its health reset")
+@Enabled(false)
+@StackTrace(false)
+public class RoomHealthEvent extends Event {
+    /** The event type name. */
+    public static final String NAME = "srg.RoomHealth";
+
+    @Label("Room")
+    public String room;
+
+    @Label("Action")
+    @Description("\"damage\" or \"reset\"")
+    public String action;
+
+    @Label("Tier")
+    public String tier;
+
+    @Label("Health")
+    @Description("Health after the action, as a percentage of the maximum")
+    public int health;
+}
@@ -0,0 +1,41 @@
+package srg.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event emitted when a Ship flies or jumps between SpacePorts. Attempts that
+ * fail emit no event. Disabled by default; see GameEvents.
+ */
+@Name(TravelEvent.NAME)
+@Label("Travel")
+@Category({"Space Rogue", "Ship"})
+@Description("A Ship flew or jumped between SpacePorts")
+@Enabled(false)
+@StackTrace(false)
+public class TravelEvent extends Event {
+    /** The event type name. */
+    public static final String NAME = "srg.Travel";
+
+    @Label("Mode")
+    @Description("\"fly\" or \"jump\"")
+    public String mode;
+
+    @Label("Source")
+    public String source;
+
+    @Label("Destination")
+    public String destination;
+
+    @Label("Distance")
+    public int distance;
+
+    @Label("Fuel")
+    @Description("TRITIUM used when flying, HYPERDRIVE_COREs used when jumping")
+    public int fuel;
+}
@@ -0,0 +1,109 @@
+package srg.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A growable ByteBuffer used to encode game state in a single pass. The buffer is direct so
+ * that it can be written to a channel without an intermediate copy.
+ */
+class BufferWriter {
+    /** The buffer being written; replaced by a larger copy when full. */
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs a writer with an initial capacity.
+     * @param capacity The expected number of bytes to write.
+     */
+    BufferWriter(int capacity) {
+        buffer = ByteBuffer.allocateDirect(Math.max(capacity, 64));
+    }
+
+    /**
+     * Discards everything written so far, keeping the allocated buffer.
+     */
+    void clear() {
+        buffer.clear();
+    }
+
+    /**
+     * Returns the number of bytes written.
+     * @return The current position in the buffer.
+     */
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Returns the written bytes, ready to be read or written to a channel. Further writes are
+     * not allowed until clear is called.
+     * @return A flipped view of the buffer.
+     */
+    ByteBuffer flip() {
+        return buffer.flip();
+    }
+
+    void putByte(int value) {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    void putShort(int value) {
+        ensure(Short.BYTES);
+        buffer.putShort((short) value);
+    }
+
+    void putInt(int value) {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void putLong(long value) {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    void putIntAt(int index, int value) {
+        buffer.putInt(index, value);
+    }
+
+    void putBytes(byte[] bytes) {
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes a string as its UTF-8 length (unsigned short) followed by its UTF-8 bytes.
+     * @param value The string to write.
+     * @throws IllegalArgumentException If the encoded string is longer than 65535 bytes.
+     */
+    void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long to encode.");
+        }
+        putShort(bytes.length);
+        putBytes(bytes);
+    }
+
+    /**
+     * Reads a string written by putString.
+     * @param in The buffer to read from.
+     * @return The decoded string.
+     */
+    static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer larger = ByteBuffer.allocateDirect(capacity);
+        larger.put(buffer.flip());
+        buffer = larger;
+    }
+}
@@ -0,0 +1,73 @@
+package srg.persistence;
+
+import srg.cli.given.Command;
+import srg.cli.given.CommandType;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encodes Commands in a compact binary form: one byte for the CommandType's stable code,
+ * followed by the command's value (and amount for purchases) where the command carries one.
+ */
+public final class CommandCodec {
+
+    private CommandCodec() {
+    }
+
+    /**
+     * Writes a command.
+     * @param out The output to write to.
+     * @param command The command to write. Batches must be written one command at a time.
+     * @throws IOException If the output cannot be written.
+     * @throws IllegalArgumentException If the command is a batch.
+     */
+    public static void write(DataOutput out, Command command) throws IOException {
+        if (command.type == CommandType.BATCH) {
+            throw new IllegalArgumentException("Batches are written command by command.");
+        }
+        out.writeByte(command.type.getCode());
+        if (command instanceof PurchaseCommand purchase) {
+            out.writeUTF(purchase.item);
+            out.writeInt(purchase.amount);
+        } else if (command instanceof ShipCommand shipCommand) {
+            out.writeUTF(shipCommand.value);
+        }
+    }
+
+    /**
+     * Reads a command written by write.
+     * @param in The input to read from.
+     * @return The decoded command.
+     * @throws IOException If the input cannot be read or holds an unknown command type.
+     */
+    public static Command read(DataInput in) throws IOException {
+        int code = in.readUnsignedByte();
+        CommandType type = CommandType.fromCode(code);
+        if (type == null) {
+            throw new IOException("Unknown command type " + code);
+        }
+        return switch (type) {
+            case PURCHASE_ITEM -> new PurchaseCommand(in.readUTF(), in.readInt());
+            case SHOW_PORT, SHOW_ACTIONS, SHOW_ROOM, JUMP_TO, FLY_TO, REPAIR_ROOM, UPGRADE_ROOM,
+                    NEAREST_SHIPYARD, NEAREST_STORE -> new ShipCommand(type, in.readUTF());
+            default -> new Command(type);
+        };
+    }
+
+    /**
+     * Returns whether applying a command can change the game state, i.e. whether it needs to
+     * be journaled. Display commands never change state.
+     * @param command The command to check.
+     * @return True if the command may change state.
+     */
+    public static boolean changesState(Command command) {
+        return switch (command.type) {
+            case FLY_TO, JUMP_TO, REPAIR_ROOM, UPGRADE_ROOM, PURCHASE_ITEM -> true;
+            default -> false;
+        };
+    }
+}
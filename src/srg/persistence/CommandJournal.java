@@ -0,0 +1,252 @@
+package srg.persistence;
+
+import srg.cli.given.Command;
+import srg.game.Game;
+import srg.game.QuietIO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the state-changing Commands applied to a Game, interleaved with
+ * periodic GameSnapshots. A Game is recovered by restoring the latest snapshot in the journal
+ * and replaying only the commands recorded after it.
+ * <p>
+ * Every record is framed as: kind (byte), payload length (int), payload, CRC32 of the payload
+ * (int). A torn or corrupt record at the end of the journal (e.g. after a crash) ends recovery
+ * and is truncated away before new records are appended.
+ * <p>
+ * Each append and snapshot is forced to the storage device before it returns, so a command the
+ * Game has applied survives a crash or power loss once append returns.
+ */
+public class CommandJournal implements Closeable {
+    /** The default number of journaled commands between snapshots. */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 256;
+    /** Identifies a journal file ("SRJ" followed by the format version). */
+    private static final int MAGIC = 0x53524A04;
+    /** Record kind of a single Command. */
+    private static final int COMMAND = 1;
+    /** Record kind of a GameSnapshot. */
+    private static final int SNAPSHOT = 2;
+    /** Bytes of framing around each record payload. */
+    private static final int FRAME_SIZE = 1 + 4 + 4;
+
+    /** The journal file, forced to the device after every append. */
+    private final FileChannel channel;
+    /** The stream records are appended to, writing to channel. */
+    private final DataOutputStream out;
+    /** The number of journaled commands between snapshots. */
+    private final int snapshotInterval;
+    /** The number of commands journaled since the last snapshot. */
+    private int sinceSnapshot;
+    /** The number of commands replayed when the journal was opened. */
+    private final int replayed;
+    /** Reused buffer for encoding command payloads. */
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private final CRC32 crc = new CRC32();
+
+    private CommandJournal(FileChannel channel, int snapshotInterval, int replayed) {
+        this.channel = channel;
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(channel)));
+        this.snapshotInterval = snapshotInterval;
+        this.sinceSnapshot = replayed;
+        this.replayed = replayed;
+    }
+
+    /**
+     * Opens a journal for a Game. If the journal already exists, the Game is first recovered
+     * from it: the latest snapshot is restored and the commands after it are replayed through
+     * Game.update, as they were applied live. A new journal starts with a snapshot of the
+     * Game's current state.
+     * @param path The journal file.
+     * @param game The Game being journaled, which does not have a journal yet. Its galaxy must
+     *             match the journaled Game's galaxy.
+     * @param snapshotInterval The number of journaled commands between snapshots.
+     * @return The opened journal, positioned to append new records.
+     * @throws IOException If the journal cannot be read or written, or does not belong to the
+     *                     Game's galaxy.
+     * @throws IllegalArgumentException If snapshotInterval is not positive.
+     */
+    public static CommandJournal open(Path path, Game game, int snapshotInterval)
+            throws IOException {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive.");
+        }
+
+        if (!Files.exists(path) || Files.size(path) < Integer.BYTES) {
+            CommandJournal journal = new CommandJournal(openForAppend(path, 0),
+                    snapshotInterval, 0);
+            journal.out.writeInt(MAGIC);
+            journal.snapshot(game);
+            return journal;
+        }
+
+        Recovery recovery = recover(path, game);
+        return new CommandJournal(openForAppend(path, recovery.validLength),
+                snapshotInterval, recovery.replayed);
+    }
+
+    /**
+     * Returns the number of commands that were replayed from the tail of the journal when it
+     * was opened.
+     * @return The number of replayed commands.
+     */
+    public int getReplayedCount() {
+        return replayed;
+    }
+
+    /**
+     * Records a command that has just been applied to a Game. Commands which cannot change
+     * state are not recorded. A snapshot of the Game is appended once snapshotInterval
+     * commands have been recorded since the previous one. Returns once the record is on the
+     * storage device.
+     * @param game The Game the command was applied to.
+     * @param command The applied command.
+     * @throws IOException If the journal cannot be written.
+     */
+    public void append(Game game, Command command) throws IOException {
+        if (!CommandCodec.changesState(command)) {
+            return;
+        }
+
+        payload.reset();
+        CommandCodec.write(new DataOutputStream(payload), command);
+        writeRecord(COMMAND, payload.toByteArray());
+
+        if (++sinceSnapshot >= snapshotInterval) {
+            snapshot(game);
+        } else {
+            sync();
+        }
+    }
+
+    /**
+     * Appends a snapshot of the Game's current state, so recovery no longer replays the
+     * commands before it.
+     * @param game The Game to snapshot.
+     * @throws IOException If the journal cannot be written.
+     */
+    public void snapshot(Game game) throws IOException {
+        writeRecord(SNAPSHOT, GameSnapshot.capture(game));
+        sync();
+        sinceSnapshot = 0;
+    }
+
+    /**
+     * Flushes and closes the journal.
+     * @throws IOException If the journal cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Writes the buffered records to the file and forces them to the storage device. The
+     * records' contents are forced, but not the file's metadata beyond its length.
+     */
+    private void sync() throws IOException {
+        out.flush();
+        channel.force(false);
+    }
+
+    private void writeRecord(int kind, byte[] data) throws IOException {
+        crc.reset();
+        crc.update(data);
+        out.writeByte(kind);
+        out.writeInt(data.length);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static FileChannel openForAppend(Path path, long length) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        // Drop any torn record left behind by a crash
+        channel.truncate(length);
+        channel.position(length);
+        return channel;
+    }
+
+    /**
+     * Restores the latest snapshot in a journal into the Game and replays the commands after it
+     * through Game.update.
+     */
+    private static Recovery recover(Path path, Game game) throws IOException {
+        byte[] latestSnapshot = null;
+        List<Command> tail = new ArrayList<>();
+        long validLength;
+        long fileLength = Files.size(path);
+
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a command journal.");
+            }
+            validLength = Integer.BYTES;
+            CRC32 crc = new CRC32();
+
+            while (true) {
+                byte[] data;
+                int kind;
+                try {
+                    kind = in.readUnsignedByte();
+                    int length = in.readInt();
+                    if (length < 0 || length > fileLength - validLength - FRAME_SIZE) {
+                        break;
+                    }
+                    data = new byte[length];
+                    in.readFully(data);
+                    crc.reset();
+                    crc.update(data);
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (kind == SNAPSHOT) {
+                    latestSnapshot = data;
+                    tail.clear();
+                } else if (kind == COMMAND) {
+                    tail.add(CommandCodec.read(new DataInputStream(
+                            new ByteArrayInputStream(data))));
+                } else {
+                    break;
+                }
+                validLength += FRAME_SIZE + data.length;
+            }
+        }
+
+        if (latestSnapshot != null) {
+            GameSnapshot.restore(game, latestSnapshot);
+        }
+        QuietIO quiet = new QuietIO();
+        for (Command command : tail) {
+            game.update(quiet, command);
+        }
+        return new Recovery(validLength, tail.size());
+    }
+
+    /** The outcome of reading an existing journal. */
+    private record Recovery(long validLength, int replayed) {
+    }
+}
@@ -0,0 +1,354 @@
+package srg.persistence;
+
+import srg.galaxy.Galaxy;
+import srg.galaxy.LazyGalaxy;
+import srg.game.Game;
+import srg.ports.LinearTrajectory;
+import srg.ports.OrbitalTrajectory;
+import srg.ports.Position;
+import srg.ports.ShipYard;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ports.Trajectory;
+import srg.resources.FuelContainer;
+import srg.resources.FuelGrade;
+import srg.resources.ResourceContainer;
+import srg.resources.ResourceType;
+import srg.ship.CargoHold;
+import srg.ship.NavigationRoom;
+import srg.ship.Room;
+import srg.ship.RoomKind;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes the sections of a saved Game. Every section is written in a single pass over the
+ * game objects and read back by calling constructors and restore methods directly.
+ * <ul>
+ *     <li>galaxy: every SpacePort's kind, name, Position and Trajectory, and each ShipYard's
+ *     upgradeable Rooms.</li>
+ *     <li>ship: the Ship's name, owner and ID.</li>
+ *     <li>state: the Ship's Rooms, CargoHold contents, current port and simulation time, the
+ *     remaining stock of every Store, and the Ship's modules.</li>
+ *     <li>modules: the name, kind and state of every Room installed with Ship.addRoom, and
+ *     the contents of extra CargoHolds.</li>
+ * </ul>
+ * Older save file versions lack some fields; the read methods taking a version skip them.
+ * <p>
+ * The state of a Game in a LazyGalaxy is not encoded, since which ports it holds changes as
+ * sectors are generated and evicted; use a StateStore to keep such a Game durable.
+ */
+final class GameCodec {
+    /** The first save file version with port Trajectories and the simulation time. */
+    static final int TRAJECTORY_VERSION = 2;
+    /** The first save file version with the Ship's modules. */
+    static final int MODULE_VERSION = 3;
+    /** Marks a generic SpacePort in the galaxy section. */
+    private static final int PORT = 0;
+    /** Marks a ShipYard in the galaxy section. */
+    private static final int SHIP_YARD = 1;
+    /** Marks a Store in the galaxy section. */
+    private static final int STORE = 2;
+    /** Marks a stationary SpacePort in the galaxy section. */
+    private static final int STATIONARY = 0;
+    /** Marks a SpacePort on a LinearTrajectory in the galaxy section. */
+    private static final int LINEAR = 1;
+    /** Marks a SpacePort on an OrbitalTrajectory in the galaxy section. */
+    private static final int ORBITAL = 2;
+    /** Marks a plain ResourceContainer in CargoHold contents. */
+    private static final int RESOURCE = 0;
+    /** Marks a FuelContainer in CargoHold contents. */
+    private static final int FUEL = 1;
+
+    private static final RoomTier[] TIERS = RoomTier.values();
+    private static final RoomKind[] KINDS = RoomKind.values();
+    private static final ResourceType[] TYPES = ResourceType.values();
+    private static final FuelGrade[] GRADES = FuelGrade.values();
+
+    private GameCodec() {
+    }
+
+    static void writeGalaxy(BufferWriter out, List<SpacePort> ports) {
+        out.putInt(ports.size());
+        for (SpacePort port : ports) {
+            if (port instanceof ShipYard) {
+                out.putByte(SHIP_YARD);
+            } else if (port instanceof Store) {
+                out.putByte(STORE);
+            } else {
+                out.putByte(PORT);
+            }
+            out.putString(port.getName());
+            Position position = port.getPosition();
+            out.putInt(position.x);
+            out.putInt(position.y);
+            out.putInt(position.z);
+            writeTrajectory(out, port.getTrajectory());
+
+            if (port instanceof ShipYard shipYard) {
+                List<String> upgradeable = shipYard.getUpgradeable();
+                out.putByte(upgradeable.size());
+                for (String room : upgradeable) {
+                    out.putString(room);
+                }
+            }
+        }
+    }
+
+    static List<SpacePort> readGalaxy(ByteBuffer in) throws IOException {
+        return readGalaxy(in, SaveFile.VERSION);
+    }
+
+    /**
+     * Reads a galaxy section written by a save file version. Ports of versions without
+     * Trajectories are stationary.
+     */
+    static List<SpacePort> readGalaxy(ByteBuffer in, int version) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("Corrupt galaxy size " + count);
+        }
+        Galaxy ports = new Galaxy();
+        for (int i = 0; i < count; i++) {
+            int kind = in.get();
+            String name = BufferWriter.getString(in);
+            if (ports.get(name) != null) {
+                throw new IOException("Duplicate port name " + name);
+            }
+            Position position = new Position(in.getInt(), in.getInt(), in.getInt());
+            Trajectory trajectory = version >= TRAJECTORY_VERSION
+                    ? readTrajectory(in, position) : null;
+
+            SpacePort port;
+            switch (kind) {
+                case SHIP_YARD -> {
+                    int rooms = Byte.toUnsignedInt(in.get());
+                    List<String> upgradeable = new ArrayList<>(rooms);
+                    for (int j = 0; j < rooms; j++) {
+                        upgradeable.add(BufferWriter.getString(in));
+                    }
+                    port = new ShipYard(name, position, upgradeable);
+                }
+                case STORE -> port = new Store(name, position);
+                case PORT -> port = new SpacePort(name, position);
+                default -> throw new IOException("Unknown port kind " + kind);
+            }
+            // Before it is added, so the Galaxy indexes it as moving
+            port.setTrajectory(trajectory);
+            ports.add(port);
+        }
+        return ports;
+    }
+
+    private static void writeTrajectory(BufferWriter out, Trajectory trajectory) {
+        if (trajectory instanceof LinearTrajectory linear) {
+            out.putByte(LINEAR);
+            for (int velocity : linear.getVelocity()) {
+                out.putInt(velocity);
+            }
+        } else if (trajectory instanceof OrbitalTrajectory orbit) {
+            out.putByte(ORBITAL);
+            out.putInt(orbit.getCentre().x);
+            out.putInt(orbit.getCentre().y);
+            out.putInt(orbit.getCentre().z);
+            out.putInt(orbit.getRadius());
+            out.putInt(orbit.getPeriod());
+            out.putInt(orbit.getPhase());
+        } else if (trajectory == null) {
+            out.putByte(STATIONARY);
+        } else {
+            throw new IllegalArgumentException("Cannot save trajectory " + trajectory);
+        }
+    }
+
+    private static Trajectory readTrajectory(ByteBuffer in, Position position)
+            throws IOException {
+        int motion = in.get();
+        switch (motion) {
+            case STATIONARY -> {
+                return null;
+            }
+            case LINEAR -> {
+                // A linear trajectory starts at the port's recorded Position
+                return new LinearTrajectory(position, in.getInt(), in.getInt(), in.getInt());
+            }
+            case ORBITAL -> {
+                Position centre = new Position(in.getInt(), in.getInt(), in.getInt());
+                try {
+                    return new OrbitalTrajectory(centre, in.getInt(), in.getInt(), in.getInt());
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Corrupt orbit.", e);
+                }
+            }
+            default -> throw new IOException("Unknown port motion " + motion);
+        }
+    }
+
+    static void writeShip(BufferWriter out, Ship ship) {
+        out.putString(ship.getName());
+        out.putString(ship.getOwner());
+        out.putString(ship.getId());
+    }
+
+    static Ship readShip(ByteBuffer in, List<SpacePort> ports) {
+        // Tiers and contents are overwritten when the state section is read
+        return new Ship(BufferWriter.getString(in), BufferWriter.getString(in),
+                BufferWriter.getString(in), RoomTier.BASIC, RoomTier.BASIC, ports);
+    }
+
+    static void writeState(BufferWriter out, Game game) {
+        if (game.ports instanceof LazyGalaxy) {
+            throw new IllegalArgumentException("Games in an infinite galaxy cannot be encoded.");
+        }
+        out.putInt(game.ports.size());
+
+        CargoHold cargoHold = game.ship.getCargoHold();
+        NavigationRoom navigationRoom = game.ship.getNavigationRoom();
+        writeRoom(out, cargoHold);
+        writeContents(out, cargoHold);
+        writeRoom(out, navigationRoom);
+        out.putInt(navigationRoom.getCurrentIndex());
+        out.putLong(navigationRoom.getTime());
+
+        for (SpacePort port : game.ports) {
+            if (port instanceof Store store) {
+                writeContents(out, store.getCargoHold());
+            }
+        }
+        writeModules(out, game.ship);
+    }
+
+    static void readState(ByteBuffer in, Game game) throws IOException {
+        readState(in, game, SaveFile.VERSION);
+    }
+
+    /**
+     * Reads a state section written by a save file version. Versions without the simulation
+     * time leave it at 0, and versions without modules leave the Ship's modules as they are.
+     */
+    static void readState(ByteBuffer in, Game game, int version) throws IOException {
+        if (game.ports instanceof LazyGalaxy) {
+            throw new IOException("Games in an infinite galaxy cannot be restored.");
+        }
+        try {
+            if (in.getInt() != game.ports.size()) {
+                throw new IOException("State was saved in a different galaxy.");
+            }
+
+            CargoHold cargoHold = game.ship.getCargoHold();
+            NavigationRoom navigationRoom = game.ship.getNavigationRoom();
+            readRoom(in, cargoHold);
+            readContents(in, cargoHold);
+            readRoom(in, navigationRoom);
+            navigationRoom.setCurrentIndex(in.getInt());
+            if (version >= TRAJECTORY_VERSION) {
+                navigationRoom.setTime(in.getLong());
+            }
+
+            for (SpacePort port : game.ports) {
+                if (port instanceof Store store) {
+                    readContents(in, store.getCargoHold());
+                }
+            }
+            if (version >= MODULE_VERSION) {
+                readModules(in, game.ship);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt game state.", e);
+        }
+    }
+
+    static void writeModules(BufferWriter out, Ship ship) {
+        List<Room> modules = ship.getModules();
+        out.putShort(modules.size());
+        for (Room room : modules) {
+            out.putString(ship.getRooms().nameOf(room));
+            out.putByte(room.getKind().ordinal());
+            writeRoom(out, room);
+            if (room instanceof CargoHold cargoHold) {
+                writeContents(out, cargoHold);
+            }
+        }
+    }
+
+    /**
+     * Reads the modules written by writeModules into a Ship, installing those it does not have
+     * yet. Modules the Ship has but the encoding lacks are left as they are.
+     */
+    static void readModules(ByteBuffer in, Ship ship) throws IOException {
+        int count = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < count; i++) {
+            String name = BufferWriter.getString(in);
+            int kindIndex = in.get();
+            if (kindIndex < 0 || kindIndex >= KINDS.length) {
+                throw new IOException("Unknown room kind " + kindIndex);
+            }
+            RoomKind kind = KINDS[kindIndex];
+            Room room = ship.getRooms().get(name);
+            if (room == null) {
+                room = kind == RoomKind.CARGO_HOLD
+                        ? new CargoHold(RoomTier.BASIC, ship.getCargoHold().getHealthStore())
+                        : new Room(RoomTier.BASIC, kind, ship.getCargoHold().getHealthStore());
+                try {
+                    ship.addRoom(name, room);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Cannot install room " + name, e);
+                }
+            } else if (room.getKind() != kind || !ship.getModules().contains(room)) {
+                throw new IOException("Room " + name + " was saved as a " + kind.getRoomName());
+            }
+            readRoom(in, room);
+            if (room instanceof CargoHold cargoHold) {
+                readContents(in, cargoHold);
+            }
+        }
+    }
+
+    static void writeRoom(BufferWriter out, Room room) {
+        out.putByte(room.getTier().ordinal());
+        out.putInt(room.getHealthPoints());
+        out.putInt(room.getMaximumHealth());
+        out.putInt(room.getDamageRate());
+    }
+
+    static void readRoom(ByteBuffer in, Room room) {
+        RoomTier tier = TIERS[in.get()];
+        room.restoreState(tier, in.getInt(), in.getInt(), in.getInt());
+    }
+
+    static void writeContents(BufferWriter out, CargoHold cargoHold) {
+        List<ResourceContainer> resources = cargoHold.getResources();
+        out.putShort(cargoHold.getMaximumCapacity());
+        out.putShort(resources.size());
+        for (ResourceContainer container : resources) {
+            if (container instanceof FuelContainer fuel) {
+                out.putByte(FUEL << 4 | fuel.getFuelGrade().ordinal());
+            } else {
+                out.putByte(RESOURCE << 4 | container.getType().ordinal());
+            }
+            out.putInt(container.getAmount());
+        }
+    }
+
+    static void readContents(ByteBuffer in, CargoHold cargoHold) {
+        int capacity = Short.toUnsignedInt(in.getShort());
+        int count = Short.toUnsignedInt(in.getShort());
+        List<ResourceContainer> contents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int tag = in.get();
+            int amount = in.getInt();
+            if (tag >> 4 == FUEL) {
+                contents.add(new FuelContainer(GRADES[tag & 0xF], amount));
+            } else {
+                contents.add(new ResourceContainer(TYPES[tag & 0xF], amount));
+            }
+        }
+        cargoHold.restoreContents(capacity, contents);
+    }
+}
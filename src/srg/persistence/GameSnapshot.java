@@ -0,0 +1,44 @@
+package srg.persistence;
+
+import srg.game.Game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Captures the mutable state of a Game: the Ship's Rooms, CargoHold contents and current port,
+ * and the remaining stock of every Store. The galaxy itself is not captured, so a snapshot can
+ * only be restored into a Game with the same galaxy. Use SaveFile to store a complete Game.
+ */
+public final class GameSnapshot {
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * Captures the current state of a Game.
+     * @param game The Game to capture.
+     * @return The encoded state.
+     * @throws IllegalArgumentException If the Game is in a LazyGalaxy, whose ports change as it
+     *                                  is explored.
+     */
+    public static byte[] capture(Game game) {
+        BufferWriter out = new BufferWriter(256);
+        GameCodec.writeState(out, game);
+        ByteBuffer state = out.flip();
+        byte[] bytes = new byte[state.remaining()];
+        state.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Overwrites the state of a Game with a captured state.
+     * @param game The Game to restore into. Its galaxy must match the captured Game's galaxy.
+     * @param snapshot A state returned by capture.
+     * @throws IOException If the snapshot is malformed or does not match the galaxy, or the
+     *                     Game is in a LazyGalaxy.
+     */
+    public static void restore(Game game, byte[] snapshot) throws IOException {
+        GameCodec.readState(ByteBuffer.wrap(snapshot), game);
+    }
+}
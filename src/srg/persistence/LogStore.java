@@ -0,0 +1,726 @@
+package srg.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A durable key-value store kept as an append-only log, split into numbered segment files in a
+ * directory. Every put or delete appends a record to the active segment, and an in-memory index
+ * maps each key to its latest record, so the log is only read in full when the store is opened.
+ * <p>
+ * Segments are memory-mapped: records are written into a mapping of the active segment and read
+ * back from the mappings. Once the active segment is full it is sealed (trimmed to its records
+ * and never written again) and a new one is started. Records are only durable once sync has
+ * returned. Concurrent callers of sync share each fsync (group commit): while one caller forces
+ * the log to disk, the others wait, and the next force covers everything they appended.
+ * <p>
+ * Overwritten and deleted values leave dead records behind. When less than half of a sealed
+ * segment is live, a background thread compacts it: its live records are copied, in order, to a
+ * new file which atomically replaces it, so recovery still sees every key's records in the
+ * order they were written.
+ * <p>
+ * Every record is framed as: CRC32 of the rest of the record (int), key length (int), value
+ * length (int; -1 for a deletion), key (UTF-8), value. A torn or corrupt record ends its
+ * segment when the store is opened (e.g. after a crash), and is overwritten by new records.
+ * <p>
+ * putAll writes a batch: a marker record with an empty key and the number of records that
+ * follow in place of the value length, then the records, all in one segment. When the store is
+ * opened, a batch whose records are not all intact ends its segment at the marker, so a batch
+ * is recovered whole or not at all.
+ */
+public class LogStore implements Closeable {
+    /** The default size of a segment, in bytes. */
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    /** Bytes of framing before each record's key. */
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+    /** Marks a deletion in place of a value length. */
+    private static final int TOMBSTONE = -1;
+    /** Names segment files by their number, so they sort in the order they were written. */
+    private static final String SEGMENT_FORMAT = "%010d.log";
+
+    /**
+     * A segment file and its mapping.
+     */
+    private static final class Segment {
+        private final long number;
+        private final Path path;
+        /** The mapping of the file, at least length bytes long. */
+        private MappedByteBuffer buffer;
+        /** The number of bytes of records. */
+        private int length;
+        /** The number of bytes of records that are the latest for their key. */
+        private int live;
+
+        private Segment(long number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+    }
+
+    /**
+     * Where the latest record for a key is.
+     */
+    private record Location(Segment segment, int offset, int size, boolean deleted) {
+    }
+
+    /** The directory holding the segments. */
+    private final Path directory;
+    /** The size new segments are mapped with. */
+    private final int segmentSize;
+    /** Every segment, by number. The last one is the active segment. */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    /** The latest record for each key, including deletions not yet compacted away. */
+    private final Map<String, Location> index = new HashMap<>();
+    /** The segment records are appended to. */
+    private Segment active;
+    /** Computes record checksums. Only used while holding the lock. */
+    private final CRC32 crc = new CRC32();
+
+    /** Guards syncing. */
+    private final Object syncLock = new Object();
+    /** The number of bytes appended since the store was opened. */
+    private long appended;
+    /** The number of appended bytes known to be durable. Guarded by syncLock. */
+    private long synced;
+    /** Whether a caller of sync is forcing the log to disk. Guarded by syncLock. */
+    private boolean forcing;
+    /** The number of times the log has been forced to disk. Guarded by syncLock. */
+    private long syncCount;
+
+    /** Compacts sealed segments in the background. */
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-store-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** The segments waiting to be compacted. Guarded by the lock. */
+    private final Set<Long> compactionQueue = new TreeSet<>();
+    /** The failure of the last background compaction, or null. Guarded by the lock. */
+    private IOException compactionFailure;
+    /** Whether the store has been closed. */
+    private boolean closed;
+
+    private LogStore(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens a store with the default segment size, creating the directory if needed.
+     * @param directory The directory holding the store's segments.
+     * @return The opened store, holding every record recovered from the directory.
+     * @throws IOException If the directory cannot be read or written.
+     */
+    public static LogStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens a store, creating the directory if needed. Every segment in the directory is read
+     * to rebuild the index.
+     * @param directory The directory holding the store's segments.
+     * @param segmentSize The size at which the active segment is sealed, in bytes. A larger
+     *                    record gets a segment of its own.
+     * @return The opened store, holding every record recovered from the directory.
+     * @throws IOException If the directory cannot be read or written.
+     * @throws IllegalArgumentException If segmentSize is not positive.
+     */
+    public static LogStore open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive.");
+        }
+        Files.createDirectories(directory);
+        LogStore store = new LogStore(directory, segmentSize);
+        store.recover();
+        return store;
+    }
+
+    /**
+     * Returns the latest value of a key.
+     * @param key The key.
+     * @return A copy of the value, or null if the key has no value.
+     */
+    public synchronized byte[] get(String key) {
+        Location location = index.get(key);
+        if (location == null || location.deleted) {
+            return null;
+        }
+        ByteBuffer record = location.segment.buffer.duplicate();
+        record.position(location.offset + Integer.BYTES);
+        int keyLength = record.getInt();
+        byte[] value = new byte[record.getInt()];
+        record.position(record.position() + keyLength);
+        record.get(value);
+        return value;
+    }
+
+    /**
+     * Returns every key that has a value.
+     * @return The keys, in no particular order.
+     */
+    public synchronized List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            if (!entry.getValue().deleted) {
+                keys.add(entry.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Sets the value of a key. The value is durable once sync returns.
+     * @param key The key.
+     * @param value The value.
+     * @throws IOException If the log cannot be written, or background compaction has failed.
+     */
+    public synchronized void put(String key, byte[] value) throws IOException {
+        append(key, value);
+    }
+
+    /**
+     * Sets and removes several keys atomically: once the store is reopened after a crash,
+     * either all of the changes are found or none are. The changes are durable once sync
+     * returns.
+     * @param entries The new value of each key, in the order to write them; a null value
+     *                removes its key.
+     * @throws IOException If the log cannot be written, or background compaction has failed.
+     */
+    public synchronized void putAll(Map<String, byte[]> entries) throws IOException {
+        ensureOpen();
+        List<Map.Entry<String, byte[]>> changes = new ArrayList<>();
+        int size = HEADER_SIZE;
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            Location location = index.get(entry.getKey());
+            if (entry.getValue() == null && (location == null || location.deleted)) {
+                continue;
+            }
+            changes.add(entry);
+            size += HEADER_SIZE + entry.getKey().getBytes(StandardCharsets.UTF_8).length
+                    + (entry.getValue() == null ? 0 : entry.getValue().length);
+        }
+        if (changes.size() == 1) {
+            append(changes.get(0).getKey(), changes.get(0).getValue());
+            return;
+        } else if (changes.isEmpty()) {
+            return;
+        }
+
+        // The whole batch goes in one segment, so sealing can never split it
+        if (active.length + size > active.buffer.capacity()) {
+            roll(size);
+        }
+        ByteBuffer marker = active.buffer.duplicate();
+        marker.position(active.length + Integer.BYTES);
+        marker.putInt(0);
+        marker.putInt(changes.size());
+        crc.reset();
+        crc.update(active.buffer.duplicate().position(active.length + Integer.BYTES)
+                .limit(active.length + HEADER_SIZE));
+        active.buffer.putInt(active.length, (int) crc.getValue());
+        active.length += HEADER_SIZE;
+        appended += HEADER_SIZE;
+        for (Map.Entry<String, byte[]> change : changes) {
+            append(change.getKey(), change.getValue());
+        }
+    }
+
+    /**
+     * Removes the value of a key. The deletion is durable once sync returns.
+     * @param key The key.
+     * @return True - if the key had a value.
+     * @throws IOException If the log cannot be written, or background compaction has failed.
+     */
+    public synchronized boolean delete(String key) throws IOException {
+        Location location = index.get(key);
+        if (location == null || location.deleted) {
+            return false;
+        }
+        append(key, null);
+        return true;
+    }
+
+    /**
+     * Makes every record appended before this call durable. If another caller is already
+     * forcing the log, waits for it and then forces once for every caller that arrived
+     * meanwhile.
+     * @throws IOException If the log cannot be forced to disk.
+     */
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            ensureOpen();
+            target = appended;
+        }
+        synchronized (syncLock) {
+            while (synced < target) {
+                if (forcing) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while syncing.", e);
+                    }
+                    continue;
+                }
+                forcing = true;
+                try {
+                    long upTo = force();
+                    synced = Math.max(synced, upTo);
+                    syncCount++;
+                } finally {
+                    forcing = false;
+                    syncLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of times sync has forced the log to disk. With group commit this can
+     * be far fewer than the number of calls to sync.
+     * @return The number of forces.
+     */
+    public long getSyncCount() {
+        synchronized (syncLock) {
+            return syncCount;
+        }
+    }
+
+    /**
+     * Returns the number of segment files.
+     * @return The number of segments, including the active segment.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Compacts every sealed segment that is less than half live now, rather than waiting for
+     * the background thread.
+     * @return The number of segments compacted.
+     * @throws IOException If a segment cannot be compacted.
+     */
+    public int compact() throws IOException {
+        List<Long> numbers;
+        synchronized (this) {
+            ensureOpen();
+            numbers = new ArrayList<>();
+            for (Segment segment : segments.values()) {
+                if (segment != active && isSparse(segment)) {
+                    numbers.add(segment.number);
+                }
+            }
+        }
+        int compacted = 0;
+        for (long number : numbers) {
+            try {
+                if (compactor.submit(() -> compact(number)).get()) {
+                    compacted++;
+                }
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io
+                        : new IOException("Compaction failed.", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while compacting.", e);
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Waits for background compaction, syncs, and closes the store. The active segment is
+     * trimmed to its records.
+     * @throws IOException If the store cannot be synced or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            active.buffer.force();
+            try (FileChannel channel = FileChannel.open(active.path, StandardOpenOption.WRITE)) {
+                channel.truncate(active.length);
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Log store is closed.");
+        }
+    }
+
+    /**
+     * Appends a record, or a deletion if value is null. Must hold the lock.
+     */
+    private void append(String key, byte[] value) throws IOException {
+        ensureOpen();
+        if (compactionFailure != null) {
+            throw new IOException("Background compaction failed.", compactionFailure);
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int size = HEADER_SIZE + keyBytes.length + (value == null ? 0 : value.length);
+        if (active.length + size > active.buffer.capacity()) {
+            roll(size);
+        }
+
+        ByteBuffer record = active.buffer.duplicate();
+        record.position(active.length + Integer.BYTES);
+        record.putInt(keyBytes.length);
+        record.putInt(value == null ? TOMBSTONE : value.length);
+        record.put(keyBytes);
+        if (value != null) {
+            record.put(value);
+        }
+        crc.reset();
+        crc.update(active.buffer.duplicate().position(active.length + Integer.BYTES)
+                .limit(active.length + size));
+        active.buffer.putInt(active.length, (int) crc.getValue());
+
+        Location previous = index.put(key, new Location(active, active.length, size,
+                value == null));
+        if (previous != null) {
+            kill(previous);
+        }
+        active.length += size;
+        active.live += size;
+        appended += size;
+    }
+
+    /**
+     * Marks a superseded record as dead, and queues its segment for compaction once it is
+     * mostly dead. Must hold the lock.
+     */
+    private void kill(Location location) {
+        Segment segment = location.segment;
+        segment.live -= location.size;
+        if (segment != active && isSparse(segment)) {
+            scheduleCompaction(segment);
+        }
+    }
+
+    /**
+     * Queues a segment for background compaction, unless it is already queued. Must hold the
+     * lock.
+     */
+    private void scheduleCompaction(Segment segment) {
+        if (closed || !compactionQueue.add(segment.number)) {
+            return;
+        }
+        compactor.execute(() -> {
+            try {
+                compact(segment.number);
+            } catch (IOException e) {
+                synchronized (this) {
+                    compactionFailure = e;
+                }
+            }
+        });
+    }
+
+    private static boolean isSparse(Segment segment) {
+        return segment.live * 2 < segment.length;
+    }
+
+    /**
+     * Seals the active segment and starts a new one with room for at least one record. Must
+     * hold the lock.
+     */
+    private void roll(int recordSize) throws IOException {
+        Segment sealed = active;
+        // Everything in the sealed segment must be durable before later segments are
+        sealed.buffer.force();
+        try (FileChannel channel = FileChannel.open(sealed.path, StandardOpenOption.WRITE)) {
+            channel.truncate(sealed.length);
+        }
+        sealed.buffer = map(sealed.path, FileChannel.MapMode.READ_ONLY, sealed.length);
+
+        active = new Segment(sealed.number + 1, segmentPath(sealed.number + 1));
+        active.buffer = map(active.path, FileChannel.MapMode.READ_WRITE,
+                Math.max(segmentSize, recordSize));
+        segments.put(active.number, active);
+        if (sealed.length == 0) {
+            segments.remove(sealed.number);
+            Files.deleteIfExists(sealed.path);
+        } else if (isSparse(sealed)) {
+            scheduleCompaction(sealed);
+        }
+    }
+
+    /**
+     * Forces the active segment to disk, without holding the lock while it is written.
+     * @return The number of appended bytes that are now durable.
+     */
+    private long force() {
+        MappedByteBuffer buffer;
+        int length;
+        long upTo;
+        synchronized (this) {
+            buffer = active.buffer;
+            length = active.length;
+            upTo = appended;
+        }
+        // A segment that has been sealed since is already durable, and is still mapped here
+        buffer.force(0, length);
+        return upTo;
+    }
+
+    /**
+     * Rewrites a sealed segment with only its live records. Deletions are kept unless the
+     * segment is the oldest, since an older segment may still hold a value they delete. Only
+     * called on the compactor thread, so a segment is never compacted twice at once.
+     * @return True - if the segment was compacted.
+     */
+    private boolean compact(long number) throws IOException {
+        Segment segment;
+        ByteBuffer copy;
+        List<String> kept = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        List<String> dropped = new ArrayList<>();
+        synchronized (this) {
+            compactionQueue.remove(number);
+            segment = segments.get(number);
+            if (closed || segment == null || segment == active) {
+                return false;
+            }
+            boolean oldest = segments.firstKey() == number;
+            copy = ByteBuffer.allocate(segment.live);
+            ByteBuffer records = segment.buffer.duplicate();
+            for (int offset = 0; offset < segment.length; ) {
+                int keyLength = records.getInt(offset + Integer.BYTES);
+                int valueLength = records.getInt(offset + 2 * Integer.BYTES);
+                if (keyLength == 0) {
+                    // Batch markers are dropped; the segment's batches are all complete
+                    offset += HEADER_SIZE;
+                    continue;
+                }
+                int size = HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+                String key = key(records, offset, keyLength);
+                Location location = index.get(key);
+                if (location != null && location.segment == segment
+                        && location.offset == offset) {
+                    if (oldest && location.deleted) {
+                        dropped.add(key);
+                    } else {
+                        kept.add(key);
+                        offsets.add(copy.position());
+                        copy.put(records.duplicate().position(offset).limit(offset + size));
+                    }
+                }
+                offset += size;
+            }
+        }
+
+        // Write the replacement without blocking appends; records superseded meanwhile are
+        // found to be dead when it is swapped in
+        copy.flip();
+        Path temporary = directory.resolve(segment.path.getFileName() + ".compact");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (copy.hasRemaining()) {
+                channel.write(copy);
+            }
+            channel.force(true);
+        }
+
+        synchronized (this) {
+            int length = copy.limit();
+            Files.move(temporary, segment.path, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            int live = 0;
+            for (int i = 0; i < kept.size(); i++) {
+                Location location = index.get(kept.get(i));
+                // A sealed segment is never appended to, so this is still the copied record
+                if (location != null && location.segment == segment) {
+                    index.put(kept.get(i), new Location(segment, offsets.get(i),
+                            location.size, location.deleted));
+                    live += location.size;
+                }
+            }
+            for (String key : dropped) {
+                Location location = index.get(key);
+                if (location != null && location.segment == segment) {
+                    index.remove(key);
+                }
+            }
+            if (length == 0) {
+                segments.remove(number);
+                Files.deleteIfExists(segment.path);
+            } else {
+                segment.buffer = map(segment.path, FileChannel.MapMode.READ_ONLY, length);
+            }
+            segment.length = length;
+            segment.live = live;
+        }
+        return true;
+    }
+
+    /**
+     * Reads every segment in the directory into the index, and makes the last one active.
+     */
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(".log"))
+                    .sorted().toList();
+        }
+        for (Path path : paths) {
+            long number = Long.parseLong(path.getFileName().toString().replace(".log", ""));
+            Segment segment = new Segment(number, path);
+            segment.buffer = map(path, FileChannel.MapMode.READ_ONLY, (int) Files.size(path));
+            segment.length = scan(segment);
+            segments.put(number, segment);
+        }
+
+        for (Segment segment : segments.values()) {
+            // Trim anything torn, so stale bytes past the new records can never be read back
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+                channel.truncate(segment.length);
+            }
+            segment.buffer = map(segment.path, FileChannel.MapMode.READ_ONLY, segment.length);
+        }
+        Segment last = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        long number = last == null ? 1 : last.number;
+        active = last == null ? new Segment(number, segmentPath(number)) : last;
+        active.buffer = map(active.path, FileChannel.MapMode.READ_WRITE,
+                Math.max(segmentSize, active.length));
+        segments.put(number, active);
+        // Compactions may start at once, and change the segments under the lock
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                if (segment != active && isSparse(segment)) {
+                    scheduleCompaction(segment);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a segment's records into the index. A batch is only read if all of its records
+     * are intact.
+     * @return The length of the segment's valid records.
+     */
+    private int scan(Segment segment) {
+        ByteBuffer records = segment.buffer;
+        int offset = 0;
+        while (true) {
+            int size = validSize(records, offset);
+            if (size < 0) {
+                break;
+            }
+            if (records.getInt(offset + Integer.BYTES) > 0) {
+                load(segment, offset, size);
+                offset += size;
+                continue;
+            }
+
+            int count = records.getInt(offset + 2 * Integer.BYTES);
+            int end = offset + size;
+            List<int[]> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int recordSize = validSize(records, end);
+                if (recordSize < 0 || records.getInt(end + Integer.BYTES) == 0) {
+                    return offset;
+                }
+                batch.add(new int[] {end, recordSize});
+                end += recordSize;
+            }
+            for (int[] record : batch) {
+                load(segment, record[0], record[1]);
+            }
+            offset = end;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the size of the record at an offset, or -1 if it is torn or corrupt.
+     */
+    private int validSize(ByteBuffer records, int offset) {
+        if (records.capacity() - offset < HEADER_SIZE) {
+            return -1;
+        }
+        int checksum = records.getInt(offset);
+        int keyLength = records.getInt(offset + Integer.BYTES);
+        int valueLength = records.getInt(offset + 2 * Integer.BYTES);
+        long size = keyLength == 0 ? HEADER_SIZE
+                : (long) HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+        if (keyLength < 0 || valueLength < (keyLength == 0 ? 1 : TOMBSTONE)
+                || size > records.capacity() - offset) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(records.duplicate().position(offset + Integer.BYTES)
+                .limit(offset + (int) size));
+        return checksum == (int) crc.getValue() ? (int) size : -1;
+    }
+
+    /**
+     * Makes a valid record the latest for its key.
+     */
+    private void load(Segment segment, int offset, int size) {
+        int keyLength = segment.buffer.getInt(offset + Integer.BYTES);
+        int valueLength = segment.buffer.getInt(offset + 2 * Integer.BYTES);
+        Location previous = index.put(key(segment.buffer, offset, keyLength),
+                new Location(segment, offset, size, valueLength == TOMBSTONE));
+        if (previous != null) {
+            previous.segment.live -= previous.size;
+        }
+        segment.live += size;
+    }
+
+    private static String key(ByteBuffer records, int offset, int keyLength) {
+        byte[] key = new byte[keyLength];
+        records.get(offset + HEADER_SIZE, key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format(SEGMENT_FORMAT, number));
+    }
+
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode, int size)
+            throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] {StandardOpenOption.READ}
+                : new StandardOpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(mode, 0, size);
+        }
+    }
+}
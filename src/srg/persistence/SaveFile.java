@@ -0,0 +1,177 @@
+package srg.persistence;
+
+import srg.game.Game;
+import srg.ports.SpacePort;
+import srg.ship.Ship;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Saves and loads complete Games in a compact, versioned binary format.
+ * <p>
+ * A save file is a 16 byte header followed by the payload. The header holds the magic number
+ * "SRGS", the format version (short), a reserved short, the payload length (int) and the CRC32
+ * of the payload (int). The payload holds the galaxy, ship and state sections written by
+ * GameCodec, in that order.
+ * <p>
+ * Saves written by every earlier version are still loaded. Version 1 has no port Trajectories
+ * or simulation time, so its ports are stationary and its time is 0. Version 2 adds them, and
+ * version 3 adds the Ship's modules.
+ */
+public final class SaveFile {
+    /** The current format version. */
+    public static final int VERSION = 3;
+    /** Identifies a save file ("SRGS"). */
+    private static final int MAGIC = 0x53524753;
+    /** The size of the header in bytes. */
+    private static final int HEADER_SIZE = 16;
+
+    private SaveFile() {
+    }
+
+    /**
+     * Saves a Game, replacing the file if it exists. The Game is written to a temporary file
+     * beside path and moved over it, so a crash leaves either the old or the new save intact.
+     * @param game The Game to save.
+     * @param path The file to save to.
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalArgumentException If the Game is in a LazyGalaxy, which cannot be saved.
+     */
+    public static void save(Game game, Path path) throws IOException {
+        ByteBuffer buffer = encode(game);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Encodes a Game in the save file format, in memory, e.g. to give each thread of a
+     * simulation its own independent copy of the Game with fromBytes.
+     * @param game The Game to encode.
+     * @return The contents a save file for the Game would have.
+     * @throws IllegalArgumentException If the Game is in a LazyGalaxy, which cannot be encoded.
+     */
+    public static byte[] toBytes(Game game) {
+        ByteBuffer buffer = encode(game);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Loads a Game saved by save.
+     * @param path The file to load from.
+     * @return A new Game in the saved state.
+     * @throws IOException If the file cannot be read, is not a save file, was written by an
+     *                     unsupported version, or is corrupt.
+     */
+    public static Game load(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is not a save file.");
+            }
+            buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException();
+                }
+            }
+        }
+        buffer.flip();
+        return decode(buffer, path.toString());
+    }
+
+    /**
+     * Decodes a Game encoded by toBytes. The Game shares nothing with the encoded Game.
+     * @param bytes The encoded Game.
+     * @return A new Game in the encoded state.
+     * @throws IOException If bytes are not in the save file format, were written by an
+     *                     unsupported version, or are corrupt.
+     */
+    public static Game fromBytes(byte[] bytes) throws IOException {
+        if (bytes.length < HEADER_SIZE) {
+            throw new IOException("Data is not a save file.");
+        }
+        return decode(ByteBuffer.wrap(bytes), "Data");
+    }
+
+    private static ByteBuffer encode(Game game) {
+        // Roughly 40 bytes per port covers names, positions and store stock
+        BufferWriter out = new BufferWriter(HEADER_SIZE + 256 + game.ports.size() * 40);
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.putShort(0);
+        out.putInt(0); // payload length, filled in below
+        out.putInt(0); // payload CRC32, filled in below
+
+        GameCodec.writeGalaxy(out, game.ports);
+        GameCodec.writeShip(out, game.ship);
+        GameCodec.writeState(out, game);
+
+        int length = out.position() - HEADER_SIZE;
+        ByteBuffer buffer = out.flip();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, length));
+        buffer.putInt(8, length);
+        buffer.putInt(12, (int) crc.getValue());
+        return buffer;
+    }
+
+    /**
+     * Checks the header of an encoded Game and decodes it.
+     * @param source Names the encoded Game in error messages.
+     */
+    private static Game decode(ByteBuffer buffer, String source) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException(source + " is not a save file.");
+        }
+        int version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported save file version " + version);
+        }
+        buffer.getShort();
+        int length = buffer.getInt();
+        int expectedCrc = buffer.getInt();
+        if (length != buffer.remaining()) {
+            throw new IOException("Save file is truncated.");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Save file is corrupt.");
+        }
+
+        try {
+            List<SpacePort> ports = GameCodec.readGalaxy(buffer, version);
+            Ship ship = GameCodec.readShip(buffer, ports);
+            Game game = new Game(ports, ship);
+            GameCodec.readState(buffer, game, version);
+            return game;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Save file is corrupt.", e);
+        }
+    }
+}
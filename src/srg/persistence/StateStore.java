@@ -0,0 +1,257 @@
+package srg.persistence;
+
+import srg.galaxy.Galaxy;
+import srg.galaxy.GalaxyListener;
+import srg.game.Game;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.CargoHold;
+import srg.ship.NavigationRoom;
+import srg.ship.Room;
+import srg.ship.RoomListener;
+import srg.ship.Ship;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a Game's state in a LogStore, one entry per entity, so a long-running game is durable
+ * without writing a full snapshot after every command. Every Room is watched with a
+ * RoomListener, and changes only mark it dirty; commit then rewrites just the dirty entities
+ * in one batch, so they are recovered together or not at all, and syncs the log.
+ * <ul>
+ *     <li>ship/ID/CargoHold: the Ship's CargoHold tier, health and contents.</li>
+ *     <li>ship/ID/NavigationRoom: the NavigationRoom's tier and health, the name of the current
+ *     port, and the simulation time.</li>
+ *     <li>ship/ID/Modules: the name, kind and state of every Room installed with
+ *     Ship.addRoom, including extra CargoHolds' contents. Rooms installed after the store is
+ *     opened are picked up by the next commit.</li>
+ *     <li>store/NAME: the remaining stock of each Store.</li>
+ * </ul>
+ * If the Game's galaxy map is a Galaxy, Stores added to it later are restored from the log, or
+ * written to it if it has no entry for them. A Store removed from the galaxy, e.g. when a
+ * LazyGalaxy evicts its sector, keeps its entry, so its stock is restored if it is added
+ * again. A log should hold the state of a single Game.
+ */
+public class StateStore {
+    /** Begins the key of every Store. */
+    private static final String STORE = "store/";
+    /** The log entities are written to. */
+    private final LogStore log;
+    /** The Ship whose state is kept. */
+    private final Ship ship;
+    /** The key of the entity holding every module of the Ship. */
+    private final String modulesKey;
+    /** The number of the Ship's modules being watched. */
+    private int watchedModules;
+    /** The key of each watched Room. */
+    private final Map<Room, String> keys = new IdentityHashMap<>();
+    /** The Rooms changed since the last commit, and their keys, in the order they changed. */
+    private final Map<Room, String> dirty = new LinkedHashMap<>();
+    /** Encodes entities. */
+    private final BufferWriter out = new BufferWriter(256);
+    /** Marks changed Rooms dirty. */
+    private final RoomListener listener = room -> {
+        String key = keys.get(room);
+        if (key != null) {
+            dirty.put(room, key);
+        }
+    };
+    /** Tracks Stores added to and removed from the galaxy. Galaxy holds listeners weakly. */
+    private final GalaxyListener galaxyListener = new GalaxyListener() {
+        @Override
+        public void portAdded(int index, SpacePort port) {
+            if (port instanceof Store store) {
+                String key = storeKey(store);
+                byte[] value = log.get(key);
+                if (value == null) {
+                    dirty.put(store.getCargoHold(), key);
+                } else {
+                    try {
+                        restore(store.getCargoHold(), key, value);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                watch(store.getCargoHold(), key);
+            }
+        }
+
+        @Override
+        public void portRemoved(int index, SpacePort port) {
+            if (port instanceof Store store) {
+                // Its entry stays, and is still written if it changed since the last commit
+                CargoHold cargoHold = store.getCargoHold();
+                cargoHold.setListener(null);
+                keys.remove(cargoHold);
+            }
+        }
+    };
+
+    private StateStore(LogStore log, Ship ship) {
+        this.log = log;
+        this.ship = ship;
+        this.modulesKey = "ship/" + ship.getId() + "/Modules";
+    }
+
+    /**
+     * Starts keeping a Game's state in a log. Entities the log already holds are first
+     * restored into the Game; the rest are written to it.
+     * @param log The log to keep the state in.
+     * @param game The Game. Its galaxy must hold every port named in the log.
+     * @return The store, watching the Game for changes.
+     * @throws IOException If the log cannot be read or written, or holds a corrupt entity.
+     */
+    public static StateStore open(LogStore log, Game game) throws IOException {
+        StateStore state = new StateStore(log, game.ship);
+        byte[] modules = log.get(state.modulesKey);
+        if (modules != null) {
+            // Installs the modules the Ship does not have yet, so they are watched below
+            try {
+                GameCodec.readModules(ByteBuffer.wrap(modules), game.ship);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt entity.", e);
+            }
+        }
+        String ship = "ship/" + game.ship.getId() + "/";
+        state.keys.put(game.ship.getCargoHold(), ship + "CargoHold");
+        state.keys.put(game.ship.getNavigationRoom(), ship + "NavigationRoom");
+        for (SpacePort port : game.ports) {
+            if (port instanceof Store store) {
+                state.keys.put(store.getCargoHold(), storeKey(store));
+            }
+        }
+
+        for (Map.Entry<Room, String> entry : state.keys.entrySet()) {
+            byte[] value = log.get(entry.getValue());
+            if (value == null) {
+                state.dirty.put(entry.getKey(), entry.getValue());
+            } else {
+                restore(entry.getKey(), entry.getValue(), value);
+            }
+            entry.getKey().setListener(state.listener);
+        }
+        state.watchModules();
+        if (game.ports instanceof Galaxy galaxy) {
+            galaxy.addListener(state.galaxyListener);
+        }
+        state.commit();
+        return state;
+    }
+
+    /**
+     * Returns the number of entities changed since the last commit.
+     * @return The number of dirty entities.
+     */
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Writes every entity changed since the last commit to the log as one atomic batch, and
+     * makes them durable.
+     * @throws IOException If the log cannot be written.
+     */
+    public void commit() throws IOException {
+        watchModules();
+        if (dirty.isEmpty()) {
+            return;
+        }
+        // One batch, so a crash never splits e.g. a purchase between the Ship and the Store
+        Map<String, byte[]> batch = new LinkedHashMap<>();
+        for (Map.Entry<Room, String> entry : dirty.entrySet()) {
+            // Every module shares one entity, which only needs encoding once
+            if (batch.get(entry.getValue()) == null) {
+                batch.put(entry.getValue(), encode(entry.getKey(), entry.getValue()));
+            }
+        }
+        log.putAll(batch);
+        dirty.clear();
+        log.sync();
+    }
+
+    /**
+     * Stops watching the Game. Changes made since the last commit are not written.
+     */
+    public void detach() {
+        for (Room room : keys.keySet()) {
+            room.setListener(null);
+        }
+        keys.clear();
+        dirty.clear();
+    }
+
+    private void watch(Room room, String key) {
+        keys.put(room, key);
+        room.setListener(listener);
+    }
+
+    /**
+     * Watches the Ship's modules if any were installed since they were last watched, and marks
+     * their entity dirty.
+     */
+    private void watchModules() {
+        List<Room> modules = ship.getModules();
+        if (modules.size() == watchedModules) {
+            return;
+        }
+        for (Room room : modules) {
+            watch(room, modulesKey);
+        }
+        dirty.put(modules.get(modules.size() - 1), modulesKey);
+        watchedModules = modules.size();
+    }
+
+    private static String storeKey(Store store) {
+        return STORE + store.getName();
+    }
+
+    private byte[] encode(Room room, String key) {
+        out.clear();
+        if (key.equals(modulesKey)) {
+            GameCodec.writeModules(out, ship);
+        } else if (room instanceof NavigationRoom navigationRoom) {
+            GameCodec.writeRoom(out, navigationRoom);
+            out.putString(navigationRoom.getCurrentPort().getName());
+            out.putLong(navigationRoom.getTime());
+        } else if (key.startsWith(STORE)) {
+            GameCodec.writeContents(out, (CargoHold) room);
+        } else {
+            GameCodec.writeRoom(out, room);
+            GameCodec.writeContents(out, (CargoHold) room);
+        }
+        ByteBuffer buffer = out.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void restore(Room room, String key, byte[] value) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(value);
+        try {
+            if (room instanceof NavigationRoom navigationRoom) {
+                GameCodec.readRoom(in, navigationRoom);
+                String portName = BufferWriter.getString(in);
+                SpacePort port = navigationRoom.findSpacePort(portName);
+                if (port == null) {
+                    throw new IOException("Ship is docked at an unknown port " + portName);
+                }
+                navigationRoom.setCurrentIndex(navigationRoom.getGalaxyMap().indexOf(port));
+                navigationRoom.setTime(in.getLong());
+            } else if (key.startsWith(STORE)) {
+                GameCodec.readContents(in, (CargoHold) room);
+            } else {
+                GameCodec.readRoom(in, room);
+                GameCodec.readContents(in, (CargoHold) room);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt entity.", e);
+        }
+    }
+}
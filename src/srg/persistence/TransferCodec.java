@@ -0,0 +1,120 @@
+package srg.persistence;
+
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.CargoHold;
+import srg.ship.NavigationRoom;
+import srg.ship.Ship;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encodes parts of a Game so they can be moved to another process: a set of SpacePorts with
+ * their Stores' stock, or a Ship with its Rooms, CargoHold contents, current port and simulation
+ * time. Unlike a save file, a Ship's current port is recorded by name, so the Ship can be
+ * decoded into a galaxy map that holds different SpacePorts, in a different order, as long as
+ * it holds that port.
+ */
+public final class TransferCodec {
+
+    private TransferCodec() {
+    }
+
+    /**
+     * Encodes SpacePorts and the stock of each Store among them.
+     * @param ports The SpacePorts to encode.
+     * @return The encoded ports.
+     */
+    public static byte[] encodePorts(List<SpacePort> ports) {
+        BufferWriter out = new BufferWriter(64 + ports.size() * 40);
+        GameCodec.writeGalaxy(out, ports);
+        for (SpacePort port : ports) {
+            if (port instanceof Store store) {
+                GameCodec.writeContents(out, store.getCargoHold());
+            }
+        }
+        return toArray(out);
+    }
+
+    /**
+     * Decodes SpacePorts encoded by encodePorts.
+     * @param bytes The encoded ports.
+     * @return New SpacePorts equal to the encoded ones, as a Galaxy.
+     * @throws IOException If bytes are not encoded ports.
+     */
+    public static List<SpacePort> decodePorts(byte[] bytes) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            List<SpacePort> ports = GameCodec.readGalaxy(in);
+            for (SpacePort port : ports) {
+                if (port instanceof Store store) {
+                    GameCodec.readContents(in, store.getCargoHold());
+                }
+            }
+            return ports;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt ports.", e);
+        }
+    }
+
+    /**
+     * Encodes a Ship and its state.
+     * @param ship The Ship to encode.
+     * @return The encoded Ship.
+     */
+    public static byte[] encodeShip(Ship ship) {
+        BufferWriter out = new BufferWriter(256);
+        CargoHold cargoHold = ship.getCargoHold();
+        NavigationRoom navigationRoom = ship.getNavigationRoom();
+        GameCodec.writeShip(out, ship);
+        GameCodec.writeRoom(out, cargoHold);
+        GameCodec.writeContents(out, cargoHold);
+        GameCodec.writeRoom(out, navigationRoom);
+        out.putString(navigationRoom.getCurrentPort().getName());
+        out.putLong(navigationRoom.getTime());
+        GameCodec.writeModules(out, ship);
+        return toArray(out);
+    }
+
+    /**
+     * Decodes a Ship encoded by encodeShip into a galaxy.
+     * @param bytes The encoded Ship.
+     * @param galaxyMap The galaxy map for the Ship's NavigationRoom. It must hold the Ship's
+     *                  current port.
+     * @return A new Ship equal to the encoded one, docked at the port with the same name.
+     * @throws IOException If bytes are not an encoded Ship, or the galaxy map does not hold its
+     *                     current port.
+     */
+    public static Ship decodeShip(byte[] bytes, List<SpacePort> galaxyMap) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            Ship ship = GameCodec.readShip(in, galaxyMap);
+            CargoHold cargoHold = ship.getCargoHold();
+            NavigationRoom navigationRoom = ship.getNavigationRoom();
+            GameCodec.readRoom(in, cargoHold);
+            GameCodec.readContents(in, cargoHold);
+            GameCodec.readRoom(in, navigationRoom);
+            String portName = BufferWriter.getString(in);
+            SpacePort port = navigationRoom.findSpacePort(portName);
+            if (port == null) {
+                throw new IOException("Ship is docked at an unknown port " + portName);
+            }
+            navigationRoom.setCurrentIndex(galaxyMap.indexOf(port));
+            navigationRoom.setTime(in.getLong());
+            GameCodec.readModules(in, ship);
+            return ship;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt ship.", e);
+        }
+    }
+
+    private static byte[] toArray(BufferWriter out) {
+        ByteBuffer buffer = out.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
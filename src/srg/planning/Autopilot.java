@@ -0,0 +1,321 @@
+package srg.planning;
+
+import srg.cli.given.CommandType;
+import srg.cli.given.IO;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+import srg.galaxy.KineticIndex;
+import srg.game.Game;
+import srg.game.GameFork;
+import srg.ports.ShipYard;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelGrade;
+import srg.resources.ResourceType;
+import srg.ship.CargoHold;
+import srg.ship.NavigationRoom;
+import srg.ship.Room;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Flies a Ship towards a Goal, choosing each command by a beam search over forks of the
+ * Game's state: flying, jumping, buying, repairing and upgrading.
+ * <p>
+ * Each level of the search applies every sensible command to each state in the beam, and keeps
+ * the beamWidth resulting states with the fewest commands taken plus the Goal's estimate of the
+ * commands still needed (plus one for each Room that needs repair). Commands are applied with
+ * GameFork, so they follow the game's real rules for range, fuel, stock, upgrades and damage.
+ * The search stops at the first state that reaches the Goal, or when its time budget runs out,
+ * in which case the plan leads to the most promising state found. Nothing is searched if the
+ * Goal estimates that it can never be reached.
+ * <p>
+ * Purchases are only considered when the Ship is short of something: REPAIR_KITs when it has
+ * fewer than two, TRITIUM when it has less than one maximum flight, and HYPERDRIVE_COREs when it
+ * has fewer than two. Each purchase buys one full container, or the Store's remaining stock.
+ */
+public class Autopilot {
+
+    /**
+     * A state reached by the search, and how it was reached.
+     */
+    private static final class Node {
+        private final GameFork state;
+        private final Node parent;
+        private final ShipCommand command;
+        private final int depth;
+        /** The commands taken plus the estimated commands still needed. */
+        private final double score;
+        /** The estimated commands still needed. */
+        private final double remaining;
+
+        private Node(GameFork state, Node parent, ShipCommand command, double remaining) {
+            this.state = state;
+            this.parent = parent;
+            this.command = command;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.remaining = remaining;
+            this.score = depth + remaining;
+        }
+
+        /**
+         * Returns the commands that lead from the root to this node.
+         */
+        private List<ShipCommand> path() {
+            LinkedList<ShipCommand> commands = new LinkedList<>();
+            for (Node node = this; node.parent != null; node = node.parent) {
+                commands.addFirst(node.command);
+            }
+            return new ArrayList<>(commands);
+        }
+    }
+
+    /** The Game being played. */
+    private final Game game;
+    /** The Goal to achieve. */
+    private final Goal goal;
+    /** Finds the SpacePorts in range of a state. */
+    private final KineticIndex ports;
+    /** The number of states kept at each level of the search. */
+    private int beamWidth = 16;
+    /** The most commands in a plan. */
+    private int maximumDepth = 64;
+    /** The wall-clock time each plan may take, in microseconds. */
+    private long budgetMicros = 2000;
+
+    /**
+     * Constructs an Autopilot for a Game. The galaxy must not change while it is in use.
+     * @param game The Game to play.
+     * @param goal The Goal to achieve.
+     */
+    public Autopilot(Game game, Goal goal) {
+        this.game = game;
+        this.goal = goal;
+        this.ports = new KineticIndex(NavigationRoom.getMaximumJumpDistance(RoomTier.PRIME),
+                game.ports);
+    }
+
+    /**
+     * Sets the number of states kept at each level of the search. Wider beams find better
+     * plans but take longer.
+     * @param beamWidth The number of states; at least 1.
+     */
+    public void setBeamWidth(int beamWidth) {
+        this.beamWidth = Math.max(1, beamWidth);
+    }
+
+    /**
+     * Sets the most commands a plan may have.
+     * @param maximumDepth The most commands; at least 1.
+     */
+    public void setMaximumDepth(int maximumDepth) {
+        this.maximumDepth = Math.max(1, maximumDepth);
+    }
+
+    /**
+     * Sets the wall-clock time each plan, and so each decision, may take.
+     * @param budgetMicros The time budget, in microseconds. The default is 2000 (2ms).
+     */
+    public void setTimeBudgetMicros(long budgetMicros) {
+        this.budgetMicros = Math.max(0, budgetMicros);
+    }
+
+    /**
+     * Returns whether the Goal has been achieved in the Game's current state.
+     * @return True - if the Goal has been reached.
+     */
+    public boolean isReached() {
+        return goal.isReached(game);
+    }
+
+    /**
+     * Plans the commands to achieve the Goal from the Game's current state. The Game is
+     * returned to its current state afterwards.
+     * @return The commands that reach the Goal, or if none were found within the budget, the
+     *         commands that lead to the most promising state found. Empty if the Goal has
+     *         been reached or no command makes progress.
+     */
+    public List<ShipCommand> plan() {
+        long deadline = System.nanoTime() + budgetMicros * 1000;
+        GameFork root = GameFork.capture(game);
+        try {
+            return search(root, deadline).path();
+        } finally {
+            root.checkout();
+        }
+    }
+
+    /**
+     * Chooses the next command towards the Goal.
+     * @return The first command of the plan, or null if there is nothing to do.
+     */
+    public ShipCommand decide() {
+        List<ShipCommand> plan = plan();
+        return plan.isEmpty() ? null : plan.get(0);
+    }
+
+    /**
+     * Plays the Game towards the Goal, deciding and then applying one command at a time with
+     * Game.update, so commands are counted and journaled as if they had been typed.
+     * @param ioHandler Handles the output of each command.
+     * @param maximumSteps The most commands to apply.
+     * @return True - if the Goal was reached.
+     */
+    public boolean run(IO ioHandler, int maximumSteps) {
+        for (int step = 0; step < maximumSteps && !isReached(); step++) {
+            ShipCommand command = decide();
+            if (command == null) {
+                break;
+            }
+            game.update(ioHandler, command);
+        }
+        return isReached();
+    }
+
+    /**
+     * Beam searches from a root state until the Goal is reached, the beam empties, or the time
+     * runs out.
+     * @return The node that reaches the Goal, or else the best node found.
+     */
+    private Node search(GameFork root, long deadline) {
+        Node best = new Node(root, null, null, remaining(game));
+        if (goal.isReached(game) || best.remaining == Double.POSITIVE_INFINITY) {
+            // Nothing to do, or the Goal can never be reached, so there is nothing to search
+            return best;
+        }
+        List<Node> beam = List.of(best);
+        for (int depth = 0; depth < maximumDepth && !beam.isEmpty(); depth++) {
+            List<Node> children = new ArrayList<>();
+            Set<List<Object>> seen = new HashSet<>();
+            for (Node node : beam) {
+                for (ShipCommand command : moves(node.state)) {
+                    if (System.nanoTime() > deadline) {
+                        return best;
+                    }
+                    GameFork child = node.state.apply(command);
+                    // The Game is now in the child's state
+                    if (child == null || !seen.add(signature(game))) {
+                        continue;
+                    }
+                    Node next = new Node(child, node, command, remaining(game));
+                    if (goal.isReached(game)) {
+                        return next;
+                    }
+                    if (next.remaining < best.remaining
+                            || (next.remaining == best.remaining && next.depth < best.depth)) {
+                        best = next;
+                    }
+                    children.add(next);
+                }
+            }
+            // Stable, so ties keep the order the commands were generated in
+            children.sort(Comparator.comparingDouble(node -> node.score));
+            beam = children.size() > beamWidth ? children.subList(0, beamWidth) : children;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the estimated commands still needed from the Game's current state.
+     */
+    private double remaining(Game state) {
+        double remaining = goal.estimate(state);
+        for (Room room : state.ship.getRooms()) {
+            if (room.needsRepair()) {
+                remaining++;
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Identifies a state, so states reached by different commands are only searched once.
+     */
+    private static List<Object> signature(Game state) {
+        CargoHold cargoHold = state.ship.getCargoHold();
+        NavigationRoom navigationRoom = state.ship.getNavigationRoom();
+        List<Object> signature = new ArrayList<>(List.of(navigationRoom.getCurrentIndex(),
+                cargoHold.getTotalAmountByType(FuelGrade.TRITIUM),
+                cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE),
+                cargoHold.getTotalAmountByType(ResourceType.REPAIR_KIT)));
+        for (Room room : state.ship.getRooms()) {
+            signature.add(room.getTier());
+            signature.add(room.getHealthPoints());
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the commands worth trying from a state.
+     */
+    private List<ShipCommand> moves(GameFork state) {
+        Ship ship = state.checkout().ship;
+        CargoHold cargoHold = ship.getCargoHold();
+        NavigationRoom navigationRoom = ship.getNavigationRoom();
+        List<ShipCommand> moves = new ArrayList<>();
+
+        int repairKits = cargoHold.getTotalAmountByType(ResourceType.REPAIR_KIT);
+        ShipYard shipYard = navigationRoom.getShipYard();
+        for (Room room : ship.getRooms()) {
+            String roomName = ship.getRooms().nameOf(room);
+            if (shipYard != null && shipYard.canUpgrade(roomName)
+                    && (room.getTier() != RoomTier.PRIME || room.needsRepair())) {
+                // Upgrading also restores health, so it doubles as a free repair
+                moves.add(new ShipCommand(CommandType.UPGRADE_ROOM, roomName));
+            } else if (room.needsRepair() && repairKits > 0) {
+                moves.add(new ShipCommand(CommandType.REPAIR_ROOM, roomName));
+            }
+        }
+
+        Store store = navigationRoom.getStore();
+        if (store != null && cargoHold.getRemainingCapacity() > 0) {
+            int tritium = cargoHold.getTotalAmountByType(FuelGrade.TRITIUM);
+            int cores = cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE);
+            addPurchase(moves, store, Commodity.REPAIR_KIT, repairKits < 2);
+            addPurchase(moves, store, Commodity.TRITIUM,
+                    tritium < navigationRoom.getMaximumFlyDistance());
+            addPurchase(moves, store, Commodity.HYPERDRIVE_CORE, cores < 2);
+        }
+
+        if (!navigationRoom.isBroken() && !cargoHold.isBroken()) {
+            addTravel(moves, navigationRoom, cargoHold);
+        }
+        return moves;
+    }
+
+    private static void addPurchase(List<ShipCommand> moves, Store store, Commodity commodity,
+                                    boolean needed) {
+        int amount = Math.min(commodity.getContainerCapacity(), commodity.getStock(store));
+        if (needed && amount > 0) {
+            moves.add(new PurchaseCommand(commodity.name(), amount));
+        }
+    }
+
+    /**
+     * Adds a flight to every affordable port in fly range, and a jump to every other port in
+     * jump range, in name order.
+     */
+    private void addTravel(List<ShipCommand> moves, NavigationRoom navigationRoom,
+                           CargoHold cargoHold) {
+        int tritium = cargoHold.getTotalAmountByType(FuelGrade.TRITIUM);
+        boolean canJump = cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE) > 0;
+        List<SpacePort> destinations = ports.inRangeOf(navigationRoom.getCurrentPort(),
+                navigationRoom.getMaximumJumpDistance(), navigationRoom.getTime());
+        destinations.sort(Comparator.comparing(SpacePort::getName));
+        for (SpacePort destination : destinations) {
+            int distance = navigationRoom.getFuelNeeded(destination);
+            if (distance <= navigationRoom.getMaximumFlyDistance() && distance <= tritium) {
+                moves.add(new ShipCommand(CommandType.FLY_TO, destination.getName()));
+            } else if (canJump) {
+                moves.add(new ShipCommand(CommandType.JUMP_TO, destination.getName()));
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package srg.planning;
+
+import srg.ports.Store;
+import srg.resources.FuelContainer;
+import srg.resources.FuelGrade;
+import srg.resources.ResourceContainer;
+import srg.resources.ResourceType;
+import srg.ship.CargoHold;
+
+/**
+ * Enumerates the items Stores sell, by the names used in "buy" commands.
+ */
+public enum Commodity {
+    /** REPAIR_KITs, sold in ResourceContainers. */
+    REPAIR_KIT(ResourceContainer.MAXIMUM_CAPACITY),
+    /** TRITIUM fuel, sold in FuelContainers. */
+    TRITIUM(FuelContainer.MAXIMUM_CAPACITY),
+    /** HYPERDRIVE_COREs, sold in FuelContainers. */
+    HYPERDRIVE_CORE(FuelContainer.MAXIMUM_CAPACITY);
+
+    /** The most that one container, and so one purchase, can hold. */
+    private final int containerCapacity;
+
+    Commodity(int containerCapacity) {
+        this.containerCapacity = containerCapacity;
+    }
+
+    /**
+     * Returns the most of this Commodity that one purchase can buy.
+     * @return The capacity of one container.
+     */
+    public int getContainerCapacity() {
+        return containerCapacity;
+    }
+
+    /**
+     * Returns how much of this Commodity a CargoHold holds.
+     * @param cargoHold The CargoHold to count.
+     * @return The total amount held.
+     */
+    public int getAmount(CargoHold cargoHold) {
+        return switch (this) {
+            case REPAIR_KIT -> cargoHold.getTotalAmountByType(ResourceType.REPAIR_KIT);
+            case TRITIUM -> cargoHold.getTotalAmountByType(FuelGrade.TRITIUM);
+            case HYPERDRIVE_CORE -> cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE);
+        };
+    }
+
+    /**
+     * Returns how much of this Commodity a Store has left to sell.
+     * @param store The Store to check.
+     * @return The Store's remaining stock.
+     */
+    public int getStock(Store store) {
+        return store.getStock(name());
+    }
+}
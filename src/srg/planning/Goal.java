@@ -0,0 +1,26 @@
+package srg.planning;
+
+import srg.game.Game;
+
+/**
+ * Something an Autopilot tries to achieve, such as reaching a SpacePort.
+ * <p>
+ * Goals judge a state by looking at a Game that has been put in that state, e.g. by
+ * GameFork.checkout, and must not change it.
+ */
+public interface Goal {
+    /**
+     * Returns whether the goal has been achieved.
+     * @param game The Game in the state to judge.
+     * @return True - if nothing more needs to be done.
+     */
+    boolean isReached(Game game);
+
+    /**
+     * Estimates the number of commands still needed to achieve the goal. Search is quickest when
+     * the estimate is close to, but not above, the true number.
+     * @param game The Game in the state to judge.
+     * @return The estimated number of commands; 0 if the goal has been reached.
+     */
+    double estimate(Game game);
+}
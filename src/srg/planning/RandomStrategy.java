@@ -0,0 +1,60 @@
+package srg.planning;
+
+import srg.cli.given.CommandType;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+import srg.game.Game;
+import srg.ports.SpacePort;
+import srg.resources.FuelGrade;
+import srg.resources.ResourceType;
+import srg.ship.NavigationRoom;
+import srg.ship.Room;
+import srg.ship.Ship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A Strategy that wanders: it repairs any Room that needs it while it has REPAIR_KITs, sometimes
+ * buys a little TRITIUM when docked at a Store, and otherwise travels to a random SpacePort in
+ * range, flying if it has the fuel and jumping if not. It ends the game when there is nowhere to
+ * go. It makes a useful baseline to compare other Strategies against.
+ */
+public class RandomStrategy implements Strategy {
+    /** The chance of buying TRITIUM at each visit to a Store. */
+    private static final double PURCHASE_CHANCE = 0.25;
+    /** The amount of TRITIUM bought at a time. */
+    private static final int PURCHASE_AMOUNT = 100;
+
+    @Override
+    public ShipCommand next(Game game, RandomGenerator random) {
+        Ship ship = game.ship;
+        NavigationRoom navigationRoom = ship.getNavigationRoom();
+
+        for (Room room : List.of(ship.getCargoHold(), navigationRoom)) {
+            if (room.needsRepair()
+                    && ship.getCargoHold().getTotalAmountByType(ResourceType.REPAIR_KIT) > 0) {
+                return new ShipCommand(CommandType.REPAIR_ROOM, room.getKind().getRoomName());
+            }
+        }
+
+        if (navigationRoom.getStore() != null && random.nextDouble() < PURCHASE_CHANCE) {
+            return new PurchaseCommand(FuelGrade.TRITIUM.name(), PURCHASE_AMOUNT);
+        }
+
+        List<SpacePort> destinations = new ArrayList<>(navigationRoom.getPortsInFlyRange());
+        int flyable = destinations.size();
+        destinations.addAll(navigationRoom.getPortsInJumpRange());
+        if (destinations.isEmpty()) {
+            return null;
+        }
+        int choice = random.nextInt(destinations.size());
+        SpacePort destination = destinations.get(choice);
+        boolean fly = choice < flyable
+                && ship.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM)
+                        >= navigationRoom.getFuelNeeded(destination);
+        return new ShipCommand(fly ? CommandType.FLY_TO : CommandType.JUMP_TO,
+                destination.getName());
+    }
+}
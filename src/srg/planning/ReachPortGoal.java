@@ -0,0 +1,56 @@
+package srg.planning;
+
+import srg.galaxy.Galaxy;
+import srg.galaxy.TravelMode;
+import srg.game.Game;
+import srg.ports.SpacePort;
+import srg.ship.NavigationRoom;
+import srg.ship.RoomTier;
+
+/**
+ * The Goal of docking at a named SpacePort. The estimate is the number of maximum-length jumps
+ * needed to cover the distance, which never overestimates the journeys needed. In a Galaxy, a
+ * port that even a PRIME NavigationRoom could never reach is estimated as unreachable in
+ * constant time, from the Galaxy's Connectivity.
+ */
+public class ReachPortGoal implements Goal {
+    /** The name of the SpacePort to reach. */
+    private final String portName;
+
+    /**
+     * Constructs the goal of reaching a SpacePort.
+     * @param portName The unique name of the SpacePort.
+     */
+    public ReachPortGoal(String portName) {
+        this.portName = portName;
+    }
+
+    @Override
+    public boolean isReached(Game game) {
+        return game.ship.getNavigationRoom().getCurrentPort().getName().equals(portName);
+    }
+
+    @Override
+    public double estimate(Game game) {
+        NavigationRoom navigationRoom = game.ship.getNavigationRoom();
+        SpacePort target = navigationRoom.findSpacePort(portName);
+        if (target == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // The Ship may yet be upgraded, so only rule out ports no tier can reach
+        if (navigationRoom.getGalaxyMap() instanceof Galaxy galaxy
+                && !galaxy.mayConnect(navigationRoom.getCurrentPort(), target, RoomTier.PRIME,
+                        TravelMode.JUMP)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int distance = navigationRoom.getFuelNeeded(target);
+        // Ceiling division: any distance at all takes at least one journey
+        return (distance + navigationRoom.getMaximumJumpDistance() - 1)
+                / navigationRoom.getMaximumJumpDistance();
+    }
+
+    @Override
+    public String toString() {
+        return "reach " + portName;
+    }
+}
@@ -0,0 +1,86 @@
+package srg.planning;
+
+/**
+ * The running count, mean and variance of a series of samples, kept with Welford's method so
+ * it is numerically stable in a single pass. Statistics of separate series can be merged, so
+ * samples can be collected in parallel.
+ */
+public class Statistic {
+    /** The z-score of a two-sided 95% confidence interval. */
+    private static final double Z_95 = 1.959963984540054;
+
+    /** The number of samples. */
+    private long count;
+    /** The mean of the samples. */
+    private double mean;
+    /** The sum of squared differences from the mean. */
+    private double squares;
+
+    /**
+     * Adds a sample.
+     * @param sample The sample to add.
+     */
+    public void add(double sample) {
+        count++;
+        double delta = sample - mean;
+        mean += delta / count;
+        squares += delta * (sample - mean);
+    }
+
+    /**
+     * Adds every sample of another Statistic, as if they had been added to this one.
+     * @param other The Statistic to merge in. It is not modified.
+     */
+    public void merge(Statistic other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        squares += other.squares + delta * delta * count * other.count / total;
+        count = total;
+    }
+
+    /**
+     * Returns the number of samples.
+     * @return The number of samples added.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of the samples.
+     * @return The mean, or 0 if there are no samples.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the sample standard deviation.
+     * @return The standard deviation, or 0 if there are fewer than two samples.
+     */
+    public double getStandardDeviation() {
+        return count < 2 ? 0 : Math.sqrt(squares / (count - 1));
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the mean, using the normal
+     * approximation, which is reasonable for a few dozen samples or more.
+     * @return The margin of error, so the mean is likely within getMean() plus or minus it.
+     */
+    public double getConfidenceInterval() {
+        return count < 2 ? 0 : Z_95 * getStandardDeviation() / Math.sqrt(count);
+    }
+
+    /**
+     * Returns the mean and its 95% confidence interval.
+     * @return A String of the form "mean +/- interval".
+     */
+    @Override
+    public String toString() {
+        return String.format("%.2f +/- %.2f", getMean(), getConfidenceInterval());
+    }
+}
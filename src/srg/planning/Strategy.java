@@ -0,0 +1,24 @@
+package srg.planning;
+
+import srg.cli.given.ShipCommand;
+import srg.game.Game;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Chooses the commands a Ship follows during a simulated game, e.g. a playout run by a
+ * StrategyEvaluator.
+ * <p>
+ * A Strategy may be asked for commands by several threads at once, each with its own Game and
+ * random number generator, so it should keep no mutable state of its own.
+ */
+@FunctionalInterface
+public interface Strategy {
+    /**
+     * Chooses the next command for a Game's Ship.
+     * @param game The Game being played. The Strategy must not modify it.
+     * @param random The source of any randomness the Strategy needs.
+     * @return The command to apply next, or null to end the game.
+     */
+    ShipCommand next(Game game, RandomGenerator random);
+}
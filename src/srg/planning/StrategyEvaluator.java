@@ -0,0 +1,249 @@
+package srg.planning;
+
+import srg.cli.given.ShipCommand;
+import srg.exceptions.InsufficientCapcaityException;
+import srg.exceptions.InsufficientResourcesException;
+import srg.exceptions.NoPathException;
+import srg.game.Game;
+import srg.game.QuietIO;
+import srg.persistence.GameSnapshot;
+import srg.persistence.SaveFile;
+import srg.resources.FuelGrade;
+import srg.ship.CargoHold;
+import srg.ship.NavigationRoom;
+import srg.ship.Ship;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Estimates how well a Strategy plays from a Game's current state by Monte Carlo simulation:
+ * it plays the Strategy out many times with different random choices and reports the mean and
+ * 95% confidence interval of the fuel used, SpacePorts visited, Rooms broken and commands that
+ * failed.
+ * <p>
+ * Playouts run in parallel on a ForkJoinPool. Each worker thread decodes its own copy of the
+ * Game once, so no state is shared between threads, and restores it from a snapshot before
+ * every playout. Each playout draws from its own random stream, derived from the seed and the
+ * playout's number, so the report for a seed is the same however the playouts are scheduled.
+ * The Game itself is never modified.
+ */
+public class StrategyEvaluator {
+
+    /**
+     * The results of an evaluation. Each Statistic has one sample per playout.
+     */
+    public static class Report {
+        /** The TRITIUM burned flying. */
+        public final Statistic tritiumUsed = new Statistic();
+        /** The HYPERDRIVE_COREs burned jumping. */
+        public final Statistic hyperdriveCoresUsed = new Statistic();
+        /** The number of distinct SpacePorts docked at, including the starting port. */
+        public final Statistic portsVisited = new Statistic();
+        /** The number of Rooms broken at the end of the playout. */
+        public final Statistic roomsBroken = new Statistic();
+        /** The number of commands that were rejected or failed. */
+        public final Statistic failedCommands = new Statistic();
+
+        Report() {
+        }
+
+        private void merge(Report other) {
+            tritiumUsed.merge(other.tritiumUsed);
+            hyperdriveCoresUsed.merge(other.hyperdriveCoresUsed);
+            portsVisited.merge(other.portsVisited);
+            roomsBroken.merge(other.roomsBroken);
+            failedCommands.merge(other.failedCommands);
+        }
+
+        /**
+         * Returns the number of playouts.
+         * @return The number of playouts the report covers.
+         */
+        public long getPlayouts() {
+            return tritiumUsed.getCount();
+        }
+
+        /**
+         * Returns a summary of the report, one metric per line.
+         * @return The mean and 95% confidence interval of each metric.
+         */
+        @Override
+        public String toString() {
+            return String.join(System.lineSeparator(),
+                    "PLAYOUTS: " + getPlayouts(),
+                    "TRITIUM USED: " + tritiumUsed,
+                    "HYPERDRIVE_CORES USED: " + hyperdriveCoresUsed,
+                    "PORTS VISITED: " + portsVisited,
+                    "ROOMS BROKEN: " + roomsBroken,
+                    "FAILED COMMANDS: " + failedCommands);
+        }
+    }
+
+    /** The most playouts one fork join task plays itself rather than splitting. */
+    private static final int LEAF_SIZE = 8;
+
+    /** The Strategy to evaluate. */
+    private final Strategy strategy;
+    /** The Game, encoded as a save file, for each worker to decode a copy of. */
+    private final byte[] encodedGame;
+    /** The Game's state at the start of every playout. */
+    private final byte[] startState;
+    /** The pool to run playouts on. */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    /** The most commands in one playout. */
+    private int maximumSteps = 50;
+
+    /**
+     * Constructs an evaluator of a Strategy from a Game's current state. Later changes to the
+     * Game do not affect the evaluator.
+     * @param game The Game to play from.
+     * @param strategy The Strategy to evaluate. It is called from several threads at once.
+     */
+    public StrategyEvaluator(Game game, Strategy strategy) {
+        this.strategy = strategy;
+        this.encodedGame = SaveFile.toBytes(game);
+        this.startState = GameSnapshot.capture(game);
+    }
+
+    /**
+     * Sets the most commands in one playout. A playout also ends when the Strategy returns null.
+     * @param maximumSteps The most commands; at least 1.
+     */
+    public void setMaximumSteps(int maximumSteps) {
+        this.maximumSteps = Math.max(1, maximumSteps);
+    }
+
+    /**
+     * Sets the pool that playouts run on, e.g. to limit the number of threads used.
+     * @param pool The pool to use. The common pool is used by default.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Plays the Strategy out a number of times and reports the results.
+     * @param playouts The number of playouts.
+     * @param seed The seed of the random streams. The same seed gives the same report.
+     * @return The statistics of the playouts.
+     */
+    public Report evaluate(int playouts, long seed) {
+        ThreadLocal<Game> games = ThreadLocal.withInitial(this::decode);
+        return pool.invoke(new Playouts(games, seed, 0, Math.max(0, playouts)));
+    }
+
+    /**
+     * Plays a range of playouts, splitting it in half until it is small enough to play.
+     */
+    private class Playouts extends RecursiveTask<Report> {
+        private static final long serialVersionUID = 1L;
+        private final ThreadLocal<Game> games;
+        private final long seed;
+        private final int start;
+        private final int end;
+
+        Playouts(ThreadLocal<Game> games, long seed, int start, int end) {
+            this.games = games;
+            this.seed = seed;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Report compute() {
+            if (end - start <= LEAF_SIZE) {
+                Report report = new Report();
+                Game game = games.get();
+                for (int i = start; i < end; i++) {
+                    playOut(game, new SplittableRandom(streamSeed(seed, i)), report);
+                }
+                return report;
+            }
+            int middle = (start + end) >>> 1;
+            Playouts left = new Playouts(games, seed, start, middle);
+            left.fork();
+            Report report = new Playouts(games, seed, middle, end).compute();
+            // Always merge left then right, so the report does not depend on scheduling
+            Report leftReport = left.join();
+            leftReport.merge(report);
+            return leftReport;
+        }
+    }
+
+    /**
+     * Restores a worker's Game to the start state, plays the Strategy out, and adds the results
+     * to a report.
+     */
+    private void playOut(Game game, SplittableRandom random, Report report) {
+        try {
+            GameSnapshot.restore(game, startState);
+        } catch (IOException e) {
+            // The snapshot was captured from the same Game the worker's copy was decoded from
+            throw new UncheckedIOException(e);
+        }
+        Ship ship = game.ship;
+        CargoHold cargoHold = ship.getCargoHold();
+        NavigationRoom navigationRoom = ship.getNavigationRoom();
+        QuietIO io = new QuietIO();
+
+        long tritiumUsed = 0;
+        long coresUsed = 0;
+        int failures = 0;
+        BitSet visited = new BitSet();
+        visited.set(navigationRoom.getCurrentIndex());
+
+        for (int step = 0; step < maximumSteps; step++) {
+            ShipCommand command = strategy.next(game, random);
+            if (command == null) {
+                break;
+            }
+            int tritium = cargoHold.getTotalAmountByType(FuelGrade.TRITIUM);
+            int cores = cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE);
+            try {
+                if (!ship.processCommand(io, command)) {
+                    failures++;
+                }
+            } catch (InsufficientResourcesException | NoPathException
+                     | InsufficientCapcaityException | IllegalArgumentException e) {
+                failures++;
+            }
+            // Purchases only add fuel, so any decrease was burned travelling
+            tritiumUsed += Math.max(0, tritium - cargoHold.getTotalAmountByType(FuelGrade.TRITIUM));
+            coresUsed += Math.max(0,
+                    cores - cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE));
+            visited.set(navigationRoom.getCurrentIndex());
+        }
+
+        report.tritiumUsed.add(tritiumUsed);
+        report.hyperdriveCoresUsed.add(coresUsed);
+        report.portsVisited.add(visited.cardinality());
+        report.roomsBroken.add((cargoHold.isBroken() ? 1 : 0)
+                + (navigationRoom.isBroken() ? 1 : 0));
+        report.failedCommands.add(failures);
+    }
+
+    private Game decode() {
+        try {
+            return SaveFile.fromBytes(encodedGame);
+        } catch (IOException e) {
+            // The bytes were encoded from a valid Game by this evaluator
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Derives an independent seed for each playout by mixing the seed and the playout's number
+     * (the SplitMix64 finaliser), so neighbouring playouts do not get overlapping streams.
+     */
+    private static long streamSeed(long seed, int playout) {
+        long z = seed + (playout + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
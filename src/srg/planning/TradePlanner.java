@@ -0,0 +1,460 @@
+package srg.planning;
+
+import srg.galaxy.SpatialGrid;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.NavigationRoom;
+import srg.ship.Ship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Finds resupply loops: circuits that start at a Store, visit other Stores, and return, buying
+ * from each Store's remaining stock on the way. Loops are ranked by profit, which is the value
+ * of everything bought less the value of the fuel burned travelling.
+ * <p>
+ * The game has no prices, so each Commodity is given a value per unit (by default a
+ * REPAIR_KIT is worth 100, a HYPERDRIVE_CORE 200 and a unit of TRITIUM 1, roughly what each
+ * buys in travel or repairs). Each purchase fills one CargoHold slot with at most one
+ * container's worth, and each Store sells each Commodity at most once per loop. Fuel bought on
+ * the way can be used by later legs; a leg that cannot otherwise be afforded buys its fuel at
+ * the Store it leaves from.
+ * <p>
+ * The search from each candidate start Store runs in parallel, is depth-first over Stores in
+ * range, and stops when its time budget runs out, so with a short budget the loops returned
+ * are the best found rather than the best possible. Stock and the Ship's state are captured
+ * when the planner is constructed. Room damage is ignored; see MaintenancePlanner. The cost of
+ * reaching the start Store is not included.
+ */
+public class TradePlanner {
+
+    /**
+     * One purchase made on a loop.
+     */
+    public static class Purchase {
+        /** The Store to buy from. */
+        public final Store store;
+        /** The Commodity to buy. */
+        public final Commodity commodity;
+        /** The amount to buy. */
+        public final int amount;
+
+        Purchase(Store store, Commodity commodity, int amount) {
+            this.store = store;
+            this.commodity = commodity;
+            this.amount = amount;
+        }
+
+        /**
+         * Returns the command that makes this purchase.
+         * @return A "buy" command, e.g. "buy TRITIUM 1000".
+         */
+        @Override
+        public String toString() {
+            return String.format("buy %s %d", commodity, amount);
+        }
+    }
+
+    /**
+     * A planned loop, starting and ending at the same Store.
+     */
+    public static class Loop {
+        /** The Stores visited, in order, starting and ending with the start Store. */
+        public final List<Store> stops;
+        /** The purchases made, in the order they are made. */
+        public final List<Purchase> purchases;
+        /** The commands that travel the loop and make its purchases, in order. */
+        public final List<String> commands;
+        /** The value bought less the value of the fuel burned. */
+        public final long profit;
+        /** The TRITIUM burned flying. */
+        public final int tritiumUsed;
+        /** The HYPERDRIVE_COREs burned jumping. */
+        public final int hyperdriveCoresUsed;
+
+        Loop(List<Store> stops, List<Purchase> purchases, List<String> commands, long profit,
+             int tritiumUsed, int hyperdriveCoresUsed) {
+            this.stops = stops;
+            this.purchases = purchases;
+            this.commands = commands;
+            this.profit = profit;
+            this.tritiumUsed = tritiumUsed;
+            this.hyperdriveCoresUsed = hyperdriveCoresUsed;
+        }
+
+        /**
+         * Returns a String representation of the loop.
+         * @return A string with the start Store, profit, fuel used, and the loop's commands.
+         */
+        @Override
+        public String toString() {
+            return String.format("LOOP: from \"%s\", profit %d, %d TRITIUM, %d HYPERDRIVE_CORE",
+                    stops.get(0).getName(), profit, tritiumUsed, hyperdriveCoresUsed)
+                    + commands.stream().map(command -> "\n    " + command)
+                    .collect(Collectors.joining());
+        }
+    }
+
+    /** Orders loops from most to least profitable, then by the names of their stops. */
+    private static final Comparator<Loop> BEST_FIRST = Comparator
+            .comparingLong((Loop loop) -> -loop.profit)
+            .thenComparing(loop -> loop.stops.stream().map(SpacePort::getName)
+                    .collect(Collectors.joining("\n")))
+            .thenComparing(loop -> loop.commands.toString());
+
+    /** The number of search nodes between checks of the time budget. */
+    private static final int CLOCK_INTERVAL = 256;
+
+    private static final Commodity[] COMMODITIES = Commodity.values();
+    private static final int FLY = 0;
+    private static final int JUMP = 1;
+
+    /** The Stores in the galaxy. */
+    private final List<Store> stores;
+    /** The remaining stock of each Store, by Store index and Commodity ordinal. */
+    private final int[][] stock;
+    /** The value per unit of each Commodity, by ordinal. */
+    private final int[] values = new int[COMMODITIES.length];
+    /** The Ship's maximum fly distance. */
+    private final int flyRange;
+    /** The Ship's maximum jump distance. */
+    private final int jumpRange;
+    /** The simulation time of the first leg. */
+    private final long startTime;
+    /** The TRITIUM carried at the start. */
+    private final int tritium;
+    /** The HYPERDRIVE_COREs carried at the start. */
+    private final int hyperdriveCores;
+    /** The free CargoHold slots at the start. */
+    private final int slots;
+    /** The most Stores a loop visits, including the start Store. */
+    private int maximumStops = 4;
+
+    /**
+     * Captures the state of a Ship and the stock of every Store in a galaxy.
+     * @param ship The Ship to plan for.
+     * @param galaxyMap The SpacePorts in the galaxy.
+     */
+    public TradePlanner(Ship ship, List<SpacePort> galaxyMap) {
+        stores = new ArrayList<>();
+        for (SpacePort port : galaxyMap) {
+            if (port instanceof Store store) {
+                stores.add(store);
+            }
+        }
+        stock = new int[stores.size()][COMMODITIES.length];
+        for (int i = 0; i < stores.size(); i++) {
+            for (Commodity commodity : COMMODITIES) {
+                stock[i][commodity.ordinal()] = commodity.getStock(stores.get(i));
+            }
+        }
+
+        NavigationRoom navigationRoom = ship.getNavigationRoom();
+        flyRange = navigationRoom.getMaximumFlyDistance();
+        jumpRange = navigationRoom.getMaximumJumpDistance();
+        startTime = navigationRoom.getTime();
+        tritium = Commodity.TRITIUM.getAmount(ship.getCargoHold());
+        hyperdriveCores = Commodity.HYPERDRIVE_CORE.getAmount(ship.getCargoHold());
+        slots = ship.getCargoHold().getRemainingCapacity();
+
+        values[Commodity.REPAIR_KIT.ordinal()] = 100;
+        values[Commodity.TRITIUM.ordinal()] = 1;
+        values[Commodity.HYPERDRIVE_CORE.ordinal()] = 200;
+    }
+
+    /**
+     * Sets the value of one unit of a Commodity.
+     * @param commodity The Commodity to value.
+     * @param value The value per unit.
+     */
+    public void setValue(Commodity commodity, int value) {
+        values[commodity.ordinal()] = value;
+    }
+
+    /**
+     * Sets the most Stores a loop may visit, including the start Store. Larger loops may be
+     * more profitable, but take exponentially longer to search.
+     * @param maximumStops The most Stores per loop; at least 2.
+     * @throws IllegalArgumentException If maximumStops is less than 2.
+     */
+    public void setMaximumStops(int maximumStops) {
+        if (maximumStops < 2) {
+            throw new IllegalArgumentException("A loop needs at least 2 stops.");
+        }
+        this.maximumStops = maximumStops;
+    }
+
+    /**
+     * Finds the most profitable loops from every Store, searching from each start Store in
+     * parallel.
+     * @param count The most loops to return.
+     * @param budgetMillis How long to search for, in milliseconds.
+     * @return Up to count loops, most profitable first. Loops with no profit are included, so
+     *         an empty list means no Store can reach another.
+     */
+    public List<Loop> plan(int count, long budgetMillis) {
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000;
+        int[] unitValues = values.clone();
+        int[][] neighbours = findNeighbours();
+        // Split the start Stores into a few ranges per thread, each searched by one Search
+        int chunks = Math.min(stores.size(), Runtime.getRuntime().availableProcessors() * 4);
+        List<Loop> loops = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> new Search(count, deadline, unitValues, neighbours)
+                        .run(stores.size() * chunk / chunks,
+                                stores.size() * (chunk + 1) / chunks))
+                .flatMap(List::stream)
+                .sorted(BEST_FIRST)
+                .collect(Collectors.toList());
+        return loops.subList(0, Math.max(0, Math.min(count, loops.size())));
+    }
+
+    /**
+     * Finds, for each Store, the Stores that could be in jump range on any leg of a loop. Moving
+     * Stores can drift by their maximum speed per leg, so the search radius allows for that.
+     * @return The indices of each Store's candidate neighbours, in ascending order.
+     */
+    private int[][] findNeighbours() {
+        int maximumSpeed = 0;
+        SpatialGrid grid = new SpatialGrid(Math.max(1, jumpRange));
+        for (Store store : stores) {
+            grid.add(store, store.getPositionAt(startTime));
+            if (store.getTrajectory() != null) {
+                maximumSpeed = Math.max(maximumSpeed, store.getTrajectory().getMaximumSpeed());
+            }
+        }
+        // Two Stores can each drift towards the other
+        long radius = jumpRange + 2L * (maximumSpeed * (long) maximumStops + 2);
+        radius = Math.min(radius, Integer.MAX_VALUE / 4);
+
+        Map<Store, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < stores.size(); i++) {
+            indices.put(stores.get(i), i);
+        }
+        int[][] neighbours = new int[stores.size()][];
+        for (int i = 0; i < stores.size(); i++) {
+            List<SpacePort> found = grid.within(stores.get(i).getPositionAt(startTime),
+                    (int) radius);
+            neighbours[i] = found.stream().mapToInt(indices::get)
+                    .sorted().toArray();
+        }
+        return neighbours;
+    }
+
+    /**
+     * The depth-first search from a range of start Stores. Each Search is used by one thread.
+     */
+    private class Search {
+        /** The index of the start Store. */
+        private int start;
+        /** The most loops to keep. */
+        private final int count;
+        /** When to stop searching, in System.nanoTime() units. */
+        private final long deadline;
+        /** The value per unit of each Commodity. */
+        private final int[] unitValues;
+        /** The candidate neighbours of each Store. */
+        private final int[][] neighbours;
+        /** The best loops found so far, least profitable first. */
+        private final PriorityQueue<Loop> best;
+        /** The Store index at each stop. */
+        private final int[] route = new int[maximumStops + 1];
+        /** How the leg leaving each stop is travelled, FLY or JUMP. */
+        private final int[] modes = new int[maximumStops + 1];
+        /** Which Commodities are bought at each stop to afford the next leg. */
+        private final boolean[][] forced = new boolean[maximumStops + 1][COMMODITIES.length];
+        /** Whether each Store is on the current route. */
+        private final boolean[] visited = new boolean[stores.size()];
+        /** The number of nodes searched. */
+        private long nodes;
+        /** Whether the deadline has passed. */
+        private boolean outOfTime;
+
+        Search(int count, long deadline, int[] unitValues, int[][] neighbours) {
+            this.neighbours = neighbours;
+            this.count = count;
+            this.deadline = deadline;
+            this.unitValues = unitValues;
+            this.best = new PriorityQueue<>(Collections.reverseOrder(BEST_FIRST));
+        }
+
+        /**
+         * Searches from each start Store in a range, keeping the best loops across all of them.
+         */
+        List<Loop> run(int from, int to) {
+            for (start = from; start < to && count > 0 && !outOfTime(); start++) {
+                route[0] = start;
+                visited[start] = true;
+                search(0, startTime, tritium, hyperdriveCores, slots, 0, 0, 0);
+                visited[start] = false;
+            }
+            return new ArrayList<>(best);
+        }
+
+        /**
+         * Extends the route from the Store at route[depth], given the fuel and slots left on
+         * arrival there, the value of the fuel bought so far, and the fuel burned so far.
+         */
+        private void search(int depth, long time, int tritiumLeft, int coresLeft,
+                            int slotsLeft, long forcedValue, int tritiumUsed, int coresUsed) {
+            int current = route[depth];
+            for (int next : neighbours[current]) {
+                if (outOfTime()) {
+                    return;
+                }
+                boolean closing = next == start;
+                if (next == current || closing && depth == 0
+                        || !closing && (visited[next] || depth + 1 >= maximumStops)) {
+                    continue;
+                }
+                int distance = stores.get(current).getPositionAt(time)
+                        .distanceTo(stores.get(next).getPositionAt(time));
+                if (distance > jumpRange) {
+                    continue;
+                }
+
+                // Prefer whichever of flying and jumping burns less value
+                boolean canFly = distance <= flyRange;
+                boolean flyFirst = canFly && (long) distance * unitValues[Commodity.TRITIUM
+                        .ordinal()] <= unitValues[Commodity.HYPERDRIVE_CORE.ordinal()];
+                for (int attempt = 0; attempt < 2; attempt++) {
+                    int mode = (attempt == 0) == flyFirst ? FLY : JUMP;
+                    if (mode == FLY && !canFly) {
+                        continue;
+                    }
+                    Commodity fuel = mode == FLY ? Commodity.TRITIUM : Commodity.HYPERDRIVE_CORE;
+                    int needed = mode == FLY ? distance : 1;
+                    int have = mode == FLY ? tritiumLeft : coresLeft;
+
+                    // Buy fuel here if the leg cannot otherwise be afforded
+                    int bought = 0;
+                    if (have < needed) {
+                        bought = offer(current, fuel);
+                        if (slotsLeft == 0 || forced[depth][fuel.ordinal()]
+                                || have + bought < needed) {
+                            continue;
+                        }
+                        forced[depth][fuel.ordinal()] = true;
+                    }
+                    int usedSlots = bought > 0 ? 1 : 0;
+                    long value = forcedValue + (long) bought * unitValues[fuel.ordinal()];
+                    int newTritium = tritiumLeft;
+                    int newCores = coresLeft;
+                    if (mode == FLY) {
+                        newTritium += bought - needed;
+                    } else {
+                        newCores += bought - needed;
+                    }
+
+                    modes[depth] = mode;
+                    route[depth + 1] = next;
+                    if (closing) {
+                        close(depth + 1, slotsLeft - usedSlots, value,
+                                tritiumUsed + (mode == FLY ? needed : 0),
+                                coresUsed + (mode == JUMP ? needed : 0));
+                    } else {
+                        visited[next] = true;
+                        search(depth + 1, time + 1, newTritium, newCores, slotsLeft - usedSlots,
+                                value, tritiumUsed + (mode == FLY ? needed : 0),
+                                coresUsed + (mode == JUMP ? needed : 0));
+                        visited[next] = false;
+                    }
+                    forced[depth][fuel.ordinal()] = false;
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Completes a loop whose last stop is route[length], filling the free slots with the
+         * most valuable purchases left on the route.
+         */
+        private void close(int length, int slotsLeft, long forcedValue, int tritiumUsed,
+                           int coresUsed) {
+            // Each optional purchase, as (value, stop * commodities + commodity)
+            long[] options = new long[length * COMMODITIES.length];
+            int optionCount = 0;
+            for (int stop = 0; stop < length; stop++) {
+                for (Commodity commodity : COMMODITIES) {
+                    int amount = offer(route[stop], commodity);
+                    long value = (long) amount * unitValues[commodity.ordinal()];
+                    if (!forced[stop][commodity.ordinal()] && value > 0) {
+                        options[optionCount++] = -value << 16
+                                | stop * COMMODITIES.length + commodity.ordinal();
+                    }
+                }
+            }
+            Arrays.sort(options, 0, optionCount);
+            int chosen = Math.min(slotsLeft, optionCount);
+            long profit = forcedValue
+                    - (long) tritiumUsed * unitValues[Commodity.TRITIUM.ordinal()]
+                    - (long) coresUsed * unitValues[Commodity.HYPERDRIVE_CORE.ordinal()];
+            for (int i = 0; i < chosen; i++) {
+                profit += -(options[i] >> 16);
+            }
+
+            if (best.size() == count && profit <= best.peek().profit) {
+                return;
+            }
+            boolean[][] buy = new boolean[length][];
+            for (int stop = 0; stop < length; stop++) {
+                buy[stop] = forced[stop].clone();
+            }
+            for (int i = 0; i < chosen; i++) {
+                int option = (int) (options[i] & 0xFFFF);
+                buy[option / COMMODITIES.length][option % COMMODITIES.length] = true;
+            }
+            best.add(toLoop(length, buy, profit, tritiumUsed, coresUsed));
+            if (best.size() > count) {
+                best.poll();
+            }
+        }
+
+        private Loop toLoop(int length, boolean[][] buy, long profit, int tritiumUsed,
+                            int coresUsed) {
+            List<Store> stops = new ArrayList<>(length + 1);
+            List<Purchase> purchases = new ArrayList<>();
+            List<String> commands = new ArrayList<>();
+            for (int stop = 0; stop <= length; stop++) {
+                Store store = stores.get(route[stop]);
+                stops.add(store);
+                if (stop == length) {
+                    break;
+                }
+                for (Commodity commodity : COMMODITIES) {
+                    if (buy[stop][commodity.ordinal()]) {
+                        Purchase purchase = new Purchase(store, commodity,
+                                offer(route[stop], commodity));
+                        purchases.add(purchase);
+                        commands.add(purchase.toString());
+                    }
+                }
+                commands.add(String.format("%s to \"%s\"", modes[stop] == FLY ? "fly" : "jump",
+                        stores.get(route[stop + 1]).getName()));
+            }
+            return new Loop(stops, purchases, commands, profit, tritiumUsed, coresUsed);
+        }
+
+        /**
+         * Returns the amount of a Commodity one purchase at a Store buys.
+         */
+        private int offer(int store, Commodity commodity) {
+            return Math.min(stock[store][commodity.ordinal()], commodity.getContainerCapacity());
+        }
+
+        private boolean outOfTime() {
+            if (!outOfTime && ++nodes % CLOCK_INTERVAL == 0) {
+                outOfTime = System.nanoTime() > deadline;
+            }
+            return outOfTime;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package srg.planning;
+
+import srg.galaxy.FacilityIndex;
+import srg.game.Game;
+import srg.ports.Position;
+import srg.ports.ShipYard;
+import srg.ship.NavigationRoom;
+import srg.ship.Room;
+import srg.ship.RoomTier;
+
+import java.util.List;
+
+/**
+ * The Goal of upgrading both of a Ship's Rooms to at least a tier. The estimate is the number of
+ * upgrades left, plus the number of maximum-length jumps to the nearest ShipYard that can make
+ * one of them.
+ * <p>
+ * The goal indexes the ShipYards of the first Game it judges, so it should only be used with
+ * one Game.
+ */
+public class UpgradeGoal implements Goal {
+    /** The tier to upgrade to. */
+    private final RoomTier tier;
+    /** The ShipYards of the galaxy, indexed on first use. */
+    private FacilityIndex facilities;
+
+    /**
+     * Constructs the goal of upgrading both Rooms.
+     * @param tier The tier every Room should reach, e.g. RoomTier.PRIME.
+     */
+    public UpgradeGoal(RoomTier tier) {
+        this.tier = tier;
+    }
+
+    @Override
+    public boolean isReached(Game game) {
+        return upgradesLeft(game.ship.getCargoHold()) == 0
+                && upgradesLeft(game.ship.getNavigationRoom()) == 0;
+    }
+
+    @Override
+    public double estimate(Game game) {
+        if (facilities == null) {
+            facilities = new FacilityIndex(game.ports);
+        }
+        NavigationRoom navigationRoom = game.ship.getNavigationRoom();
+        int upgrades = 0;
+        int nearest = Integer.MAX_VALUE;
+        Position here = navigationRoom.getCurrentPort().getPositionAt(navigationRoom.getTime());
+        for (Room room : List.of(game.ship.getCargoHold(), navigationRoom)) {
+            int left = upgradesLeft(room);
+            if (left == 0) {
+                continue;
+            }
+            upgrades += left;
+            ShipYard shipYard = facilities.nearestShipYard(here, navigationRoom.getTime(),
+                    room.getKind());
+            if (shipYard == null) {
+                return Double.POSITIVE_INFINITY;
+            }
+            nearest = Math.min(nearest, navigationRoom.getFuelNeeded(shipYard));
+        }
+        if (upgrades == 0) {
+            return 0;
+        }
+        int jump = navigationRoom.getMaximumJumpDistance();
+        return upgrades + (nearest + jump - 1) / jump;
+    }
+
+    /**
+     * Returns the number of upgrades a Room needs to reach the tier.
+     */
+    private int upgradesLeft(Room room) {
+        return Math.max(0, tier.ordinal() - room.getTier().ordinal());
+    }
+
+    @Override
+    public String toString() {
+        return "upgrade rooms to " + tier;
+    }
+}
@@ -0,0 +1,63 @@
+package srg.ports;
+
+/**
+ * A Trajectory that drifts in a straight line at a constant velocity.
+ */
+public class LinearTrajectory implements Trajectory {
+    /** The Position at time 0. */
+    private final Position origin;
+    /** The velocity along the x axis, in distance per tick. */
+    private final int dx;
+    /** The velocity along the y axis, in distance per tick. */
+    private final int dy;
+    /** The velocity along the z axis, in distance per tick. */
+    private final int dz;
+
+    /**
+     * Constructs a straight-line Trajectory.
+     * @param origin The Position at time 0.
+     * @param dx The velocity along the x axis, in distance per tick.
+     * @param dy The velocity along the y axis, in distance per tick.
+     * @param dz The velocity along the z axis, in distance per tick.
+     */
+    public LinearTrajectory(Position origin, int dx, int dy, int dz) {
+        this.origin = origin;
+        this.dx = dx;
+        this.dy = dy;
+        this.dz = dz;
+    }
+
+    /**
+     * Returns the Position at a simulation time.
+     * @param time The simulation time, in ticks.
+     * @return origin + velocity * time.
+     * @throws ArithmeticException If a coordinate overflows an int.
+     */
+    @Override
+    public Position positionAt(long time) {
+        return new Position(Math.toIntExact(origin.x + dx * time),
+                Math.toIntExact(origin.y + dy * time),
+                Math.toIntExact(origin.z + dz * time));
+    }
+
+    @Override
+    public int getMaximumSpeed() {
+        return (int) Math.ceil(Math.sqrt((double) dx * dx + (double) dy * dy + (double) dz * dz));
+    }
+
+    /**
+     * Returns the origin of this Trajectory.
+     * @return The Position at time 0.
+     */
+    public Position getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Returns the velocity of this Trajectory.
+     * @return The velocity along the x, y and z axes, in distance per tick.
+     */
+    public int[] getVelocity() {
+        return new int[] {dx, dy, dz};
+    }
+}
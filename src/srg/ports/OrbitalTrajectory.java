@@ -0,0 +1,91 @@
+package srg.ports;
+
+/**
+ * A Trajectory that circles a centre point at a constant speed, in the plane parallel to the x
+ * and y axes.
+ */
+public class OrbitalTrajectory implements Trajectory {
+    /** The point being orbited. */
+    private final Position centre;
+    /** The distance from the centre. */
+    private final int radius;
+    /** The number of ticks per orbit. */
+    private final int period;
+    /** The number of ticks into its orbit at time 0. */
+    private final int phase;
+
+    /**
+     * Constructs a circular orbit.
+     * @param centre The point being orbited.
+     * @param radius The distance from the centre.
+     * @param period The number of ticks per orbit.
+     * @param phase The number of ticks into its orbit at time 0.
+     * @throws IllegalArgumentException If radius is negative or period is not positive.
+     */
+    public OrbitalTrajectory(Position centre, int radius, int period, int phase) {
+        if (radius < 0 || period <= 0) {
+            throw new IllegalArgumentException("Orbit needs a non-negative radius and a "
+                    + "positive period.");
+        }
+        this.centre = centre;
+        this.radius = radius;
+        this.period = period;
+        this.phase = Math.floorMod(phase, period);
+    }
+
+    /**
+     * Returns the Position at a simulation time, with coordinates rounded to the nearest whole
+     * number.
+     * @param time The simulation time, in ticks.
+     * @return The Position at that time.
+     */
+    @Override
+    public Position positionAt(long time) {
+        // Reduce first, so long-running games don't lose precision in the angle
+        double angle = 2 * Math.PI * Math.floorMod(time + phase, (long) period) / period;
+        return new Position((int) Math.round(centre.x + radius * Math.cos(angle)),
+                (int) Math.round(centre.y + radius * Math.sin(angle)),
+                centre.z);
+    }
+
+    /**
+     * Returns the length of the arc travelled per tick, rounded up.
+     * @return The maximum speed, in distance per tick.
+     */
+    @Override
+    public int getMaximumSpeed() {
+        return (int) Math.ceil(2 * Math.PI * radius / period);
+    }
+
+    /**
+     * Returns the point being orbited.
+     * @return The centre of the orbit.
+     */
+    public Position getCentre() {
+        return centre;
+    }
+
+    /**
+     * Returns the distance from the centre.
+     * @return The radius of the orbit.
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Returns the number of ticks per orbit.
+     * @return The period of the orbit.
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the number of ticks into its orbit at time 0.
+     * @return The phase of the orbit, from 0 to period - 1.
+     */
+    public int getPhase() {
+        return phase;
+    }
+}
@@ -0,0 +1,54 @@
+package srg.ports;
+
+import srg.resources.ResourceContainer;
+import srg.ship.Outcome;
+
+/**
+ * The result of attempting to purchase an item from a Store without throwing.
+ */
+public class PurchaseResult {
+    /** Results of failed purchases, by Outcome ordinal, shared to avoid allocation. */
+    private static final PurchaseResult[] FAILURES = new PurchaseResult[Outcome.values().length];
+
+    static {
+        for (Outcome outcome : Outcome.values()) {
+            FAILURES[outcome.ordinal()] = new PurchaseResult(outcome, null);
+        }
+    }
+
+    /** Whether the purchase succeeded, and if not, why. */
+    public final Outcome outcome;
+    /** The purchased resources, or null if the purchase failed. */
+    public final ResourceContainer container;
+
+    private PurchaseResult(Outcome outcome, ResourceContainer container) {
+        this.outcome = outcome;
+        this.container = container;
+    }
+
+    /**
+     * Returns the result of a successful purchase.
+     * @param container The purchased resources.
+     * @return A successful result holding container.
+     */
+    static PurchaseResult of(ResourceContainer container) {
+        return new PurchaseResult(Outcome.SUCCESS, container);
+    }
+
+    /**
+     * Returns the result of a failed purchase.
+     * @param outcome Why the purchase failed.
+     * @return A shared result with no container.
+     */
+    static PurchaseResult failed(Outcome outcome) {
+        return FAILURES[outcome.ordinal()];
+    }
+
+    /**
+     * Returns whether the purchase succeeded.
+     * @return True - if the outcome is SUCCESS.
+     */
+    public boolean isSuccess() {
+        return outcome.isSuccess();
+    }
+}
@@ -1,37 +1,127 @@
 package srg.ports;
 
 import srg.ship.Room;
+import srg.ship.RoomKind;
 
 import java.util.*;
 
 /**
  * A child class of SpacePort which is capable of upgrading Rooms in Ships.
+ * <p>
+ * The kinds of Room a ShipYard can upgrade are fixed when it is constructed, and held as an
+ * EnumSet and a bitmask, so upgrade checks take constant time and its actions are built once.
  */
 public class ShipYard extends SpacePort {
-    /** A List of Room classes as class names that can be upgraded by this ShipYard. */
-    private List<String> canUpgrade;
+    /** The kinds of Room this ShipYard can upgrade. */
+    private final Set<RoomKind> canUpgrade;
+    /** canUpgrade as a bitmask of RoomKind.mask values. */
+    private final int upgradeMask;
+    /** The names of the kinds of Room this ShipYard can upgrade, in the order given. */
+    private final List<String> upgradeable;
+    /** The actions of this ShipYard, one per upgradeable kind of Room. */
+    private final List<String> actions;
 
     /**
      * Constructs a ShipYard with given name, Position and upgradeable rooms.
      * @param name The unique name of this ShipYard.
      * @param position The Position of this ShipYard.
      * @param canUpgrade A list of Room classes as class names that can be upgraded by this
-     *                   ShipYard.
+     *                   ShipYard. The list is copied, so it may be immutable. Actions are
+     *                   listed in the reverse of this order. A name that is not the name of a
+     *                   RoomKind is listed and has an action, but no Room can be upgraded
+     *                   with it.
      * @requires name to be unique.
      */
     public ShipYard(String name, Position position, List<String> canUpgrade) {
         super(name, position);
-        this.canUpgrade = canUpgrade;
+        Set<RoomKind> kinds = EnumSet.noneOf(RoomKind.class);
+        List<String> names = new ArrayList<>();
+        for (String roomName : canUpgrade) {
+            RoomKind kind = RoomKind.fromName(roomName);
+            if (kind == null ? !names.contains(roomName) : kinds.add(kind)) {
+                names.add(roomName);
+            }
+        }
+        List<String> actions = new ArrayList<>(names.size());
+        for (int i = names.size() - 1; i >= 0; i--) {
+            actions.add(String.format("upgrade %s", names.get(i)));
+        }
+        this.canUpgrade = Collections.unmodifiableSet(kinds);
+        int mask = 0;
+        for (RoomKind kind : kinds) {
+            mask |= kind.mask();
+        }
+        this.upgradeMask = mask;
+        this.upgradeable = List.copyOf(names);
+        this.actions = List.copyOf(actions);
+    }
+
+    /**
+     * Constructs a ShipYard with given name, Position and upgradeable kinds of Room, as if
+     * their names had been listed in RoomKind order.
+     * @param name The unique name of this ShipYard.
+     * @param position The Position of this ShipYard.
+     * @param canUpgrade The kinds of Room this ShipYard can upgrade.
+     * @requires name to be unique.
+     */
+    public ShipYard(String name, Position position, Set<RoomKind> canUpgrade) {
+        this(name, position, EnumSet.allOf(RoomKind.class).stream()
+                .filter(canUpgrade::contains).map(RoomKind::getRoomName).toList());
+    }
+
+    /**
+     * Returns the Room classes this ShipYard can upgrade.
+     * @return An unmodifiable List of Room class names, in the order they were given.
+     */
+    public List<String> getUpgradeable() {
+        return upgradeable;
+    }
+
+    /**
+     * Returns the kinds of Room this ShipYard can upgrade.
+     * @return An unmodifiable set of RoomKinds.
+     */
+    public Set<RoomKind> getUpgradeableKinds() {
+        return canUpgrade;
+    }
+
+    /**
+     * Returns the kinds of Room this ShipYard can upgrade as a bitmask, e.g. to filter many
+     * ShipYards by (getUpgradeMask() &amp; kind.mask()) != 0.
+     * @return The OR of RoomKind.mask over every upgradeable kind.
+     */
+    public int getUpgradeMask() {
+        return upgradeMask;
+    }
+
+    /**
+     * Returns whether this ShipYard can upgrade a kind of Room.
+     * @param roomName The Room class name, e.g. "NavigationRoom".
+     * @return True - if roomName is on the list of room class names this ShipYard can upgrade.
+     */
+    public boolean canUpgrade(String roomName) {
+        RoomKind kind = RoomKind.fromName(roomName);
+        return kind != null && canUpgrade(kind);
+    }
+
+    /**
+     * Returns whether this ShipYard can upgrade a kind of Room.
+     * @param kind The kind of Room.
+     * @return True - if this ShipYard can upgrade kind.
+     */
+    public boolean canUpgrade(RoomKind kind) {
+        return (upgradeMask & kind.mask()) != 0;
     }
 
     /**
      * Upgrades a Room. Rooms are upgraded according to their RoomTier.
      * @param room The Room to upgrade.
-     * @throws IllegalArgumentException if the class of the room is not on the list of room class
-     *                                  names that this ShipYard can upgrade.
+     * @throws IllegalArgumentException if the kind of the room is not one that this ShipYard
+     *                                  can upgrade.
      */
     public void upgrade(Room room) {
-        if (canUpgrade.contains(room.getClass().getSimpleName())) {
+        RoomKind kind = room.getKind();
+        if (kind != null && canUpgrade(kind)) {
             room.upgrade();
         } else {
             throw new IllegalArgumentException();
@@ -42,18 +132,11 @@ public class ShipYard extends SpacePort {
      * Get the list of actions that it is possible to perform at this SpacePort. ShipYards are
      * able to upgrade rooms that appear in their canUpgrade list. Action strings are
      * formatted as "upgrade Room class name". Overrides getActions in SpacePort.
-     * @return A list of actions for this SpacePort as strings.
+     * @return An unmodifiable list of actions for this SpacePort as strings, the same on every
+     *         call.
      */
     @Override
     public List<String> getActions() {
-        List<String> upgrade = new ArrayList<>();
-        Collections.reverse(canUpgrade);
-
-        for (String name : this.canUpgrade) {
-            String add = String.format("upgrade %s", name);
-            upgrade.add(add);
-        }
-
-        return upgrade;
+        return actions;
     }
 }
@@ -10,7 +10,9 @@ public class SpacePort {
     /** The unique name of the SpacePort. */
     private final String name;
     /** The physical Position of the SpacePort. */
-    private final Position position;
+    private Position position;
+    /** How the SpacePort moves, or null if it is stationary. */
+    private Trajectory trajectory;
 
     /**
      * Constructs a SpacePort with given name and Position.
@@ -32,13 +34,59 @@ public class SpacePort {
     }
 
     /**
-     * Returns the Position of this SpacePort.
+     * Returns the Position of this SpacePort. For a moving SpacePort, this is its Position at
+     * time 0; use getPositionAt for its Position at other times.
      * @return The Position of this SpacePort.
      */
     public Position getPosition() {
         return this.position;
     }
 
+    /**
+     * Returns the Position of this SpacePort at a simulation time.
+     * @param time The simulation time, in ticks.
+     * @return The Position of this SpacePort at that time; the same as getPosition() if it is
+     *         stationary.
+     */
+    public Position getPositionAt(long time) {
+        if (trajectory == null) {
+            return this.position;
+        }
+        return trajectory.positionAt(time);
+    }
+
+    /**
+     * Returns how this SpacePort moves.
+     * @return The Trajectory of this SpacePort, or null if it is stationary.
+     */
+    public Trajectory getTrajectory() {
+        return trajectory;
+    }
+
+    /**
+     * Sets how this SpacePort moves. Its Position becomes its Position at time 0. Ports in a
+     * Galaxy must be given a Trajectory with Galaxy.setTrajectory instead, which keeps the
+     * galaxy's indexes up to date.
+     * @param trajectory The new Trajectory, or null to keep the SpacePort stationary at its
+     *                   Position at time 0.
+     */
+    public void setTrajectory(Trajectory trajectory) {
+        if (trajectory != null) {
+            this.position = trajectory.positionAt(0);
+        }
+        this.trajectory = trajectory;
+    }
+
+    /**
+     * Moves this SpacePort, making it stationary. Ports in a Galaxy should be moved with
+     * Galaxy.relocate, which keeps the galaxy's indexes up to date.
+     * @param position The new Position of this SpacePort.
+     */
+    public void setPosition(Position position) {
+        this.position = position;
+        this.trajectory = null;
+    }
+
     /**
      * Returns a string representation of a SpacePort. Identifies the name, type of SpacePort,
      * and position.
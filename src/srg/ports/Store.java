@@ -2,11 +2,13 @@ package srg.ports;
 
 import srg.exceptions.InsufficientCapcaityException;
 import srg.exceptions.InsufficientResourcesException;
+import srg.metrics.PurchaseEvent;
 import srg.resources.FuelContainer;
 import srg.resources.FuelGrade;
 import srg.resources.ResourceContainer;
 import srg.resources.ResourceType;
 import srg.ship.CargoHold;
+import srg.ship.Outcome;
 import srg.ship.RoomTier;
 
 import java.util.ArrayList;
@@ -50,6 +52,30 @@ public class Store extends SpacePort {
         }
     }
 
+    /**
+     * Returns the CargoHold holding this Store's remaining stock.
+     * @return The CargoHold of this Store.
+     */
+    public CargoHold getCargoHold() {
+        return cargoHold;
+    }
+
+    /**
+     * Returns how much of an item this Store has left to sell.
+     * @param item The short string representation of the item name.
+     * @return The amount of the item in stock, or 0 if the item does not exist.
+     */
+    public int getStock(String item) {
+        if (Objects.equals(item, FuelGrade.TRITIUM.name())) {
+            return cargoHold.getTotalAmountByType(FuelGrade.TRITIUM);
+        } else if (Objects.equals(item, ResourceType.REPAIR_KIT.name())) {
+            return cargoHold.getTotalAmountByType(ResourceType.REPAIR_KIT);
+        } else if (Objects.equals(item, FuelGrade.HYPERDRIVE_CORE.name())) {
+            return cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE);
+        }
+        return 0;
+    }
+
     /**
      * Remove an item from the store, and return a resource container containing the removed
      * amount of the same item.
@@ -61,37 +87,77 @@ public class Store extends SpacePort {
      */
     public ResourceContainer purchase(String item, int amount)
             throws InsufficientResourcesException {
+        PurchaseResult result = tryPurchase(item, amount);
+        result.outcome.throwIfInsufficient();
+        return result.container;
+    }
+
+    /**
+     * Attempts to remove an item from the store, as purchase does, but reports failure through
+     * the result instead of throwing.
+     * @param item The short string representation of the item name.
+     * @param amount The amount of the resource to purchase.
+     * @return A successful result holding a ResourceContainer with the purchased amount;
+     *         otherwise a result with Outcome INSUFFICIENT_RESOURCES if there is not enough of
+     *         the item available in this Store, or UNKNOWN_ITEM if the item does not exist.
+     */
+    public PurchaseResult tryPurchase(String item, int amount) {
+        PurchaseEvent event = new PurchaseEvent();
+        event.begin();
+        PurchaseResult result = take(item, amount);
+        if (event.shouldCommit()) {
+            event.store = this.getName();
+            event.item = item;
+            event.amount = amount;
+            event.success = result.isSuccess();
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Removes an item from the CargoHold. Implements tryPurchase.
+     */
+    private PurchaseResult take(String item, int amount) {
+        Outcome outcome;
 
         // Case TRITIUM
         if (Objects.equals(item, FuelGrade.TRITIUM.name())) {
             if (this.cargoHold.getTotalAmountByType(ResourceType.FUEL) < amount) {
-                throw new InsufficientResourcesException();
+                return PurchaseResult.failed(Outcome.INSUFFICIENT_RESOURCES);
             }
 
-            cargoHold.consumeResource(FuelGrade.TRITIUM, amount);
-            return new FuelContainer(FuelGrade.TRITIUM, amount);
+            outcome = cargoHold.tryConsumeResource(FuelGrade.TRITIUM, amount);
+            if (outcome.isSuccess()) {
+                return PurchaseResult.of(new FuelContainer(FuelGrade.TRITIUM, amount));
+            }
 
         // Case REPAIR_KIT
         } else if (Objects.equals(item, ResourceType.REPAIR_KIT.name())) {
             if (this.cargoHold.getTotalAmountByType(ResourceType.REPAIR_KIT) < amount) {
-                throw new InsufficientResourcesException();
+                return PurchaseResult.failed(Outcome.INSUFFICIENT_RESOURCES);
             }
 
-            cargoHold.consumeResource(ResourceType.REPAIR_KIT, amount);
-            return new ResourceContainer(ResourceType.REPAIR_KIT, amount);
+            outcome = cargoHold.tryConsumeResource(ResourceType.REPAIR_KIT, amount);
+            if (outcome.isSuccess()) {
+                return PurchaseResult.of(new ResourceContainer(ResourceType.REPAIR_KIT, amount));
+            }
 
         // Case HYPERDRIVE_CORE
         } else if (Objects.equals(item, FuelGrade.HYPERDRIVE_CORE.name())) {
             if (this.cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE) < amount) {
-                throw new InsufficientResourcesException();
+                return PurchaseResult.failed(Outcome.INSUFFICIENT_RESOURCES);
             }
 
-            cargoHold.consumeResource(FuelGrade.HYPERDRIVE_CORE, amount);
-            return new FuelContainer(FuelGrade.HYPERDRIVE_CORE, amount);
+            outcome = cargoHold.tryConsumeResource(FuelGrade.HYPERDRIVE_CORE, amount);
+            if (outcome.isSuccess()) {
+                return PurchaseResult.of(new FuelContainer(FuelGrade.HYPERDRIVE_CORE, amount));
+            }
 
         } else {
-            throw new InsufficientResourcesException("The specified resource does not exist.");
+            outcome = Outcome.UNKNOWN_ITEM;
         }
+        return PurchaseResult.failed(outcome);
     }
 
     /**
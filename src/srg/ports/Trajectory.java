@@ -0,0 +1,22 @@
+package srg.ports;
+
+/**
+ * Describes how a moving SpacePort's Position changes with simulation time. Simulation time is
+ * measured in ticks, and advances by one tick each time a Ship flies or jumps.
+ */
+public interface Trajectory {
+    /**
+     * Returns the Position at a simulation time.
+     * @param time The simulation time, in ticks.
+     * @return The Position at that time.
+     */
+    Position positionAt(long time);
+
+    /**
+     * Returns an upper bound on the distance travelled per tick, so that for any two times the
+     * distance between the Positions is at most getMaximumSpeed() * |t1 - t2| + 2. (The extra 2
+     * allows for rounding the Positions to whole coordinates.)
+     * @return The maximum speed, in distance per tick.
+     */
+    int getMaximumSpeed();
+}
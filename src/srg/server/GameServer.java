@@ -0,0 +1,552 @@
+package srg.server;
+
+import srg.cli.given.CLIHandler;
+import srg.cli.given.Command;
+import srg.cli.given.CommandType;
+import srg.game.CapturingIO;
+import srg.game.Game;
+import srg.metrics.MetricsSnapshot;
+import srg.resources.FuelGrade;
+import srg.resources.ResourceType;
+import srg.ship.CargoHold;
+import srg.ship.NavigationRoom;
+import srg.ship.Room;
+import srg.ship.Ship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Serves a Game over HTTP on localhost, so tools can drive it without piping text into the
+ * CLIHandler. Every response is a JSON object.
+ * <ul>
+ *     <li>POST /command: applies a command line, parsed by CLIHandler.parseLine exactly as if
+ *     it had been typed. The body is the line itself, or a JSON object with a "command"
+ *     field. Responds {"ok": whether every ship command on the line was carried out, "exit":
+ *     whether the line asked to exit, "output": what the commands printed}, or status 400 if
+ *     the line is not a valid command. A command which fails unexpectedly is answered with
+ *     status 500, and its connection is closed.</li>
+ *     <li>GET /status: the Ship, its Rooms and cargo, and where and when it is.</li>
+ *     <li>GET /actions: the actions available, as Ship.getActions lists them.</li>
+ *     <li>GET /metrics: the number of each command applied and of each kind of failure.</li>
+ * </ul>
+ * <p>
+ * The server is non-blocking: one thread runs a single Selector, reading and writing every
+ * connection and applying commands, so the Game is only ever touched by that thread and needs
+ * no locking. Connections are kept alive, and pipelined requests are answered in order.
+ */
+public class GameServer implements Closeable {
+    /** The largest request, headers and body, that is accepted. */
+    private static final int MAXIMUM_REQUEST = 64 * 1024;
+    /** The initial size of each connection's input buffer. */
+    private static final int BUFFER_SIZE = 4096;
+    /** Ends the header section of a request. */
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+    /**
+     * The state of one client connection.
+     */
+    private static final class Connection {
+        /** Bytes read but not yet parsed, in write mode. */
+        private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        /** Responses waiting to be written, in order. */
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        /** Whether to close the connection once the queued responses are written. */
+        private boolean closing;
+    }
+
+    /**
+     * A parsed request.
+     */
+    private static final class Request {
+        private final String method;
+        private final String path;
+        private final String body;
+
+        private Request(String method, String path, String body) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+    }
+
+    /** The Game being served. */
+    private final Game game;
+    /** Parses command lines. */
+    private final CLIHandler parser = new CLIHandler();
+    /** Collects the output of each command. */
+    private final CapturingIO io = new CapturingIO();
+    /** Waits for connections to become ready. */
+    private final Selector selector;
+    /** Accepts connections. */
+    private final ServerSocketChannel serverChannel;
+    /** Runs the event loop. */
+    private Thread thread;
+    /** Whether close has been called. The event loop stops once it sees this. */
+    private volatile boolean stopping;
+    /** The number of requests answered. Only written by the event loop. */
+    private volatile long requests;
+
+    /**
+     * Binds a server for a Game to a localhost port. Call start to begin serving.
+     * @param game The Game to serve. It must not be used by other threads while served.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public GameServer(Game game, int port) throws IOException {
+        this.game = game;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Returns the port the server listens on.
+     * @return The local port.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of requests answered so far.
+     * @return The number of responses queued, including error responses.
+     */
+    public long getRequestCount() {
+        return requests;
+    }
+
+    /**
+     * Starts the event loop thread.
+     */
+    public synchronized void start() {
+        if (thread == null && !stopping) {
+            thread = new Thread(this::run, "game-server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops serving and closes every connection. The event loop closes them itself, so it is
+     * never stopped in the middle of answering a request.
+     * @throws IOException If the server cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread running;
+        synchronized (this) {
+            stopping = true;
+            running = thread;
+        }
+        if (running == null) {
+            closeAll();
+            return;
+        }
+        selector.wakeup();
+        try {
+            running.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!stopping) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // The client went away, or its request could not be answered; drop
+                        // only its connection
+                        key.channel().close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Game server failed.", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Closes every connection, the server socket and the selector.
+     */
+    private void closeAll() {
+        for (SelectionKey key : List.copyOf(selector.keys())) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                // Already closing
+            }
+        }
+        try {
+            selector.close();
+            serverChannel.close();
+        } catch (IOException e) {
+            // Nothing more can be done
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    /**
+     * Reads what has arrived, and answers every complete request in it.
+     */
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        if (!connection.in.hasRemaining()) {
+            grow(connection, connection.in.capacity() * 2);
+        }
+        if (channel.read(connection.in) < 0) {
+            channel.close();
+            return;
+        }
+
+        while (!connection.closing) {
+            Request request = nextRequest(connection);
+            if (request == null) {
+                break;
+            }
+            String[] response;
+            try {
+                response = handle(request);
+            } catch (RuntimeException e) {
+                // Discard any partial output, and close the connection after the error
+                io.takeOutput();
+                reject(connection, 500, "Command failed: " + e);
+                break;
+            }
+            respond(connection, response);
+        }
+        write(key);
+    }
+
+    /**
+     * Writes as many queued responses as the socket will take, and then waits for the socket
+     * to drain or for more requests.
+     */
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        while (!connection.out.isEmpty()) {
+            ByteBuffer next = connection.out.peek();
+            channel.write(next);
+            if (next.hasRemaining()) {
+                if (!key.isValid()) {
+                    return;
+                }
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            connection.out.poll();
+        }
+        if (connection.closing) {
+            channel.close();
+        } else if (key.isValid()) {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Removes the next complete request from a connection's input.
+     * @return The request, or null if it has not all arrived. A malformed or oversized request
+     *         queues an error response and marks the connection for closing.
+     */
+    private Request nextRequest(Connection connection) {
+        ByteBuffer in = connection.in;
+        int headerEnd = indexOf(in, HEADER_END);
+        if (headerEnd < 0) {
+            if (in.position() >= MAXIMUM_REQUEST) {
+                reject(connection, 413, "Request too large.");
+            }
+            return null;
+        }
+
+        String[] lines = new String(in.array(), 0, headerEnd, StandardCharsets.ISO_8859_1)
+                .split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            reject(connection, 400, "Malformed request line.");
+            return null;
+        }
+        int contentLength = 0;
+        boolean close = requestLine[2].equals("HTTP/1.0");
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon < 0) {
+                reject(connection, 400, "Malformed header.");
+                return null;
+            }
+            String name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = lines[i].substring(colon + 1).trim();
+            if (name.equals("content-length")) {
+                try {
+                    contentLength = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    contentLength = -1;
+                }
+            } else if (name.equals("connection")) {
+                close = value.equalsIgnoreCase("close")
+                        || (close && !value.equalsIgnoreCase("keep-alive"));
+            }
+        }
+        int total = headerEnd + HEADER_END.length + contentLength;
+        if (contentLength < 0 || total > MAXIMUM_REQUEST) {
+            reject(connection, contentLength < 0 ? 400 : 413, "Bad Content-Length.");
+            return null;
+        }
+        if (in.position() < total) {
+            if (in.capacity() < total) {
+                grow(connection, total);
+            }
+            return null;
+        }
+
+        String body = new String(in.array(), headerEnd + HEADER_END.length, contentLength,
+                StandardCharsets.UTF_8);
+        in.flip();
+        in.position(total);
+        in.compact();
+        connection.closing = close;
+        return new Request(requestLine[0], requestLine[1], body);
+    }
+
+    /**
+     * Answers a request with the status and JSON body of the response.
+     */
+    private String[] handle(Request request) {
+        String path = request.path;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        switch (path) {
+            case "/command" -> {
+                if (!request.method.equals("POST")) {
+                    return error(405, "Use POST.");
+                }
+                return command(request.body);
+            }
+            case "/status", "/actions", "/metrics" -> {
+                if (!request.method.equals("GET")) {
+                    return error(405, "Use GET.");
+                }
+                return switch (path) {
+                    case "/status" -> ok(status());
+                    case "/actions" -> ok(actions());
+                    default -> ok(metrics());
+                };
+            }
+            default -> {
+                return error(404, "Unknown path " + path);
+            }
+        }
+    }
+
+    private String[] command(String body) {
+        String line = body.trim();
+        if (line.startsWith("{")) {
+            try {
+                line = Json.readString(line, "command");
+            } catch (IllegalArgumentException e) {
+                line = null;
+            }
+            if (line == null) {
+                return error(400, "Expected a \"command\" string.");
+            }
+        }
+
+        Command command;
+        try {
+            command = parser.parseLine(io, line);
+        } catch (RuntimeException e) {
+            // e.g. a number too large for an int
+            io.takeOutput();
+            return error(400, "Invalid command: " + e.getMessage());
+        }
+        if (command == null) {
+            return new String[] {"400", "{\"ok\":false,\"exit\":false,\"output\":"
+                    + Json.quote(io.takeOutput()) + "}"};
+        }
+        command = parser.answerHelp(io, command);
+        boolean ok = true;
+        boolean exit = false;
+        if (command != null) {
+            long failed = game.getFailedCount();
+            exit = game.update(io, command);
+            ok = game.getFailedCount() == failed;
+        }
+        return ok("{\"ok\":" + ok + ",\"exit\":" + exit + ",\"output\":"
+                + Json.quote(io.takeOutput()) + "}");
+    }
+
+    private String status() {
+        Ship ship = game.ship;
+        CargoHold cargoHold = ship.getCargoHold();
+        NavigationRoom navigationRoom = ship.getNavigationRoom();
+        return "{\"ship\":{\"name\":" + Json.quote(ship.getName())
+                + ",\"owner\":" + Json.quote(ship.getOwner())
+                + ",\"id\":" + Json.quote(ship.getId()) + "}"
+                + ",\"port\":{\"name\":" + Json.quote(navigationRoom.getCurrentPort().getName())
+                + ",\"kind\":"
+                + Json.quote(navigationRoom.getCurrentPort().getClass().getSimpleName())
+                + ",\"index\":" + navigationRoom.getCurrentIndex() + "}"
+                + ",\"time\":" + navigationRoom.getTime()
+                + ",\"cargoHold\":{" + room(cargoHold)
+                + ",\"capacity\":" + cargoHold.getMaximumCapacity()
+                + ",\"remainingCapacity\":" + cargoHold.getRemainingCapacity()
+                + ",\"tritium\":" + cargoHold.getTotalAmountByType(FuelGrade.TRITIUM)
+                + ",\"hyperdriveCores\":"
+                + cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE)
+                + ",\"repairKits\":" + cargoHold.getTotalAmountByType(ResourceType.REPAIR_KIT)
+                + "}"
+                + ",\"navigationRoom\":{" + room(navigationRoom) + "}}";
+    }
+
+    private static String room(Room room) {
+        return "\"tier\":" + Json.quote(room.getTier().name())
+                + ",\"health\":" + room.getHealth()
+                + ",\"needsRepair\":" + room.needsRepair()
+                + ",\"broken\":" + room.isBroken();
+    }
+
+    private String actions() {
+        StringBuilder json = new StringBuilder("{\"actions\":[");
+        List<String> actions = game.ship.getActions();
+        for (int i = 0; i < actions.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(Json.quote(actions.get(i)));
+        }
+        return json.append("]}").toString();
+    }
+
+    private String metrics() {
+        MetricsSnapshot snapshot = game.getMetrics().snapshot();
+        StringBuilder json = new StringBuilder("{\"commands\":{");
+        String separator = "";
+        for (Map.Entry<CommandType, Long> count : snapshot.getCounts().entrySet()) {
+            json.append(separator).append(Json.quote(count.getKey().name())).append(':')
+                    .append(count.getValue());
+            separator = ",";
+        }
+        json.append("},\"failures\":{");
+        separator = "";
+        for (Map.Entry<String, Long> count : snapshot.getFailures().entrySet()) {
+            json.append(separator).append(Json.quote(count.getKey())).append(':')
+                    .append(count.getValue());
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    private static String[] ok(String json) {
+        return new String[] {"200", json};
+    }
+
+    private static String[] error(int status, String message) {
+        return new String[] {String.valueOf(status), "{\"error\":" + Json.quote(message) + "}"};
+    }
+
+    /**
+     * Queues an error response and closes the connection after it, since the rest of its
+     * input cannot be trusted.
+     */
+    private void reject(Connection connection, int status, String message) {
+        connection.closing = true;
+        respond(connection, error(status, message));
+    }
+
+    private void respond(Connection connection, String[] response) {
+        byte[] body = response[1].getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + response[0] + " " + reason(response[0]) + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + (connection.closing ? "Connection: close\r\n" : "")
+                + "\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer buffer = ByteBuffer.allocate(headBytes.length + body.length);
+        buffer.put(headBytes).put(body).flip();
+        connection.out.add(buffer);
+        requests++;
+    }
+
+    private static String reason(String status) {
+        return switch (status) {
+            case "200" -> "OK";
+            case "400" -> "Bad Request";
+            case "404" -> "Not Found";
+            case "405" -> "Method Not Allowed";
+            case "413" -> "Payload Too Large";
+            case "500" -> "Internal Server Error";
+            default -> "Error";
+        };
+    }
+
+    private static void grow(Connection connection, int capacity) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.min(Math.max(capacity, BUFFER_SIZE),
+                MAXIMUM_REQUEST + BUFFER_SIZE));
+        connection.in.flip();
+        larger.put(connection.in);
+        connection.in = larger;
+    }
+
+    /**
+     * Returns the index of the first occurrence of a byte sequence in a buffer's written bytes.
+     */
+    private static int indexOf(ByteBuffer buffer, byte[] target) {
+        byte[] bytes = buffer.array();
+        int end = buffer.position() - target.length;
+        outer:
+        for (int i = 0; i <= end; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (bytes[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,127 @@
+package srg.server;
+
+/**
+ * The little JSON the GameServer needs: quoting strings for responses, and reading one string
+ * field from a request body.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Returns a string as a JSON string literal.
+     */
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Reads a top-level string field of a JSON object, e.g. "command" from
+     * {"command": "fly to \"B\""}.
+     * @return The field's value, or null if the object has no such string field.
+     * @throws IllegalArgumentException If the object is malformed.
+     */
+    static String readString(String json, String field) {
+        String key = quote(field);
+        int index = 0;
+        int depth = 0;
+        while (index < json.length()) {
+            char c = json.charAt(index);
+            if (c == '"') {
+                int end = endOfString(json, index);
+                if (depth == 1 && json.startsWith(key, index)
+                        && end == index + key.length()) {
+                    int colon = skipSpace(json, end);
+                    if (colon < json.length() && json.charAt(colon) == ':') {
+                        int value = skipSpace(json, colon + 1);
+                        if (value < json.length() && json.charAt(value) == '"') {
+                            return unquote(json, value, endOfString(json, value));
+                        }
+                        return null;
+                    }
+                }
+                index = end;
+            } else {
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                index++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index just after the string literal starting at start.
+     */
+    private static int endOfString(String json, int start) {
+        for (int i = start + 1; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string.");
+    }
+
+    private static int skipSpace(String json, int index) {
+        while (index < json.length() && Character.isWhitespace(json.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Decodes the string literal between start and end, including its quotes.
+     */
+    private static String unquote(String json, int start, int end) {
+        StringBuilder value = new StringBuilder(end - start);
+        for (int i = start + 1; i < end - 1; i++) {
+            char c = json.charAt(i);
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = json.charAt(++i);
+            switch (escaped) {
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= end) {
+                        throw new IllegalArgumentException("Bad unicode escape.");
+                    }
+                    value.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                    i += 4;
+                }
+                default -> value.append(escaped);
+            }
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package srg.shard;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A Transport to shards in the same process, each served by its own thread, e.g. for testing a
+ * sharded galaxy on one machine without starting worker processes. Messages are still passed as
+ * bytes, so the shards behave exactly as they would in separate processes.
+ */
+public class LocalTransport implements Transport {
+    /** The handler of each shard. */
+    private final List<MessageHandler> handlers;
+    /** The thread of each shard. */
+    private final List<ExecutorService> threads = new ArrayList<>();
+
+    /**
+     * Constructs a transport to a shard for each handler.
+     * @param handlers The handler of each shard, in shard order.
+     */
+    public LocalTransport(List<? extends MessageHandler> handlers) {
+        this.handlers = List.copyOf(handlers);
+        for (int i = 0; i < handlers.size(); i++) {
+            threads.add(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "shard");
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+    }
+
+    @Override
+    public int getShardCount() {
+        return handlers.size();
+    }
+
+    @Override
+    public byte[] request(int shard, byte[] message) throws IOException {
+        MessageHandler handler = handlers.get(shard);
+        try {
+            return threads.get(shard).submit(() -> handler.handle(message)).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Shard " + shard + " failed.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for shard " + shard, e);
+        }
+    }
+
+    /**
+     * Stops the shards' threads.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService thread : threads) {
+            thread.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package srg.shard;
+
+import java.io.IOException;
+
+/**
+ * Answers the messages sent to a shard, e.g. a Shard.
+ */
+@FunctionalInterface
+public interface MessageHandler {
+    /**
+     * Handles a request.
+     * @param message The request.
+     * @return The reply.
+     * @throws IOException If the request is malformed.
+     */
+    byte[] handle(byte[] message) throws IOException;
+}
@@ -0,0 +1,215 @@
+package srg.shard;
+
+import srg.cli.given.Command;
+import srg.cli.given.ShipCommand;
+import srg.galaxy.Galaxy;
+import srg.game.CapturingIO;
+import srg.persistence.CommandCodec;
+import srg.persistence.TransferCodec;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ship.Ship;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One shard of a sharded galaxy: the SpacePorts in its sectors, and the Ships docked at them.
+ * <p>
+ * A shard also holds ghost copies of the SpacePorts of other shards that are within one
+ * maximum jump of its own, so a Ship can travel anywhere in range under the normal rules
+ * without asking another shard. When a Ship arrives at a ghost port, the shard offers it up,
+ * and the ShardedGalaxy hands it off to the shard that owns the port. The Ship stays here until
+ * the new shard has docked it and the ShardedGalaxy undocks it, so a failed handoff never loses
+ * it; commands for a Ship still waiting at a ghost port are answered with PENDING instead.
+ * Ghosts are never returned by range queries and never sell to Ships, so each SpacePort is
+ * served by exactly one shard.
+ * <p>
+ * A shard handles one message at a time; see ShardProtocol for the messages.
+ */
+public class Shard implements MessageHandler {
+    /** The shard's own ports, followed by the ghost ports. */
+    private Galaxy ports = new Galaxy();
+    /** The ghost ports. */
+    private final Set<SpacePort> ghosts = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** The Ships docked at this shard's ports, by ID. */
+    private final Map<String, Ship> ships = new HashMap<>();
+    /** Collects the output of commands. */
+    private final CapturingIO io = new CapturingIO();
+
+    /**
+     * Returns the number of Ships docked at this shard.
+     * @return The number of Ships.
+     */
+    public int getShipCount() {
+        return ships.size();
+    }
+
+    @Override
+    public byte[] handle(byte[] message) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int operation = in.readUnsignedByte();
+        switch (operation) {
+            case ShardProtocol.LOAD -> load(in, out);
+            case ShardProtocol.DOCK -> dock(in, out);
+            case ShardProtocol.UNDOCK -> {
+                Ship ship = ships.remove(in.readUTF());
+                if (ship == null) {
+                    return error("Unknown ship.");
+                }
+                out.writeByte(ShardProtocol.OK);
+                writeBytes(out, TransferCodec.encodeShip(ship));
+            }
+            case ShardProtocol.COMMAND -> {
+                String id = in.readUTF();
+                Ship ship = ships.get(id);
+                if (ship == null) {
+                    return error("Unknown ship " + id);
+                }
+                command(ship, CommandCodec.read(in), out);
+            }
+            case ShardProtocol.WITHIN -> within(in, out);
+            default -> {
+                return error("Unknown operation " + operation);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Replaces the shard's ports with its own and ghost ports, undocking every Ship.
+     */
+    private void load(DataInputStream in, DataOutputStream out) throws IOException {
+        List<SpacePort> owned = TransferCodec.decodePorts(readBytes(in));
+        List<SpacePort> ghostPorts = TransferCodec.decodePorts(readBytes(in));
+        ports = new Galaxy(owned);
+        ghosts.clear();
+        ships.clear();
+        for (SpacePort ghost : ghostPorts) {
+            ports.add(ghost);
+            ghosts.add(ghost);
+        }
+        out.writeByte(ShardProtocol.OK);
+    }
+
+    private void dock(DataInputStream in, DataOutputStream out) throws IOException {
+        Ship ship = TransferCodec.decodeShip(readBytes(in), ports);
+        if (ghosts.contains(ship.getNavigationRoom().getCurrentPort())) {
+            throw new IOException("Ship docked at a port of another shard.");
+        }
+        ships.put(ship.getId(), ship);
+        out.writeByte(ShardProtocol.OK);
+    }
+
+    /**
+     * Performs a command, and gives up the Ship if it has arrived at a ghost port.
+     */
+    private void command(Ship ship, Command command, DataOutputStream out) throws IOException {
+        if (!(command instanceof ShipCommand shipCommand)) {
+            throw new IOException("Not a ship command: " + command.type);
+        }
+        SpacePort from = ship.getNavigationRoom().getCurrentPort();
+        if (ghosts.contains(from)) {
+            // An earlier handoff failed, so offer the Ship again without performing the command
+            writeHandoff(out, ShardProtocol.PENDING, ship, from);
+            return;
+        }
+        boolean success = ship.performCommand(io, shipCommand);
+        SpacePort to = ship.getNavigationRoom().getCurrentPort();
+        if (ghosts.contains(to)) {
+            writeHandoff(out, ShardProtocol.HANDOFF, ship, to);
+        } else {
+            out.writeByte(ShardProtocol.OK);
+        }
+        out.writeBoolean(success);
+        out.writeUTF(io.takeOutput());
+    }
+
+    /**
+     * Offers a Ship at a ghost port to the shard that owns the port. The Ship is kept until it
+     * is undocked.
+     */
+    private static void writeHandoff(DataOutputStream out, int status, Ship ship,
+                                     SpacePort port) throws IOException {
+        out.writeByte(status);
+        Position position = port.getPosition();
+        out.writeInt(position.x);
+        out.writeInt(position.y);
+        out.writeInt(position.z);
+        writeBytes(out, TransferCodec.encodeShip(ship));
+    }
+
+    /**
+     * Answers a range query with this shard's own ports, in name order.
+     */
+    private void within(DataInputStream in, DataOutputStream out) throws IOException {
+        Position centre = new Position(in.readInt(), in.readInt(), in.readInt());
+        int radius = in.readInt();
+        List<SpacePort> found = new ArrayList<>();
+        for (SpacePort port : ports.within(centre, radius)) {
+            if (!ghosts.contains(port)) {
+                found.add(port);
+            }
+        }
+        found.sort(Comparator.comparing(SpacePort::getName));
+        out.writeByte(ShardProtocol.OK);
+        out.writeInt(found.size());
+        for (SpacePort port : found) {
+            out.writeUTF(port.getName());
+        }
+    }
+
+    private static byte[] error(String message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ShardProtocol.ERROR);
+        out.writeUTF(message);
+        return bytes.toByteArray();
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Corrupt message length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a length-framed message from a stream, such as a socket, whose remaining length is
+     * not known in advance.
+     * @param in The stream to read from.
+     * @return The message.
+     * @throws IOException If the stream fails or ends, or the length is negative or larger
+     *                     than MAXIMUM_MESSAGE_SIZE.
+     */
+    static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > ShardProtocol.MAXIMUM_MESSAGE_SIZE) {
+            throw new IOException("Corrupt message length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,99 @@
+package srg.shard;
+
+import srg.ports.Position;
+
+import java.util.BitSet;
+
+/**
+ * Divides space into cubic sectors and assigns each sector to one of a number of shards. A
+ * SpacePort belongs to the shard of the sector it is in. Sectors are scattered across shards
+ * by a hash of their coordinates, so every shard gets a similar share of a galaxy however its
+ * SpacePorts are clustered.
+ */
+public class ShardMap {
+    /** The side length of each sector. */
+    private final int sectorSize;
+    /** The number of shards. */
+    private final int shardCount;
+
+    /**
+     * Constructs a map of sectors to shards.
+     * @param sectorSize The side length of each sector; at least 1.
+     * @param shardCount The number of shards; at least 1.
+     * @throws IllegalArgumentException If either is less than 1.
+     */
+    public ShardMap(int sectorSize, int shardCount) {
+        if (sectorSize < 1 || shardCount < 1) {
+            throw new IllegalArgumentException("Sector size and shard count must be positive.");
+        }
+        this.sectorSize = sectorSize;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Returns the side length of each sector.
+     * @return The sector size.
+     */
+    public int getSectorSize() {
+        return sectorSize;
+    }
+
+    /**
+     * Returns the number of shards.
+     * @return The number of shards, numbered from 0.
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Returns the shard that owns a point.
+     * @param position The point.
+     * @return The number of the shard owning the point's sector.
+     */
+    public int shardOf(Position position) {
+        return shardOf(sector(position.x), sector(position.y), sector(position.z));
+    }
+
+    /**
+     * Returns every shard owning a sector that could hold a point within a distance of a
+     * point. Range queries must ask each of them, since the range may cross sector borders.
+     * @param centre The point to search around.
+     * @param radius The maximum distance, inclusive, using Position.distanceTo.
+     * @return The numbers of the shards to ask.
+     */
+    public BitSet shardsNear(Position centre, int radius) {
+        BitSet shards = new BitSet(shardCount);
+        // distanceTo rounds down, so points up to radius + 1 away may be in range
+        long reach = (long) radius + 1;
+        long minX = sector(centre.x - reach);
+        long maxX = sector(centre.x + reach);
+        long minY = sector(centre.y - reach);
+        long maxY = sector(centre.y + reach);
+        long minZ = sector(centre.z - reach);
+        long maxZ = sector(centre.z + reach);
+        if ((maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1) > 8L * shardCount) {
+            // So many sectors that every shard almost certainly owns one
+            shards.set(0, shardCount);
+            return shards;
+        }
+        for (long x = minX; x <= maxX; x++) {
+            for (long y = minY; y <= maxY; y++) {
+                for (long z = minZ; z <= maxZ; z++) {
+                    shards.set(shardOf(x, y, z));
+                }
+            }
+        }
+        return shards;
+    }
+
+    private long sector(long coordinate) {
+        return Math.floorDiv(coordinate, sectorSize);
+    }
+
+    private int shardOf(long x, long y, long z) {
+        long hash = x * 0x9E3779B97F4A7C15L + y * 0xC2B2AE3D27D4EB4FL + z * 0x165667B19E3779F9L;
+        hash ^= hash >>> 29;
+        return (int) Math.floorMod(hash, (long) shardCount);
+    }
+}
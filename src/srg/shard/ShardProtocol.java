@@ -0,0 +1,39 @@
+package srg.shard;
+
+/**
+ * The messages exchanged between a ShardedGalaxy and its Shards. Every request starts with an
+ * operation byte and every reply with a status byte; the rest is written with DataOutput.
+ * <ul>
+ *     <li>LOAD: owned ports, ghost ports (each as TransferCodec ports, length first).
+ *     Reply OK.</li>
+ *     <li>DOCK: an encoded Ship (length first). Reply OK.</li>
+ *     <li>UNDOCK: ship ID. Reply OK and the encoded Ship (length first).</li>
+ *     <li>COMMAND: ship ID, a command (CommandCodec). Reply OK, or HANDOFF followed by the
+ *     position of the port reached and the encoded Ship (length first); either way followed
+ *     by whether the command succeeded and its output. The Ship stays in the shard until it is
+ *     undocked. If the Ship is already waiting to be handed off, the command is not performed
+ *     and the reply is PENDING, the position and the encoded Ship alone.</li>
+ *     <li>WITHIN: x, y, z, radius. Reply OK, the number of owned ports in range, and the name
+ *     of each.</li>
+ * </ul>
+ * Any request may instead be answered with ERROR and a message. Over a socket, every message
+ * is framed by its length, which may be at most MAXIMUM_MESSAGE_SIZE.
+ */
+final class ShardProtocol {
+    static final int LOAD = 1;
+    static final int DOCK = 2;
+    static final int UNDOCK = 3;
+    static final int COMMAND = 4;
+    static final int WITHIN = 5;
+
+    static final int OK = 0;
+    static final int HANDOFF = 1;
+    static final int ERROR = 2;
+    static final int PENDING = 3;
+
+    /** The largest message, in bytes, a socket peer accepts. */
+    static final int MAXIMUM_MESSAGE_SIZE = 64 * 1024 * 1024;
+
+    private ShardProtocol() {
+    }
+}
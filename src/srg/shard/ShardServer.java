@@ -0,0 +1,106 @@
+package srg.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Serves a shard's MessageHandler on a localhost TCP port, for a SocketTransport to reach. Each
+ * message and reply is framed by its length as an int. Connections are served by a thread each,
+ * but the handler only ever handles one message at a time. A handler that fails is answered
+ * with an ERROR reply, so the connection stays usable.
+ */
+public class ShardServer implements Closeable {
+    /** The handler of the shard. */
+    private final MessageHandler handler;
+    /** Accepts connections. */
+    private final ServerSocket serverSocket;
+
+    /**
+     * Starts serving a handler.
+     * @param handler The shard's handler.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public ShardServer(MessageHandler handler, int port) throws IOException {
+        this.handler = handler;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptConnections, "shard-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     * @return The local port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections.
+     * @throws IOException If the server socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread connection = new Thread(() -> serve(socket), "shard-connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                // The server socket was closed
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                byte[] message = Shard.readFrame(in);
+                byte[] reply = handle(message);
+                out.writeInt(reply.length);
+                out.write(reply);
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // The client disconnected
+        } catch (IOException e) {
+            // The connection failed; the client sees it closed
+        }
+    }
+
+    private byte[] handle(byte[] message) throws IOException {
+        synchronized (handler) {
+            try {
+                return handler.handle(message);
+            } catch (IOException | RuntimeException e) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(ShardProtocol.ERROR);
+                out.writeUTF(String.valueOf(e.getMessage()));
+                return bytes.toByteArray();
+            }
+        }
+    }
+}
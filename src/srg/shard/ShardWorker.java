@@ -0,0 +1,33 @@
+package srg.shard;
+
+import java.io.IOException;
+
+/**
+ * The main class of a shard worker process. It serves a new Shard on a localhost port, prints
+ * "READY port" once it is listening, and exits when its standard input is closed, e.g. when the
+ * process that started it exits. See SocketTransport.launch.
+ */
+public class ShardWorker {
+
+    /** The line printed once the worker is listening, followed by the port. */
+    static final String READY = "READY";
+
+    private ShardWorker() {
+    }
+
+    /**
+     * Runs a shard worker.
+     * @param args The port to listen on, or none for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        try (ShardServer server = new ShardServer(new Shard(), port)) {
+            System.out.println(READY + " " + server.getPort());
+            System.out.flush();
+            while (System.in.read() >= 0) {
+                // Serve until the parent closes our input
+            }
+        }
+    }
+}
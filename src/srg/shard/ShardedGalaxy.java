@@ -0,0 +1,299 @@
+package srg.shard;
+
+import srg.cli.given.ShipCommand;
+import srg.galaxy.SpatialGrid;
+import srg.persistence.CommandCodec;
+import srg.persistence.TransferCodec;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ship.NavigationRoom;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A galaxy split across shards by sector, so no single heap needs to hold all of its SpacePorts,
+ * Stores and Ships. This is the coordinator: it loads each Shard with the SpacePorts in its
+ * sectors, routes each Ship's commands to the shard it is docked in, and hands a Ship off to
+ * another shard, encoded with TransferCodec, when it flies or jumps across a sector border.
+ * Range queries ask every shard whose sectors the range touches, so they are correct near
+ * borders.
+ * <p>
+ * Shards are reached through a Transport, e.g. a LocalTransport for testing on one machine or a
+ * SocketTransport to worker processes. SpacePorts must be stationary, since a port belongs to
+ * the shard of the sector it is in.
+ */
+public class ShardedGalaxy {
+
+    /**
+     * The result of a command.
+     */
+    public static class Result {
+        /** Whether the command was carried out. */
+        public final boolean success;
+        /** The output of the command. */
+        public final String output;
+        /** The shard the Ship is docked in after the command. */
+        public final int shard;
+
+        Result(boolean success, String output, int shard) {
+            this.success = success;
+            this.output = output;
+            this.shard = shard;
+        }
+    }
+
+    /**
+     * The furthest a Ship can travel in one command. Each shard holds ghosts of the ports this
+     * close to its own, so every destination is known to the shard a Ship leaves from.
+     */
+    private static final int HALO = NavigationRoom.getMaximumJumpDistance(RoomTier.PRIME);
+
+    /** Assigns sectors to shards. */
+    private final ShardMap map;
+    /** Reaches the shards. */
+    private final Transport transport;
+    /** The shard each Ship is docked in, by ID. */
+    private final Map<String, Integer> shipShards = new HashMap<>();
+    /** The number of times a Ship has moved between shards. */
+    private int handoffs;
+
+    /**
+     * Constructs a coordinator for shards.
+     * @param map Assigns sectors to shards.
+     * @param transport Reaches the shards.
+     * @throws IllegalArgumentException If the map and transport have different shard counts.
+     */
+    public ShardedGalaxy(ShardMap map, Transport transport) {
+        if (map.getShardCount() != transport.getShardCount()) {
+            throw new IllegalArgumentException("The map and transport disagree on shard count.");
+        }
+        this.map = map;
+        this.transport = transport;
+    }
+
+    /**
+     * Loads the shards with a galaxy, replacing any galaxy and Ships they held.
+     * @param galaxyMap The SpacePorts in the galaxy.
+     * @throws IOException If a shard cannot be loaded.
+     * @throws IllegalArgumentException If a SpacePort is on a Trajectory.
+     */
+    public void load(List<SpacePort> galaxyMap) throws IOException {
+        int shards = map.getShardCount();
+        List<List<SpacePort>> owned = new ArrayList<>();
+        List<Set<SpacePort>> ghosts = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            owned.add(new ArrayList<>());
+            ghosts.add(Collections.newSetFromMap(new IdentityHashMap<>()));
+        }
+
+        Map<SpacePort, Integer> owners = new IdentityHashMap<>();
+        for (SpacePort port : galaxyMap) {
+            if (port.getTrajectory() != null) {
+                throw new IllegalArgumentException("Sharded ports must be stationary: " + port);
+            }
+            int shard = map.shardOf(port.getPosition());
+            owners.put(port, shard);
+            owned.get(shard).add(port);
+        }
+        SpatialGrid grid = new SpatialGrid(HALO, galaxyMap);
+        for (SpacePort port : galaxyMap) {
+            int owner = owners.get(port);
+            grid.forEachWithin(port.getPosition(), HALO, neighbour -> {
+                if (owners.get(neighbour) != owner) {
+                    ghosts.get(owner).add(neighbour);
+                }
+            });
+        }
+
+        shipShards.clear();
+        for (int i = 0; i < shards; i++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(ShardProtocol.LOAD);
+            Shard.writeBytes(out, TransferCodec.encodePorts(owned.get(i)));
+            Shard.writeBytes(out, TransferCodec.encodePorts(new ArrayList<>(ghosts.get(i))));
+            request(i, bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Docks a Ship in the shard of its current port. The Ship is copied; later changes to it
+     * are not seen by the shard.
+     * @param ship The Ship to add. Its ID must be unique.
+     * @throws IOException If the shard cannot be reached.
+     * @throws IllegalArgumentException If a Ship with the same ID has been added.
+     */
+    public void addShip(Ship ship) throws IOException {
+        if (shipShards.containsKey(ship.getId())) {
+            throw new IllegalArgumentException("Ship ID is already in use: " + ship.getId());
+        }
+        int shard = map.shardOf(ship.getNavigationRoom().getCurrentPort().getPosition());
+        dock(shard, ship.getId(), TransferCodec.encodeShip(ship));
+    }
+
+    /**
+     * Removes a Ship from its shard and returns it.
+     * @param id The ID of the Ship.
+     * @param galaxyMap The galaxy map to give the returned Ship. It must hold the Ship's
+     *                  current port.
+     * @return The Ship, in its current state.
+     * @throws IOException If the shard cannot be reached.
+     * @throws IllegalArgumentException If there is no Ship with the ID.
+     */
+    public Ship removeShip(String id, List<SpacePort> galaxyMap) throws IOException {
+        int shard = getShard(id);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ShardProtocol.UNDOCK);
+        out.writeUTF(id);
+        DataInputStream in = request(shard, bytes.toByteArray());
+        shipShards.remove(id);
+        return TransferCodec.decodeShip(Shard.readBytes(in), galaxyMap);
+    }
+
+    /**
+     * Returns the shard a Ship is docked in.
+     * @param id The ID of the Ship.
+     * @return The number of the shard.
+     * @throws IllegalArgumentException If there is no Ship with the ID.
+     */
+    public int getShard(String id) {
+        Integer shard = shipShards.get(id);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown ship " + id);
+        }
+        return shard;
+    }
+
+    /**
+     * Returns the number of times a Ship has been handed off between shards.
+     * @return The number of handoffs.
+     */
+    public int getHandoffCount() {
+        return handoffs;
+    }
+
+    /**
+     * Performs a command on a Ship, as Ship.performCommand does, handing the Ship off if it
+     * travels to a port of another shard.
+     * @param id The ID of the Ship.
+     * @param command The command to perform.
+     * @return Whether the command was carried out, and its output.
+     * @throws IOException If a shard cannot be reached.
+     * @throws IllegalArgumentException If there is no Ship with the ID.
+     */
+    public Result command(String id, ShipCommand command) throws IOException {
+        int shard = getShard(id);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ShardProtocol.COMMAND);
+        out.writeUTF(id);
+        CommandCodec.write(out, command);
+
+        byte[] message = bytes.toByteArray();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                transport.request(shard, message)));
+        int status = in.readUnsignedByte();
+        if (status == ShardProtocol.PENDING) {
+            // An earlier handoff failed; finish it, then perform the command at the new shard
+            shard = handOff(shard, id, in);
+            in = new DataInputStream(new ByteArrayInputStream(
+                    transport.request(shard, message)));
+            status = in.readUnsignedByte();
+        }
+        if (status == ShardProtocol.HANDOFF) {
+            shard = handOff(shard, id, in);
+        } else if (status != ShardProtocol.OK) {
+            throw new IOException(in.readUTF());
+        }
+        boolean success = in.readBoolean();
+        return new Result(success, in.readUTF(), shard);
+    }
+
+    /**
+     * Returns the names of every SpacePort within a distance of a point, asking every shard
+     * whose sectors the range touches.
+     * @param centre The point to search around.
+     * @param radius The maximum distance, inclusive, using Position.distanceTo.
+     * @return The names of the SpacePorts found, in name order.
+     * @throws IOException If a shard cannot be reached.
+     */
+    public List<String> within(Position centre, int radius) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ShardProtocol.WITHIN);
+        out.writeInt(centre.x);
+        out.writeInt(centre.y);
+        out.writeInt(centre.z);
+        out.writeInt(radius);
+        byte[] query = bytes.toByteArray();
+
+        List<String> names = new ArrayList<>();
+        BitSet shards = map.shardsNear(centre, radius);
+        for (int shard = shards.nextSetBit(0); shard >= 0; shard = shards.nextSetBit(shard + 1)) {
+            DataInputStream in = request(shard, query);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                names.add(in.readUTF());
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Docks a Ship offered up by its shard in the shard of the port it reached, then undocks it
+     * from the old shard. If docking fails, the Ship stays in the old shard, which offers it
+     * again on its next command.
+     * @return The Ship's new shard.
+     */
+    private int handOff(int source, String id, DataInputStream in) throws IOException {
+        Position arrival = new Position(in.readInt(), in.readInt(), in.readInt());
+        int target = map.shardOf(arrival);
+        dock(target, id, Shard.readBytes(in));
+        handoffs++;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ShardProtocol.UNDOCK);
+        out.writeUTF(id);
+        request(source, bytes.toByteArray());
+        return target;
+    }
+
+    private void dock(int shard, String id, byte[] ship) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ShardProtocol.DOCK);
+        Shard.writeBytes(out, ship);
+        request(shard, bytes.toByteArray());
+        shipShards.put(id, shard);
+    }
+
+    /**
+     * Sends a request, checks that it succeeded, and returns the rest of the reply.
+     */
+    private DataInputStream request(int shard, byte[] message) throws IOException {
+        byte[] reply = transport.request(shard, message);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(reply));
+        if (in.readUnsignedByte() != ShardProtocol.OK) {
+            throw new IOException(in.readUTF());
+        }
+        return in;
+    }
+}
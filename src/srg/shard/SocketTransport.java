@@ -0,0 +1,139 @@
+package srg.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Transport to shards served by ShardServers on localhost, usually in separate worker
+ * processes started by launch. Each shard has one connection, and requests to it are sent one
+ * at a time; requests to different shards may be sent concurrently.
+ */
+public class SocketTransport implements Transport {
+
+    /**
+     * A connection to one shard.
+     */
+    private static final class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Connection(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private synchronized byte[] request(byte[] message) throws IOException {
+            out.writeInt(message.length);
+            out.write(message);
+            out.flush();
+            return Shard.readFrame(in);
+        }
+    }
+
+    /** The connection to each shard. */
+    private final List<Connection> connections = new ArrayList<>();
+    /** The worker processes started by launch, to stop on close. */
+    private final List<Process> workers = new ArrayList<>();
+
+    /**
+     * Connects to shards already listening on localhost.
+     * @param ports The port of each shard, in shard order.
+     * @throws IOException If a shard cannot be reached.
+     */
+    public SocketTransport(List<Integer> ports) throws IOException {
+        try {
+            for (int port : ports) {
+                connections.add(new Connection(port));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a ShardWorker process for each shard, using the same Java runtime and class path
+     * as this process, and connects to them. The workers are stopped when the transport is
+     * closed, or when this process exits.
+     * @param shards The number of shards.
+     * @return A transport to the workers.
+     * @throws IOException If a worker cannot be started or reached.
+     */
+    public static SocketTransport launch(int shards) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+                + "java";
+        List<Process> workers = new ArrayList<>();
+        List<Integer> ports = new ArrayList<>();
+        try {
+            for (int i = 0; i < shards; i++) {
+                Process worker = new ProcessBuilder(java, "-cp",
+                        System.getProperty("java.class.path"), ShardWorker.class.getName())
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                workers.add(worker);
+                ports.add(readPort(worker));
+            }
+            SocketTransport transport = new SocketTransport(ports);
+            transport.workers.addAll(workers);
+            return transport;
+        } catch (IOException e) {
+            for (Process worker : workers) {
+                worker.destroy();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for a worker to report the port it is listening on.
+     */
+    private static int readPort(Process worker) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null || !line.startsWith(ShardWorker.READY + " ")) {
+            throw new IOException("Shard worker failed to start: " + line);
+        }
+        return Integer.parseInt(line.substring(ShardWorker.READY.length() + 1).trim());
+    }
+
+    @Override
+    public int getShardCount() {
+        return connections.size();
+    }
+
+    @Override
+    public byte[] request(int shard, byte[] message) throws IOException {
+        return connections.get(shard).request(message);
+    }
+
+    /**
+     * Closes every connection and stops any workers started by launch.
+     * @throws IOException If a connection cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Connection connection : connections) {
+            connection.socket.close();
+        }
+        for (Process worker : workers) {
+            // Closing its input tells the worker to exit
+            worker.getOutputStream().close();
+            worker.destroy();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package srg.shard;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Carries request messages from a ShardedGalaxy to its shards and brings back their replies.
+ * Messages are opaque byte arrays, so shards share no objects with the coordinator and can live
+ * in other threads or other processes.
+ */
+public interface Transport extends Closeable {
+    /**
+     * Returns the number of shards this transport reaches.
+     * @return The number of shards, numbered from 0.
+     */
+    int getShardCount();
+
+    /**
+     * Sends a message to a shard and waits for its reply. A shard handles one message at a time,
+     * in the order they arrive.
+     * @param shard The number of the shard.
+     * @param message The request.
+     * @return The shard's reply.
+     * @throws IOException If the shard cannot be reached or fails.
+     */
+    byte[] request(int shard, byte[] message) throws IOException;
+}
@@ -2,12 +2,14 @@ package srg.ship;
 
 import srg.exceptions.InsufficientCapcaityException;
 import srg.exceptions.InsufficientResourcesException;
+import srg.metrics.ConsumeResourceEvent;
 import srg.resources.FuelContainer;
 import srg.resources.FuelGrade;
 import srg.resources.ResourceContainer;
 import srg.resources.ResourceType;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -24,7 +26,17 @@ public class CargoHold extends Room {
      * @param roomTier The quality of the CargoHold's tier.
      */
     public CargoHold(RoomTier roomTier) {
-        super(roomTier);
+        this(roomTier, new HealthStore(1));
+    }
+
+    /**
+     * Constructor which creates a CargoHold at a specified RoomTier, whose health is held in a
+     * fleet's HealthStore.
+     * @param roomTier The quality of the CargoHold's tier.
+     * @param store The store to hold the CargoHold's health in.
+     */
+    public CargoHold(RoomTier roomTier, HealthStore store) {
+        super(roomTier, RoomKind.CARGO_HOLD, store);
         switch (roomTier) {
             case BASIC -> this.capacity = 5;
             case AVERAGE -> this.capacity = 10;
@@ -56,6 +68,19 @@ public class CargoHold extends Room {
         return this.resources;
     }
 
+    /**
+     * Replaces the capacity and contents of this CargoHold with previously recorded values,
+     * e.g. when loading a saved game.
+     * @param capacity The recorded maximum capacity.
+     * @param contents The recorded ResourceContainers, ordered from oldest to newest.
+     */
+    public void restoreContents(int capacity, List<ResourceContainer> contents) {
+        this.capacity = capacity;
+        this.resources.clear();
+        this.resources.addAll(contents);
+        changed();
+    }
+
     /**
      * Attempts to add a new ResourceContainer to this CargoHold.
      * @param resource The ResourceContainer to add to this CargoHold
@@ -69,6 +94,7 @@ public class CargoHold extends Room {
             throw new InsufficientCapcaityException();
         } else {
             this.resources.add(resource);
+            changed();
         }
     }
 
@@ -156,17 +182,37 @@ public class CargoHold extends Room {
      */
     public void consumeResource(ResourceType type, int amount)
             throws InsufficientResourcesException {
+        tryConsumeResource(type, amount).throwIfInsufficient();
+    }
+
+    /**
+     * Attempts to consume the specified amount of non-fuel resources, as consumeResource does,
+     * but reports failure through the returned Outcome instead of throwing. A
+     * ConsumeResourceEvent is committed only if the resources are consumed.
+     * @param type The resource type to be consumed.
+     * @param amount The amount to be consumed.
+     * @requires amount to be greater than 0.
+     * @return SUCCESS if the resources were consumed; INSUFFICIENT_RESOURCES if amount is
+     *         greater than the total amount of the resource in CargoHold.
+     * @throws IllegalArgumentException If type is ResourceType.FUEL and there is enough fuel.
+     */
+    public Outcome tryConsumeResource(ResourceType type, int amount) {
+        ConsumeResourceEvent event = new ConsumeResourceEvent();
+        event.begin();
+        int requested = amount;
 
         // Amount exceeds the total amount
         if (amount > this.getTotalAmountByType(type)) {
-            throw new InsufficientResourcesException();
+            return Outcome.INSUFFICIENT_RESOURCES;
         }
 
         if (type == ResourceType.FUEL) {
             throw new IllegalArgumentException();
         }
 
-        for (ResourceContainer container : resources) {
+        Iterator<ResourceContainer> containers = resources.iterator();
+        while (containers.hasNext()) {
+            ResourceContainer container = containers.next();
             if (container.getType() == type) {
 
                 // If the container has enough, simply subtract from the container and return
@@ -177,10 +223,18 @@ public class CargoHold extends Room {
                 // If container doesn't have enough, use container and update the amount needed
                 } else {
                     amount -= container.getAmount();
-                    resources.remove(container);
+                    containers.remove();
                 }
             }
         }
+        changed();
+        if (event.shouldCommit()) {
+            event.resource = type.name();
+            event.amount = requested;
+            event.remaining = this.getTotalAmountByType(type);
+            event.commit();
+        }
+        return Outcome.SUCCESS;
     }
 
     /**
@@ -195,13 +249,32 @@ public class CargoHold extends Room {
      */
     public void consumeResource(FuelGrade grade, int amount)
             throws InsufficientResourcesException {
+        tryConsumeResource(grade, amount).throwIfInsufficient();
+    }
+
+    /**
+     * Attempts to consume the specified amount of fuel resources, as consumeResource does, but
+     * reports failure through the returned Outcome instead of throwing. A ConsumeResourceEvent
+     * is committed only if the fuel is consumed.
+     * @param grade The fuel grade to be consumed.
+     * @param amount The amount to be consumed.
+     * @requires amount to be greater than 0.
+     * @return SUCCESS if the fuel was consumed; INSUFFICIENT_RESOURCES if amount is greater
+     *         than the total amount of the fuel grade in CargoHold.
+     */
+    public Outcome tryConsumeResource(FuelGrade grade, int amount) {
+        ConsumeResourceEvent event = new ConsumeResourceEvent();
+        event.begin();
+        int requested = amount;
 
         // Amount exceeds the total amount
         if (amount > this.getTotalAmountByType(grade)) {
-            throw new InsufficientResourcesException();
+            return Outcome.INSUFFICIENT_RESOURCES;
         }
 
-        for (ResourceContainer container : resources) {
+        Iterator<ResourceContainer> containers = resources.iterator();
+        while (containers.hasNext()) {
+            ResourceContainer container = containers.next();
             if (container.getType() == ResourceType.FUEL) {
 
                 if (((FuelContainer) container).getFuelGrade() == grade) {
@@ -214,11 +287,19 @@ public class CargoHold extends Room {
                     // If container doesn't have enough, use container and update the amount needed
                     } else {
                         amount -= container.getAmount();
-                        resources.remove(container);
+                        containers.remove();
                     }
                 }
             }
         }
+        changed();
+        if (event.shouldCommit()) {
+            event.resource = grade.name();
+            event.amount = requested;
+            event.remaining = this.getTotalAmountByType(grade);
+            event.commit();
+        }
+        return Outcome.SUCCESS;
     }
 
     /**
@@ -264,10 +345,23 @@ public class CargoHold extends Room {
      */
     @Override
     public List<String> getActions() {
+        return getRepairActions(List.of(RoomKind.NAVIGATION_ROOM.getRoomName(),
+                RoomKind.CARGO_HOLD.getRoomName()));
+    }
+
+    /**
+     * Get the repair actions this CargoHold can pay for: one for each Room named, if it has any
+     * REPAIR_KITs available.
+     * @param roomNames The names of the Rooms that may be repaired, in the order to list them.
+     * @return  List of repair actions as Strings, or an empty List if there are no REPAIR_KITs.
+     *          Format: "repair Room [COST: 1 REPAIR_KIT]"
+     */
+    public List<String> getRepairActions(List<String> roomNames) {
         List<String> returnList = new ArrayList<>();
         if (this.getResourceByType(ResourceType.REPAIR_KIT).size() > 0) {
-            returnList.add("repair NavigationRoom [COST: 1 REPAIR_KIT]");
-            returnList.add("repair CargoHold [COST: 1 REPAIR_KIT]");
+            for (String roomName : roomNames) {
+                returnList.add("repair " + roomName + " [COST: 1 REPAIR_KIT]");
+            }
         }
         return returnList;
     }
@@ -0,0 +1,165 @@
+package srg.ship;
+
+import java.util.Arrays;
+
+/**
+ * Holds the health, maximum health and damage rate of many Rooms in parallel primitive arrays,
+ * one slot per Room, so a whole fleet can be damaged, checked and repaired in flat loops over
+ * the arrays rather than by calling each Room in turn. Each Room is a view of its slot.
+ * <p>
+ * The bulk operations are simple counted loops without calls or divisions, which the JIT can
+ * compile to vector instructions. needsRepair and isBroken compare health against the maximum
+ * by multiplication, which agrees exactly with Room.getHealth's rounded-down percentage.
+ * <p>
+ * Bulk operations change Rooms without notifying their RoomListeners or recording
+ * RoomHealthEvents; a caller that persists Rooms should mark them changed itself. A HealthStore
+ * is not safe to use from several threads at once.
+ */
+public class HealthStore {
+    /** The capacity of a store constructed without one. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The health points of each slot. */
+    int[] health;
+    /** The maximum health points of each slot. */
+    int[] maxHealth;
+    /** The damage rate of each slot. */
+    int[] damageRate;
+    /** The maximum health of each slot's tier, which a reset restores. */
+    int[] tierHealth;
+    /** The number of slots in use. */
+    private int size;
+
+    /**
+     * Constructs an empty store with a default capacity.
+     */
+    public HealthStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty store. It grows as needed, but a fleet's size is best given up front.
+     * @param capacity The number of Rooms to hold before growing.
+     */
+    public HealthStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        health = new int[capacity];
+        maxHealth = new int[capacity];
+        damageRate = new int[capacity];
+        tierHealth = new int[capacity];
+    }
+
+    /**
+     * Allocates a slot for a new Room of a tier, at full health.
+     * @return The slot.
+     */
+    int allocate(RoomTier tier) {
+        if (size == health.length) {
+            int capacity = size * 2;
+            health = Arrays.copyOf(health, capacity);
+            maxHealth = Arrays.copyOf(maxHealth, capacity);
+            damageRate = Arrays.copyOf(damageRate, capacity);
+            tierHealth = Arrays.copyOf(tierHealth, capacity);
+        }
+        int slot = size++;
+        setTier(slot, tier);
+        maxHealth[slot] = tierHealth[slot];
+        health[slot] = maxHealth[slot];
+        return slot;
+    }
+
+    /**
+     * Sets the tier a slot's health is reset to, and its damage rate.
+     */
+    void setTier(int slot, RoomTier tier) {
+        tierHealth[slot] = Damageable.HEALTH_MULTIPLIER * tier.healthMultiplier;
+        damageRate[slot] = Damageable.DAMAGE_RATE * tier.damageMultiplier;
+    }
+
+    /**
+     * Returns the number of Rooms held. Their slots are 0 to size - 1.
+     * @return The number of slots in use.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether a slot needs repair, as Damageable.needsRepair.
+     * @param slot The slot of a Room.
+     * @return True if the Room's health is at most 30% of its maximum, rounded down.
+     */
+    public boolean needsRepair(int slot) {
+        return health[slot] * 100 < (Damageable.REPAIR_THRESHOLD + 1) * maxHealth[slot];
+    }
+
+    /**
+     * Returns whether a slot is broken, as Damageable.isBroken.
+     * @param slot The slot of a Room.
+     * @return True if the Room's health is at most 0% of its maximum, rounded down.
+     */
+    public boolean isBroken(int slot) {
+        return health[slot] * 100 < maxHealth[slot];
+    }
+
+    /**
+     * Damages every Room at its damage rate, e.g. when the whole fleet moves.
+     */
+    public void damageAll() {
+        int[] health = this.health;
+        int[] damageRate = this.damageRate;
+        for (int i = 0; i < size; i++) {
+            health[i] -= damageRate[i];
+        }
+    }
+
+    /**
+     * Damages the selected Rooms at their damage rate.
+     * @param selected Whether to damage each slot; at least size() long.
+     */
+    public void damage(boolean[] selected) {
+        int[] health = this.health;
+        int[] damageRate = this.damageRate;
+        for (int i = 0; i < size; i++) {
+            health[i] -= selected[i] ? damageRate[i] : 0;
+        }
+    }
+
+    /**
+     * Marks which Rooms need repair, as Damageable.needsRepair.
+     * @param mask Set to whether each slot needs repair; at least size() long.
+     */
+    public void needsRepair(boolean[] mask) {
+        int[] health = this.health;
+        int[] maxHealth = this.maxHealth;
+        for (int i = 0; i < size; i++) {
+            mask[i] = health[i] * 100 < (Damageable.REPAIR_THRESHOLD + 1) * maxHealth[i];
+        }
+    }
+
+    /**
+     * Marks which Rooms are broken, as Damageable.isBroken.
+     * @param mask Set to whether each slot is broken; at least size() long.
+     */
+    public void broken(boolean[] mask) {
+        int[] health = this.health;
+        int[] maxHealth = this.maxHealth;
+        for (int i = 0; i < size; i++) {
+            mask[i] = health[i] * 100 < maxHealth[i];
+        }
+    }
+
+    /**
+     * Resets the selected Rooms to the full health of their tier, as Room.resetHealth.
+     * @param selected Whether to reset each slot; at least size() long.
+     */
+    public void resetHealth(boolean[] selected) {
+        int[] health = this.health;
+        int[] maxHealth = this.maxHealth;
+        int[] tierHealth = this.tierHealth;
+        for (int i = 0; i < size; i++) {
+            maxHealth[i] = selected[i] ? tierHealth[i] : maxHealth[i];
+            health[i] = selected[i] ? maxHealth[i] : health[i];
+        }
+    }
+}
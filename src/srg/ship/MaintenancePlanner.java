@@ -0,0 +1,230 @@
+package srg.ship;
+
+import srg.resources.ResourceType;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Predicts when a Ship's Rooms will need repair or break, and schedules repairs along a planned
+ * route. Every trip (fly or jump) damages each Room by its damage rate, so the health after any
+ * number of trips, and therefore the whole repair schedule, follows in closed form from the
+ * Room's health, maximum health and damage rate without simulating the trips.
+ */
+public class MaintenancePlanner {
+
+    /**
+     * When a Room is repaired along a route.
+     */
+    public enum Policy {
+        /** Repair as soon as a Room needs repair (health at or below REPAIR_THRESHOLD). */
+        AT_THRESHOLD,
+        /** Repair only when a Room is broken, as a broken Room prevents travel. */
+        BEFORE_BREAK
+    }
+
+    /**
+     * The repairs needed to travel a route.
+     */
+    public static class Plan {
+        /** The ports visited, in order. Each port is one trip. */
+        public final List<String> route;
+        /** For each Room name, the trips (0-based) before which the Room is repaired. */
+        public final Map<String, int[]> repairs;
+        /** The number of REPAIR_KITs used by the repairs. */
+        public final int kitsNeeded;
+        /** The number of REPAIR_KITs in the CargoHold when planning. */
+        public final int kitsAvailable;
+
+        Plan(List<String> route, Map<String, int[]> repairs, int kitsNeeded,
+             int kitsAvailable) {
+            this.route = route;
+            this.repairs = repairs;
+            this.kitsNeeded = kitsNeeded;
+            this.kitsAvailable = kitsAvailable;
+        }
+
+        /**
+         * Returns whether the Ship carries enough REPAIR_KITs for every repair on the route.
+         * @return True - if kitsNeeded is at most kitsAvailable.
+         */
+        public boolean isFeasible() {
+            return kitsNeeded <= kitsAvailable;
+        }
+
+        /**
+         * Returns a String representation of the plan.
+         * @return A string listing the repairs before each trip, and the kits needed.
+         */
+        @Override
+        public String toString() {
+            StringBuilder plan = new StringBuilder(String.format(
+                    "PLAN: %d trips, %d of %d REPAIR_KIT", route.size(), kitsNeeded,
+                    kitsAvailable));
+            for (Map.Entry<String, int[]> entry : repairs.entrySet()) {
+                for (int trip : entry.getValue()) {
+                    plan.append(String.format("\n    repair %s before \"%s\"", entry.getKey(),
+                            route.get(trip)));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    /** The Rooms of the Ship, by name. */
+    private final Map<String, Room> rooms = new LinkedHashMap<>();
+    /** The Ship's CargoHold, which holds the REPAIR_KITs. */
+    private final CargoHold cargoHold;
+    /** When Rooms are repaired. */
+    private final Policy policy;
+
+    /**
+     * Constructs a planner for a Ship's current state.
+     * @param ship The Ship to plan for.
+     * @param policy When Rooms are repaired along a route.
+     */
+    public MaintenancePlanner(Ship ship, Policy policy) {
+        this.cargoHold = ship.getCargoHold();
+        this.policy = policy;
+        for (Room room : ship.getRooms()) {
+            rooms.put(ship.getRooms().nameOf(room), room);
+        }
+    }
+
+    /**
+     * Plans the repairs needed to travel a route from the Ship's current state.
+     * @param route The names of the ports to visit, in order. Each port is one trip.
+     * @return The repair schedule for the route.
+     */
+    public Plan plan(List<String> route) {
+        Map<String, int[]> repairs = new LinkedHashMap<>();
+        int kits = 0;
+        for (Map.Entry<String, Room> entry : rooms.entrySet()) {
+            int[] schedule = repairSchedule(entry.getValue(), route.size(), policy);
+            repairs.put(entry.getKey(), schedule);
+            kits += schedule.length;
+        }
+        return new Plan(List.copyOf(route), repairs, kits,
+                cargoHold.getTotalAmountByType(ResourceType.REPAIR_KIT));
+    }
+
+    /**
+     * Chooses the candidate route that can be travelled with the fewest repairs. Feasible routes
+     * are preferred over routes needing more REPAIR_KITs than the Ship carries; ties go to the
+     * shorter route, then to the earlier candidate. Each candidate is evaluated in constant time
+     * per Room.
+     * @param candidates The candidate routes.
+     * @return The plan for the best route, or null if there are no candidates.
+     */
+    public Plan best(List<List<String>> candidates) {
+        Plan best = null;
+        for (List<String> route : candidates) {
+            Plan plan = plan(route);
+            if (best == null || isBetter(plan, best)) {
+                best = plan;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isBetter(Plan plan, Plan best) {
+        if (plan.isFeasible() != best.isFeasible()) {
+            return plan.isFeasible();
+        }
+        if (plan.kitsNeeded != best.kitsNeeded) {
+            return plan.kitsNeeded < best.kitsNeeded;
+        }
+        return plan.route.size() < best.route.size();
+    }
+
+    /**
+     * Returns how many more trips a Room can make before it needs repair.
+     * @param room The Room to forecast.
+     * @return The number of trips after which needsRepair() becomes true; 0 if it already is,
+     *         or Integer.MAX_VALUE if the Room takes no damage.
+     */
+    public static int tripsUntilRepairNeeded(Room room) {
+        return tripsUntil(room, repairHealth(room.getMaximumHealth()));
+    }
+
+    /**
+     * Returns how many more trips a Room can make before it breaks.
+     * @param room The Room to forecast.
+     * @return The number of trips after which isBroken() becomes true; 0 if it already is, or
+     *         Integer.MAX_VALUE if the Room takes no damage.
+     */
+    public static int tripsUntilBroken(Room room) {
+        return tripsUntil(room, brokenHealth(room.getMaximumHealth()));
+    }
+
+    /**
+     * Returns the trips before which a Room must be repaired to complete a number of trips.
+     * @param room The Room to schedule.
+     * @param trips The number of trips to make.
+     * @param policy When the Room is repaired.
+     * @return The 0-based indices of the trips the Room is repaired before, in order.
+     */
+    public static int[] repairSchedule(Room room, int trips, Policy policy) {
+        int maxHealth = maximumHealthAfterRepair(room);
+        int first;
+        int interval;
+        if (policy == Policy.AT_THRESHOLD) {
+            first = tripsUntilRepairNeeded(room);
+            interval = tripsUntil(maxHealth, room.getDamageRate(), repairHealth(maxHealth));
+        } else {
+            first = tripsUntilBroken(room);
+            interval = tripsUntil(maxHealth, room.getDamageRate(), brokenHealth(maxHealth));
+        }
+        if (first >= trips) {
+            return new int[0];
+        }
+
+        // Repaired before trip 'first', then every 'interval' trips after that
+        int[] schedule = new int[1 + (trips - 1 - first) / Math.max(interval, 1)];
+        for (int i = 0; i < schedule.length; i++) {
+            schedule[i] = first + i * Math.max(interval, 1);
+        }
+        return schedule;
+    }
+
+    /**
+     * Returns the maximum health a Room has after being repaired at its current tier.
+     */
+    private static int maximumHealthAfterRepair(Room room) {
+        return Damageable.HEALTH_MULTIPLIER * room.getTier().healthMultiplier;
+    }
+
+    private static int tripsUntil(Room room, int targetHealth) {
+        return tripsUntil(room.getHealthPoints(), room.getDamageRate(), targetHealth);
+    }
+
+    /**
+     * Returns the smallest k such that health - k * damageRate <= targetHealth.
+     */
+    private static int tripsUntil(int health, int damageRate, int targetHealth) {
+        if (health <= targetHealth) {
+            return 0;
+        }
+        if (damageRate <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) ((health - (long) targetHealth + damageRate - 1) / damageRate);
+    }
+
+    /**
+     * Returns the highest health at which a Room with the given maximum needs repair, i.e. the
+     * largest h with h * 100 / maxHealth <= REPAIR_THRESHOLD.
+     */
+    private static int repairHealth(int maxHealth) {
+        return Math.floorDiv((Damageable.REPAIR_THRESHOLD + 1) * maxHealth - 1, 100);
+    }
+
+    /**
+     * Returns the highest health at which a Room with the given maximum is broken, i.e. the
+     * largest h with h * 100 / maxHealth <= 0.
+     */
+    private static int brokenHealth(int maxHealth) {
+        return Math.floorDiv(maxHealth - 1, 100);
+    }
+}
@@ -2,12 +2,20 @@ package srg.ship;
 
 import srg.exceptions.InsufficientResourcesException;
 import srg.exceptions.NoPathException;
+import srg.galaxy.FacilityIndex;
+import srg.galaxy.Galaxy;
+import srg.galaxy.GalaxyListener;
+import srg.galaxy.LazyGalaxy;
+import srg.galaxy.SimulationClock;
+import srg.metrics.TravelEvent;
+import srg.ports.Position;
 import srg.ports.ShipYard;
 import srg.ports.SpacePort;
 import srg.ports.Store;
 import srg.resources.FuelGrade;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -18,9 +26,43 @@ import java.util.List;
  */
 public class NavigationRoom extends Room {
     /** The galaxy map which lists all SpacePorts in the galaxy. */
-    public List<SpacePort> galaxyMap;
+    private final List<SpacePort> galaxyMap;
     /** The index of the galaxyMap (spacePort) that the ship is currently at. */
     private int currentIndex = 0;
+    /**
+     * The clock giving the simulation time: the Galaxy's, if the galaxy map is one, so every
+     * Ship in it shares the time, or one passed in with setClock. Advances by one tick each
+     * time the Ship tries to travel.
+     */
+    private SimulationClock clock;
+    /**
+     * Keeps currentIndex valid when the galaxy map is a Galaxy that changes. Galaxy holds its
+     * listeners weakly, so this NavigationRoom holds it strongly.
+     */
+    private final GalaxyListener galaxyListener = new GalaxyListener() {
+        @Override
+        public void portAdded(int index, SpacePort port) {
+            if (index <= currentIndex && galaxyMap.size() > 1) {
+                currentIndex++;
+            }
+        }
+
+        @Override
+        public void portRemoved(int index, SpacePort port) {
+            if (index < currentIndex) {
+                currentIndex--;
+            } else if (index == currentIndex) {
+                // The current port is gone, so move to the port nearest to where it was
+                SpacePort nearest = ((Galaxy) galaxyMap).nearest(port.getPosition());
+                currentIndex = nearest == null ? 0 : galaxyMap.indexOf(nearest);
+            }
+        }
+
+        @Override
+        public void portReplaced(int index, SpacePort old, SpacePort port) {
+            // Every port keeps its index, so a Ship docked at the old port is at the new one
+        }
+    };
 
     /**
      * Constructor which creates a NavigationRoom at a specified RoomTier. The NavigationRoom's
@@ -29,8 +71,33 @@ public class NavigationRoom extends Room {
      * @param galaxyMap A List of all SpacePorts in the galaxy.
      */
     public NavigationRoom(RoomTier roomTier, List<SpacePort> galaxyMap) {
-        super(roomTier);
+        this(roomTier, galaxyMap, new HealthStore(1));
+    }
+
+    /**
+     * Constructor which creates a NavigationRoom at a specified RoomTier, whose health is held
+     * in a fleet's HealthStore. The current port is the 0th SpacePort in the galaxyMap.
+     * @param roomTier The quality of the NavigationRoom's tier.
+     * @param galaxyMap A List of all SpacePorts in the galaxy.
+     * @param store The store to hold the NavigationRoom's health in.
+     */
+    public NavigationRoom(RoomTier roomTier, List<SpacePort> galaxyMap, HealthStore store) {
+        super(roomTier, RoomKind.NAVIGATION_ROOM, store);
         this.galaxyMap = galaxyMap;
+        if (galaxyMap instanceof Galaxy galaxy) {
+            galaxy.addListener(galaxyListener);
+            this.clock = galaxy.getClock();
+        } else {
+            this.clock = new SimulationClock();
+        }
+    }
+
+    /**
+     * Returns the galaxy map the NavigationRoom navigates, e.g. to build a Reachability over it.
+     * @return The list of every SpacePort in the galaxy, in map order.
+     */
+    public List<SpacePort> getGalaxyMap() {
+        return galaxyMap;
     }
 
     /**
@@ -41,6 +108,65 @@ public class NavigationRoom extends Room {
         return galaxyMap.get(currentIndex);
     }
 
+    /**
+     * Returns the index of the current port in the galaxy map.
+     * @return The index of the SpacePort the ship is currently at.
+     */
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    /**
+     * Moves the ship directly to the SpacePort at the given index, without travelling. Used when
+     * restoring a recorded state.
+     * @param index The index of the SpacePort in the galaxy map.
+     * @throws IndexOutOfBoundsException If index is not a valid index of the galaxy map.
+     */
+    public void setCurrentIndex(int index) {
+        if (index < 0 || index >= galaxyMap.size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        currentIndex = index;
+        changed();
+    }
+
+    /**
+     * Returns the simulation time. Moving SpacePorts' Positions, and so the ranges and fuel
+     * needed to reach them, are evaluated at this time.
+     * @return The simulation time, in ticks.
+     */
+    public long getTime() {
+        return clock.getTime();
+    }
+
+    /**
+     * Sets the simulation time, without travelling. Used when restoring a recorded state. The
+     * clock is shared, so this sets the time of every Ship using it.
+     * @param time The simulation time, in ticks.
+     */
+    public void setTime(long time) {
+        clock.setTime(time);
+        changed();
+    }
+
+    /**
+     * Returns the clock giving the simulation time.
+     * @return The clock, shared with the galaxy map if it is a Galaxy.
+     */
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Uses a clock for the simulation time from now on, e.g. the Game's when the galaxy map is
+     * a plain list.
+     * @param clock The clock to share.
+     */
+    public void setClock(SimulationClock clock) {
+        this.clock = clock;
+        changed();
+    }
+
     /**
      * Returns the Ship's maximum flying distance.
      * @return Maximum flying distance as an int. This is determined by the quality of the
@@ -49,9 +175,18 @@ public class NavigationRoom extends Room {
      *         600 units.
      */
     public int getMaximumFlyDistance() {
+        return getMaximumFlyDistance(this.getTier());
+    }
+
+    /**
+     * Returns the maximum flying distance of a NavigationRoom of the given tier.
+     * @param tier The tier of the NavigationRoom.
+     * @return Maximum flying distance, as described by getMaximumFlyDistance().
+     */
+    public static int getMaximumFlyDistance(RoomTier tier) {
         // Numbers below represent fly range as mentioned in javaDoc.
         int fly = 200; // Case BASIC
-        switch (this.getTier()) {
+        switch (tier) {
             case AVERAGE -> fly = 400;
             case PRIME -> fly = 600;
         }
@@ -66,9 +201,18 @@ public class NavigationRoom extends Room {
      *         jump 1000 units.
      */
     public int getMaximumJumpDistance() {
+        return getMaximumJumpDistance(this.getTier());
+    }
+
+    /**
+     * Returns the maximum jump distance of a NavigationRoom of the given tier.
+     * @param tier The tier of the NavigationRoom.
+     * @return Maximum jump distance, as described by getMaximumJumpDistance().
+     */
+    public static int getMaximumJumpDistance(RoomTier tier) {
         // Numbers below represent jump range as mentioned in javaDoc.
         int jump = 500; // Case BASIC
-        switch (this.getTier()) {
+        switch (tier) {
             case AVERAGE -> jump = 750;
             case PRIME -> jump = 1000;
         }
@@ -79,69 +223,60 @@ public class NavigationRoom extends Room {
      * Returns the amount of fuel required to travel to another SpacePort.
      * @param spacePort The SpacePort to travel to.
      * @return The amount of fuel required to travel to spacePort. This is equal to the distance
-     *         between the current Port and spacePort.
+     *         between the current Port and spacePort at the current simulation time.
      */
     public int getFuelNeeded(SpacePort spacePort) {
-        return galaxyMap.get(currentIndex).getPosition().distanceTo(spacePort.getPosition());
+        long time = clock.getTime();
+        return getCurrentPort().getPositionAt(time).distanceTo(spacePort.getPositionAt(time));
     }
 
     /**
      * Returns a List of SpacePorts the Ship could fly to. This list does not include the
      * current SpacePort.
      * @return A List of Spaceports whose distance is less than or equal to the maximum flying
-     *         distance.
+     *         distance, in galaxy map order.
      */
     public List<SpacePort> getPortsInFlyRange() {
-        List<SpacePort> returnList =  new ArrayList<>();
-        // To avoid indexing error in case where galaxyMap is null
-        if (galaxyMap.size() > 0) {
-            SpacePort current = this.getCurrentPort();
-
-            for (SpacePort next : galaxyMap) {
-                // Filter out current port
-                if (next != current) {
-
-                    // Distance small enough to fly
-                    if (current.getPosition().distanceTo(next.getPosition())
-                            <= this.getMaximumFlyDistance()) {
-
-                        returnList.add(next);
-                    }
-                }
-            }
-        }
-        return returnList;
+        return getPortsBetween(-1, getMaximumFlyDistance());
     }
 
     /**
      * Returns a List of SpacePorts the Ship could jump to.
      * @return A List of Spaceports whose distance is greater than the maximum flying distance,
-     *         but less than or equal to the maximum jumping distance.
+     *         but less than or equal to the maximum jumping distance, in galaxy map order.
      */
     public  List<SpacePort> getPortsInJumpRange() {
-        List<SpacePort> returnList =  new ArrayList<>();
-        // To avoid indexing error in case where galaxyMap is null
-        if (galaxyMap.size() > 0) {
-            SpacePort current = this.getCurrentPort();
-
-            for (SpacePort next : galaxyMap) {
-                // Filter out current port
-                if (next != current) {
-
-                    // Distance too large to fly
-                    if (current.getPosition().distanceTo(next.getPosition())
-                            > this.getMaximumFlyDistance()) {
-
-                        // Distance small enough to jump
-                        if (current.getPosition().distanceTo(next.getPosition())
-                                <= this.getMaximumJumpDistance()) {
-
-                            returnList.add(next);
-                        }
-                    }
+        return getPortsBetween(getMaximumFlyDistance(), getMaximumJumpDistance());
+    }
+
+    /**
+     * Returns the other SpacePorts further than minimum from the current port and at most
+     * maximum from it, in galaxy map order. A Galaxy finds them with its kinetic index; a plain
+     * list is scanned.
+     */
+    private List<SpacePort> getPortsBetween(int minimum, int maximum) {
+        prepareRange();
+        List<SpacePort> returnList = new ArrayList<>();
+        // To avoid indexing error in case where galaxyMap is empty
+        if (galaxyMap.isEmpty()) {
+            return returnList;
+        }
+        SpacePort current = getCurrentPort();
+        long time = clock.getTime();
+        Position here = current.getPositionAt(time);
+        List<SpacePort> candidates = galaxyMap instanceof Galaxy galaxy
+                ? galaxy.inRangeOf(current, maximum, time) : galaxyMap;
+        for (SpacePort next : candidates) {
+            if (next != current) {
+                int distance = here.distanceTo(next.getPositionAt(time));
+                if (distance > minimum && distance <= maximum) {
+                    returnList.add(next);
                 }
             }
         }
+        if (galaxyMap instanceof Galaxy galaxy) {
+            returnList.sort(Comparator.comparingInt(galaxy::indexOf));
+        }
         return returnList;
     }
 
@@ -167,7 +302,7 @@ public class NavigationRoom extends Room {
                         spaceport.getName(),
                         spaceport.getName(),
                         spaceport.getClass().getSimpleName(),
-                        spaceport.getPosition().toString(),
+                        spaceport.getPositionAt(clock.getTime()).toString(),
                         this.getFuelNeeded(spaceport));
 
                 returnList.add(returnString);
@@ -210,6 +345,62 @@ public class NavigationRoom extends Room {
         return null;
     }
 
+    /**
+     * Finds the nearest ShipYard that can upgrade a kind of Room, measured from the current
+     * port at the current simulation time. The current port itself counts, at distance 0. In a
+     * LazyGalaxy, sectors are generated outward until no ungenerated sector could be nearer.
+     * @param roomName The Room class name, e.g. "NavigationRoom".
+     * @return The nearest such ShipYard, or null if there is none.
+     */
+    public ShipYard findNearestShipYard(String roomName) {
+        long time = clock.getTime();
+        Position centre = getCurrentPort().getPositionAt(time);
+        if (galaxyMap instanceof LazyGalaxy lazyGalaxy) {
+            return lazyGalaxy.findNearest(centre, time,
+                    facilities -> facilities.nearestShipYard(centre, time, roomName));
+        }
+        return getFacilities().nearestShipYard(centre, time, roomName);
+    }
+
+    /**
+     * Finds the nearest Store with an item in stock, measured from the current port at the
+     * current simulation time. The current port itself counts, at distance 0. In a LazyGalaxy,
+     * sectors are generated outward until no ungenerated sector could be nearer.
+     * @param item The short string representation of the item name.
+     * @return The nearest such Store, or null if there is none.
+     */
+    public Store findNearestStore(String item) {
+        long time = clock.getTime();
+        Position centre = getCurrentPort().getPositionAt(time);
+        if (galaxyMap instanceof LazyGalaxy lazyGalaxy) {
+            return lazyGalaxy.findNearest(centre, time,
+                    facilities -> facilities.nearestStore(centre, time, item, 1));
+        }
+        return getFacilities().nearestStore(centre, time, item, 1);
+    }
+
+    /**
+     * Generates the sectors of a LazyGalaxy within jump range of the current port, so range
+     * queries see every port they could reach. Does nothing for other galaxy maps.
+     */
+    private void prepareRange() {
+        if (galaxyMap instanceof LazyGalaxy lazyGalaxy && !galaxyMap.isEmpty()) {
+            lazyGalaxy.ensureAround(getCurrentPort().getPositionAt(clock.getTime()),
+                    getMaximumJumpDistance());
+        }
+    }
+
+    /**
+     * Returns the facility index of the galaxy map: the Galaxy's own, kept up to date as it
+     * changes, or for a plain list a new one.
+     */
+    private FacilityIndex getFacilities() {
+        if (galaxyMap instanceof Galaxy galaxy) {
+            return galaxy.getFacilities();
+        }
+        return new FacilityIndex(galaxyMap);
+    }
+
     /**
      * Returns a SpacePort based on a specified name.
      * @param name The unique name of the SpacePort.
@@ -218,14 +409,31 @@ public class NavigationRoom extends Room {
      */
     public SpacePort getSpacePortFromName(String name)
             throws NoPathException {
+        SpacePort spacePort = findSpacePort(name);
+        if (spacePort == null) {
+            throw new NoPathException();
+        }
+        return spacePort;
+    }
 
+    /**
+     * Returns a SpacePort based on a specified name, without throwing if there is none.
+     * @param name The unique name of the SpacePort.
+     * @return The specified SpacePort, or null if it cannot be found.
+     */
+    public SpacePort findSpacePort(String name) {
+        if (galaxyMap instanceof LazyGalaxy lazyGalaxy) {
+            return lazyGalaxy.find(name);
+        }
+        if (galaxyMap instanceof Galaxy galaxy) {
+            return galaxy.get(name);
+        }
         for (SpacePort spacePort : this.galaxyMap) {
             if (name.equals(spacePort.getName())) {
                 return spacePort;
             }
         }
-
-        throw new NoPathException();
+        return null;
     }
 
     /**
@@ -235,7 +443,9 @@ public class NavigationRoom extends Room {
      * @requires otherPort to be a SpacePort in galaxyMap.
      */
     private int getDistanceToPort(SpacePort otherPort) {
-        return this.getCurrentPort().getPosition().distanceTo(otherPort.getPosition());
+        long time = clock.getTime();
+        return this.getCurrentPort().getPositionAt(time)
+                .distanceTo(otherPort.getPositionAt(time));
     }
 
     /**
@@ -251,29 +461,61 @@ public class NavigationRoom extends Room {
      */
     public void flyTo(String portName, CargoHold cargoHold)
             throws InsufficientResourcesException, NoPathException {
+        tryFlyTo(portName, cargoHold).throwIfFailed();
+    }
+
+    /**
+     * Attempts to fly the Ship to the specified SpacePort, as flyTo does, but reports failure
+     * through the returned Outcome instead of throwing. Every attempt advances the simulation
+     * time by one tick, whether or not the Ship gets there.
+     * @param portName A String representation of the target SpacePort's unique name.
+     * @param cargoHold The Ship's CargoHold.
+     * @return SUCCESS if the Ship flew to the SpacePort; BROKEN_ROOM if the CargoHold or
+     *         NavigationRoom is broken; UNKNOWN_PORT if the named SpacePort cannot be found;
+     *         OUT_OF_RANGE if it is out of fly range; or INSUFFICIENT_RESOURCES if there is
+     *         insufficient TRITIUM in the CargoHold.
+     */
+    public Outcome tryFlyTo(String portName, CargoHold cargoHold) {
+        Outcome outcome = fly(portName, cargoHold);
+        clock.advance();
+        changed();
+        return outcome;
+    }
+
+    /**
+     * Implements tryFlyTo, apart from advancing the simulation time.
+     */
+    private Outcome fly(String portName, CargoHold cargoHold) {
+        TravelEvent event = new TravelEvent();
+        event.begin();
 
         if (this.isBroken() || cargoHold.isBroken()) {
-            throw new InsufficientResourcesException();
+            return Outcome.BROKEN_ROOM;
         }
 
-        SpacePort spacePort = this.getSpacePortFromName(portName);
+        SpacePort spacePort = this.findSpacePort(portName);
+        if (spacePort == null) {
+            return Outcome.UNKNOWN_PORT;
+        }
 
         // The port is out of range
-        if (this.getMaximumFlyDistance() < this.getDistanceToPort(spacePort)) {
-            throw new NoPathException();
+        int fuelNeeded = this.getFuelNeeded(spacePort);
+        if (this.getMaximumFlyDistance() < fuelNeeded) {
+            return Outcome.OUT_OF_RANGE;
         }
 
-        // Enough fuel to make flight
-        if (this.getFuelNeeded(spacePort) <= cargoHold.getTotalAmountByType(FuelGrade.TRITIUM)) {
-            cargoHold.consumeResource(FuelGrade.TRITIUM, this.getFuelNeeded(spacePort));
-            this.damage();
-            cargoHold.damage();
-            currentIndex = galaxyMap.indexOf(spacePort);
-
         // Not enough fuel to make flight
-        } else {
-            throw new InsufficientResourcesException();
+        if (fuelNeeded > cargoHold.getTotalAmountByType(FuelGrade.TRITIUM)) {
+            return Outcome.INSUFFICIENT_RESOURCES;
         }
+
+        SpacePort source = this.getCurrentPort();
+        cargoHold.tryConsumeResource(FuelGrade.TRITIUM, fuelNeeded);
+        this.damage();
+        cargoHold.damage();
+        currentIndex = galaxyMap.indexOf(spacePort);
+        commitTravel(event, "fly", source, spacePort, fuelNeeded);
+        return Outcome.SUCCESS;
     }
 
     /**
@@ -289,31 +531,79 @@ public class NavigationRoom extends Room {
      */
     public void jumpTo(String portName, CargoHold cargoHold)
             throws InsufficientResourcesException, NoPathException {
+        tryJumpTo(portName, cargoHold).throwIfFailed();
+    }
+
+    /**
+     * Attempts to jump the Ship to the specified SpacePort, as jumpTo does, but reports failure
+     * through the returned Outcome instead of throwing. Every attempt advances the simulation
+     * time by one tick, whether or not the Ship gets there.
+     * @param portName A String representation of the target SpacePort's unique name.
+     * @param cargoHold The Ship's CargoHold.
+     * @return SUCCESS if the Ship jumped to the SpacePort; BROKEN_ROOM if the CargoHold or
+     *         NavigationRoom is broken; UNKNOWN_PORT if the named SpacePort cannot be found;
+     *         OUT_OF_RANGE if it is out of jump range; or INSUFFICIENT_RESOURCES if there is no
+     *         HYPERDRIVE_CORE in the CargoHold.
+     */
+    public Outcome tryJumpTo(String portName, CargoHold cargoHold) {
+        Outcome outcome = jump(portName, cargoHold);
+        clock.advance();
+        changed();
+        return outcome;
+    }
+
+    /**
+     * Implements tryJumpTo, apart from advancing the simulation time.
+     */
+    private Outcome jump(String portName, CargoHold cargoHold) {
+        TravelEvent event = new TravelEvent();
+        event.begin();
 
         if (this.isBroken() || cargoHold.isBroken()) {
-            throw new InsufficientResourcesException();
+            return Outcome.BROKEN_ROOM;
         }
 
-        SpacePort spacePort = this.getSpacePortFromName(portName);
+        SpacePort spacePort = this.findSpacePort(portName);
+        if (spacePort == null) {
+            return Outcome.UNKNOWN_PORT;
+        }
 
         // The port is out of range
         if (this.getMaximumJumpDistance() < this.getDistanceToPort(spacePort)) {
-            throw new NoPathException();
+            return Outcome.OUT_OF_RANGE;
         }
 
         /* The number of HYPERDRIVE CORES needed to make a jump (1). (To avoid magic numbers). */
         int hyperdriveCoresNeeded = 1;
 
-        // Enough fuel to make jump
-        if (hyperdriveCoresNeeded <= cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE)) {
-            cargoHold.consumeResource(FuelGrade.HYPERDRIVE_CORE, hyperdriveCoresNeeded);
-            this.damage();
-            cargoHold.damage();
-            currentIndex = galaxyMap.indexOf(spacePort);
-
         // Not enough fuel to make jump
-        } else {
-            throw new InsufficientResourcesException();
+        if (hyperdriveCoresNeeded > cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE)) {
+            return Outcome.INSUFFICIENT_RESOURCES;
+        }
+
+        SpacePort source = this.getCurrentPort();
+        cargoHold.tryConsumeResource(FuelGrade.HYPERDRIVE_CORE, hyperdriveCoresNeeded);
+        this.damage();
+        cargoHold.damage();
+        currentIndex = galaxyMap.indexOf(spacePort);
+        commitTravel(event, "jump", source, spacePort, hyperdriveCoresNeeded);
+        return Outcome.SUCCESS;
+    }
+
+    /**
+     * Fills in and commits a TravelEvent, if Flight Recorder is recording travel.
+     */
+    private void commitTravel(TravelEvent event, String mode, SpacePort source,
+                                     SpacePort destination, int fuel) {
+        if (event.shouldCommit()) {
+            event.mode = mode;
+            event.source = source.getName();
+            event.destination = destination.getName();
+            long time = clock.getTime();
+            event.distance = source.getPositionAt(time)
+                    .distanceTo(destination.getPositionAt(time));
+            event.fuel = fuel;
+            event.commit();
         }
     }
 }
@@ -0,0 +1,85 @@
+package srg.ship;
+
+import srg.exceptions.InsufficientResourcesException;
+import srg.exceptions.NoPathException;
+
+/**
+ * Enumerates the outcomes of actions which routinely fail, such as travelling and purchasing.
+ * Returning an Outcome instead of throwing avoids the cost of creating an exception (and its
+ * stack trace) for every failed attempt. Each failure corresponds to the exception the throwing
+ * version of the action raises.
+ */
+public enum Outcome {
+    /** The action was carried out. */
+    SUCCESS(null, null),
+    /** A Room needed for the action is broken. */
+    BROKEN_ROOM(InsufficientResourcesException.class, null),
+    /** There is not enough of a resource or fuel to carry out the action. */
+    INSUFFICIENT_RESOURCES(InsufficientResourcesException.class, null),
+    /** The requested item is not a resource that exists. */
+    UNKNOWN_ITEM(InsufficientResourcesException.class, "The specified resource does not exist."),
+    /** The named SpacePort cannot be found. */
+    UNKNOWN_PORT(NoPathException.class, null),
+    /** The named SpacePort is too far away. */
+    OUT_OF_RANGE(NoPathException.class, null),
+    /** The Ship is not docked at the kind of SpacePort the action needs. */
+    NOT_DOCKED(null, null);
+
+    /** The exception the throwing version of the action raises, or null if none. */
+    private final Class<? extends Exception> exceptionType;
+    /** The message of that exception. */
+    private final String message;
+
+    Outcome(Class<? extends Exception> exceptionType, String message) {
+        this.exceptionType = exceptionType;
+        this.message = message;
+    }
+
+    /**
+     * Returns whether the action was carried out.
+     * @return True - if this is SUCCESS.
+     */
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+
+    /**
+     * Returns the type of exception the throwing version of the action raises for this outcome.
+     * @return The exception class, or null if no exception is raised.
+     */
+    public Class<? extends Exception> getExceptionType() {
+        return exceptionType;
+    }
+
+    /**
+     * Returns the message of the exception raised for this outcome.
+     * @return The exception message, which may be null.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Throws the exception corresponding to this outcome, if any.
+     * @throws InsufficientResourcesException If a Room is broken, resources are insufficient or
+     *                                        the item does not exist.
+     * @throws NoPathException If the SpacePort cannot be found or is out of range.
+     */
+    public void throwIfFailed() throws InsufficientResourcesException, NoPathException {
+        if (exceptionType == NoPathException.class) {
+            throw new NoPathException(message);
+        }
+        throwIfInsufficient();
+    }
+
+    /**
+     * Throws an InsufficientResourcesException if this outcome is a failure with an exception.
+     * Used by actions which can only fail for lack of resources.
+     * @throws InsufficientResourcesException If this outcome has an exception type.
+     */
+    public void throwIfInsufficient() throws InsufficientResourcesException {
+        if (exceptionType != null) {
+            throw new InsufficientResourcesException(message);
+        }
+    }
+}
@@ -1,27 +1,26 @@
 package srg.ship;
 
+import srg.metrics.RoomHealthEvent;
+
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Represents a Room in a Ship. Rooms are Damageable objects. Rooms also have a tier which
- * contributes to determining starting health and damage rate.
+ * contributes to determining starting health and damage rate. A Room's health is held in a
+ * HealthStore, which a fleet's Rooms may share, and the Room is a view of its slot there.
  */
 public class Room implements Damageable {
-    /**
-     * The rate at which damage occurs to the room, depending on both DAMAGE_RATE in Damageable
-     * interface and the rooms tier.
-     */
-    private int damageRate;
-    /** The current health the room has left. */
-    private int health;
-    /**
-     * The maximum health of the room, depends on both MAX_HEALTH in Damageable and the rooms
-     * tier
-     */
-    private int maxHealth;
+    /** Holds the room's health, maximum health and damage rate. */
+    private final HealthStore store;
+    /** The room's slot in the store. */
+    private final int slot;
     /** The tier of the room, based on the RoomTier Enum. */
     private RoomTier tier;
+    /** The kind of the room, or null for a generic room. */
+    private final RoomKind kind;
+    /** Notified when the room changes, or null. */
+    private RoomListener listener;
 
     /**
      * Constructs a Room and assigns it the given tier. The room has starting values for each of
@@ -30,9 +29,30 @@ public class Room implements Damageable {
      *             PRIME).
      */
     public Room(RoomTier tier) {
-        this.damageRate = DAMAGE_RATE * tier.damageMultiplier;
-        this.maxHealth = HEALTH_MULTIPLIER * tier.healthMultiplier;
-        this.health = this.maxHealth;
+        this(tier, null);
+    }
+
+    /**
+     * Constructs a Room of a kind, e.g. an engine or shield module, and assigns it the given
+     * tier.
+     * @param tier The tier of the room, based on the RoomTier Enum.
+     * @param kind The kind of the room, or null for a generic room.
+     */
+    public Room(RoomTier tier, RoomKind kind) {
+        this(tier, kind, new HealthStore(1));
+    }
+
+    /**
+     * Constructs a Room of a kind whose health is held in a fleet's HealthStore, so it can be
+     * damaged and repaired in bulk with the rest of the fleet.
+     * @param tier The tier of the room, based on the RoomTier Enum.
+     * @param kind The kind of the room, or null for a generic room.
+     * @param store The store to hold the room's health in.
+     */
+    public Room(RoomTier tier, RoomKind kind, HealthStore store) {
+        this.kind = kind;
+        this.store = store;
+        this.slot = store.allocate(tier);
         this.tier = tier;
     }
 
@@ -53,6 +73,7 @@ public class Room implements Damageable {
             case BASIC -> this.tier = RoomTier.AVERAGE;
             case AVERAGE -> this.tier = RoomTier.PRIME;
         }
+        store.setTier(slot, tier);
         // Recalculate the stats
         this.setDamageRate(DAMAGE_RATE * tier.damageMultiplier);
         this.resetHealth();
@@ -64,7 +85,8 @@ public class Room implements Damageable {
      * @requires newDamageRate to be greater than or equal to 0.
      */
     public void setDamageRate(int newDamageRate) {
-        this.damageRate = newDamageRate;
+        store.damageRate[slot] = newDamageRate;
+        changed();
     }
 
     /**
@@ -74,22 +96,145 @@ public class Room implements Damageable {
      *         False - if getHealth() is greater than 30%.
      */
     public int getHealth() {
-        return ((int) (this.health * 100 / this.maxHealth));
+        return store.health[slot] * 100 / store.maxHealth[slot];
+    }
+
+    /**
+     * Returns whether the Room needs repair, without dividing. Overrides needsRepair in
+     * Damageable, with the same result.
+     * @return True - if getHealth() is less than or equal to 30%
+     *         False - if getHealth() is greater than 30%.
+     */
+    @Override
+    public boolean needsRepair() {
+        return store.needsRepair(slot);
+    }
+
+    /**
+     * Returns whether the Room is broken, without dividing. Overrides isBroken in Damageable,
+     * with the same result.
+     * @return True - if getHealth() is less than or equal to 0%
+     *         False - if getHealth() is greater than 0%.
+     */
+    @Override
+    public boolean isBroken() {
+        return store.isBroken(slot);
     }
 
     /**
      * Applies damage to the Damageable object at the appropriate rate.
      */
     public void damage() {
-        this.health -= this.damageRate;
+        store.health[slot] -= store.damageRate[slot];
+        commitHealthEvent("damage");
+        changed();
     }
 
     /**
      * Recalculates maximum health and resets health to maximum.
      */
     public void resetHealth() {
-        this.maxHealth = HEALTH_MULTIPLIER * tier.healthMultiplier;
-        this.health = this.maxHealth;
+        store.maxHealth[slot] = store.tierHealth[slot];
+        store.health[slot] = store.maxHealth[slot];
+        commitHealthEvent("reset");
+        changed();
+    }
+
+    /**
+     * Commits a RoomHealthEvent, if Flight Recorder is recording Room health.
+     */
+    private void commitHealthEvent(String action) {
+        RoomHealthEvent event = new RoomHealthEvent();
+        if (event.shouldCommit()) {
+            event.room = kind == null ? this.getClass().getSimpleName() : kind.getRoomName();
+            event.action = action;
+            event.tier = this.tier.name();
+            event.health = this.getHealth();
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the raw health points of the Room (not a percentage).
+     * @return The current health points, which may be negative.
+     */
+    public int getHealthPoints() {
+        return store.health[slot];
+    }
+
+    /**
+     * Returns the maximum health points of the Room.
+     * @return The maximum health points the Room is reset to on repair.
+     */
+    public int getMaximumHealth() {
+        return store.maxHealth[slot];
+    }
+
+    /**
+     * Returns the amount of health lost each time the Room is damaged.
+     * @return The current damage rate.
+     */
+    public int getDamageRate() {
+        return store.damageRate[slot];
+    }
+
+    /**
+     * Restores the Room to a previously recorded state, e.g. when loading a saved game.
+     * @param tier The recorded RoomTier.
+     * @param health The recorded health points.
+     * @param maxHealth The recorded maximum health points.
+     * @param damageRate The recorded damage rate.
+     */
+    public void restoreState(RoomTier tier, int health, int maxHealth, int damageRate) {
+        this.tier = tier;
+        store.setTier(slot, tier);
+        store.health[slot] = health;
+        store.maxHealth[slot] = maxHealth;
+        store.damageRate[slot] = damageRate;
+        changed();
+    }
+
+    /**
+     * Returns the HealthStore holding this Room's health.
+     * @return The store, shared with the rest of the fleet if the Room was constructed with one.
+     */
+    public HealthStore getHealthStore() {
+        return store;
+    }
+
+    /**
+     * Returns this Room's slot in its HealthStore, e.g. to read bulk masks.
+     * @return The slot.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Sets the listener notified whenever this Room changes, e.g. to persist it.
+     * @param listener The listener, or null to stop notifying.
+     */
+    public void setListener(RoomListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Notifies the listener, if any, that this Room has changed. Subclasses call this after
+     * changing their own state.
+     */
+    protected void changed() {
+        if (listener != null) {
+            listener.roomChanged(this);
+        }
+    }
+
+    /**
+     * Returns the kind of this Room. Generic Rooms have no kind, so cannot be installed in a
+     * Ship.
+     * @return The RoomKind of this Room, or null.
+     */
+    public RoomKind getKind() {
+        return kind;
     }
 
     /**
@@ -107,7 +252,8 @@ public class Room implements Damageable {
      */
     public String toString() {
         return String.format("ROOM: %s(%s) health: %d%%, needs repair: %s",
-                this.getClass().getSimpleName(), this.tier, this.getHealth(), this.needsRepair());
+                kind == null ? this.getClass().getSimpleName() : kind.getRoomName(), this.tier,
+                this.getHealth(), this.needsRepair());
     }
 
     /**
@@ -0,0 +1,67 @@
+package srg.ship;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Enumerates the kinds of Room a Ship can have, each with the name commands use for it.
+ */
+public enum RoomKind {
+    /**
+     * A CargoHold, named "CargoHold".
+     */
+    CARGO_HOLD("CargoHold"),
+    /**
+     * A NavigationRoom, named "NavigationRoom".
+     */
+    NAVIGATION_ROOM("NavigationRoom"),
+    /**
+     * An engine module, named "Engine".
+     */
+    ENGINE("Engine"),
+    /**
+     * A shield module, named "Shield".
+     */
+    SHIELD("Shield");
+
+    /** Each kind by name. */
+    private static final Map<String, RoomKind> BY_NAME = new HashMap<>();
+
+    static {
+        for (RoomKind kind : values()) {
+            BY_NAME.put(kind.roomName, kind);
+        }
+    }
+
+    /** The name commands use for this kind of Room. */
+    private final String roomName;
+
+    RoomKind(String roomName) {
+        this.roomName = roomName;
+    }
+
+    /**
+     * Returns the name commands use for this kind of Room, e.g. "NavigationRoom".
+     * @return The Room name.
+     */
+    public String getRoomName() {
+        return roomName;
+    }
+
+    /**
+     * Returns this kind as a single bit, so sets of kinds can be held in an int.
+     * @return 1 shifted left by this kind's ordinal.
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Returns the kind of Room with a name, in constant time.
+     * @param roomName The Room name, e.g. "NavigationRoom".
+     * @return The kind, or null if no kind has the name.
+     */
+    public static RoomKind fromName(String roomName) {
+        return BY_NAME.get(roomName);
+    }
+}
@@ -0,0 +1,14 @@
+package srg.ship;
+
+/**
+ * Notified when the state of a Room changes, after the change has been made: its tier or
+ * health, a CargoHold's contents, or a NavigationRoom's current port or time.
+ */
+@FunctionalInterface
+public interface RoomListener {
+    /**
+     * Called when a Room has changed.
+     * @param room The changed Room.
+     */
+    void roomChanged(Room room);
+}
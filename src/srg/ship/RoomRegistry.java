@@ -0,0 +1,96 @@
+package srg.ship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Rooms installed in a Ship, each under the name commands use for it, in the order they
+ * were installed. Rooms are found by name or by RoomKind in constant time, so a Ship may have
+ * any number of them, including several of the same kind, e.g. "CargoHold" and "CargoHold2".
+ */
+public class RoomRegistry implements Iterable<Room> {
+    /** Each Room by name, in installation order. */
+    private final Map<String, Room> byName = new LinkedHashMap<>();
+    /** The name of each Room. */
+    private final Map<Room, String> names = new IdentityHashMap<>();
+    /** The Rooms of each kind, in installation order. */
+    private final Map<RoomKind, List<Room>> byKind = new EnumMap<>(RoomKind.class);
+
+    /**
+     * Installs a Room under a name.
+     * @param name The name commands use for the Room.
+     * @param room The Room, which must have a kind.
+     * @throws IllegalArgumentException If the name is already in use, the Room is already
+     *                                  installed, or the Room has no kind.
+     */
+    void add(String name, Room room) {
+        if (room.getKind() == null) {
+            throw new IllegalArgumentException("Room has no kind: " + name);
+        }
+        if (byName.containsKey(name) || names.containsKey(room)) {
+            throw new IllegalArgumentException("Room already installed: " + name);
+        }
+        byName.put(name, room);
+        names.put(room, name);
+        byKind.computeIfAbsent(room.getKind(), kind -> new ArrayList<>()).add(room);
+    }
+
+    /**
+     * Returns the Room with a name.
+     * @param name The name of the Room, e.g. "NavigationRoom".
+     * @return The Room, or null if there is none.
+     */
+    public Room get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Returns the name a Room is installed under.
+     * @param room The Room.
+     * @return The Room's name, or null if it is not installed.
+     */
+    public String nameOf(Room room) {
+        return names.get(room);
+    }
+
+    /**
+     * Returns the Rooms of a kind.
+     * @param kind The kind of Room.
+     * @return The Rooms of that kind in installation order; empty if there are none.
+     */
+    public List<Room> getRooms(RoomKind kind) {
+        List<Room> rooms = byKind.get(kind);
+        return rooms == null ? List.of() : Collections.unmodifiableList(rooms);
+    }
+
+    /**
+     * Returns the names of every Room, in installation order.
+     * @return The Room names.
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(byName.keySet());
+    }
+
+    /**
+     * Returns the number of Rooms installed.
+     * @return The number of Rooms.
+     */
+    public int size() {
+        return byName.size();
+    }
+
+    /**
+     * Iterates over the Rooms in installation order. The Rooms cannot be removed.
+     * @return An iterator over the Rooms.
+     */
+    @Override
+    public Iterator<Room> iterator() {
+        return Collections.unmodifiableCollection(byName.values()).iterator();
+    }
+}
@@ -6,6 +6,7 @@ import srg.cli.given.ShipCommand;
 import srg.exceptions.InsufficientCapcaityException;
 import srg.exceptions.InsufficientResourcesException;
 import srg.exceptions.NoPathException;
+import srg.metrics.MetricsRegistry;
 import srg.resources.FuelContainer;
 import srg.resources.FuelGrade;
 import srg.resources.ResourceContainer;
@@ -13,12 +14,13 @@ import srg.resources.ResourceType;
 import srg.ports.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents a spaceship, which has a unique name, a unique ID, a registered owner, a CargoHold
- * and a NavigationRoom.
+ * and a NavigationRoom. Further Rooms, e.g. engines, shields or extra holds, can be installed
+ * with addRoom; every Room is held in a RoomRegistry under the name commands use for it.
  * @version 1.0
  * @ass1
  */
@@ -33,6 +35,10 @@ public class Ship {
     private CargoHold cargoHold;
     /** The ship's NavigationRoom. */
     private NavigationRoom navigationRoom;
+    /** Every Room of the ship, by name. */
+    private final RoomRegistry rooms = new RoomRegistry();
+    /** Counts failed commands, or null if failures are not counted. */
+    private MetricsRegistry metrics;
 
     /**
      * Constructs a Ship with a default complement of resources (5x REPAIR_KIT, 100x TRITIUM, 5x
@@ -46,10 +52,26 @@ public class Ship {
      */
     public Ship(String name, String owner, String id, RoomTier cargoHoldTier,
                 RoomTier navigationRoomTier, List<SpacePort> galaxyMap) {
+        this(name, owner, id, cargoHoldTier, navigationRoomTier, galaxyMap, new HealthStore(2));
+    }
+
+    /**
+     * Constructs a Ship as above, whose CargoHold and NavigationRoom hold their health in a
+     * fleet's HealthStore, so the fleet's Rooms can be damaged and repaired in bulk.
+     * @param name The ship's name.
+     * @param owner The ship's owner.
+     * @param id The ship's id.
+     * @param cargoHoldTier The tier of the CargoHold.
+     * @param navigationRoomTier The tier of the NavigationRoom.
+     * @param galaxyMap  The galaxy map to be kept by the NavigationRoom.
+     * @param store The store to hold the Rooms' health in.
+     */
+    public Ship(String name, String owner, String id, RoomTier cargoHoldTier,
+                RoomTier navigationRoomTier, List<SpacePort> galaxyMap, HealthStore store) {
         this.name = name;
         this.owner = owner;
         this.id = id;
-        this.cargoHold = new CargoHold(cargoHoldTier);
+        this.cargoHold = new CargoHold(cargoHoldTier, store);
         /*  Try catch needs to be used as cargoHold.storeResource can theoretically throw
             InsufficientCapcaityException (but it will never throw it as the .storeResource method
             is being called sensibly).
@@ -62,7 +84,9 @@ public class Ship {
             return; // This line will never be reached
         }
 
-        this.navigationRoom = new NavigationRoom(navigationRoomTier, galaxyMap);
+        this.navigationRoom = new NavigationRoom(navigationRoomTier, galaxyMap, store);
+        rooms.add(RoomKind.CARGO_HOLD.getRoomName(), cargoHold);
+        rooms.add(RoomKind.NAVIGATION_ROOM.getRoomName(), navigationRoom);
     }
 
     /**
@@ -70,16 +94,54 @@ public class Ship {
      *
      * @param ioHandler Handles IO
      * @param command   A command to the ship
+     * @return True - if the command was carried out.
+     *         False - if the command failed or was rejected.
      */
-    public void performCommand(IO ioHandler, ShipCommand command) {
+    public boolean performCommand(IO ioHandler, ShipCommand command) {
         try {
-            processCommand(ioHandler, command);
-        } catch (InsufficientResourcesException error) {
+            Outcome outcome = applyCommand(ioHandler, command);
+            if (!outcome.isSuccess()) {
+                reportFailure(ioHandler, outcome);
+            }
+            return outcome.isSuccess();
+        } catch (IllegalArgumentException | InsufficientCapcaityException error) {
+            recordFailure(error.getClass());
+            ioHandler.writeLn(error.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Writes the same message for a failed Outcome as performCommand writes for the
+     * corresponding exception.
+     */
+    private void reportFailure(IO ioHandler, Outcome outcome) {
+        Class<? extends Exception> exceptionType = outcome.getExceptionType();
+        if (exceptionType == null) {
+            // Rejections have already been explained
+            return;
+        }
+        recordFailure(exceptionType);
+        if (exceptionType == InsufficientResourcesException.class) {
             ioHandler.writeLn("Unable to perform action due to broken component or "
                     + "insufficient resources."
-                    + System.lineSeparator() + error.getMessage());
-        } catch (IllegalArgumentException | NoPathException | InsufficientCapcaityException error) {
-            ioHandler.writeLn(error.getMessage());
+                    + System.lineSeparator() + outcome.getMessage());
+        } else {
+            ioHandler.writeLn(outcome.getMessage());
+        }
+    }
+
+    /**
+     * Counts the failures of commands performed by this Ship, by exception type.
+     * @param metrics The registry to count failures in, or null to stop counting.
+     */
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    private void recordFailure(Class<? extends Exception> exceptionType) {
+        if (metrics != null) {
+            metrics.recordFailure(exceptionType);
         }
     }
 
@@ -88,27 +150,44 @@ public class Ship {
      *
      * @param ioHandler Handles IO
      * @param command   A command to the ship
+     * @return True - if the command was carried out.
+     *         False - if the command was rejected because the Ship is not docked at the right
+     *         kind of SpacePort.
      * @throws InsufficientResourcesException If an action cannot be performed due to a lack or
      *                                        resources or a broken Room.
      * @throws NoPathException If a specified SpacePort cannot be found, or cannot be reached.
      * @throws InsufficientCapcaityException If resources cannot be added because there is not
      *                                       enough capacity in the CargoHold.
      */
-    public void processCommand(IO ioHandler, ShipCommand command)
+    public boolean processCommand(IO ioHandler, ShipCommand command)
             throws InsufficientResourcesException, NoPathException, InsufficientCapcaityException {
+        Outcome outcome = applyCommand(ioHandler, command);
+        outcome.throwIfFailed();
+        return outcome.isSuccess();
+    }
+
+    /**
+     * Applies a command, returning the Outcome of travel, repairs and purchases rather than
+     * throwing when they fail. Implements processCommand and performCommand.
+     */
+    private Outcome applyCommand(IO ioHandler, ShipCommand command)
+            throws InsufficientCapcaityException {
         switch (command.type) {
             case SHOW_ROOM -> {
                 ioHandler.writeLn(getRoomByName(command.value).toString());
             }
             case FLY_TO -> {
-                navigationRoom.flyTo(command.value, cargoHold);
+                return damageModules(navigationRoom.tryFlyTo(command.value, cargoHold));
             }
             case JUMP_TO -> {
-                navigationRoom.jumpTo(command.value, cargoHold);
+                return damageModules(navigationRoom.tryJumpTo(command.value, cargoHold));
             }
             case REPAIR_ROOM -> {
                 // Ignore whether CargoHold may be broken
-                cargoHold.consumeResource(ResourceType.REPAIR_KIT, 1);
+                Outcome outcome = cargoHold.tryConsumeResource(ResourceType.REPAIR_KIT, 1);
+                if (!outcome.isSuccess()) {
+                    return outcome;
+                }
                 getRoomByName(command.value).resetHealth();
 
             }
@@ -116,7 +195,7 @@ public class Ship {
                 ShipYard shipYard = navigationRoom.getShipYard();
                 if (shipYard == null) {
                     ioHandler.writeLn("Can only upgrade when docked at a ShipYard.");
-                    return;
+                    return Outcome.NOT_DOCKED;
                 }
 
                 shipYard.upgrade(getRoomByName(command.value));
@@ -126,11 +205,14 @@ public class Ship {
                 Store store = navigationRoom.getStore();
                 if (store == null) {
                     ioHandler.writeLn("Can only purchase items at a Store.");
-                    return;
+                    return Outcome.NOT_DOCKED;
                 }
-                ResourceContainer resource = store.purchase(purchaseCommand.item,
+                PurchaseResult result = store.tryPurchase(purchaseCommand.item,
                         purchaseCommand.amount);
-                cargoHold.storeResource(resource);
+                if (!result.isSuccess()) {
+                    return result.outcome;
+                }
+                cargoHold.storeResource(result.container);
             }
             case SHOW_PORT -> {
                 ioHandler.writeLn(navigationRoom.getCurrentPort().toString());
@@ -140,53 +222,176 @@ public class Ship {
             case SHOW_ACTIONS -> {
                 ioHandler.writeLn(String.join(System.lineSeparator(), getActions()));
             }
+            case NEAREST_SHIPYARD -> {
+                SpacePort shipYard = navigationRoom.findNearestShipYard(command.value);
+                if (shipYard == null) {
+                    ioHandler.writeLn("No ShipYard can upgrade " + command.value + ".");
+                } else {
+                    ioHandler.writeLn(describeNearest(shipYard));
+                }
+            }
+            case NEAREST_STORE -> {
+                SpacePort store = navigationRoom.findNearestStore(command.value);
+                if (store == null) {
+                    ioHandler.writeLn("No Store has " + command.value + " in stock.");
+                } else {
+                    ioHandler.writeLn(describeNearest(store));
+                }
+            }
+
+        }
+        return Outcome.SUCCESS;
+    }
+
+    /**
+     * Damages every Room other than the CargoHold and NavigationRoom, which the NavigationRoom
+     * damages itself, after a successful trip.
+     */
+    private Outcome damageModules(Outcome trip) {
+        if (trip.isSuccess()) {
+            for (Room room : getModules()) {
+                room.damage();
+            }
+        }
+        return trip;
+    }
+
+    /**
+     * Describes a SpacePort found by a nearest query, with its distance from the current port.
+     */
+    private String describeNearest(SpacePort port) {
+        return String.format("%s [DISTANCE: %d]", port, navigationRoom.getFuelNeeded(port));
+    }
+
+    /**
+     * Returns the Ship's name.
+     * @return The name of this Ship.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the Ship's registered owner.
+     * @return The owner of this Ship.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Returns the Ship's ID.
+     * @return The ID of this Ship.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the Ship's CargoHold.
+     * @return The CargoHold of this Ship.
+     */
+    public CargoHold getCargoHold() {
+        return cargoHold;
+    }
+
+    /**
+     * Returns the Ship's NavigationRoom.
+     * @return The NavigationRoom of this Ship.
+     */
+    public NavigationRoom getNavigationRoom() {
+        return navigationRoom;
+    }
+
+    /**
+     * Installs a Room, e.g. an engine, shield or extra hold. It can then be shown, repaired and
+     * upgraded by name like the CargoHold and NavigationRoom. Fuel and purchases still go to the
+     * Ship's CargoHold.
+     * @param name The name commands use for the Room, e.g. "Engine" or "CargoHold2".
+     * @param room The Room, which must have a kind.
+     * @throws IllegalArgumentException If the name is already in use, the Room is already
+     *                                  installed, the Room has no kind, or the Room is a
+     *                                  NavigationRoom; a Ship has exactly one.
+     */
+    public void addRoom(String name, Room room) {
+        if (room.getKind() == RoomKind.NAVIGATION_ROOM) {
+            throw new IllegalArgumentException("A Ship has exactly one NavigationRoom.");
+        }
+        rooms.add(name, room);
+    }
 
+    /**
+     * Returns the Rooms installed with addRoom, in the order they were installed.
+     * @return Every Room other than the CargoHold and NavigationRoom.
+     */
+    public List<Room> getModules() {
+        List<Room> modules = new ArrayList<>(rooms.size() - 2);
+        for (Room room : rooms) {
+            if (room != cargoHold && room != navigationRoom) {
+                modules.add(room);
+            }
         }
+        return modules;
+    }
 
+    /**
+     * Returns every Room of the Ship, in the order they were installed; the CargoHold and
+     * NavigationRoom come first.
+     * @return The Ship's RoomRegistry.
+     */
+    public RoomRegistry getRooms() {
+        return rooms;
     }
 
     /**
      * Gets the specified Room.
-     * @param name The type of Room to return.
+     * @param name The name of the Room to return.
      * @return The specified Room.
      * @throws IllegalArgumentException if the specified Room does not exist.
      */
     public Room getRoomByName(String name) throws IllegalArgumentException {
-        if (Objects.equals(name, cargoHold.getClass().getSimpleName())) {
-            return cargoHold;
-        } else if (Objects.equals(name, navigationRoom.getClass().getSimpleName())) {
-            return navigationRoom;
-        } else {
+        Room room = rooms.get(name);
+        if (room == null) {
             throw new IllegalArgumentException();
         }
+        return room;
     }
 
     /**
-     * Returns a String representation of a Ship. Identifies the name, id, owner, CargoHold and
-     * NavigationRoom.
+     * Returns a String representation of a Ship. Identifies the name, id, owner and every Room,
+     * in the order they were installed.
      * @return A String containing details of the Ship. Format:
-     * "SHIP: name (id) owned by owner\n----\nCargoHold details\nNavigationRoom details"
+     * "SHIP: name (id) owned by owner\n----\nCargoHold details\nNavigationRoom details", followed
+     * by a line for each further Room.
      */
     @Override
     public String toString() {
-        return (String.format("SHIP: %s (%s) owned by %s\n----\n%s\n%s",
+        StringBuilder builder = new StringBuilder(String.format("SHIP: %s (%s) owned by %s\n----",
                 this.name,
                 this.id,
-                this.owner,
-                this.cargoHold.toString(),
-                this.navigationRoom.toString()));
+                this.owner));
+        for (Room room : rooms) {
+            builder.append('\n').append(room);
+        }
+        return builder.toString();
     }
 
     /**
      * Get the list of actions that it is possible to perform from this Ship. A Ship is able to
-     * perform the actions of its CargoHold and NavigationRoom.
+     * repair any of its Rooms with the CargoHold's REPAIR_KITs, most recently installed first,
+     * and to perform the actions of every Room other than its holds.
      * @return A List of actions as a string.
      */
     public List<String> getActions() {
-        List<String> returnList = new ArrayList<>();
+        List<String> roomNames = rooms.getNames();
+        Collections.reverse(roomNames);
+        List<String> returnList = cargoHold.getRepairActions(roomNames);
 
-        returnList.addAll(cargoHold.getActions());
-        returnList.addAll(navigationRoom.getActions());
+        for (Room room : rooms) {
+            if (room.getKind() != RoomKind.CARGO_HOLD) {
+                returnList.addAll(room.getActions());
+            }
+        }
 
         return returnList;
     }
@@ -0,0 +1,84 @@
+package srg.cli.given;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CLIHandlerTest {
+
+    private CLIHandler handler;
+    private List<String> output;
+    private IO io;
+
+    @Before
+    public void setUp() {
+        handler = new CLIHandler();
+        output = new ArrayList<>();
+        io = new IO() {
+            @Override
+            public void writeLn(String line) {
+                output.add(line);
+            }
+        };
+    }
+
+    @Test
+    public void splitsOnSeparator() {
+        assertEquals(List.of("fly to B", "show status"),
+                CLIHandler.splitCommands(" fly to B;show status ;; "));
+        assertEquals(List.of("exit"), CLIHandler.splitCommands("exit"));
+        assertEquals(List.of(), CLIHandler.splitCommands(" ; "));
+    }
+
+    @Test
+    public void keepsSeparatorsInQuotedNames() {
+        assertEquals(List.of("fly to \"A;B\"", "show status"),
+                CLIHandler.splitCommands("fly to \"A;B\"; show status"));
+        assertEquals(List.of("show room \"x ; y\""),
+                CLIHandler.splitCommands("show room \"x ; y\""));
+    }
+
+    @Test
+    public void parsesBatches() {
+        Command single = handler.parseLine(io, "fly to B");
+        assertFalse(single instanceof CommandBatch);
+        assertEquals(CommandType.FLY_TO, single.type);
+
+        CommandBatch batch = (CommandBatch) handler.parseLine(io, "fly to B; jump to \"C D\"");
+        assertEquals(2, batch.commands.size());
+        assertEquals("C D", ((ShipCommand) batch.commands.get(1)).value);
+        assertFalse(batch.stopOnError);
+
+        handler.setStopOnError(true);
+        assertTrue(((CommandBatch) handler.parseLine(io, "show port; exit")).stopOnError);
+    }
+
+    @Test
+    public void rejectsBatchesWithAnInvalidCommand() {
+        assertNull(handler.parseLine(io, "show port; not a command"));
+        assertNull(handler.parseLine(io, " ; "));
+        assertEquals(List.of("Invalid command.", "Invalid command."), output);
+    }
+
+    @Test
+    public void answersHelpInBatches() {
+        handler.setStopOnError(true);
+        Command command = handler.answerHelp(io, handler.parseLine(io, "help; show status"));
+        CommandBatch batch = (CommandBatch) command;
+        assertEquals(1, batch.commands.size());
+        assertEquals(CommandType.SHOW_STATUS, batch.commands.get(0).type);
+        assertTrue(batch.stopOnError);
+        assertEquals(List.of(handler.getHelp()), output);
+
+        assertNull(handler.answerHelp(io, handler.parseLine(io, "help; show help")));
+        assertNull(handler.answerHelp(io, handler.parseLine(io, "help")));
+        assertEquals(4, output.size());
+
+        Command status = handler.parseLine(io, "show status");
+        assertSame(status, handler.answerHelp(io, status));
+    }
+}
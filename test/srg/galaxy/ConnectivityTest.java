@@ -0,0 +1,89 @@
+package srg.galaxy;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.exceptions.NoPathException;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ship.RoomTier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConnectivityTest {
+
+    private SpacePort a;
+    private SpacePort b;
+    private SpacePort c;
+    private SpacePort far;
+    private Connectivity connectivity;
+
+    @Before
+    public void setup() {
+        a = new SpacePort("A", new Position(0, 0, 0));
+        b = new SpacePort("B", new Position(180, 0, 0));
+        c = new SpacePort("C", new Position(360, 0, 0));
+        far = new SpacePort("Far", new Position(1200, 0, 0));
+        connectivity = new Connectivity(new ArrayList<>(List.of(a, b, c, far)));
+    }
+
+    @Test
+    public void components() {
+        // BASIC flies 200 and jumps 500; PRIME jumps 1000
+        assertTrue(connectivity.isConnected(a, c, RoomTier.BASIC, TravelMode.FLY));
+        assertFalse(connectivity.isConnected(a, far, RoomTier.BASIC, TravelMode.JUMP));
+        assertTrue(connectivity.isConnected(a, far, RoomTier.PRIME, TravelMode.JUMP));
+        assertEquals(2, connectivity.getComponentCount(RoomTier.BASIC, TravelMode.FLY));
+        assertEquals(1, connectivity.getComponentCount(RoomTier.PRIME, TravelMode.JUMP));
+        assertEquals(List.of(a, b, c),
+                connectivity.getComponent(b, RoomTier.BASIC, TravelMode.JUMP));
+    }
+
+    @Test(expected = NoPathException.class)
+    public void checkRouteRejects() throws NoPathException {
+        connectivity.checkRoute(a, far, RoomTier.AVERAGE, TravelMode.JUMP);
+    }
+
+    @Test
+    public void checkRouteAccepts() throws NoPathException {
+        connectivity.checkRoute(a, c, RoomTier.BASIC, TravelMode.FLY);
+    }
+
+    @Test
+    public void addMerges() {
+        connectivity.add(new SpacePort("Bridge", new Position(800, 0, 0)));
+        assertTrue(connectivity.isConnected(a, far, RoomTier.BASIC, TravelMode.JUMP));
+    }
+
+    @Test
+    public void removeSplits() {
+        assertTrue(connectivity.remove(b));
+        assertFalse(connectivity.isConnected(a, c, RoomTier.BASIC, TravelMode.FLY));
+        assertTrue(connectivity.isConnected(a, c, RoomTier.BASIC, TravelMode.JUMP));
+        assertFalse(connectivity.isConnected(a, b, RoomTier.BASIC, TravelMode.JUMP));
+        assertEquals(List.of(c), connectivity.getComponent(c, RoomTier.BASIC, TravelMode.FLY));
+        assertFalse(connectivity.remove(b));
+        assertEquals(3, connectivity.size());
+
+        connectivity.add(b);
+        assertTrue(connectivity.isConnected(a, c, RoomTier.BASIC, TravelMode.FLY));
+    }
+    @Test
+    public void relocation() {
+        // Still within flying range of B, so nothing can split
+        c.setPosition(new Position(370, 0, 0));
+        connectivity.relocate(c, new Position(360, 0, 0));
+        assertTrue(connectivity.isConnected(a, c, RoomTier.BASIC, TravelMode.FLY));
+        assertEquals(0, connectivity.getRebuildCount());
+
+        // B leaves A and C behind, so the components are rebuilt and split
+        b.setPosition(new Position(1100, 0, 0));
+        connectivity.relocate(b, new Position(180, 0, 0));
+        assertTrue(connectivity.isConnected(b, far, RoomTier.BASIC, TravelMode.FLY));
+        assertFalse(connectivity.isConnected(a, c, RoomTier.BASIC, TravelMode.FLY));
+        assertEquals(1, connectivity.getRebuildCount());
+        assertEquals(3, connectivity.getComponentCount(RoomTier.BASIC, TravelMode.FLY));
+    }
+}
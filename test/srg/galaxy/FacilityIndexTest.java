@@ -0,0 +1,64 @@
+package srg.galaxy;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.ports.Position;
+import srg.ports.ShipYard;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FacilityIndexTest {
+
+    private static final Position ORIGIN = new Position(0, 0, 0);
+
+    private ShipYard cargoYard;
+    private ShipYard navigationYard;
+    private Store near;
+    private Store far;
+    private FacilityIndex index;
+
+    @Before
+    public void setup() {
+        cargoYard = new ShipYard("Cargo Yard", new Position(10, 0, 0), List.of("CargoHold"));
+        navigationYard = new ShipYard("Nav Yard", new Position(3000, 0, 0),
+                List.of("NavigationRoom", "CargoHold"));
+        near = new Store("Near", new Position(0, 20, 0));
+        far = new Store("Far", new Position(0, 0, 8000));
+        index = new FacilityIndex(List.of(cargoYard, navigationYard, near, far,
+                new SpacePort("Port", ORIGIN)));
+    }
+
+    @Test
+    public void nearestShipYardCanUpgrade() {
+        assertSame(cargoYard, index.nearestShipYard(ORIGIN, 0, "CargoHold"));
+        assertSame(navigationYard, index.nearestShipYard(ORIGIN, 0, "NavigationRoom"));
+        assertNull(index.nearestShipYard(ORIGIN, 0, "Bridge"));
+    }
+
+    @Test
+    public void nearestStoreInStock() throws Exception {
+        assertSame(near, index.nearestStore(ORIGIN, 0, "HYPERDRIVE_CORE", 1));
+        near.purchase("HYPERDRIVE_CORE", 1000);
+        assertSame(far, index.nearestStore(ORIGIN, 0, "HYPERDRIVE_CORE", 1));
+        assertSame(near, index.nearestStore(ORIGIN, 0, "TRITIUM", 1000));
+        assertNull(index.nearestStore(ORIGIN, 0, "TRITIUM", 1001));
+    }
+
+    @Test
+    public void kNearestInOrder() {
+        assertEquals(List.of(near, far),
+                index.nearest(Store.class, ORIGIN, 0, 5, store -> true));
+        assertEquals(List.of(cargoYard),
+                index.nearest(ShipYard.class, ORIGIN, 0, 1, shipYard -> true));
+    }
+
+    @Test
+    public void removed() {
+        assertTrue(index.remove(cargoYard));
+        assertSame(navigationYard, index.nearestShipYard(ORIGIN, 0, "CargoHold"));
+    }
+}
@@ -0,0 +1,155 @@
+package srg.galaxy;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.ports.LinearTrajectory;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.resources.FuelContainer;
+import srg.resources.FuelGrade;
+import srg.ship.CargoHold;
+import srg.ship.NavigationRoom;
+import srg.ship.Outcome;
+import srg.ship.RoomTier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GalaxyTest {
+
+    private SpacePort a;
+    private SpacePort b;
+    private SpacePort c;
+    private Galaxy galaxy;
+    private NavigationRoom navigationRoom;
+
+    @Before
+    public void setup() {
+        a = new SpacePort("A", new Position(0, 0, 0));
+        b = new SpacePort("B", new Position(100, 0, 0));
+        c = new SpacePort("C", new Position(2000, 0, 0));
+        galaxy = new Galaxy(List.of(a, b, c));
+        navigationRoom = new NavigationRoom(RoomTier.BASIC, galaxy);
+    }
+
+    @Test
+    public void indexes() {
+        assertEquals(2, galaxy.indexOf(c));
+        assertSame(b, galaxy.get("B"));
+        assertNull(galaxy.get("D"));
+        assertSame(b, galaxy.nearest(new Position(90, 0, 0)));
+        assertSame(c, galaxy.nearest(new Position(5000, 0, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateName() {
+        galaxy.add(new SpacePort("A", new Position(5, 5, 5)));
+    }
+
+    @Test
+    public void removeBeforeCurrent() {
+        navigationRoom.setCurrentIndex(2);
+        galaxy.remove(a);
+        assertSame(c, navigationRoom.getCurrentPort());
+        assertEquals(1, galaxy.indexOf(c));
+    }
+
+    @Test
+    public void insertBeforeCurrent() {
+        navigationRoom.setCurrentIndex(1);
+        galaxy.add(0, new SpacePort("D", new Position(50, 50, 50)));
+        assertSame(b, navigationRoom.getCurrentPort());
+    }
+
+    @Test
+    public void removeCurrentMovesToNearest() {
+        navigationRoom.setCurrentIndex(0);
+        galaxy.remove(a);
+        assertSame(b, navigationRoom.getCurrentPort());
+    }
+
+    @Test
+    public void relocate() {
+        assertFalse(galaxy.getConnectivity().isConnected(a, c, RoomTier.PRIME, TravelMode.JUMP));
+        int version = galaxy.getVersion();
+        galaxy.relocate(c, new Position(600, 0, 0));
+        assertTrue(galaxy.getConnectivity().isConnected(a, c, RoomTier.PRIME, TravelMode.JUMP));
+        assertSame(c, galaxy.nearest(new Position(700, 0, 0)));
+        assertTrue(galaxy.getVersion() != version);
+    }
+    @Test
+    public void stoppingAMovingPortRestoresPruning() {
+        assertFalse(galaxy.mayConnect(a, c, RoomTier.PRIME, TravelMode.JUMP));
+        galaxy.setTrajectory(c, new LinearTrajectory(c.getPosition(), -150, 0, 0));
+        assertTrue(galaxy.mayConnect(a, c, RoomTier.PRIME, TravelMode.JUMP));
+        assertTrue(galaxy.inRangeOf(a, 500, 11).contains(c));
+
+        galaxy.relocate(c, new Position(3000, 0, 0));
+        assertNull(c.getTrajectory());
+        assertFalse(galaxy.mayConnect(a, c, RoomTier.PRIME, TravelMode.JUMP));
+        assertFalse(galaxy.inRangeOf(a, 500, 11).contains(c));
+
+        galaxy.setTrajectory(c, new LinearTrajectory(c.getPosition(), -150, 0, 0));
+        galaxy.setTrajectory(c, null);
+        assertFalse(galaxy.mayConnect(a, c, RoomTier.PRIME, TravelMode.JUMP));
+    }
+
+    @Test
+    public void setReplacesInPlace() {
+        navigationRoom.setCurrentIndex(1);
+        SpacePort d = new SpacePort("D", new Position(2100, 0, 0));
+        assertSame(b, galaxy.set(1, d));
+        assertSame(d, navigationRoom.getCurrentPort());
+        assertEquals(1, galaxy.indexOf(d));
+        assertEquals(-1, galaxy.indexOf(b));
+        assertNull(galaxy.get("B"));
+        assertSame(d, galaxy.nearest(new Position(2150, 0, 0)));
+        assertTrue(galaxy.getConnectivity().isConnected(c, d, RoomTier.BASIC, TravelMode.FLY));
+
+        // The replaced port's own name may be reused, but no other
+        galaxy.set(1, new SpacePort("D", new Position(100, 0, 0)));
+        try {
+            galaxy.set(1, new SpacePort("A", new Position(100, 0, 0)));
+            fail("Replaced a port with a duplicate name.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void rangeQueriesFollowTrajectories() {
+        SpacePort comet = new SpacePort("Comet", new Position(2000, 0, 0));
+        comet.setTrajectory(new LinearTrajectory(comet.getPosition(), -150, 0, 0));
+        galaxy.add(comet);
+        galaxy.add(new SpacePort("D", new Position(0, 300, 0)));
+        // The same ports in a plain list, which the NavigationRoom scans
+        NavigationRoom scanned = new NavigationRoom(RoomTier.BASIC, new ArrayList<>(galaxy));
+        for (int time = 0; time < 20; time++) {
+            navigationRoom.setTime(time);
+            scanned.setTime(time);
+            assertEquals(scanned.getPortsInFlyRange(), navigationRoom.getPortsInFlyRange());
+            assertEquals(scanned.getPortsInJumpRange(), navigationRoom.getPortsInJumpRange());
+        }
+        navigationRoom.setTime(12);
+        assertTrue(navigationRoom.getPortsInFlyRange().contains(comet));
+    }
+
+    @Test
+    public void shipsShareTheGalaxyClock() throws Exception {
+        SpacePort comet = new SpacePort("Comet", new Position(2000, 0, 0));
+        comet.setTrajectory(new LinearTrajectory(comet.getPosition(), -150, 0, 0));
+        galaxy.add(comet);
+        NavigationRoom other = new NavigationRoom(RoomTier.BASIC, galaxy);
+        CargoHold cargoHold = new CargoHold(RoomTier.BASIC);
+        cargoHold.storeResource(new FuelContainer(FuelGrade.TRITIUM, 100));
+
+        // A failed attempt takes a tick too
+        assertEquals(Outcome.UNKNOWN_PORT, navigationRoom.tryFlyTo("Nowhere", cargoHold));
+        assertEquals(Outcome.SUCCESS, navigationRoom.tryFlyTo("B", cargoHold));
+        assertEquals(2, galaxy.getClock().getTime());
+        assertEquals(2, other.getTime());
+        assertEquals(navigationRoom.getFuelNeeded(comet) + 100, other.getFuelNeeded(comet));
+    }
+}
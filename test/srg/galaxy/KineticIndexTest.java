@@ -0,0 +1,104 @@
+package srg.galaxy;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.ports.LinearTrajectory;
+import srg.ports.OrbitalTrajectory;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ship.NavigationRoom;
+import srg.ship.RoomTier;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KineticIndexTest {
+
+    private List<SpacePort> ports;
+
+    @Before
+    public void setup() {
+        Random random = new Random(7);
+        ports = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            SpacePort port = new SpacePort("P" + i, new Position(random.nextInt(4000),
+                    random.nextInt(4000), random.nextInt(4000)));
+            switch (i % 3) {
+                case 1 -> port.setTrajectory(new LinearTrajectory(port.getPosition(),
+                        random.nextInt(21) - 10, random.nextInt(21) - 10, 0));
+                case 2 -> port.setTrajectory(new OrbitalTrajectory(port.getPosition(),
+                        random.nextInt(300), 20 + random.nextInt(100), random.nextInt(50)));
+                default -> { }
+            }
+            ports.add(port);
+        }
+    }
+
+    private List<SpacePort> bruteForce(Position centre, int radius, long time) {
+        List<SpacePort> found = new ArrayList<>();
+        for (SpacePort port : ports) {
+            if (centre.distanceTo(port.getPositionAt(time)) <= radius) {
+                found.add(port);
+            }
+        }
+        return found;
+    }
+
+    private static List<SpacePort> sorted(List<SpacePort> ports) {
+        List<SpacePort> copy = new ArrayList<>(ports);
+        copy.sort(Comparator.comparing(SpacePort::getName));
+        return copy;
+    }
+
+    @Test
+    public void matchesBruteForce() {
+        KineticIndex index = new KineticIndex(500, ports);
+        Random random = new Random(11);
+        for (long time = 0; time < 200; time += 1 + random.nextInt(5)) {
+            Position centre = new Position(random.nextInt(4000), random.nextInt(4000),
+                    random.nextInt(4000));
+            int radius = 200 + random.nextInt(800);
+            assertEquals(sorted(bruteForce(centre, radius, time)),
+                    sorted(index.within(centre, radius, time)));
+        }
+        assertTrue(index.getRebuildCount() > 0);
+        assertTrue(index.getRebuildCount() < 50);
+    }
+
+    @Test
+    public void removeMoving() {
+        KineticIndex index = new KineticIndex(500, ports);
+        SpacePort moving = ports.get(1);
+        assertTrue(index.remove(moving));
+        assertFalse(index.within(moving.getPositionAt(30), 0, 30).contains(moving));
+        assertEquals(ports.size() - 1, index.size());
+    }
+
+    @Test
+    public void orbitReturns() {
+        SpacePort port = new SpacePort("Orbit", new Position(0, 0, 0));
+        port.setTrajectory(new OrbitalTrajectory(new Position(100, 100, 0), 50, 8, 0));
+        assertEquals("(150, 100, 0)", port.getPosition().toString());
+        assertEquals("(100, 150, 0)", port.getPositionAt(2).toString());
+        assertEquals(port.getPositionAt(3).toString(), port.getPositionAt(11).toString());
+    }
+
+    @Test
+    public void navigationUsesSimulationTime() {
+        SpacePort home = new SpacePort("Home", new Position(0, 0, 0));
+        SpacePort drifter = new SpacePort("Drifter", new Position(0, 0, 0));
+        drifter.setTrajectory(new LinearTrajectory(new Position(150, 0, 0), 100, 0, 0));
+        NavigationRoom navigationRoom = new NavigationRoom(RoomTier.BASIC,
+                new ArrayList<>(List.of(home, drifter)));
+
+        assertEquals(List.of(drifter), navigationRoom.getPortsInFlyRange());
+        assertEquals(150, navigationRoom.getFuelNeeded(drifter));
+        navigationRoom.setTime(1);
+        assertEquals(List.of(drifter), navigationRoom.getPortsInJumpRange());
+        assertEquals(250, navigationRoom.getFuelNeeded(drifter));
+    }
+}
@@ -0,0 +1,152 @@
+package srg.galaxy;
+
+import org.junit.Test;
+import srg.ports.Position;
+import srg.ports.ShipYard;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.NavigationRoom;
+import srg.ship.RoomTier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LazyGalaxyTest {
+
+    /**
+     * Returns a far-away sector that holds at least one port.
+     */
+    private static int[] occupiedSector(SectorGenerator generator) {
+        for (int x = 50; ; x++) {
+            if (!generator.generate(x, -3, 7).isEmpty()) {
+                return new int[] {x, -3, 7};
+            }
+        }
+    }
+
+    @Test
+    public void sectorsAreDeterministic() {
+        SectorGenerator first = new SectorGenerator(42, 1000);
+        SectorGenerator second = new SectorGenerator(42, 1000);
+        int[] sector = occupiedSector(first);
+        List<SpacePort> a = first.generate(sector[0], sector[1], sector[2]);
+        List<SpacePort> b = second.generate(sector[0], sector[1], sector[2]);
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.get(i).getName(), b.get(i).getName());
+            assertEquals(a.get(i).getPosition().toString(), b.get(i).getPosition().toString());
+            assertEquals(a.get(i).getClass(), b.get(i).getClass());
+            assertTrue(Arrays.equals(sector, SectorGenerator.parseSector(a.get(i).getName())));
+            assertEquals(sector[0], first.sectorOf(a.get(i).getPosition().x));
+        }
+        assertFalse(new SectorGenerator(42, 1000).generate(0, 0, 0).isEmpty());
+        assertNull(SectorGenerator.parseSector("Mercury"));
+    }
+
+    @Test
+    public void leastRecentlyUsedSectorsAreEvicted() throws Exception {
+        LazyGalaxy galaxy = new LazyGalaxy(new SectorGenerator(7, 1000), 60);
+        Store home = (Store) galaxy.get(0);
+        home.purchase("TRITIUM", 10);
+
+        for (int x = 0; x < 20; x++) {
+            galaxy.ensureAround(new Position(x * 1000 + 500, 500, 500), 400);
+            assertTrue(galaxy.size() <= 60);
+        }
+        assertNull(galaxy.get(home.getName()));
+
+        int generated = galaxy.getGeneratedCount();
+        Store again = (Store) galaxy.find(home.getName());
+        assertTrue(again != home);
+        assertEquals(home.getPosition().toString(), again.getPosition().toString());
+        assertEquals(home.getStock("TRITIUM"), again.getStock("TRITIUM"));
+        assertEquals(generated + 1, galaxy.getGeneratedCount());
+    }
+
+    @Test
+    public void findEvictsOtherSectors() {
+        SectorGenerator generator = new SectorGenerator(7, 1000);
+        LazyGalaxy galaxy = new LazyGalaxy(generator, 60);
+        for (int x = 1; x < 40; x++) {
+            for (SpacePort port : generator.generate(x, 0, 0)) {
+                assertEquals(port.getName(), galaxy.find(port.getName()).getName());
+                assertTrue(galaxy.size() <= 60);
+            }
+        }
+    }
+
+    @Test
+    public void onlyTheLatestEvictedStocksAreKept() throws Exception {
+        SectorGenerator generator = new SectorGenerator(7, 1000);
+        LazyGalaxy galaxy = new LazyGalaxy(generator, 3);
+        List<String> stores = new ArrayList<>();
+        for (int x = 1; stores.size() < 5; x++) {
+            for (SpacePort port : generator.generate(x, 0, 0)) {
+                if (port instanceof Store) {
+                    stores.add(port.getName());
+                    break;
+                }
+            }
+        }
+        for (String name : stores) {
+            ((Store) galaxy.find(name)).purchase("TRITIUM", 1);
+        }
+        // Evict the last Store's sector too
+        galaxy.find(generator.generate(0, 0, 0).get(0).getName());
+
+        assertEquals(999, ((Store) galaxy.find(stores.get(4))).getStock("TRITIUM"));
+        assertEquals(999, ((Store) galaxy.find(stores.get(2))).getStock("TRITIUM"));
+        // More sold-from Stores were evicted than ports are held, so the first is restocked
+        assertEquals(1000, ((Store) galaxy.find(stores.get(0))).getStock("TRITIUM"));
+    }
+
+    @Test
+    public void navigationRoomQueriesGenerateSectors() throws Exception {
+        SectorGenerator generator = new SectorGenerator(3, 1000);
+        LazyGalaxy galaxy = new LazyGalaxy(generator, 1000);
+        NavigationRoom navigationRoom = new NavigationRoom(RoomTier.PRIME, galaxy);
+        int loaded = galaxy.getSectorCount();
+        navigationRoom.getPortsInJumpRange();
+        assertTrue(galaxy.getSectorCount() > loaded);
+
+        int[] sector = occupiedSector(generator);
+        String far = generator.generate(sector[0], sector[1], sector[2]).get(0).getName();
+        assertNull(galaxy.get(far));
+        assertEquals(far, navigationRoom.getSpacePortFromName(far).getName());
+        assertNull(navigationRoom.findSpacePort("Nowhere S1_2_3 99"));
+    }
+    @Test
+    public void nearestQueriesSearchOutwardInRings() {
+        // A seed whose origin sector cannot upgrade the NavigationRoom
+        long seed = 0;
+        while (new SectorGenerator(seed, 1000).generate(0, 0, 0).stream().anyMatch(
+                port -> port instanceof ShipYard yard && yard.canUpgrade("NavigationRoom"))) {
+            seed++;
+        }
+        SectorGenerator generator = new SectorGenerator(seed, 1000);
+        LazyGalaxy galaxy = new LazyGalaxy(new SectorGenerator(seed, 1000), 10_000);
+        NavigationRoom navigationRoom = new NavigationRoom(RoomTier.BASIC, galaxy);
+        Position centre = navigationRoom.getCurrentPort().getPosition();
+        ShipYard found = navigationRoom.findNearestShipYard("NavigationRoom");
+        assertNotNull(found);
+        int distance = found.getPosition().distanceTo(centre);
+        assertTrue(distance > navigationRoom.getMaximumJumpDistance());
+
+        // Every sector that could hold a nearer ShipYard
+        int reach = distance / 1000 + 1;
+        for (int x = -reach; x <= reach; x++) {
+            for (int y = -reach; y <= reach; y++) {
+                for (int z = -reach; z <= reach; z++) {
+                    for (SpacePort port : generator.generate(x, y, z)) {
+                        if (port instanceof ShipYard yard && yard.canUpgrade("NavigationRoom")) {
+                            assertTrue(port.getPosition().distanceTo(centre) >= distance);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
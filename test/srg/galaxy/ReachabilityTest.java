@@ -0,0 +1,113 @@
+package srg.galaxy;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.exceptions.NoPathException;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ship.RoomTier;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReachabilityTest {
+
+    private SpacePort a;
+    private SpacePort b;
+    private SpacePort c;
+    private SpacePort d;
+    private SpacePort e;
+    private Reachability reachability;
+
+    @Before
+    public void setup() {
+        // BASIC: fly up to 200, jump up to 500
+        a = new SpacePort("A", new Position(0, 0, 0));
+        b = new SpacePort("B", new Position(150, 0, 0));
+        c = new SpacePort("C", new Position(300, 0, 0));
+        d = new SpacePort("D", new Position(450, 0, 0));
+        e = new SpacePort("E", new Position(1200, 0, 0));
+        reachability = new Reachability(List.of(a, b, c, d, e), RoomTier.BASIC);
+    }
+
+    @Test
+    public void zeroHops() {
+        assertEquals(List.of(), reachability.withinHops(a, 0, TravelMode.FLY));
+    }
+
+    @Test
+    public void flyHops() {
+        assertEquals(List.of(b), reachability.withinHops(a, 1, TravelMode.FLY));
+        assertEquals(List.of(b, c), reachability.withinHops(a, 2, TravelMode.FLY));
+        assertEquals(List.of(b, c, d), reachability.withinHops(a, 5, TravelMode.FLY));
+    }
+
+    @Test
+    public void jumpHops() {
+        assertEquals(List.of(b, c, d), reachability.withinHops(a, 1, TravelMode.JUMP));
+        assertEquals(List.of(a, b, c), reachability.withinHops(d, 1, TravelMode.JUMP));
+    }
+
+    @Test
+    public void tritiumBudget() {
+        assertEquals(List.of(), reachability.withinBudget(a, 149, 0));
+        assertEquals(List.of(b), reachability.withinBudget(a, 150, 0));
+        assertEquals(List.of(b, c), reachability.withinBudget(a, 300, 0));
+    }
+
+    @Test
+    public void hyperdriveCoreBudget() {
+        assertEquals(List.of(b, c, d), reachability.withinBudget(a, 0, 1));
+        assertEquals(List.of(b, c, d), reachability.withinBudget(a, 1000, 10));
+        // Cores beyond the jump component's size are never used, so the search stays small
+        assertEquals(List.of(b, c, d),
+                reachability.withinBudget(a, 1000, Integer.MAX_VALUE));
+        assertEquals(List.of(), reachability.withinBudget(e, 1000, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void mixedBudget() {
+        // Jump D to B, then fly B to A
+        assertEquals(List.of(c), reachability.withinBudget(d, 150, 0));
+        assertEquals(List.of(a, b, c), reachability.withinBudget(d, 150, 1));
+        assertEquals(List.of(), reachability.withinBudget(e, 1000, 5));
+    }
+
+    @Test
+    public void reusesResult() {
+        BitSet result = new BitSet();
+        reachability.withinBudget(a, 300, 0, result);
+        assertEquals(List.of(b, c), reachability.toPorts(result));
+        reachability.withinHops(e, 3, TravelMode.JUMP, result);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void hopsBetweenConnectedPorts() throws NoPathException {
+        assertEquals(3, reachability.hopsBetween(a, d, TravelMode.FLY));
+        assertEquals(1, reachability.hopsBetween(a, d, TravelMode.JUMP));
+        assertEquals(0, reachability.hopsBetween(a, a, TravelMode.FLY));
+    }
+
+    @Test
+    public void unreachableTargetsAreRejectedWithoutSearching() {
+        long searches = reachability.getSearchCount();
+        try {
+            reachability.hopsBetween(a, e, TravelMode.JUMP);
+            fail("E is out of jump range of every other port");
+        } catch (NoPathException expected) {
+            // rejected by connectivity
+        }
+        assertFalse(reachability.canReach(a, e, 1000, 5));
+        assertEquals(searches, reachability.getSearchCount());
+        assertTrue(reachability.canReach(a, d, 0, 1));
+        assertEquals(searches + 1, reachability.getSearchCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownPort() {
+        reachability.withinHops(new SpacePort("F", new Position(0, 0, 0)), 1, TravelMode.FLY);
+    }
+}
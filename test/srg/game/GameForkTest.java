@@ -0,0 +1,107 @@
+package srg.game;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelGrade;
+import srg.ship.Room;
+import srg.ship.RoomKind;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameForkTest {
+
+    private Store a;
+    private Store b;
+    private Game game;
+
+    @Before
+    public void setup() {
+        a = new Store("A", new Position(0, 0, 0));
+        b = new Store("B", new Position(30, 0, 0));
+        List<SpacePort> galaxy = List.of(a, b);
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        game = new Game(galaxy, ship);
+    }
+
+    private int tritium() {
+        return game.ship.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM);
+    }
+
+    @Test
+    public void applyLeavesParentUnchanged() {
+        GameFork root = GameFork.capture(game);
+        GameFork flown = root.apply(new ShipCommand(CommandType.FLY_TO, "B"));
+        assertNotNull(flown);
+        assertEquals(1, flown.getCurrentIndex());
+        assertEquals(1, flown.getTime());
+        assertEquals(70, tritium());
+
+        root.checkout();
+        assertEquals(0, game.ship.getNavigationRoom().getCurrentIndex());
+        assertEquals(100, tritium());
+        assertEquals(100, game.ship.getCargoHold().getHealth());
+
+        flown.checkout();
+        assertEquals(b, game.ship.getNavigationRoom().getCurrentPort());
+        assertEquals(70, tritium());
+    }
+
+    @Test
+    public void storeStockIsCopyOnWrite() {
+        GameFork root = GameFork.capture(game);
+        GameFork flown = root.apply(new ShipCommand(CommandType.FLY_TO, "B"));
+        assertEquals(0, flown.getChangedStoreCount());
+        GameFork bought = flown.apply(new PurchaseCommand("TRITIUM", 400));
+        assertEquals(1, bought.getChangedStoreCount());
+        assertEquals(600, b.getStock("TRITIUM"));
+
+        // A sibling buying at the same Store starts from the base stock
+        GameFork sibling = flown.apply(new PurchaseCommand("TRITIUM", 100));
+        assertEquals(900, b.getStock("TRITIUM"));
+        bought.checkout();
+        assertEquals(600, b.getStock("TRITIUM"));
+        assertEquals(470, tritium());
+
+        root.checkout();
+        assertEquals(1000, b.getStock("TRITIUM"));
+        assertEquals(1000, a.getStock("TRITIUM"));
+        sibling.checkout();
+        assertEquals(900, b.getStock("TRITIUM"));
+    }
+
+    @Test
+    public void failedCommandReturnsNull() {
+        GameFork root = GameFork.capture(game);
+        assertNull(root.apply(new ShipCommand(CommandType.FLY_TO, "Nowhere")));
+        assertNull(root.apply(new ShipCommand(CommandType.REPAIR_ROOM, "Bridge")));
+        assertNull(root.apply(new PurchaseCommand("TRITIUM", 5000)));
+        root.checkout();
+        assertEquals(1000, a.getStock("TRITIUM"));
+        assertEquals(RoomTier.BASIC, root.getTier("NavigationRoom"));
+    }
+    @Test
+    public void modulesAreForked() {
+        Room engine = new Room(RoomTier.BASIC, RoomKind.ENGINE);
+        game.ship.addRoom("Engine", engine);
+        GameFork root = GameFork.capture(game);
+        GameFork flown = root.apply(new ShipCommand(CommandType.FLY_TO, "B"));
+        int damaged = engine.getHealthPoints();
+        assertTrue(damaged < engine.getMaximumHealth());
+
+        root.checkout();
+        assertEquals(engine.getMaximumHealth(), engine.getHealthPoints());
+        flown.checkout();
+        assertEquals(damaged, engine.getHealthPoints());
+        assertEquals(RoomTier.BASIC, flown.getTier("Engine"));
+    }
+}
@@ -0,0 +1,64 @@
+package srg.game;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.CLIHandler;
+import srg.cli.given.Command;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameTest {
+
+    private Game game;
+    private CLIHandler handler;
+
+    @Before
+    public void setup() {
+        List<SpacePort> galaxy = List.of(new Store("A", new Position(0, 0, 0)),
+                new SpacePort("B", new Position(30, 0, 0)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        game = new Game(galaxy, ship);
+        handler = new CLIHandler();
+    }
+
+    private boolean update(String line) {
+        QuietIO io = new QuietIO();
+        Command command = handler.parseLine(io, line);
+        return game.update(io, command);
+    }
+
+    private String currentPort() {
+        return game.ship.getNavigationRoom().getCurrentPort().getName();
+    }
+
+    @Test
+    public void batchesContinuePastErrorsByDefault() {
+        assertFalse(update("fly to Nowhere; fly to B"));
+        assertEquals("B", currentPort());
+    }
+
+    @Test
+    public void batchesStopOnError() {
+        handler.setStopOnError(true);
+        assertFalse(update("fly to Nowhere; fly to B"));
+        assertEquals("A", currentPort());
+
+        // An exit after a failure is skipped too
+        assertFalse(update("fly to Nowhere; exit"));
+        assertFalse(update("fly to B; fly to A"));
+        assertEquals("A", currentPort());
+    }
+
+    @Test
+    public void batchesExit() {
+        assertTrue(update("fly to B; exit; fly to A"));
+        assertEquals("B", currentPort());
+    }
+}
@@ -0,0 +1,103 @@
+package srg.game;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.metrics.MetricsSnapshot;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelGrade;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ScriptRunnerTest {
+
+    private Game game;
+
+    @Before
+    public void setup() {
+        List<SpacePort> galaxy = List.of(new Store("A", new Position(0, 0, 0)),
+                new SpacePort("B", new Position(30, 0, 0)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        game = new Game(galaxy, ship);
+    }
+
+    private ScriptRunner.Result run(String script) throws Exception {
+        return ScriptRunner.run(game, new BufferedReader(new StringReader(script)),
+                new QuietIO());
+    }
+
+    @Test
+    public void runsEveryCommand() throws Exception {
+        ScriptRunner.Result result = run("# travel\n\nfly to B\n  show status ; fly to A\n");
+        assertTrue(result.isSuccess());
+        assertEquals(3, result.commands);
+        assertEquals("A", game.ship.getNavigationRoom().getCurrentPort().getName());
+    }
+
+    @Test
+    public void countsErrorsByType() throws Exception {
+        ScriptRunner.Result result = run(
+                "not a command\nfly to Nowhere\nfly to B\nbuy TRITIUM 5\nrepair Bridge\n");
+        assertFalse(result.isSuccess());
+        assertEquals(4, result.commands);
+        assertEquals(Long.valueOf(1), result.errors.get(ScriptRunner.INVALID_COMMAND));
+        assertEquals(Long.valueOf(1), result.errors.get("NoPathException"));
+        assertEquals(Long.valueOf(1), result.errors.get(ScriptRunner.REJECTED));
+        assertEquals(Long.valueOf(1), result.errors.get("IllegalArgumentException"));
+        assertEquals(4, result.getTotalErrors());
+    }
+
+    @Test
+    public void skipsTheRestOfALineOnError() throws Exception {
+        ScriptRunner.Result result = ScriptRunner.run(game,
+                new BufferedReader(new StringReader("fly to Nowhere; fly to B\nshow status\n")),
+                new QuietIO(), true);
+        assertEquals(2, result.commands);
+        assertEquals(Long.valueOf(1), result.errors.get("NoPathException"));
+        assertEquals("A", game.ship.getNavigationRoom().getCurrentPort().getName());
+
+        result = run("fly to Nowhere; fly to B\n");
+        assertEquals(2, result.commands);
+        assertEquals("B", game.ship.getNavigationRoom().getCurrentPort().getName());
+    }
+
+    @Test
+    public void malformedNumbersAreInvalidCommands() throws Exception {
+        ScriptRunner.Result result = run("buy TRITIUM 99999999999\nfly to B\n");
+        assertEquals(1, result.commands);
+        assertEquals(Long.valueOf(1), result.errors.get(ScriptRunner.INVALID_COMMAND));
+        assertEquals("B", game.ship.getNavigationRoom().getCurrentPort().getName());
+    }
+
+    @Test
+    public void helpIsNotACommand() throws Exception {
+        ScriptRunner.Result result = run("help\nshow status; help\n");
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.commands);
+    }
+
+    @Test
+    public void batchesAreAppliedByTheGame() throws Exception {
+        run("show status; fly to B\nfly to A\n");
+        MetricsSnapshot metrics = game.getMetrics().snapshot();
+        assertEquals(Long.valueOf(1), metrics.getCounts().get(CommandType.BATCH));
+        assertEquals(Long.valueOf(2), metrics.getCounts().get(CommandType.FLY_TO));
+    }
+
+    @Test
+    public void stopsAtExit() throws Exception {
+        int tritium = game.ship.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM);
+        ScriptRunner.Result result = run("exit\nfly to B\n");
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.commands);
+        assertEquals(tritium, game.ship.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM));
+    }
+}
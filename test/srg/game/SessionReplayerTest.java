@@ -0,0 +1,95 @@
+package srg.game;
+
+import org.junit.Test;
+import srg.cli.given.CLIHandler;
+import srg.cli.given.Command;
+import srg.cli.given.IO;
+import srg.cli.given.MapGenerator;
+import srg.galaxy.LazyGalaxy;
+import srg.galaxy.SectorGenerator;
+import srg.ports.SpacePort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SessionReplayerTest {
+
+    private static final List<String> SESSION = List.of("show status", "help",
+            "not a command", "show port; show actions", "fly to Nowhere", "show room CargoHold",
+            "exit", "show status");
+
+    /**
+     * Plays lines against a new Game as the prompt does, without writing the prompt itself.
+     */
+    private static void play(Game game, IO ioHandler) {
+        CLIHandler commandParser = new CLIHandler();
+        boolean exit = false;
+        while (!exit) {
+            Command command = commandParser.parseLine(ioHandler, ioHandler.readLine());
+            if (command != null) {
+                command = commandParser.answerHelp(ioHandler, command);
+            }
+            exit = command != null && game.update(ioHandler, command);
+        }
+    }
+
+    @Test
+    public void recordedSessionReplaysToTheSameChecksum() {
+        ChecksumIO live = new ChecksumIO();
+        live.setRecording(true);
+        live.addInputLine(SESSION);
+        play(new Game(MapGenerator.DEFAULT_SEED), live);
+        assertEquals(SESSION.subList(0, 7), live.getInputRecord());
+
+        SessionRecording recording =
+                new SessionRecording(MapGenerator.DEFAULT_SEED, live.getInputRecord());
+        SessionReplayer.Result replay = SessionReplayer.replay(recording);
+        assertEquals(6, replay.commands);
+        assertEquals(live.getChecksum(), replay.checksum);
+        assertEquals(replay.checksum, SessionReplayer.replay(recording).checksum);
+    }
+
+    @Test
+    public void infiniteSessionsReplayInAnInfiniteGalaxy() throws IOException {
+        Game game = Game.infinite(11);
+        // A port in a sector that is only generated when it is looked up
+        String far = null;
+        for (int x = 3; far == null; x++) {
+            List<SpacePort> ports = new SectorGenerator(11, LazyGalaxy.DEFAULT_SECTOR_SIZE)
+                    .generate(x, 0, 0);
+            far = ports.isEmpty() ? null : ports.get(0).getName();
+        }
+        ChecksumIO live = new ChecksumIO();
+        live.setRecording(true);
+        live.addInputLine(List.of("show port", "jump to " + far, "show port", "exit"));
+        play(game, live);
+
+        Path path = Files.createTempFile("session", ".txt");
+        try {
+            new SessionRecording(11, true, live.getInputRecord()).write(path);
+            SessionRecording recording = SessionRecording.read(path);
+            assertTrue(recording.isInfinite());
+            assertEquals(11, recording.getSeed());
+            assertEquals(live.getChecksum(), SessionReplayer.replay(recording).checksum);
+            assertFalse(SessionRecording.read(path).getLines().isEmpty());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void linesAreOnlyKeptWhileRecording() {
+        IO ioHandler = new QuietIO();
+        ioHandler.addInputLine(List.of("show status", "show port", "exit"));
+        assertEquals("show status", ioHandler.readLine());
+        ioHandler.setRecording(true);
+        assertEquals("show port", ioHandler.readLine());
+        ioHandler.setRecording(false);
+        assertEquals("exit", ioHandler.readLine());
+        assertEquals(List.of("show port"), ioHandler.getInputRecord());
+    }
+}
@@ -0,0 +1,89 @@
+package srg.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+import srg.game.QuietIO;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelGrade;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameEventsTest {
+
+    /**
+     * Returns the events of a type in a recording, in the order they were committed, each as
+     * its fields joined with spaces.
+     */
+    private static List<String> events(List<RecordedEvent> recorded, String name,
+                                       String... fields) {
+        List<String> found = new ArrayList<>();
+        for (RecordedEvent event : recorded) {
+            if (event.getEventType().getName().equals(name)) {
+                List<String> values = new ArrayList<>();
+                for (String field : fields) {
+                    values.add(String.valueOf((Object) event.getValue(field)));
+                }
+                found.add(String.join(" ", values));
+            }
+        }
+        return found;
+    }
+
+    @Test
+    public void travelTradeAndRepairAreRecorded() throws IOException {
+        Store home = new Store("Home", new Position(0, 0, 0));
+        List<SpacePort> galaxy = List.of(home, new SpacePort("Near", new Position(100, 0, 0)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        QuietIO io = new QuietIO();
+
+        Path file = Files.createTempFile("game-events", ".jfr");
+        List<RecordedEvent> recorded;
+        try (Recording recording = new Recording()) {
+            GameEvents.enable(recording);
+            recording.start();
+            assertTrue(ship.performCommand(io, new PurchaseCommand("TRITIUM", 100)));
+            assertTrue(ship.performCommand(io, new PurchaseCommand("REPAIR_KIT", 1)));
+            assertFalse(home.tryPurchase("PLUTONIUM", 1).isSuccess());
+            assertTrue(ship.performCommand(io,
+                    new ShipCommand(CommandType.REPAIR_ROOM, "NavigationRoom")));
+            assertTrue(ship.performCommand(io, new ShipCommand(CommandType.FLY_TO, "Near")));
+            // Failed attempts consume nothing, so record no consumption or travel
+            assertFalse(ship.getCargoHold().tryConsumeResource(FuelGrade.HYPERDRIVE_CORE, 99)
+                    .isSuccess());
+            assertFalse(ship.performCommand(io, new ShipCommand(CommandType.FLY_TO, "Far")));
+            recording.stop();
+            recording.dump(file);
+            recorded = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        assertEquals(List.of("Home TRITIUM 100 true", "Home REPAIR_KIT 1 true",
+                "Home PLUTONIUM 1 false"),
+                events(recorded, PurchaseEvent.NAME, "store", "item", "amount", "success"));
+        assertEquals(List.of("fly Home Near 100 100"), events(recorded, TravelEvent.NAME,
+                "mode", "source", "destination", "distance", "fuel"));
+        // The Store's CargoHold, then the Ship's, which started with 100 TRITIUM and 5 kits
+        assertEquals(List.of("TRITIUM 100 900", "REPAIR_KIT 1 9", "REPAIR_KIT 1 5",
+                "TRITIUM 100 100"), events(recorded, ConsumeResourceEvent.NAME,
+                "resource", "amount", "remaining"));
+        assertEquals("NavigationRoom reset BASIC 100", events(recorded, RoomHealthEvent.NAME,
+                "room", "action", "tier", "health").get(0));
+        assertTrue(events(recorded, RoomHealthEvent.NAME, "action").contains("damage"));
+    }
+}
@@ -0,0 +1,68 @@
+package srg.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setup() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void empty() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+        assertEquals(50, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(50, histogram.getMax());
+        assertEquals(25, histogram.getValueAtPercentile(50));
+        assertEquals(25.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void largeValuesWithinPrecision() {
+        for (long value = 1000; value <= 1_000_000_000L; value *= 10) {
+            histogram.reset();
+            histogram.record(value);
+            histogram.record(value * 3);
+            long median = histogram.getValueAtPercentile(50);
+            assertTrue(median >= value);
+            assertTrue(median <= value * 1.035);
+        }
+    }
+
+    @Test
+    public void negativeRecordedAsZero() {
+        histogram.record(-5);
+        assertEquals(0, histogram.getMax());
+        assertEquals(1, histogram.getCount());
+    }
+
+    @Test
+    public void add() {
+        LatencyHistogram other = new LatencyHistogram();
+        histogram.record(10);
+        other.record(20);
+        other.record(30);
+        histogram.add(other);
+        assertEquals(3, histogram.getCount());
+        assertEquals(10, histogram.getMin());
+        assertEquals(30, histogram.getMax());
+        assertEquals(30, histogram.getValueAtPercentile(100));
+    }
+}
@@ -0,0 +1,105 @@
+package srg.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.Command;
+import srg.cli.given.CommandType;
+import srg.cli.given.IO;
+import srg.cli.given.ShipCommand;
+import srg.exceptions.NoPathException;
+import srg.game.Game;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    private MetricsRegistry metrics;
+
+    @Before
+    public void setup() {
+        metrics = new MetricsRegistry();
+    }
+
+    @Test
+    public void countsAndLatencies() {
+        metrics.recordCommand(CommandType.FLY_TO, 1_000);
+        metrics.recordCommand(CommandType.FLY_TO, 3_000);
+        metrics.recordCommand(CommandType.SHOW_PORT, 500);
+        metrics.recordFailure(NoPathException.class);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, metrics.getCount(CommandType.FLY_TO));
+        assertEquals(Long.valueOf(2), snapshot.getCounts().get(CommandType.FLY_TO));
+        assertEquals(2, snapshot.getLatency(CommandType.FLY_TO).getCount());
+        assertEquals(3_000, snapshot.getLatency(CommandType.FLY_TO).getMax());
+        assertNull(snapshot.getCounts().get(CommandType.JUMP_TO));
+        assertEquals(Long.valueOf(1), snapshot.getFailures().get("NoPathException"));
+    }
+
+    @Test
+    public void deadThreadsAreRetired() throws InterruptedException {
+        Thread recorder = new Thread(() -> {
+            for (int i = 0; i < 3; i++) {
+                metrics.recordCommand(CommandType.JUMP_TO, 2_000);
+            }
+        });
+        recorder.start();
+        recorder.join();
+        assertEquals(1, metrics.getBufferCount());
+
+        // The dead thread's latencies are kept, but its buffer is dropped
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(0, metrics.getBufferCount());
+        assertEquals(3, snapshot.getLatency(CommandType.JUMP_TO).getCount());
+        metrics.recordCommand(CommandType.JUMP_TO, 2_000);
+        assertEquals(4, metrics.snapshot().getLatency(CommandType.JUMP_TO).getCount());
+    }
+
+    @Test
+    public void resetDiscardsEverything() {
+        metrics.recordCommand(CommandType.FLY_TO, 1_000);
+        metrics.recordFailure(NoPathException.class);
+        metrics.reset();
+        assertEquals(0, metrics.getCount(CommandType.FLY_TO));
+        assertTrue(metrics.snapshot().getFailures().isEmpty());
+
+        metrics.recordCommand(CommandType.FLY_TO, 1_000);
+        assertEquals(1, metrics.snapshot().getLatency(CommandType.FLY_TO).getCount());
+    }
+
+    @Test
+    public void showMetrics() {
+        List<SpacePort> galaxy = List.of(new Store("Home", new Position(0, 0, 0)),
+                new Store("Away", new Position(30, 0, 0)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        Game game = new Game(galaxy, ship);
+        StringBuilder output = new StringBuilder();
+        IO io = new IO() {
+            @Override
+            public void writeLn(String line) {
+                output.append(line).append('\n');
+            }
+
+            @Override
+            public void write(String line) {
+                output.append(line);
+            }
+        };
+        game.update(io, new ShipCommand(CommandType.FLY_TO, "Away"));
+        game.update(io, new ShipCommand(CommandType.FLY_TO, "Nowhere"));
+        output.setLength(0);
+
+        game.update(io, new Command(CommandType.SHOW_METRICS));
+        String shown = output.toString();
+        assertTrue(shown, shown.startsWith("METRICS:\n    FLY_TO: count: 2,"));
+        assertTrue(shown, shown.contains("FAILURES:\n    NoPathException: 1"));
+        assertEquals(1, game.getMetrics().getCount(CommandType.SHOW_METRICS));
+    }
+}
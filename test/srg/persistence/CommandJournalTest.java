@@ -0,0 +1,164 @@
+package srg.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.Command;
+import srg.cli.given.CommandType;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+import srg.game.Game;
+import srg.game.QuietIO;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class CommandJournalTest {
+
+    /** Snapshots after the 4th and 8th commands leave two commands in the tail. */
+    private static final int INTERVAL = 4;
+
+    private Path directory;
+    private Path path;
+    private List<Command> commands;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("command-journal");
+        path = directory.resolve("game.journal");
+        commands = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            commands.add(new PurchaseCommand("TRITIUM", 5 + i));
+            commands.add(new ShipCommand(CommandType.FLY_TO, i % 2 == 0 ? "Away" : "Home"));
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static Game game() {
+        List<SpacePort> galaxy = new ArrayList<>();
+        galaxy.add(new Store("Home", new Position(0, 0, 0)));
+        galaxy.add(new Store("Away", new Position(30, 0, 0)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        return new Game(galaxy, ship);
+    }
+
+    /** Returns the state of a fresh Game after applying the first count commands. */
+    private byte[] replay(int count) {
+        Game game = game();
+        for (Command command : commands.subList(0, count)) {
+            game.update(new QuietIO(), command);
+        }
+        return GameSnapshot.capture(game);
+    }
+
+    private void journalAll() throws IOException {
+        Game game = game();
+        try (CommandJournal journal = CommandJournal.open(path, game, INTERVAL)) {
+            game.setJournal(journal);
+            for (Command command : commands) {
+                game.update(new QuietIO(), command);
+            }
+        }
+    }
+
+    @Test
+    public void recoversFromLatestSnapshot() throws IOException {
+        journalAll();
+        Game recovered = game();
+        try (CommandJournal journal = CommandJournal.open(path, recovered, INTERVAL)) {
+            assertEquals(commands.size() % INTERVAL, journal.getReplayedCount());
+        }
+        assertArrayEquals(replay(commands.size()), GameSnapshot.capture(recovered));
+        // The tail is replayed through the Game, which counts and times it as it did live
+        assertEquals(commands.size() % INTERVAL, recovered.getCommandCount());
+        assertEquals(commands.size() % INTERVAL,
+                recovered.getMetrics().getCount(CommandType.FLY_TO)
+                        + recovered.getMetrics().getCount(CommandType.PURCHASE_ITEM));
+    }
+
+    @Test
+    public void truncatedTailIsDropped() throws IOException {
+        journalAll();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertRecoversAllButLast();
+    }
+
+    @Test
+    public void corruptTailIsDropped() throws IOException {
+        journalAll();
+        byte[] bytes = Files.readAllBytes(path);
+        // The last byte belongs to the CRC of the final command
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+        assertRecoversAllButLast();
+    }
+
+    @Test
+    public void commandCodesAreStable() {
+        // Journals store these codes, so they must never change; new types go at the end
+        List<CommandType> byCode = List.of(CommandType.EXIT, CommandType.SHOW_HELP,
+                CommandType.SHOW_PORT, CommandType.SHOW_ACTIONS, CommandType.SHOW_STATUS,
+                CommandType.SHOW_ROOM, CommandType.JUMP_TO, CommandType.FLY_TO,
+                CommandType.REPAIR_ROOM, CommandType.UPGRADE_ROOM, CommandType.PURCHASE_ITEM,
+                CommandType.BATCH, CommandType.SHOW_METRICS, CommandType.NEAREST_SHIPYARD,
+                CommandType.NEAREST_STORE);
+        assertEquals(byCode, List.of(CommandType.values()));
+        for (CommandType type : CommandType.values()) {
+            assertEquals(type.name(), byCode.indexOf(type), type.getCode());
+            assertEquals(type.name(), type.ordinal(), type.getCode());
+            assertSame(type, CommandType.fromCode(type.getCode()));
+        }
+        assertNull(CommandType.fromCode(CommandType.values().length));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        CommandJournal.open(path, game(), INTERVAL);
+    }
+
+    /**
+     * Recovers a journal whose final command was damaged, checks it matches a replay without
+     * that command, and that the damaged record was cut off so new records follow valid ones.
+     */
+    private void assertRecoversAllButLast() throws IOException {
+        int count = commands.size() - 1;
+        Game recovered = game();
+        try (CommandJournal journal = CommandJournal.open(path, recovered, INTERVAL)) {
+            assertEquals(count % INTERVAL, journal.getReplayedCount());
+            recovered.setJournal(journal);
+            recovered.update(new QuietIO(), commands.get(count));
+        }
+        assertArrayEquals(replay(commands.size()), GameSnapshot.capture(recovered));
+
+        Game reopened = game();
+        try (CommandJournal journal = CommandJournal.open(path, reopened, INTERVAL)) {
+            assertEquals(commands.size() % INTERVAL, journal.getReplayedCount());
+        }
+        assertArrayEquals(replay(commands.size()), GameSnapshot.capture(reopened));
+    }
+}
@@ -0,0 +1,295 @@
+package srg.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+import srg.game.Game;
+import srg.galaxy.LazyGalaxy;
+import srg.galaxy.SectorGenerator;
+import srg.game.QuietIO;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelGrade;
+import srg.ship.Room;
+import srg.ship.RoomKind;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class LogStoreTest {
+
+    private Path directory;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("log-store");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void valuesSurviveReopening() throws IOException {
+        try (LogStore log = LogStore.open(directory, 256)) {
+            for (int i = 0; i < 100; i++) {
+                log.put("key" + (i % 10), bytes("value" + i));
+            }
+            assertTrue(log.delete("key3"));
+            assertFalse(log.delete("key3"));
+            log.sync();
+            assertEquals("value95", string(log.get("key5")));
+        }
+        try (LogStore log = LogStore.open(directory, 256)) {
+            assertEquals(9, log.keys().size());
+            assertEquals("value99", string(log.get("key9")));
+            assertNull(log.get("key3"));
+        }
+    }
+
+    @Test
+    public void compactionKeepsOnlyLiveRecords() throws IOException {
+        try (LogStore log = LogStore.open(directory, 256)) {
+            for (int i = 0; i < 500; i++) {
+                log.put("key" + (i % 5), bytes("value" + i));
+            }
+            log.delete("key0");
+            log.compact();
+            assertTrue(log.getSegmentCount() < 10);
+            assertEquals("value499", string(log.get("key4")));
+            assertNull(log.get("key0"));
+        }
+        try (LogStore log = LogStore.open(directory, 256)) {
+            assertEquals("value496", string(log.get("key1")));
+            assertNull(log.get("key0"));
+            assertEquals(4, log.keys().size());
+        }
+    }
+
+    @Test
+    public void tornRecordsAreDiscarded() throws IOException {
+        try (LogStore log = LogStore.open(directory)) {
+            log.put("a", bytes("first"));
+            log.put("b", bytes("second"));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (LogStore log = LogStore.open(directory)) {
+            assertEquals("first", string(log.get("a")));
+            assertNull(log.get("b"));
+            log.put("b", bytes("third"));
+        }
+        try (LogStore log = LogStore.open(directory)) {
+            assertEquals("third", string(log.get("b")));
+        }
+    }
+
+    @Test
+    public void tornBatchesAreDiscardedWhole() throws IOException {
+        try (LogStore log = LogStore.open(directory)) {
+            log.put("ship", bytes("5 kits"));
+            log.put("store", bytes("10 kits"));
+            log.put("other", bytes("kept"));
+            Map<String, byte[]> batch = new LinkedHashMap<>();
+            batch.put("ship", bytes("6 kits"));
+            batch.put("store", bytes("9 kits"));
+            batch.put("other", null);
+            log.putAll(batch);
+            log.sync();
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        long length = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Tear the batch's last record, the deletion of "other"
+            channel.truncate(length - 2);
+        }
+        try (LogStore log = LogStore.open(directory)) {
+            assertEquals("5 kits", string(log.get("ship")));
+            assertEquals("10 kits", string(log.get("store")));
+            assertEquals("kept", string(log.get("other")));
+
+            Map<String, byte[]> batch = new LinkedHashMap<>();
+            batch.put("ship", bytes("7 kits"));
+            batch.put("store", bytes("8 kits"));
+            log.putAll(batch);
+        }
+        try (LogStore log = LogStore.open(directory)) {
+            assertEquals("7 kits", string(log.get("ship")));
+            assertEquals("8 kits", string(log.get("store")));
+        }
+    }
+
+    @Test
+    public void concurrentSyncsShareForces() throws Exception {
+        try (LogStore log = LogStore.open(directory)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            log.put("t" + thread, bytes("v" + i));
+                            log.sync();
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(log.getSyncCount() <= 400);
+            assertEquals("v49", string(log.get("t7")));
+        }
+    }
+
+    @Test
+    public void stateStoreRewritesOnlyChangedEntities() throws IOException {
+        List<SpacePort> galaxy = new ArrayList<>();
+        galaxy.add(new Store("Home", new Position(0, 0, 0)));
+        galaxy.add(new Store("Away", new Position(30, 0, 0)));
+        galaxy.add(new Store("Other", new Position(60, 0, 0)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        Game game = new Game(galaxy, ship);
+
+        try (LogStore log = LogStore.open(directory)) {
+            StateStore state = StateStore.open(log, game);
+            game.setStateStore(state);
+            assertEquals(0, state.getDirtyCount());
+            ship.performCommand(new QuietIO(), new PurchaseCommand("TRITIUM", 50));
+            // The Ship's CargoHold and the Home Store changed
+            assertEquals(2, state.getDirtyCount());
+            game.update(new QuietIO(), new ShipCommand(CommandType.FLY_TO, "Away"));
+            assertEquals(0, state.getDirtyCount());
+        }
+
+        List<SpacePort> reloaded = new ArrayList<>();
+        reloaded.add(new Store("Home", new Position(0, 0, 0)));
+        reloaded.add(new Store("Away", new Position(30, 0, 0)));
+        reloaded.add(new Store("Other", new Position(60, 0, 0)));
+        Ship copy = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, reloaded);
+        try (LogStore log = LogStore.open(directory)) {
+            StateStore.open(log, new Game(reloaded, copy));
+        }
+        assertEquals("Away", copy.getNavigationRoom().getCurrentPort().getName());
+        assertEquals(1, copy.getNavigationRoom().getTime());
+        assertEquals(ship.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM),
+                copy.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM));
+        assertEquals(ship.getCargoHold().getHealthPoints(),
+                copy.getCargoHold().getHealthPoints());
+        assertEquals(((Store) galaxy.get(0)).getStock("TRITIUM"),
+                ((Store) reloaded.get(0)).getStock("TRITIUM"));
+    }
+    @Test
+    public void stateStoreKeepsModules() throws IOException {
+        List<SpacePort> galaxy = List.of(new Store("Home", new Position(0, 0, 0)),
+                new Store("Away", new Position(30, 0, 0)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        Game game = new Game(galaxy, ship);
+        Room engine = new Room(RoomTier.AVERAGE, RoomKind.ENGINE);
+        try (LogStore log = LogStore.open(directory)) {
+            game.setStateStore(StateStore.open(log, game));
+            // Installed after the store was opened, and damaged by the trip
+            ship.addRoom("Engine", engine);
+            game.update(new QuietIO(), new ShipCommand(CommandType.FLY_TO, "Away"));
+        }
+
+        List<SpacePort> reloaded = List.of(new Store("Home", new Position(0, 0, 0)),
+                new Store("Away", new Position(30, 0, 0)));
+        Ship copy = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, reloaded);
+        try (LogStore log = LogStore.open(directory)) {
+            StateStore.open(log, new Game(reloaded, copy));
+        }
+        Room restored = copy.getRoomByName("Engine");
+        assertEquals(RoomKind.ENGINE, restored.getKind());
+        assertEquals(RoomTier.AVERAGE, restored.getTier());
+        assertEquals(engine.getHealthPoints(), restored.getHealthPoints());
+        assertTrue(restored.getHealthPoints() < restored.getMaximumHealth());
+    }
+
+    /** Returns a new Game in a small infinite galaxy, as Main makes with --infinite. */
+    private static Game infiniteGame() {
+        LazyGalaxy galaxy = new LazyGalaxy(new SectorGenerator(7, 1000), 60);
+        return new Game(galaxy,
+                new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy));
+    }
+
+    @Test
+    public void evictedStoresKeepTheirStock() throws Exception {
+        // A Store outside the origin sector, so it is not generated when the store is opened
+        SectorGenerator generator = new SectorGenerator(7, 1000);
+        String name = null;
+        for (int x = 5; name == null; x++) {
+            for (SpacePort port : generator.generate(x, 0, 0)) {
+                if (port instanceof Store && name == null) {
+                    name = port.getName();
+                }
+            }
+        }
+
+        try (LogStore log = LogStore.open(directory)) {
+            Game game = infiniteGame();
+            LazyGalaxy galaxy = (LazyGalaxy) game.ports;
+            StateStore state = StateStore.open(log, game);
+            ((Store) galaxy.find(name)).purchase("TRITIUM", 10);
+            state.commit();
+            for (int x = 20; x < 40; x++) {
+                galaxy.ensureAround(new Position(x * 1000 + 500, 500, 500), 400);
+            }
+            assertNull(galaxy.get(name));
+            state.commit();
+        }
+
+        // Generating the Store again restores its stock, and does not overwrite it
+        for (int run = 0; run < 2; run++) {
+            try (LogStore log = LogStore.open(directory)) {
+                Game game = infiniteGame();
+                StateStore state = StateStore.open(log, game);
+                Store store = (Store) ((LazyGalaxy) game.ports).find(name);
+                assertEquals(990, store.getStock("TRITIUM"));
+                state.commit();
+            }
+        }
+    }
+}
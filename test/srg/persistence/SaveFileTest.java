@@ -0,0 +1,226 @@
+package srg.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+import srg.game.Game;
+import srg.game.QuietIO;
+import srg.ports.Position;
+import srg.ports.ShipYard;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelGrade;
+import srg.resources.ResourceContainer;
+import srg.resources.ResourceType;
+import srg.ship.CargoHold;
+import srg.ship.Room;
+import srg.ship.RoomKind;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+public class SaveFileTest {
+
+    private Path directory;
+    private Game game;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("save-file");
+        List<SpacePort> galaxy = new ArrayList<>();
+        galaxy.add(new Store("Home", new Position(0, 0, 0)));
+        galaxy.add(new ShipYard("Yard", new Position(30, 0, 0), List.of("CargoHold")));
+        galaxy.add(new Store("Away", new Position(60, 0, 0)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        game = new Game(galaxy, ship);
+        ship.performCommand(new QuietIO(), new PurchaseCommand("TRITIUM", 50));
+        ship.getNavigationRoom().upgrade();
+        game.update(new QuietIO(), new ShipCommand(CommandType.FLY_TO, "Yard"));
+        ship.getCargoHold().damage();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Path path = directory.resolve("game.srg");
+        SaveFile.save(game, path);
+        // Saving again replaces the file and leaves no temporary file behind
+        SaveFile.save(game, path);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(path), files.toList());
+        }
+
+        Game loaded = SaveFile.load(path);
+        assertEquals(3, loaded.ports.size());
+        assertTrue(loaded.ports.get(1) instanceof ShipYard);
+        assertEquals(game.ship.getName(), loaded.ship.getName());
+        assertEquals(1, loaded.ship.getNavigationRoom().getCurrentIndex());
+        assertEquals(game.ship.getNavigationRoom().getTime(),
+                loaded.ship.getNavigationRoom().getTime());
+        assertRoomsEqual(game.ship.getCargoHold(), loaded.ship.getCargoHold());
+        assertRoomsEqual(game.ship.getNavigationRoom(), loaded.ship.getNavigationRoom());
+        assertEquals(game.ship.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM),
+                loaded.ship.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM));
+        assertEquals(game.ship.getCargoHold().getTotalAmountByType(ResourceType.REPAIR_KIT),
+                loaded.ship.getCargoHold().getTotalAmountByType(ResourceType.REPAIR_KIT));
+        for (int i = 0; i < 3; i += 2) {
+            assertEquals(((Store) game.ports.get(i)).getStock("TRITIUM"),
+                    ((Store) loaded.ports.get(i)).getStock("TRITIUM"));
+        }
+    }
+
+    @Test
+    public void modulesRoundTrip() throws IOException {
+        Room engine = new Room(RoomTier.AVERAGE, RoomKind.ENGINE);
+        CargoHold spare = new CargoHold(RoomTier.BASIC);
+        spare.restoreContents(spare.getMaximumCapacity(),
+                List.of(new ResourceContainer(ResourceType.REPAIR_KIT, 3)));
+        game.ship.addRoom("Engine", engine);
+        game.ship.addRoom("CargoHold2", spare);
+        engine.damage();
+
+        Game loaded = SaveFile.fromBytes(SaveFile.toBytes(game));
+        assertModulesEqual(game.ship, loaded.ship);
+        Ship moved = TransferCodec.decodeShip(TransferCodec.encodeShip(game.ship),
+                loaded.ports);
+        assertModulesEqual(game.ship, moved);
+    }
+
+    @Test
+    public void rejectsCorruptPayload() throws IOException {
+        byte[] bytes = SaveFile.toBytes(game);
+        bytes[bytes.length - 1] ^= 1;
+        assertRejected(bytes, "corrupt");
+    }
+
+    @Test
+    public void rejectsTruncatedFile() throws IOException {
+        Path path = directory.resolve("game.srg");
+        SaveFile.save(game, path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 4));
+        try {
+            SaveFile.load(path);
+            fail("A truncated save file was loaded");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("truncated"));
+        }
+    }
+
+    @Test
+    public void rejectsOtherVersions() throws IOException {
+        byte[] bytes = SaveFile.toBytes(game);
+        // The version follows the four byte magic number
+        bytes[5] = (byte) (SaveFile.VERSION + 1);
+        assertRejected(bytes, "version");
+    }
+
+    @Test
+    public void loadsOlderVersions() throws IOException {
+        // With one stationary port and no Stores, the fields added since version 1 are at known
+        // offsets: a Trajectory byte after the port's Position, then the simulation time and
+        // the module count at the very end
+        List<SpacePort> galaxy = List.of(new SpacePort("Lone", new Position(1, 2, 3)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        ship.getCargoHold().damage();
+        byte[] current = SaveFile.toBytes(new Game(galaxy, ship));
+        int trajectory = 16 + Integer.BYTES + 1 + Short.BYTES + "Lone".length() + 3 * Integer.BYTES;
+        assertEquals(0, current[trajectory]);
+
+        byte[] version2 = Arrays.copyOf(current, current.length - Short.BYTES);
+        byte[] version1 = new byte[version2.length - Long.BYTES - 1];
+        System.arraycopy(version2, 0, version1, 0, trajectory);
+        System.arraycopy(version2, trajectory + 1, version1, trajectory,
+                version1.length - trajectory);
+
+        for (byte[] old : List.of(withHeader(version1, 1), withHeader(version2, 2))) {
+            Game loaded = SaveFile.fromBytes(old);
+            assertEquals("Lone", loaded.ports.get(0).getName());
+            assertEquals("(1, 2, 3)", loaded.ports.get(0).getPosition().toString());
+            assertNull(loaded.ports.get(0).getTrajectory());
+            assertEquals(0, loaded.ship.getNavigationRoom().getTime());
+            assertRoomsEqual(ship.getCargoHold(), loaded.ship.getCargoHold());
+        }
+        assertRejected(withHeader(version2, 0), "version");
+    }
+
+    /**
+     * Sets the version of encoded save data, and the payload length and CRC to match.
+     */
+    private static byte[] withHeader(byte[] bytes, int version) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 16, bytes.length - 16);
+        buffer.putShort(4, (short) version);
+        buffer.putInt(8, bytes.length - 16);
+        buffer.putInt(12, (int) crc.getValue());
+        return bytes;
+    }
+
+    @Test
+    public void infiniteGamesAreRejected() {
+        Game infinite = Game.infinite(5);
+        try {
+            SaveFile.toBytes(infinite);
+            fail("A game in an infinite galaxy was encoded");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("infinite"));
+        }
+        try {
+            GameSnapshot.restore(infinite, GameSnapshot.capture(game));
+            fail("A snapshot was restored into an infinite galaxy");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("infinite"));
+        }
+    }
+
+    private static void assertRejected(byte[] bytes, String reason) {
+        try {
+            SaveFile.fromBytes(bytes);
+            fail("Invalid save data was loaded");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(reason));
+        }
+    }
+
+    private static void assertModulesEqual(Ship expected, Ship actual) {
+        assertEquals(expected.getRooms().getNames(), actual.getRooms().getNames());
+        for (String name : List.of("Engine", "CargoHold2")) {
+            Room room = actual.getRoomByName(name);
+            assertEquals(expected.getRoomByName(name).getKind(), room.getKind());
+            assertRoomsEqual(expected.getRoomByName(name), room);
+        }
+        CargoHold spare = (CargoHold) actual.getRoomByName("CargoHold2");
+        assertEquals(3, spare.getTotalAmountByType(ResourceType.REPAIR_KIT));
+    }
+
+    private static void assertRoomsEqual(Room expected, Room actual) {
+        assertEquals(expected.getTier(), actual.getTier());
+        assertEquals(expected.getHealthPoints(), actual.getHealthPoints());
+        assertEquals(expected.getMaximumHealth(), actual.getMaximumHealth());
+        assertEquals(expected.getDamageRate(), actual.getDamageRate());
+    }
+}
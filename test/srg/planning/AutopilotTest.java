@@ -0,0 +1,84 @@
+package srg.planning;
+
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.cli.given.ShipCommand;
+import srg.game.Game;
+import srg.game.QuietIO;
+import srg.galaxy.Galaxy;
+import srg.ports.Position;
+import srg.ports.ShipYard;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AutopilotTest {
+
+    private Game game(List<SpacePort> galaxy) {
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        return new Game(galaxy, ship);
+    }
+
+    @Test
+    public void reachesDistantPort() {
+        // A line of Stores 150 apart: too far to fly between, so the Ship must jump
+        List<SpacePort> galaxy = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            galaxy.add(new Store("S" + i, new Position(i * 150, 0, 0)));
+        }
+        Game game = game(galaxy);
+        Autopilot autopilot = new Autopilot(game, new ReachPortGoal("S7"));
+        autopilot.setTimeBudgetMicros(200_000);
+        List<ShipCommand> plan = autopilot.plan();
+        assertFalse(plan.isEmpty());
+        // Planning leaves the Game where it was
+        assertEquals(0, game.ship.getNavigationRoom().getCurrentIndex());
+
+        assertTrue(autopilot.run(new QuietIO(), 50));
+        assertEquals("S7", game.ship.getNavigationRoom().getCurrentPort().getName());
+        assertNull(autopilot.decide());
+    }
+
+    @Test
+    public void upgradesBothRooms() {
+        List<SpacePort> galaxy = List.of(
+                new Store("Home", new Position(0, 0, 0)),
+                new ShipYard("Cargo Yard", new Position(40, 0, 0), List.of("CargoHold")),
+                new ShipYard("Nav Yard", new Position(0, 60, 0), List.of("NavigationRoom")));
+        Game game = game(galaxy);
+        Autopilot autopilot = new Autopilot(game, new UpgradeGoal(RoomTier.PRIME));
+        autopilot.setTimeBudgetMicros(200_000);
+        assertTrue(autopilot.run(new QuietIO(), 20));
+        assertEquals(RoomTier.PRIME, game.ship.getCargoHold().getTier());
+        assertEquals(RoomTier.PRIME, game.ship.getNavigationRoom().getTier());
+    }
+
+    @Test
+    public void firstCommandTravelsTowardsGoal() {
+        List<SpacePort> galaxy = List.of(
+                new Store("A", new Position(0, 0, 0)),
+                new Store("B", new Position(-50, 0, 0)),
+                new Store("C", new Position(50, 0, 0)));
+        Autopilot autopilot = new Autopilot(game(galaxy), new ReachPortGoal("C"));
+        autopilot.setTimeBudgetMicros(200_000);
+        ShipCommand command = autopilot.decide();
+        assertEquals(CommandType.FLY_TO, command.type);
+        assertEquals("C", command.value);
+    }
+    @Test
+    public void unreachableTargetGivesEmptyPlan() {
+        Galaxy galaxy = new Galaxy(List.of(
+                new Store("Home", new Position(0, 0, 0)),
+                new Store("Far", new Position(5000, 0, 0))));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        Autopilot autopilot = new Autopilot(new Game(galaxy, ship), new ReachPortGoal("Far"));
+        autopilot.setTimeBudgetMicros(200_000);
+        assertTrue(autopilot.plan().isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package srg.planning;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.cli.given.ShipCommand;
+import srg.game.Game;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StrategyEvaluatorTest {
+
+    private Game game;
+
+    @Before
+    public void setup() {
+        List<SpacePort> galaxy = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            galaxy.add(new Store("S" + i, new Position(i * 20, 0, 0)));
+        }
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        game = new Game(galaxy, ship);
+    }
+
+    @Test
+    public void statisticMergeMatchesSingleSeries() {
+        Statistic all = new Statistic();
+        Statistic first = new Statistic();
+        Statistic second = new Statistic();
+        for (int i = 1; i <= 10; i++) {
+            all.add(i * i);
+            (i <= 4 ? first : second).add(i * i);
+        }
+        first.merge(second);
+        assertEquals(10, first.getCount());
+        assertEquals(all.getMean(), first.getMean(), 1e-9);
+        assertEquals(all.getStandardDeviation(), first.getStandardDeviation(), 1e-9);
+        assertEquals(38.5, all.getMean(), 1e-9);
+    }
+
+    @Test
+    public void fixedStrategyIsMeasuredExactly() {
+        // Fly to S1 then stop: 20 TRITIUM, two ports, no failures
+        Strategy strategy = (current, random) ->
+                current.ship.getNavigationRoom().getCurrentIndex() == 0
+                        ? new ShipCommand(CommandType.FLY_TO, "S1") : null;
+        StrategyEvaluator.Report report = new StrategyEvaluator(game, strategy).evaluate(50, 1);
+        assertEquals(50, report.getPlayouts());
+        assertEquals(20, report.tritiumUsed.getMean(), 1e-9);
+        assertEquals(0, report.tritiumUsed.getConfidenceInterval(), 1e-9);
+        assertEquals(2, report.portsVisited.getMean(), 1e-9);
+        assertEquals(0, report.failedCommands.getMean(), 1e-9);
+        // The evaluator works on copies
+        assertEquals(0, game.ship.getNavigationRoom().getCurrentIndex());
+    }
+
+    @Test
+    public void failedCommandsAreCounted() {
+        Strategy strategy = (current, random) -> new ShipCommand(CommandType.FLY_TO, "Nowhere");
+        StrategyEvaluator evaluator = new StrategyEvaluator(game, strategy);
+        evaluator.setMaximumSteps(3);
+        assertEquals(3, evaluator.evaluate(10, 1).failedCommands.getMean(), 1e-9);
+    }
+
+    @Test
+    public void sameSeedSameReport() {
+        StrategyEvaluator evaluator = new StrategyEvaluator(game, new RandomStrategy());
+        String first = evaluator.evaluate(200, 42).toString();
+        assertEquals(first, evaluator.evaluate(200, 42).toString());
+        assertTrue(evaluator.evaluate(200, 42).portsVisited.getMean() > 1);
+    }
+}
@@ -0,0 +1,65 @@
+package srg.planning;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TradePlannerTest {
+
+    private Store a;
+    private Store b;
+    private Ship ship;
+    private List<SpacePort> galaxy;
+
+    @Before
+    public void setup() {
+        a = new Store("A", new Position(0, 0, 0));
+        b = new Store("B", new Position(100, 0, 0));
+        galaxy = List.of(a, b, new Store("Far", new Position(5000, 0, 0)));
+        // BASIC: 2 free slots, 100 TRITIUM and 5 HYPERDRIVE_CORE on board
+        ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+    }
+
+    @Test
+    public void buysFuelForReturnLeg() {
+        List<TradePlanner.Loop> loops = new TradePlanner(ship, galaxy).plan(1, 1000);
+        assertEquals(1, loops.size());
+        TradePlanner.Loop loop = loops.get(0);
+        assertEquals(List.of(a, b, a), loop.stops);
+        // 1000 HYPERDRIVE_CORE at 200 and 1000 TRITIUM at 1, less 200 TRITIUM flown
+        assertEquals(200800, loop.profit);
+        assertEquals(200, loop.tritiumUsed);
+        assertEquals(List.of("buy HYPERDRIVE_CORE 1000", "fly to \"B\"", "buy TRITIUM 1000",
+                "fly to \"A\""), loop.commands);
+    }
+
+    @Test
+    public void topLoopsAreOrdered() {
+        TradePlanner planner = new TradePlanner(ship, galaxy);
+        planner.setValue(Commodity.HYPERDRIVE_CORE, 0);
+        List<TradePlanner.Loop> loops = planner.plan(5, 1000);
+        assertEquals(2, loops.size());
+        assertTrue(loops.get(0).profit >= loops.get(1).profit);
+        for (TradePlanner.Loop loop : loops) {
+            assertFalse(loop.stops.contains(galaxy.get(2)));
+        }
+    }
+
+    @Test
+    public void respectsStock() throws Exception {
+        a.purchase("HYPERDRIVE_CORE", 1000);
+        b.purchase("HYPERDRIVE_CORE", 1000);
+        TradePlanner.Loop loop = new TradePlanner(ship, galaxy).plan(1, 1000).get(0);
+        for (TradePlanner.Purchase purchase : loop.purchases) {
+            assertTrue(purchase.commodity != Commodity.HYPERDRIVE_CORE);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package srg.ports;
+
+import org.junit.Test;
+import srg.ship.CargoHold;
+import srg.ship.NavigationRoom;
+import srg.ship.Room;
+import srg.ship.RoomKind;
+import srg.ship.RoomTier;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ShipYardTest {
+
+    @Test
+    public void actionsAreStableForImmutableLists() {
+        ShipYard shipYard = new ShipYard("Yard", new Position(0, 0, 0),
+                List.of("CargoHold", "NavigationRoom"));
+        List<String> expected = List.of("upgrade NavigationRoom", "upgrade CargoHold");
+        assertEquals(expected, shipYard.getActions());
+        assertEquals(expected, shipYard.getActions());
+        assertEquals(List.of("CargoHold", "NavigationRoom"), shipYard.getUpgradeable());
+    }
+
+    @Test
+    public void upgradesOnlyItsKinds() {
+        ShipYard shipYard = new ShipYard("Yard", new Position(0, 0, 0),
+                EnumSet.of(RoomKind.CARGO_HOLD));
+        assertTrue(shipYard.canUpgrade("CargoHold"));
+        assertFalse(shipYard.canUpgrade("NavigationRoom"));
+        assertFalse(shipYard.canUpgrade("Engine"));
+        assertEquals(RoomKind.CARGO_HOLD.mask(), shipYard.getUpgradeMask());
+
+        CargoHold cargoHold = new CargoHold(RoomTier.BASIC);
+        shipYard.upgrade(cargoHold);
+        assertEquals(RoomTier.AVERAGE, cargoHold.getTier());
+        try {
+            shipYard.upgrade(new NavigationRoom(RoomTier.BASIC, List.of(shipYard)));
+            fail("Upgraded a NavigationRoom.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            shipYard.upgrade(new Room());
+            fail("Upgraded a generic Room.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void unknownRoomsAreListedButNeverUpgraded() {
+        ShipYard shipYard = new ShipYard("Yard", new Position(0, 0, 0),
+                List.of("Bridge", "CargoHold"));
+        assertEquals(List.of("Bridge", "CargoHold"), shipYard.getUpgradeable());
+        assertEquals(List.of("upgrade CargoHold", "upgrade Bridge"), shipYard.getActions());
+        assertFalse(shipYard.canUpgrade("Bridge"));
+        assertEquals(EnumSet.of(RoomKind.CARGO_HOLD), shipYard.getUpgradeableKinds());
+        assertEquals(RoomKind.CARGO_HOLD.mask(), shipYard.getUpgradeMask());
+    }
+}
@@ -0,0 +1,167 @@
+package srg.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import srg.game.Game;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelGrade;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameServerTest {
+
+    private Game game;
+    private GameServer server;
+
+    @Before
+    public void setup() throws Exception {
+        List<SpacePort> galaxy = new ArrayList<>();
+        galaxy.add(new Store("Home", new Position(0, 0, 0)));
+        galaxy.add(new Store("Away", new Position(30, 0, 0)));
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        game = new Game(galaxy, ship);
+        server = new GameServer(game, 0);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Sends raw bytes and reads until the expected number of responses have arrived.
+     */
+    private String exchange(Socket socket, String requests, int responses) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(requests.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        InputStream in = socket.getInputStream();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (count(received.toString(StandardCharsets.UTF_8), "HTTP/1.1 ") < responses
+                || !complete(received.toString(StandardCharsets.UTF_8))) {
+            int read = in.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            received.write(buffer, 0, read);
+        }
+        return received.toString(StandardCharsets.UTF_8);
+    }
+
+    private static int count(String text, String target) {
+        int count = 0;
+        for (int i = text.indexOf(target); i >= 0; i = text.indexOf(target, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean complete(String text) {
+        int head = text.lastIndexOf("HTTP/1.1 ");
+        int bodyStart = text.indexOf("\r\n\r\n", head);
+        if (head < 0 || bodyStart < 0) {
+            return false;
+        }
+        int lengthStart = text.indexOf("Content-Length: ", head) + "Content-Length: ".length();
+        int length = Integer.parseInt(text.substring(lengthStart, text.indexOf("\r\n",
+                lengthStart)));
+        return text.length() - bodyStart - 4 >= length;
+    }
+
+    private static String post(String path, String body) {
+        return "POST " + path + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: "
+                + body.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + body;
+    }
+
+    private static String get(String path) {
+        return "GET " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+    }
+
+    @Test
+    public void pipelinedCommandsAreAnsweredInOrder() throws Exception {
+        int tritium = game.ship.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            String responses = exchange(socket, post("/command", "buy TRITIUM 50")
+                    + post("/command", "{\"command\": \"fly to Away\"}") + get("/status"), 3);
+            assertEquals(3, count(responses, "HTTP/1.1 200 OK"));
+            int buy = responses.indexOf("\"ok\":true");
+            int fly = responses.indexOf("\"ok\":true", buy + 1);
+            int status = responses.indexOf("\"ship\":");
+            assertTrue(buy >= 0 && fly > buy && status > fly);
+            assertTrue(responses.contains("\"port\":{\"name\":\"Away\""));
+        }
+        assertEquals("Away", game.ship.getNavigationRoom().getCurrentPort().getName());
+        assertEquals(tritium + 50 - 30,
+                game.ship.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void failedCommandsReportNotOk() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            String responses = exchange(socket, post("/command", "fly to Nowhere"), 1);
+            assertTrue(responses.startsWith("HTTP/1.1 200 OK"));
+            assertTrue(responses.contains("\"ok\":false"));
+
+            responses = exchange(socket, post("/command", "not a command"), 1);
+            assertTrue(responses.startsWith("HTTP/1.1 400 Bad Request"));
+        }
+    }
+
+    @Test
+    public void malformedNumbersDoNotStopTheServer() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            String responses = exchange(socket, post("/command", "buy TRITIUM 99999999999"), 1);
+            assertTrue(responses.startsWith("HTTP/1.1 400 Bad Request"));
+
+            responses = exchange(socket, post("/command", "fly to Away"), 1);
+            assertTrue(responses.startsWith("HTTP/1.1 200 OK"));
+            assertTrue(responses.contains("\"ok\":true"));
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            String responses = exchange(socket, get("/status"), 1);
+            assertTrue(responses.contains("\"port\":{\"name\":\"Away\""));
+        }
+    }
+
+    @Test
+    public void batchesReportWhetherEveryCommandWasCarriedOut() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            String responses = exchange(socket, post("/command", "fly to Nowhere; show status"),
+                    1);
+            assertTrue(responses.contains("\"ok\":false"));
+
+            responses = exchange(socket, post("/command", "buy TRITIUM 5; fly to Away"), 1);
+            assertTrue(responses.contains("\"ok\":true"));
+        }
+    }
+
+    @Test
+    public void unknownRoutesAndMethodsAreRejected() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            String responses = exchange(socket, get("/nowhere") + get("/command")
+                    + get("/metrics"), 3);
+            int notFound = responses.indexOf("HTTP/1.1 404 Not Found");
+            int notAllowed = responses.indexOf("HTTP/1.1 405 Method Not Allowed");
+            int metrics = responses.indexOf("\"failures\":");
+            assertTrue(notFound >= 0 && notAllowed > notFound && metrics > notAllowed);
+        }
+    }
+}
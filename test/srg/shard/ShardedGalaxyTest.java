@@ -0,0 +1,174 @@
+package srg.shard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+import srg.ports.Position;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelGrade;
+import srg.ship.RoomTier;
+import srg.ship.Ship;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ShardedGalaxyTest {
+
+    /**
+     * A Shard which can be made to refuse Ships, as if its process had failed.
+     */
+    private static class FlakyShard extends Shard {
+        private boolean refuseDocks;
+
+        @Override
+        public byte[] handle(byte[] message) throws IOException {
+            if (refuseDocks && message[0] == ShardProtocol.DOCK) {
+                throw new IOException("Shard is down.");
+            }
+            return super.handle(message);
+        }
+    }
+
+    private ShardMap map;
+    private List<FlakyShard> shards;
+    private LocalTransport transport;
+    private ShardedGalaxy sharded;
+    private List<SpacePort> galaxy;
+
+    @Before
+    public void setup() throws Exception {
+        map = new ShardMap(50, 3);
+        shards = List.of(new FlakyShard(), new FlakyShard(), new FlakyShard());
+        transport = new LocalTransport(shards);
+        sharded = new ShardedGalaxy(map, transport);
+        galaxy = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            galaxy.add(new Store("S" + i, new Position(i * 45, 10, 10)));
+        }
+        sharded.load(galaxy);
+    }
+
+    @After
+    public void tearDown() {
+        transport.close();
+    }
+
+    @Test
+    public void shipIsHandedOffAcrossBorders() throws Exception {
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        sharded.addShip(ship);
+        assertEquals(map.shardOf(galaxy.get(0).getPosition()), sharded.getShard("ID1"));
+        assertTrue(sharded.command("ID1", new PurchaseCommand("TRITIUM", 100)).success);
+
+        int crossings = 0;
+        for (int i = 1; i < 4; i++) {
+            ShardedGalaxy.Result result = sharded.command("ID1",
+                    new ShipCommand(CommandType.FLY_TO, "S" + i));
+            assertTrue(result.success);
+            assertEquals(map.shardOf(galaxy.get(i).getPosition()), result.shard);
+            if (map.shardOf(galaxy.get(i).getPosition())
+                    != map.shardOf(galaxy.get(i - 1).getPosition())) {
+                crossings++;
+            }
+        }
+        assertTrue(crossings > 0);
+        assertEquals(crossings, sharded.getHandoffCount());
+
+        Ship returned = sharded.removeShip("ID1", galaxy);
+        assertEquals("S3", returned.getNavigationRoom().getCurrentPort().getName());
+        assertEquals(3, returned.getNavigationRoom().getTime());
+        // 100 on board, 100 bought, 135 flown
+        assertEquals(65, returned.getCargoHold().getTotalAmountByType(FuelGrade.TRITIUM));
+        // The shards have their own copies of the Stores
+        assertEquals(1000, ((Store) galaxy.get(0)).getStock("TRITIUM"));
+    }
+
+    @Test
+    public void failedHandoffKeepsShip() throws Exception {
+        sharded.addShip(new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC,
+                galaxy));
+        int source = sharded.getShard("ID1");
+        int crossing = 1;
+        while (map.shardOf(galaxy.get(crossing).getPosition()) == source) {
+            sharded.command("ID1", new ShipCommand(CommandType.FLY_TO, "S" + crossing));
+            crossing++;
+        }
+        int target = map.shardOf(galaxy.get(crossing).getPosition());
+
+        shards.get(target).refuseDocks = true;
+        try {
+            sharded.command("ID1", new ShipCommand(CommandType.FLY_TO, "S" + crossing));
+            fail("Handoff to a failed shard succeeded");
+        } catch (IOException expected) {
+            // expected
+        }
+        assertEquals(source, sharded.getShard("ID1"));
+        assertEquals(1, shards.get(source).getShipCount());
+        assertEquals(0, shards.get(target).getShipCount());
+
+        // The next command finishes the handoff first, and is then performed
+        shards.get(target).refuseDocks = false;
+        ShardedGalaxy.Result result = sharded.command("ID1",
+                new ShipCommand(CommandType.SHOW_PORT, ""));
+        assertTrue(result.success);
+        assertTrue(result.output.contains("S" + crossing));
+        assertEquals(target, result.shard);
+        assertEquals(0, shards.get(source).getShipCount());
+        assertEquals(1, shards.get(target).getShipCount());
+        assertEquals(1, sharded.getHandoffCount());
+    }
+
+    @Test
+    public void oversizedFramesAreRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeInt(Integer.MAX_VALUE);
+        try {
+            Shard.readFrame(new DataInputStream(
+                    new ByteArrayInputStream(bytes.toByteArray())));
+            fail("Oversized frame accepted");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void failedCommandStaysInShard() throws Exception {
+        sharded.addShip(new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC,
+                galaxy));
+        ShardedGalaxy.Result result = sharded.command("ID1",
+                new ShipCommand(CommandType.FLY_TO, "Nowhere"));
+        assertFalse(result.success);
+        assertFalse(result.output.isEmpty());
+        assertEquals(0, sharded.getHandoffCount());
+    }
+
+    @Test
+    public void rangeQueriesMatchUnshardedGalaxy() throws Exception {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            Position centre = new Position(random.nextInt(500) - 50, random.nextInt(40),
+                    random.nextInt(40));
+            int radius = random.nextInt(150);
+            List<String> expected = new ArrayList<>();
+            for (SpacePort port : galaxy) {
+                if (centre.distanceTo(port.getPosition()) <= radius) {
+                    expected.add(port.getName());
+                }
+            }
+            expected.sort(null);
+            assertEquals(expected, sharded.within(centre, radius));
+        }
+    }
+}
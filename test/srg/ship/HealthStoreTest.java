@@ -0,0 +1,83 @@
+package srg.ship;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HealthStoreTest {
+
+    private List<Room> fleet(HealthStore store) {
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            rooms.add(new Room(RoomTier.values()[i % 3], RoomKind.ENGINE, store));
+        }
+        return rooms;
+    }
+
+    @Test
+    public void bulkDamageMatchesRooms() {
+        HealthStore store = new HealthStore(4);
+        List<Room> rooms = fleet(store);
+        List<Room> expected = fleet(new HealthStore());
+        boolean[] needsRepair = new boolean[store.size()];
+        boolean[] broken = new boolean[store.size()];
+        for (int tick = 0; tick < 50; tick++) {
+            store.damageAll();
+            store.needsRepair(needsRepair);
+            store.broken(broken);
+            for (int i = 0; i < rooms.size(); i++) {
+                Room room = expected.get(i);
+                room.damage();
+                assertEquals(room.getHealthPoints(), rooms.get(i).getHealthPoints());
+                // The masks must agree with the rounded-down percentage
+                assertEquals(room.getHealth() <= Damageable.REPAIR_THRESHOLD, needsRepair[i]);
+                assertEquals(room.getHealth() <= 0, broken[i]);
+                assertEquals(needsRepair[i], rooms.get(i).needsRepair());
+                assertEquals(broken[i], rooms.get(i).isBroken());
+            }
+        }
+    }
+
+    @Test
+    public void selectedDamageAndReset() {
+        HealthStore store = new HealthStore();
+        List<Room> rooms = fleet(store);
+        boolean[] selected = new boolean[store.size()];
+        for (int i = 0; i < selected.length; i += 2) {
+            selected[i] = true;
+        }
+        store.damage(selected);
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            assertEquals(selected[i], room.getHealthPoints() < room.getMaximumHealth());
+        }
+
+        store.damageAll();
+        rooms.get(0).upgrade();
+        store.damageAll();
+        store.resetHealth(selected);
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            assertEquals(selected[i], room.getHealthPoints() == room.getMaximumHealth());
+        }
+        assertEquals(RoomTier.AVERAGE, rooms.get(0).getTier());
+        assertEquals(100, rooms.get(0).getMaximumHealth());
+    }
+
+    @Test
+    public void shipsShareStore() {
+        HealthStore store = new HealthStore();
+        Ship first = new Ship("A", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC,
+                new ArrayList<>(), store);
+        Ship second = new Ship("B", "Owner", "ID2", RoomTier.PRIME, RoomTier.PRIME,
+                new ArrayList<>(), store);
+        assertEquals(4, store.size());
+        assertSame(store, second.getNavigationRoom().getHealthStore());
+        store.damageAll();
+        assertEquals(40, first.getCargoHold().getHealthPoints());
+        assertEquals(195, second.getNavigationRoom().getHealthPoints());
+    }
+}
@@ -0,0 +1,92 @@
+package srg.ship;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MaintenancePlannerTest {
+
+    private Ship ship;
+
+    @Before
+    public void setup() {
+        ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.PRIME, new ArrayList<>());
+    }
+
+    @Test
+    public void tripsUntilRepairNeededBasic() {
+        // BASIC: 50 health, 10 damage per trip, needs repair at 15 or below
+        Room room = new Room(RoomTier.BASIC);
+        assertEquals(4, MaintenancePlanner.tripsUntilRepairNeeded(room));
+        assertEquals(5, MaintenancePlanner.tripsUntilBroken(room));
+    }
+
+    @Test
+    public void tripsUntilRepairNeededPrime() {
+        // PRIME: 200 health, 5 damage per trip, needs repair at 61 or below, broken at 1
+        Room room = new Room(RoomTier.PRIME);
+        assertEquals(28, MaintenancePlanner.tripsUntilRepairNeeded(room));
+        assertEquals(40, MaintenancePlanner.tripsUntilBroken(room));
+    }
+
+    @Test
+    public void alreadyNeedsRepair() {
+        Room room = new Room(RoomTier.BASIC);
+        for (int i = 0; i < 6; i++) {
+            room.damage();
+        }
+        assertEquals(0, MaintenancePlanner.tripsUntilRepairNeeded(room));
+        assertEquals(0, MaintenancePlanner.tripsUntilBroken(room));
+    }
+
+    @Test
+    public void scheduleMatchesSimulation() {
+        for (RoomTier tier : RoomTier.values()) {
+            for (MaintenancePlanner.Policy policy : MaintenancePlanner.Policy.values()) {
+                Room room = new Room(tier);
+                room.damage();
+                int[] schedule = MaintenancePlanner.repairSchedule(room, 100, policy);
+
+                List<Integer> simulated = new ArrayList<>();
+                for (int trip = 0; trip < 100; trip++) {
+                    boolean repair = policy == MaintenancePlanner.Policy.AT_THRESHOLD
+                            ? room.needsRepair() : room.isBroken();
+                    if (repair) {
+                        simulated.add(trip);
+                        room.resetHealth();
+                    }
+                    room.damage();
+                }
+
+                assertEquals(simulated.size(), schedule.length);
+                for (int i = 0; i < schedule.length; i++) {
+                    assertEquals((int) simulated.get(i), schedule[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void bestPrefersFewerRepairs() {
+        MaintenancePlanner planner = new MaintenancePlanner(ship,
+                MaintenancePlanner.Policy.AT_THRESHOLD);
+        List<String> longRoute = List.of("A", "B", "C", "D", "E", "F", "G", "H", "I");
+        List<String> shortRoute = List.of("A", "I");
+
+        MaintenancePlanner.Plan plan = planner.best(List.of(longRoute, shortRoute));
+        assertEquals(shortRoute, plan.route);
+        assertEquals(0, plan.kitsNeeded);
+        assertTrue(plan.isFeasible());
+
+        MaintenancePlanner.Plan longPlan = planner.plan(longRoute);
+        // The BASIC CargoHold is repaired every 4 trips; the PRIME NavigationRoom never
+        assertEquals(2, longPlan.kitsNeeded);
+        assertEquals(4, longPlan.repairs.get("CargoHold")[0]);
+        assertEquals(8, longPlan.repairs.get("CargoHold")[1]);
+        assertEquals(0, longPlan.repairs.get("NavigationRoom").length);
+    }
+}
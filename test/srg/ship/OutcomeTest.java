@@ -0,0 +1,211 @@
+package srg.ship;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.cli.given.IO;
+import srg.cli.given.PurchaseCommand;
+import srg.cli.given.ShipCommand;
+import srg.exceptions.InsufficientResourcesException;
+import srg.exceptions.NoPathException;
+import srg.ports.Position;
+import srg.ports.PurchaseResult;
+import srg.ports.SpacePort;
+import srg.ports.Store;
+import srg.resources.FuelContainer;
+import srg.resources.FuelGrade;
+import srg.resources.ResourceContainer;
+import srg.resources.ResourceType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OutcomeTest {
+
+    /** Within fly range of Home. */
+    private SpacePort near;
+    /** Beyond fly range but within jump range of Home. */
+    private SpacePort far;
+    private List<SpacePort> galaxy;
+    private CargoHold cargoHold;
+    private NavigationRoom navigationRoom;
+
+    @Before
+    public void setUp() throws Exception {
+        near = new SpacePort("Near", new Position(100, 0, 0));
+        far = new SpacePort("Far", new Position(300, 0, 0));
+        SpacePort remote = new SpacePort("Remote", new Position(1000, 0, 0));
+        galaxy = List.of(new SpacePort("Home", new Position(0, 0, 0)), near, far, remote);
+        cargoHold = new CargoHold(RoomTier.BASIC);
+        cargoHold.storeResource(new FuelContainer(FuelGrade.TRITIUM, 50));
+        cargoHold.storeResource(new ResourceContainer(ResourceType.REPAIR_KIT, 2));
+        navigationRoom = new NavigationRoom(RoomTier.BASIC, galaxy);
+    }
+
+    private static void breakRoom(Room room) {
+        while (!room.isBroken()) {
+            room.damage();
+        }
+    }
+
+    @Test
+    public void consumeResourceOutcomes() {
+        assertEquals(Outcome.INSUFFICIENT_RESOURCES,
+                cargoHold.tryConsumeResource(ResourceType.REPAIR_KIT, 3));
+        assertEquals(2, cargoHold.getTotalAmountByType(ResourceType.REPAIR_KIT));
+        assertEquals(Outcome.SUCCESS, cargoHold.tryConsumeResource(ResourceType.REPAIR_KIT, 2));
+        assertEquals(0, cargoHold.getTotalAmountByType(ResourceType.REPAIR_KIT));
+
+        assertEquals(Outcome.INSUFFICIENT_RESOURCES,
+                cargoHold.tryConsumeResource(FuelGrade.HYPERDRIVE_CORE, 1));
+        assertEquals(Outcome.SUCCESS, cargoHold.tryConsumeResource(FuelGrade.TRITIUM, 20));
+        assertEquals(30, cargoHold.getTotalAmountByType(FuelGrade.TRITIUM));
+    }
+
+    @Test
+    public void consumeResourceStillThrows() throws InsufficientResourcesException {
+        try {
+            cargoHold.consumeResource(ResourceType.REPAIR_KIT, 3);
+            fail("Consumed more repair kits than were stored.");
+        } catch (InsufficientResourcesException e) {
+            // Expected
+        }
+        try {
+            cargoHold.consumeResource(FuelGrade.TRITIUM, 51);
+            fail("Consumed more tritium than was stored.");
+        } catch (InsufficientResourcesException e) {
+            // Expected
+        }
+        cargoHold.consumeResource(FuelGrade.TRITIUM, 50);
+        assertEquals(0, cargoHold.getTotalAmountByType(FuelGrade.TRITIUM));
+    }
+
+    @Test
+    public void flyOutcomes() throws Exception {
+        assertEquals(Outcome.UNKNOWN_PORT, navigationRoom.tryFlyTo("Nowhere", cargoHold));
+        assertEquals(Outcome.OUT_OF_RANGE, navigationRoom.tryFlyTo("Far", cargoHold));
+        // Near is 100 away, but only 50 TRITIUM is stored
+        assertEquals(Outcome.INSUFFICIENT_RESOURCES, navigationRoom.tryFlyTo("Near", cargoHold));
+        assertEquals(galaxy.get(0), navigationRoom.getCurrentPort());
+
+        cargoHold.storeResource(new FuelContainer(FuelGrade.TRITIUM, 50));
+        assertEquals(Outcome.SUCCESS, navigationRoom.tryFlyTo("Near", cargoHold));
+        assertEquals(near, navigationRoom.getCurrentPort());
+        assertEquals(0, cargoHold.getTotalAmountByType(FuelGrade.TRITIUM));
+
+        breakRoom(cargoHold);
+        assertEquals(Outcome.BROKEN_ROOM, navigationRoom.tryFlyTo("Home", cargoHold));
+    }
+
+    @Test
+    public void jumpOutcomes() throws Exception {
+        assertEquals(Outcome.UNKNOWN_PORT, navigationRoom.tryJumpTo("Nowhere", cargoHold));
+        assertEquals(Outcome.OUT_OF_RANGE, navigationRoom.tryJumpTo("Remote", cargoHold));
+        assertEquals(Outcome.INSUFFICIENT_RESOURCES, navigationRoom.tryJumpTo("Far", cargoHold));
+
+        cargoHold.storeResource(new FuelContainer(FuelGrade.HYPERDRIVE_CORE, 1));
+        assertEquals(Outcome.SUCCESS, navigationRoom.tryJumpTo("Far", cargoHold));
+        assertEquals(far, navigationRoom.getCurrentPort());
+        assertEquals(0, cargoHold.getTotalAmountByType(FuelGrade.HYPERDRIVE_CORE));
+
+        breakRoom(navigationRoom);
+        assertEquals(Outcome.BROKEN_ROOM, navigationRoom.tryJumpTo("Home", cargoHold));
+    }
+
+    @Test
+    public void travelStillThrows() throws Exception {
+        try {
+            navigationRoom.flyTo("Nowhere", cargoHold);
+            fail("Flew to an unknown port.");
+        } catch (NoPathException e) {
+            // Expected
+        }
+        try {
+            navigationRoom.flyTo("Far", cargoHold);
+            fail("Flew beyond fly range.");
+        } catch (NoPathException e) {
+            // Expected
+        }
+        try {
+            navigationRoom.flyTo("Near", cargoHold);
+            fail("Flew without enough tritium.");
+        } catch (InsufficientResourcesException e) {
+            // Expected
+        }
+        try {
+            navigationRoom.jumpTo("Remote", cargoHold);
+            fail("Jumped beyond jump range.");
+        } catch (NoPathException e) {
+            // Expected
+        }
+        try {
+            navigationRoom.jumpTo("Far", cargoHold);
+            fail("Jumped without a hyperdrive core.");
+        } catch (InsufficientResourcesException e) {
+            // Expected
+        }
+        breakRoom(navigationRoom);
+        try {
+            navigationRoom.jumpTo("Far", cargoHold);
+            fail("Jumped with a broken NavigationRoom.");
+        } catch (InsufficientResourcesException e) {
+            // Expected
+        }
+        assertEquals(galaxy.get(0), navigationRoom.getCurrentPort());
+    }
+
+    @Test
+    public void purchaseOutcomes() {
+        Store store = new Store("Store", new Position(0, 0, 0));
+        PurchaseResult unknown = store.tryPurchase("PLUTONIUM", 1);
+        assertEquals(Outcome.UNKNOWN_ITEM, unknown.outcome);
+        assertNull(unknown.container);
+
+        PurchaseResult tooMany = store.tryPurchase(ResourceType.REPAIR_KIT.name(),
+                ResourceContainer.MAXIMUM_CAPACITY + 1);
+        assertEquals(Outcome.INSUFFICIENT_RESOURCES, tooMany.outcome);
+        assertFalse(tooMany.isSuccess());
+
+        PurchaseResult bought = store.tryPurchase(FuelGrade.TRITIUM.name(), 10);
+        assertEquals(Outcome.SUCCESS, bought.outcome);
+        assertEquals(10, bought.container.getAmount());
+        assertEquals(FuelContainer.MAXIMUM_CAPACITY - 10, store.getStock(FuelGrade.TRITIUM.name()));
+    }
+
+    @Test
+    public void purchaseStillThrows() throws InsufficientResourcesException {
+        Store store = new Store("Store", new Position(0, 0, 0));
+        try {
+            store.purchase("PLUTONIUM", 1);
+            fail("Purchased an unknown item.");
+        } catch (InsufficientResourcesException e) {
+            assertEquals(Outcome.UNKNOWN_ITEM.getMessage(), e.getMessage());
+        }
+        try {
+            store.purchase(FuelGrade.HYPERDRIVE_CORE.name(), FuelContainer.MAXIMUM_CAPACITY + 1);
+            fail("Purchased more than the Store holds.");
+        } catch (InsufficientResourcesException e) {
+            // Expected
+        }
+        assertEquals(5, store.purchase(ResourceType.REPAIR_KIT.name(), 5).getAmount());
+    }
+
+    @Test
+    public void commandsOutsideTheRightPortAreNotDocked() throws Exception {
+        List<String> output = new ArrayList<>();
+        IO io = new IO() {
+            @Override
+            public void writeLn(String line) {
+                output.add(line);
+            }
+        };
+        Ship ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+        assertFalse(ship.processCommand(io, new PurchaseCommand("TRITIUM", 1)));
+        assertFalse(ship.performCommand(io,
+                new ShipCommand(CommandType.UPGRADE_ROOM, "CargoHold")));
+        assertEquals(List.of("Can only purchase items at a Store.",
+                "Can only upgrade when docked at a ShipYard."), output);
+    }
+}
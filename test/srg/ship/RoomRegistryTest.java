@@ -0,0 +1,94 @@
+package srg.ship;
+
+import org.junit.Before;
+import org.junit.Test;
+import srg.cli.given.CommandType;
+import srg.cli.given.ShipCommand;
+import srg.game.QuietIO;
+import srg.ports.Position;
+import srg.ports.ShipYard;
+import srg.ports.SpacePort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RoomRegistryTest {
+
+    private Ship ship;
+
+    @Before
+    public void setup() {
+        List<SpacePort> galaxy = new ArrayList<>();
+        galaxy.add(new ShipYard("Yard", new Position(0, 0, 0), List.of("Engine")));
+        galaxy.add(new SpacePort("Near", new Position(10, 0, 0)));
+        ship = new Ship("Test", "Owner", "ID1", RoomTier.BASIC, RoomTier.BASIC, galaxy);
+    }
+
+    @Test
+    public void standardRooms() {
+        assertSame(ship.getCargoHold(), ship.getRoomByName("CargoHold"));
+        assertSame(ship.getNavigationRoom(), ship.getRoomByName("NavigationRoom"));
+        assertEquals(List.of(ship.getCargoHold()), ship.getRooms().getRooms(RoomKind.CARGO_HOLD));
+        assertEquals(List.of("repair NavigationRoom [COST: 1 REPAIR_KIT]",
+                "repair CargoHold [COST: 1 REPAIR_KIT]"), ship.getActions().subList(0, 2));
+        assertTrue(ship.toString().endsWith(ship.getCargoHold() + "\n"
+                + ship.getNavigationRoom()));
+    }
+
+    @Test
+    public void extraRooms() throws Exception {
+        Room engine = new Room(RoomTier.BASIC, RoomKind.ENGINE);
+        CargoHold hold = new CargoHold(RoomTier.BASIC);
+        ship.addRoom("Engine", engine);
+        ship.addRoom("CargoHold2", hold);
+        assertSame(engine, ship.getRoomByName("Engine"));
+        assertEquals(List.of(ship.getCargoHold(), hold),
+                ship.getRooms().getRooms(RoomKind.CARGO_HOLD));
+        assertEquals("repair CargoHold2 [COST: 1 REPAIR_KIT]", ship.getActions().get(0));
+        assertTrue(ship.toString().endsWith("\n" + engine + "\n" + hold));
+
+        ship.processCommand(new QuietIO(), new ShipCommand(CommandType.FLY_TO, "Near"));
+        assertTrue(engine.getHealthPoints() < engine.getMaximumHealth());
+        ship.processCommand(new QuietIO(), new ShipCommand(CommandType.REPAIR_ROOM, "Engine"));
+        assertEquals(engine.getMaximumHealth(), engine.getHealthPoints());
+    }
+
+    @Test
+    public void upgradeExtraRoom() throws Exception {
+        Room engine = new Room(RoomTier.BASIC, RoomKind.ENGINE);
+        ship.addRoom("Engine", engine);
+        ship.processCommand(new QuietIO(), new ShipCommand(CommandType.UPGRADE_ROOM, "Engine"));
+        assertEquals(RoomTier.AVERAGE, engine.getTier());
+        assertTrue(ship.getRoomByName("Engine").toString().startsWith("ROOM: Engine(AVERAGE)"));
+    }
+
+    @Test
+    public void rejectsInvalidRooms() {
+        try {
+            ship.addRoom("CargoHold", new CargoHold(RoomTier.BASIC));
+            fail("Duplicate name accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            ship.addRoom("Spare", new Room(RoomTier.BASIC));
+            fail("Room without a kind accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            ship.addRoom("NavigationRoom2", new NavigationRoom(RoomTier.BASIC, List.of()));
+            fail("Second NavigationRoom accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            ship.getRoomByName("Shield");
+            fail("Missing Room returned");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}